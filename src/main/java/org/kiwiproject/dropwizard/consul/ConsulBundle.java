@@ -1,33 +1,61 @@
 package org.kiwiproject.dropwizard.consul;
 
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Predicate.not;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.net.HostAndPort;
 import io.dropwizard.configuration.SubstitutingSourceProvider;
 import io.dropwizard.core.Configuration;
 import io.dropwizard.core.ConfiguredBundle;
+import io.dropwizard.core.server.DefaultServerFactory;
+import io.dropwizard.core.server.ServerFactory;
+import io.dropwizard.core.server.SimpleServerFactory;
 import io.dropwizard.core.setup.Bootstrap;
 import io.dropwizard.core.setup.Environment;
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.jetty.HttpConnectorFactory;
 import io.dropwizard.util.Duration;
+import org.jspecify.annotations.Nullable;
 import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.option.ConsistencyMode;
 import org.kiwiproject.dropwizard.consul.config.ConsulSubstitutor;
+import org.kiwiproject.dropwizard.consul.config.DynamicConfig;
+import org.kiwiproject.dropwizard.consul.coordinate.NetworkCoordinates;
+import org.kiwiproject.dropwizard.consul.coordination.DistributedRateLimiter;
+import org.kiwiproject.dropwizard.consul.coordination.DistributedSemaphore;
+import org.kiwiproject.dropwizard.consul.coordination.LeaderElection;
 import org.kiwiproject.dropwizard.consul.core.ConsulAdvertiser;
 import org.kiwiproject.dropwizard.consul.core.ConsulServiceListener;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+import org.kiwiproject.dropwizard.consul.event.CacheInvalidator;
+import org.kiwiproject.dropwizard.consul.health.AsyncConsulHealthCheck;
+import org.kiwiproject.dropwizard.consul.health.ConsulClusterHealthCheck;
 import org.kiwiproject.dropwizard.consul.health.ConsulHealthCheck;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueMirror;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueReader;
+import org.kiwiproject.dropwizard.consul.loadbalancer.OutlierDetector;
 import org.kiwiproject.dropwizard.consul.managed.ConsulAdvertiserManager;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.saturation.SaturationMonitor;
+import org.kiwiproject.dropwizard.consul.task.CompressedKeyValueTask;
 import org.kiwiproject.dropwizard.consul.task.MaintenanceTask;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * Replace variables with values from Consul KV. By default, this only works with a Consul agent
@@ -49,6 +77,27 @@ public abstract class ConsulBundle<C extends Configuration>
 
     private final AtomicBoolean initializeAttempted;
     private final AtomicBoolean initializeSucceeded;
+    private final AtomicReference<ConsulMetrics> consulMetrics;
+    private final AtomicReference<ServiceDiscoveryCache> serviceDiscoveryCache;
+    private final AtomicReference<NetworkCoordinates> networkCoordinates;
+    private final AtomicReference<OutlierDetector> outlierDetector;
+    private final AtomicReference<WatchEngine> watchEngine;
+    private final AtomicReference<RuntimeContext> runtimeContext;
+    private final AtomicReference<KeyValueReader> keyValueReader;
+    private final AtomicReference<LeaderElection> leaderElection;
+    private final AtomicReference<CacheInvalidator> cacheInvalidator;
+
+    /**
+     * What {@link #bindConfig(String, Class, Object)}, {@link #mirrorKeyValues(String)},
+     * {@link #createSemaphore(String, int)}, and {@link #createRateLimiter(String, long, Duration)} need from
+     * {@link #run(Configuration, Environment)}.
+     */
+    private record RuntimeContext(Consul consul,
+                                  ConsulMetrics metrics,
+                                  ConsistencyMode consistencyMode,
+                                  String serviceId,
+                                  Environment environment) {
+    }
 
     /**
      * Constructor
@@ -81,6 +130,15 @@ public abstract class ConsulBundle<C extends Configuration>
         this.substitutionInVariables = substitutionInVariables;
         this.initializeAttempted = new AtomicBoolean();
         this.initializeSucceeded = new AtomicBoolean();
+        this.consulMetrics = new AtomicReference<>();
+        this.serviceDiscoveryCache = new AtomicReference<>();
+        this.networkCoordinates = new AtomicReference<>();
+        this.outlierDetector = new AtomicReference<>();
+        this.watchEngine = new AtomicReference<>();
+        this.runtimeContext = new AtomicReference<>();
+        this.keyValueReader = new AtomicReference<>();
+        this.leaderElection = new AtomicReference<>();
+        this.cacheInvalidator = new AtomicReference<>();
     }
 
     @Override
@@ -95,7 +153,10 @@ public abstract class ConsulBundle<C extends Configuration>
         var consulAgentHost = getConsulAgentHost();
         var consulAgentPort = getConsulAgentPort();
         try {
-            var consulBuilder = Consul.builder();
+            var metrics = new ConsulMetrics(bootstrap.getMetricRegistry());
+            consulMetrics.set(metrics);
+
+            var consulBuilder = Consul.builder().withClientEventCallback(metrics);
             if (unixDomainSocketPath.isPresent()) {
                 LOG.debug("Connecting to Consul via Unix domain socket at {}", unixDomainSocketPath.get());
                 consulBuilder.withUnixDomainSocket(unixDomainSocketPath.get());
@@ -125,7 +186,8 @@ public abstract class ConsulBundle<C extends Configuration>
             bootstrap.setConfigurationSourceProvider(
                 new SubstitutingSourceProvider(
                     bootstrap.getConfigurationSourceProvider(),
-                    new ConsulSubstitutor(consul, strict, substitutionInVariables)));
+                    new ConsulSubstitutor(consul, strict, substitutionInVariables, metrics,
+                        getConsulKvReadConsistency().toKeyValueConsistencyMode())));
 
             LOG.info("ConsulBundle successfully initialized");
             initializeSucceeded.set(true);
@@ -156,12 +218,73 @@ public abstract class ConsulBundle<C extends Configuration>
     public void run(C configuration, Environment environment) {
         var consulFactory = getConsulFactory(configuration);
         if (consulFactory.isEnabled()) {
+            resolveServiceId(consulFactory, configuration);
             runEnabled(consulFactory, environment);
         } else {
             LOG.warn("Consul bundle disabled.");
         }
     }
 
+    /**
+     * If no {@code serviceId} is configured and the {@link ServiceIdStrategy} is
+     * {@link ServiceIdStrategy#HOST_AND_PORT HOST_AND_PORT}, generate the deterministic ID and set it on
+     * the factory. The port is the configured {@code servicePort}, or else the first HTTP application
+     * connector port from the Dropwizard server configuration. If the host or port cannot be determined
+     * (e.g., the connector uses a random port), a random ID will be used instead.
+     */
+    @VisibleForTesting
+    void resolveServiceId(ConsulFactory consulFactory, C configuration) {
+        if (consulFactory.getServiceId().isPresent()
+                || consulFactory.getServiceIdStrategy() != ServiceIdStrategy.HOST_AND_PORT) {
+            return;
+        }
+
+        var serviceName = Optional.ofNullable(consulFactory.getServiceName())
+            .filter(not(String::isBlank))
+            .orElse(defaultServiceName);
+        var port = consulFactory.getServicePort()
+            .or(() -> findApplicationPort(configuration.getServerFactory()));
+        var host = consulFactory.getServiceAddress().or(ConsulBundle::localHostName);
+
+        if (port.isEmpty() || host.isEmpty()) {
+            LOG.warn("Unable to determine host ({}) and port ({}) for a {} service ID; a random ID will be used",
+                host.orElse("unknown"), port.map(String::valueOf).orElse("unknown"), ServiceIdStrategy.HOST_AND_PORT);
+            return;
+        }
+
+        var serviceId = ServiceIdStrategy.hostAndPortServiceId(serviceName, host.get(), port.get());
+        LOG.info("Using generated service ID {}", serviceId);
+        consulFactory.setServiceId(serviceId);
+    }
+
+    @VisibleForTesting
+    static Optional<Integer> findApplicationPort(@Nullable ServerFactory serverFactory) {
+        Stream<ConnectorFactory> connectors;
+        if (serverFactory instanceof DefaultServerFactory defaultServerFactory) {
+            connectors = defaultServerFactory.getApplicationConnectors().stream();
+        } else if (serverFactory instanceof SimpleServerFactory simpleServerFactory) {
+            connectors = Stream.of(simpleServerFactory.getConnector());
+        } else {
+            return Optional.empty();
+        }
+
+        return connectors
+            .filter(HttpConnectorFactory.class::isInstance)
+            .map(HttpConnectorFactory.class::cast)
+            .map(HttpConnectorFactory::getPort)
+            .filter(port -> port > 0)
+            .findFirst();
+    }
+
+    private static Optional<String> localHostName() {
+        try {
+            return Optional.of(InetAddress.getLocalHost().getHostName());
+        } catch (UnknownHostException e) {
+            LOG.warn("Unable to determine local host name", e);
+            return Optional.empty();
+        }
+    }
+
     protected void runEnabled(ConsulFactory consulFactory, Environment environment) {
         if (isNullOrEmpty(consulFactory.getServiceName())) {
             consulFactory.setServiceName(defaultServiceName);
@@ -171,9 +294,10 @@ public abstract class ConsulBundle<C extends Configuration>
 
     protected void setupEnvironment(ConsulFactory consulFactory, Environment environment) {
 
-        var consul = consulFactory.build();
-        var serviceId = consulFactory.getServiceId().orElseGet(() -> UUID.randomUUID().toString());
-        var advertiser = new ConsulAdvertiser(environment, consulFactory, consul, serviceId);
+        var metrics = metricsFor(environment);
+        var consul = consulFactory.build(metrics);
+        var serviceId = consulFactory.getServiceId().orElseGet(ServiceIdStrategy::randomServiceId);
+        var advertiser = new ConsulAdvertiser(environment, consulFactory, consul, serviceId, metrics);
 
         Optional<Duration> retryInterval = consulFactory.getRetryInterval();
         Optional<ScheduledExecutorService> scheduler =
@@ -185,14 +309,119 @@ public abstract class ConsulBundle<C extends Configuration>
             .addServerLifecycleListener(
                 new ConsulServiceListener(advertiser, retryInterval.orElse(null), scheduler.orElse(null)));
 
+        // Register a Jetty listener to signal saturation through the Consul check state
+        consulFactory.getSaturationMonitor().ifPresent(saturationConfig -> {
+            var monitorScheduler = environment.lifecycle()
+                .scheduledExecutorService("consul-saturation-monitor-%d", true)
+                .build();
+            environment.lifecycle()
+                .addServerLifecycleListener(new SaturationMonitor(consul, serviceId, saturationConfig, monitorScheduler));
+        });
+
         // Register a ping healthcheck to the Consul agent
-        environment.healthChecks().register("consul", new ConsulHealthCheck(consul));
+        var agentHealthCheckConfig = consulFactory.getAgentHealthCheck();
+        if (agentHealthCheckConfig.isAsync()) {
+            var healthCheckScheduler = environment.lifecycle()
+                .scheduledExecutorService("consul-health-check-%d", true)
+                .build();
+            var healthCheck = new AsyncConsulHealthCheck(consul, metrics, agentHealthCheckConfig, healthCheckScheduler);
+            environment.lifecycle().manage(healthCheck);
+            environment.healthChecks().register("consul", healthCheck);
+        } else {
+            environment.healthChecks().register("consul", new ConsulHealthCheck(consul, metrics));
+        }
+
+        // Register a healthcheck for the Consul cluster (leader and server lag)
+        consulFactory.getClusterHealthCheck().ifPresent(clusterHealthCheckConfig -> {
+            var clusterHealthCheckScheduler = environment.lifecycle()
+                .scheduledExecutorService("consul-cluster-health-check-%d", true)
+                .build();
+            var clusterHealthCheck = new ConsulClusterHealthCheck(consul, consulFactory.getServiceName(), serviceId,
+                clusterHealthCheckConfig, metrics, clusterHealthCheckScheduler);
+            environment.lifecycle().manage(clusterHealthCheck);
+            environment.healthChecks().register("consul-cluster", clusterHealthCheck);
+        });
 
         // Register a shutdown manager to deregister the service
         environment.lifecycle().manage(new ConsulAdvertiserManager(advertiser, scheduler.orElse(null)));
 
+        // Run the blocking queries of this bundle on one shared, bounded engine (started before its users)
+        var engine = new WatchEngine(consulFactory.getWatch());
+        environment.lifecycle().manage(engine);
+        watchEngine.set(engine);
+        var keyValueConsistencyMode = consulFactory.getReadConsistency().toKeyValueConsistencyMode();
+        runtimeContext.set(new RuntimeContext(consul, metrics, keyValueConsistencyMode, serviceId,
+            environment));
+        keyValueReader.set(new KeyValueReader(consul, metrics, keyValueConsistencyMode));
+
+        // Watch the healthy instances of other services
+        consulFactory.getDiscovery().ifPresent(discoveryConfig -> {
+            var readConsistency = consulFactory.getReadConsistency();
+            var consistencyMode = readConsistency.toConsistencyMode();
+            if (discoveryConfig.isStreaming() && readConsistency.getMode() != ReadConsistencyFactory.Mode.CACHED) {
+                LOG.info("Service discovery streaming uses CACHED reads instead of the configured {} mode",
+                    readConsistency.getMode());
+                consistencyMode = ConsistencyMode.CACHED;
+            }
+            var cache = new ServiceDiscoveryCache(consul, discoveryConfig, consistencyMode, metrics, engine);
+            environment.lifecycle().manage(cache);
+            serviceDiscoveryCache.set(cache);
+            discoveryConfig.getOutlierDetection().ifPresent(outlierDetectionConfig ->
+                outlierDetector.set(new OutlierDetector(outlierDetectionConfig, cache)));
+        });
+
+        // Keep the network coordinates of the nodes for round-trip time estimates
+        consulFactory.getCoordinates().ifPresent(coordinatesConfig -> {
+            var coordinatesScheduler = environment.lifecycle()
+                .scheduledExecutorService("consul-coordinates-%d", true)
+                .build();
+            var coordinates = new NetworkCoordinates(consul, coordinatesConfig, metrics, coordinatesScheduler);
+            environment.lifecycle().manage(coordinates);
+            networkCoordinates.set(coordinates);
+        });
+
+        // Elect a leader among the instances of this service
+        consulFactory.getLeaderElection().ifPresent(leaderElectionConfig -> {
+            var leaderElectionScheduler = environment.lifecycle()
+                .scheduledExecutorService("consul-leader-election-%d", true)
+                .build();
+            var key = leaderElectionConfig.getKey()
+                .orElseGet(() -> "service/" + consulFactory.getServiceName() + "/leader");
+            var election = new LeaderElection(consul, engine, leaderElectionConfig, key, serviceId, metrics,
+                leaderElectionScheduler);
+            environment.lifecycle().manage(election);
+            leaderElection.set(election);
+        });
+
+        // Invalidate application caches across the fleet through user events
+        consulFactory.getCacheInvalidation().ifPresent(cacheInvalidationConfig -> {
+            var invalidationScheduler = environment.lifecycle()
+                .scheduledExecutorService("consul-cache-invalidation-%d", true)
+                .build();
+            var invalidator = new CacheInvalidator(consul, engine, cacheInvalidationConfig, metrics,
+                invalidationScheduler);
+            environment.lifecycle().manage(invalidator);
+            cacheInvalidator.set(invalidator);
+        });
+
         // Add an administrative task to toggle maintenance mode
-        environment.admin().addTask(new MaintenanceTask(consul, serviceId));
+        environment.admin().addTask(new MaintenanceTask(consul, serviceId, metrics));
+
+        // Add an administrative task to write compressed KV values
+        environment.admin().addTask(new CompressedKeyValueTask(consul, metrics));
+    }
+
+    /**
+     * Return the {@link ConsulMetrics} created during {@link #initialize(Bootstrap)} if it uses the
+     * environment's metric registry (which it normally does), so that both share the same gauges.
+     * Otherwise, create a new one.
+     */
+    private ConsulMetrics metricsFor(Environment environment) {
+        var metrics = consulMetrics.get();
+        if (metrics != null && metrics.getRegistry() == environment.metrics()) {
+            return metrics;
+        }
+        return new ConsulMetrics(environment.metrics());
     }
 
     /**
@@ -226,6 +455,17 @@ public abstract class ConsulBundle<C extends Configuration>
         return Optional.empty();
     }
 
+    /**
+     * Override as necessary to read Consul KV values for configuration variable substitution with a different
+     * consistency mode, e.g., {@code STALE} to spread the reads across all Consul servers. This cannot come from
+     * the {@link ConsulFactory}, since substitution happens before the configuration is read.
+     *
+     * @return By default, the default consistency mode
+     */
+    public ReadConsistencyFactory getConsulKvReadConsistency() {
+        return new ReadConsistencyFactory();
+    }
+
     /**
      * Override as necessary to provide an alternative ACL Token. This is only required if using
      * Consul KV for configuration variable substitution.
@@ -236,6 +476,198 @@ public abstract class ConsulBundle<C extends Configuration>
         return Optional.empty();
     }
 
+    /**
+     * Return the cache of discovered service instances. It is only present after {@link #run(Configuration, Environment)}
+     * when {@code discovery} is configured in the {@link ConsulFactory}.
+     *
+     * @return the service discovery cache, or an empty Optional if service discovery is not configured
+     */
+    public Optional<ServiceDiscoveryCache> getServiceDiscoveryCache() {
+        return Optional.ofNullable(serviceDiscoveryCache.get());
+    }
+
+    /**
+     * Return the outlier detector for discovered services. It is only present after
+     * {@link #run(Configuration, Environment)} when {@code outlierDetection} is configured under {@code discovery}.
+     *
+     * @return the outlier detector, or an empty Optional if outlier detection is not configured
+     */
+    public Optional<OutlierDetector> getOutlierDetector() {
+        return Optional.ofNullable(outlierDetector.get());
+    }
+
+    /**
+     * Return the network coordinates of the Consul nodes. They are only present after
+     * {@link #run(Configuration, Environment)} when {@code coordinates} is configured in the {@link ConsulFactory}.
+     *
+     * @return the network coordinates, or an empty Optional if they are not configured
+     */
+    public Optional<NetworkCoordinates> getNetworkCoordinates() {
+        return Optional.ofNullable(networkCoordinates.get());
+    }
+
+    /**
+     * Return the engine that runs the blocking queries of this bundle. Applications can add their own watches to
+     * it, which then share its concurrency limit. It is only present after {@link #run(Configuration, Environment)}
+     * when Consul is enabled.
+     *
+     * @return the watch engine, or an empty Optional if this bundle has not run or Consul is disabled
+     */
+    public Optional<WatchEngine> getWatchEngine() {
+        return Optional.ofNullable(watchEngine.get());
+    }
+
+    /**
+     * Return the leader election among the instances of this service. It is only present after
+     * {@link #run(Configuration, Environment)} when {@code leaderElection} is configured in the {@link ConsulFactory}.
+     *
+     * @return the leader election, or an empty Optional if it is not configured
+     */
+    public Optional<LeaderElection> getLeaderElection() {
+        return Optional.ofNullable(leaderElection.get());
+    }
+
+    /**
+     * Return the invalidator of application caches across the fleet. It is only present after
+     * {@link #run(Configuration, Environment)} when {@code cacheInvalidation} is configured in the
+     * {@link ConsulFactory}.
+     *
+     * @return the cache invalidator, or an empty Optional if it is not configured
+     */
+    public Optional<CacheInvalidator> getCacheInvalidator() {
+        return Optional.ofNullable(cacheInvalidator.get());
+    }
+
+    /**
+     * Return a reader of KV values as bytes, e.g., for binary or large values. It is only present after
+     * {@link #run(Configuration, Environment)} when Consul is enabled.
+     *
+     * @return the KV reader, or an empty Optional if this bundle has not run or Consul is disabled
+     */
+    public Optional<KeyValueReader> getKeyValueReader() {
+        return Optional.ofNullable(keyValueReader.get());
+    }
+
+    /**
+     * Bind a Consul KV key, or every key under a prefix if the key ends with {@code /}, to a configuration object
+     * that is kept up to date at runtime and validated on every change. Can only be called after
+     * {@link #run(Configuration, Environment)}, e.g., from the application's {@code run} method.
+     *
+     * @param key          the key or prefix
+     * @param type         the type of the configuration object
+     * @param defaultValue the value until the key is read, and while it does not exist
+     * @param <T>          the type of the configuration object
+     * @return the dynamic configuration
+     * @throws IllegalStateException if this bundle has not run or Consul is disabled
+     * @see DynamicConfig
+     */
+    public <T> DynamicConfig<T> bindConfig(String key, Class<T> type, T defaultValue) {
+        var context = requireRuntimeContext("bindConfig");
+        return new DynamicConfig<>(context.consul(), watchEngine.get(), context.metrics(), context.consistencyMode(),
+            key, type, defaultValue, context.environment().getObjectMapper(), context.environment().getValidator());
+    }
+
+    /**
+     * Keep every key under a Consul KV prefix in memory, updated at runtime by a single blocking query, so that many
+     * keys can be read per request without any I/O. Can only be called after
+     * {@link #run(Configuration, Environment)}, e.g., from the application's {@code run} method.
+     *
+     * @param prefix the prefix, e.g., {@code config/my-service/}
+     * @return the mirror
+     * @throws IllegalStateException if this bundle has not run or Consul is disabled
+     * @see KeyValueMirror
+     */
+    public KeyValueMirror mirrorKeyValues(String prefix) {
+        var context = requireRuntimeContext("mirrorKeyValues");
+        return new KeyValueMirror(context.consul(), watchEngine.get(), context.metrics(), context.consistencyMode(),
+            prefix);
+    }
+
+    /**
+     * Create a semaphore with the {@link DistributedSemaphore#DEFAULT_SESSION_TTL default session TTL} of 15 seconds.
+     * See {@link #createSemaphore(String, int, Duration)}.
+     *
+     * @param prefix the KV prefix of the semaphore, e.g., {@code semaphore/reindex/}; must end with {@code /}
+     * @param limit  the number of permits; must be the same for every instance using the prefix
+     * @return the semaphore
+     * @throws IllegalStateException if this bundle has not run or Consul is disabled
+     */
+    public DistributedSemaphore createSemaphore(String prefix, int limit) {
+        return createSemaphore(prefix, limit, DistributedSemaphore.DEFAULT_SESSION_TTL);
+    }
+
+    /**
+     * Create a semaphore that limits how many instances hold a permit for an operation at once, across the fleet. The
+     * semaphore is managed by the application's lifecycle, which releases its permit on shutdown. Can only be called
+     * after {@link #run(Configuration, Environment)}, e.g., from the application's {@code run} method.
+     * <p>
+     * Each instance holds its permits with a Consul session, renewed at half the session TTL. If an instance dies,
+     * its permit is released when its session expires, after about the TTL; a longer TTL tolerates longer Consul
+     * outages without losing the permit, at the cost of blocking other instances longer after a crash.
+     *
+     * @param prefix     the KV prefix of the semaphore, e.g., {@code semaphore/reindex/}; must end with {@code /}
+     * @param limit      the number of permits; must be the same for every instance using the prefix
+     * @param sessionTtl the TTL of each instance's session, between 10 seconds and 24 hours
+     * @return the semaphore
+     * @throws IllegalStateException if this bundle has not run or Consul is disabled
+     * @see DistributedSemaphore
+     */
+    public DistributedSemaphore createSemaphore(String prefix, int limit, Duration sessionTtl) {
+        var context = requireRuntimeContext("createSemaphore");
+        var lifecycle = context.environment().lifecycle();
+        var scheduler = lifecycle.scheduledExecutorService("consul-semaphore-%d", true).build();
+        var semaphore = new DistributedSemaphore(context.consul(), watchEngine.get(), prefix, limit,
+            context.serviceId(), sessionTtl, context.metrics(), scheduler);
+        lifecycle.manage(semaphore);
+        return semaphore;
+    }
+
+    /**
+     * Create a rate limiter whose instances each lease at most a tenth of the budget at once. See
+     * {@link #createRateLimiter(String, long, Duration, long)}.
+     *
+     * @param key              the KV key of the shared budget, e.g., {@code rate-limit/partner-api}
+     * @param permitsPerWindow the number of permits per window, across all instances
+     * @param window           the length of a window, e.g., one second
+     * @return the rate limiter
+     * @throws IllegalStateException if this bundle has not run or Consul is disabled
+     */
+    public DistributedRateLimiter createRateLimiter(String key, long permitsPerWindow, Duration window) {
+        return createRateLimiter(key, permitsPerWindow, window, Math.max(1, permitsPerWindow / 10));
+    }
+
+    /**
+     * Create a rate limiter whose budget of permits per window is shared by every instance using the same key. Each
+     * instance first leases a single permit, then batches sized to its consumption rate, up to {@code maxBatch}. A
+     * smaller {@code maxBatch} spreads the budget more evenly over many instances, at the cost of more round trips to
+     * Consul. The limiter is managed by the application's lifecycle. Can only be called after
+     * {@link #run(Configuration, Environment)}, e.g., from the application's {@code run} method.
+     *
+     * @param key              the KV key of the shared budget, e.g., {@code rate-limit/partner-api}
+     * @param permitsPerWindow the number of permits per window, across all instances
+     * @param window           the length of a window, e.g., one second
+     * @param maxBatch         the maximum number of permits an instance leases at once
+     * @return the rate limiter
+     * @throws IllegalStateException if this bundle has not run or Consul is disabled
+     * @see DistributedRateLimiter
+     */
+    public DistributedRateLimiter createRateLimiter(String key, long permitsPerWindow, Duration window, long maxBatch) {
+        var context = requireRuntimeContext("createRateLimiter");
+        var lifecycle = context.environment().lifecycle();
+        var executor = lifecycle.scheduledExecutorService("consul-rate-limiter-%d", true).build();
+        var rateLimiter = new DistributedRateLimiter(context.consul(), key, permitsPerWindow, window, maxBatch,
+            context.metrics(), executor);
+        lifecycle.manage(rateLimiter);
+        return rateLimiter;
+    }
+
+    private RuntimeContext requireRuntimeContext(String method) {
+        var context = runtimeContext.get();
+        checkState(context != null && watchEngine.get() != null,
+            "%s can only be called after the bundle has run with Consul enabled", method);
+        return context;
+    }
+
     /**
      * Checks whether Dropwizard has attempted to initialize this bundle.
      *
@@ -8,12 +8,22 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.net.HostAndPort;
 import io.dropwizard.util.Duration;
 import io.dropwizard.validation.MinDuration;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotNull;
 import org.apache.commons.net.util.SubnetUtils;
 import org.jspecify.annotations.Nullable;
 import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.config.ClientConfig;
+import org.kiwiproject.dropwizard.consul.coordinate.NetworkCoordinatesFactory;
+import org.kiwiproject.dropwizard.consul.coordination.LeaderElectionFactory;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryFactory;
+import org.kiwiproject.dropwizard.consul.event.CacheInvalidationFactory;
+import org.kiwiproject.dropwizard.consul.health.AgentHealthCheckFactory;
+import org.kiwiproject.dropwizard.consul.health.ClusterHealthCheckFactory;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.saturation.SaturationMonitorFactory;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
 
 import java.util.Map;
 import java.util.Objects;
@@ -25,12 +35,22 @@ public class ConsulFactory {
 
     private static final String CONSUL_AUTH_HEADER_KEY = "X-Consul-Token";
 
+    /**
+     * The read timeout of the Consul client when {@code networkReadTimeoutMillis} is not configured.
+     */
+    private static final long DEFAULT_NETWORK_READ_TIMEOUT_MILLIS = 10_000;
+
     @NotNull
     private HostAndPort endpoint =
         HostAndPort.fromParts(Consul.DEFAULT_HTTP_HOST, Consul.DEFAULT_HTTP_PORT);
     private String serviceName;
     private boolean enabled = true;
     private String serviceId;
+
+    @NotNull
+    private ServiceIdStrategy serviceIdStrategy = ServiceIdStrategy.RANDOM;
+
+    private boolean deregisterStaleInstances;
     private Integer servicePort;
     private Integer adminPort;
     private String serviceAddress;
@@ -59,6 +79,39 @@ public class ConsulFactory {
     private ClientConfig clientConfig;
     private String unixDomainSocketPath;
 
+    @Valid
+    private SaturationMonitorFactory saturationMonitor;
+
+    @Valid
+    @NotNull
+    private AgentHealthCheckFactory agentHealthCheck = new AgentHealthCheckFactory();
+
+    @Valid
+    private ClusterHealthCheckFactory clusterHealthCheck;
+
+    @Valid
+    private ServiceDiscoveryFactory discovery;
+
+    @Valid
+    private NetworkCoordinatesFactory coordinates;
+
+    @Valid
+    private LocalityFactory locality;
+
+    @Valid
+    @NotNull
+    private ReadConsistencyFactory readConsistency = new ReadConsistencyFactory();
+
+    @Valid
+    @NotNull
+    private WatchEngineFactory watch = new WatchEngineFactory();
+
+    @Valid
+    private LeaderElectionFactory leaderElection;
+
+    @Valid
+    private CacheInvalidationFactory cacheInvalidation;
+
     @JsonProperty
     public boolean isEnabled() {
         return enabled;
@@ -94,6 +147,39 @@ public class ConsulFactory {
         this.serviceId = serviceId;
     }
 
+    /**
+     * The strategy used to generate the service ID when {@code serviceId} is not configured.
+     *
+     * @return the service ID strategy
+     */
+    @JsonProperty
+    public ServiceIdStrategy getServiceIdStrategy() {
+        return serviceIdStrategy;
+    }
+
+    @JsonProperty
+    public void setServiceIdStrategy(ServiceIdStrategy serviceIdStrategy) {
+        this.serviceIdStrategy = serviceIdStrategy;
+    }
+
+    /**
+     * Whether to deregister stale instances of this service from the local agent before registering.
+     * <p>
+     * An instance is considered stale when it has the same service name, address, and port as this instance
+     * but a different ID, which happens when a previous process was killed before it could deregister.
+     *
+     * @return true if stale instances should be deregistered
+     */
+    @JsonProperty
+    public boolean isDeregisterStaleInstances() {
+        return deregisterStaleInstances;
+    }
+
+    @JsonProperty
+    public void setDeregisterStaleInstances(boolean deregisterStaleInstances) {
+        this.deregisterStaleInstances = deregisterStaleInstances;
+    }
+
     @Nullable
     @JsonProperty
     public String getServiceName() {
@@ -274,6 +360,196 @@ public class ConsulFactory {
         this.unixDomainSocketPath = unixDomainSocketPath;
     }
 
+    /**
+     * When present, the service is registered with an additional TTL check that is moved to {@code warning}
+     * while the Jetty server is saturated.
+     *
+     * @return the saturation monitor configuration, or an empty Optional if saturation monitoring is disabled
+     */
+    @JsonProperty
+    public Optional<SaturationMonitorFactory> getSaturationMonitor() {
+        return Optional.ofNullable(saturationMonitor);
+    }
+
+    @JsonProperty
+    public void setSaturationMonitor(@Nullable SaturationMonitorFactory saturationMonitor) {
+        this.saturationMonitor = saturationMonitor;
+    }
+
+    /**
+     * Configuration for the health check that pings the Consul agent, which by default runs asynchronously.
+     *
+     * @return the agent health check configuration
+     */
+    @JsonProperty
+    public AgentHealthCheckFactory getAgentHealthCheck() {
+        return agentHealthCheck;
+    }
+
+    @JsonProperty
+    public void setAgentHealthCheck(AgentHealthCheckFactory agentHealthCheck) {
+        this.agentHealthCheck = agentHealthCheck;
+    }
+
+    /**
+     * When present, a {@code consul-cluster} health check reports whether the Consul cluster has a leader and
+     * whether the Consul servers are keeping up with it.
+     *
+     * @return the cluster health check configuration, or an empty Optional if the check is disabled
+     */
+    @JsonProperty
+    public Optional<ClusterHealthCheckFactory> getClusterHealthCheck() {
+        return Optional.ofNullable(clusterHealthCheck);
+    }
+
+    @JsonProperty
+    public void setClusterHealthCheck(@Nullable ClusterHealthCheckFactory clusterHealthCheck) {
+        this.clusterHealthCheck = clusterHealthCheck;
+    }
+
+    /**
+     * When present, the bundle creates a {@link org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache}
+     * that watches the healthy instances of other services.
+     *
+     * @return the service discovery configuration, or an empty Optional if service discovery is disabled
+     */
+    @JsonProperty
+    public Optional<ServiceDiscoveryFactory> getDiscovery() {
+        return Optional.ofNullable(discovery);
+    }
+
+    @JsonProperty
+    public void setDiscovery(@Nullable ServiceDiscoveryFactory discovery) {
+        this.discovery = discovery;
+    }
+
+    /**
+     * Network coordinates used to estimate round-trip times to other nodes, e.g., for nearest-instance load
+     * balancing. Coordinates are not fetched unless this is configured.
+     *
+     * @return the network coordinates configuration, or an empty Optional if not configured
+     */
+    @JsonProperty
+    public Optional<NetworkCoordinatesFactory> getCoordinates() {
+        return Optional.ofNullable(coordinates);
+    }
+
+    @JsonProperty
+    public void setCoordinates(@Nullable NetworkCoordinatesFactory coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * Where this service instance runs. The configured attributes are published as service meta.
+     *
+     * @return the locality configuration, or an empty Optional if not configured
+     */
+    @JsonProperty
+    public Optional<LocalityFactory> getLocality() {
+        return Optional.ofNullable(locality);
+    }
+
+    @JsonProperty
+    public void setLocality(@Nullable LocalityFactory locality) {
+        this.locality = locality;
+    }
+
+    /**
+     * The consistency mode of reads issued by this library at runtime, e.g., service discovery queries.
+     *
+     * @return the read consistency configuration
+     */
+    @JsonProperty
+    public ReadConsistencyFactory getReadConsistency() {
+        return readConsistency;
+    }
+
+    @JsonProperty
+    public void setReadConsistency(ReadConsistencyFactory readConsistency) {
+        this.readConsistency = readConsistency;
+    }
+
+    /**
+     * The engine that runs the blocking queries of this library, e.g., of service discovery.
+     *
+     * @return the watch engine configuration
+     */
+    @JsonProperty
+    public WatchEngineFactory getWatch() {
+        return watch;
+    }
+
+    @JsonProperty
+    public void setWatch(WatchEngineFactory watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * The election of a leader among the instances of this service. No election takes place unless this is
+     * configured.
+     *
+     * @return the leader election configuration, or an empty Optional if not configured
+     */
+    @JsonProperty
+    public Optional<LeaderElectionFactory> getLeaderElection() {
+        return Optional.ofNullable(leaderElection);
+    }
+
+    @JsonProperty
+    public void setLeaderElection(@Nullable LeaderElectionFactory leaderElection) {
+        this.leaderElection = leaderElection;
+    }
+
+    /**
+     * The invalidation of application caches across the fleet through Consul user events. Events are not watched
+     * unless this is configured.
+     *
+     * @return the cache invalidation configuration, or an empty Optional if not configured
+     */
+    @JsonProperty
+    public Optional<CacheInvalidationFactory> getCacheInvalidation() {
+        return Optional.ofNullable(cacheInvalidation);
+    }
+
+    @JsonProperty
+    public void setCacheInvalidation(@Nullable CacheInvalidationFactory cacheInvalidation) {
+        this.cacheInvalidation = cacheInvalidation;
+    }
+
+    @AssertTrue(message = "serviceMeta must not contain the zone, rack, or datacenter keys configured in locality")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isLocalityMetaValid() {
+        if (isNull(locality) || isNull(serviceMeta)) {
+            return true;
+        }
+        return locality.toMeta().keySet().stream().noneMatch(serviceMeta::containsKey);
+    }
+
+    @AssertTrue(message = "discovery.wait plus 1/16 must be shorter than networkReadTimeoutMillis (10 seconds by default)")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isDiscoveryWaitValid() {
+        if (isNull(discovery) || isNull(discovery.getWait())) {
+            return true;
+        }
+        var waitMillis = discovery.getWait().toMilliseconds();
+        var readTimeoutMillis = getNetworkReadTimeoutMillis().orElse(DEFAULT_NETWORK_READ_TIMEOUT_MILLIS);
+        return waitMillis + waitMillis / 16 < readTimeoutMillis;
+    }
+
+    @AssertTrue(message = "watch.wait plus 1/16 must be shorter than networkReadTimeoutMillis (10 seconds by default)")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isWatchWaitValid() {
+        if (isNull(watch) || isNull(watch.getWait())) {
+            return true;
+        }
+        var waitMillis = watch.getWait().toMilliseconds();
+        var readTimeoutMillis = getNetworkReadTimeoutMillis().orElse(DEFAULT_NETWORK_READ_TIMEOUT_MILLIS);
+        return waitMillis + waitMillis / 16 < readTimeoutMillis;
+    }
+
     @AssertTrue(message = "unixDomainSocketPath must not be blank when provided")
     @JsonIgnore
     @SuppressWarnings("unused")
@@ -294,6 +570,21 @@ public class ConsulFactory {
 
     @JsonIgnore
     public Consul build() {
+        return newConsulBuilder().build();
+    }
+
+    /**
+     * Build a Consul client that reports every HTTP request it makes to the given {@link ConsulMetrics}.
+     *
+     * @param metrics the metrics to report to
+     * @return a new Consul client
+     */
+    @JsonIgnore
+    public Consul build(ConsulMetrics metrics) {
+        return newConsulBuilder().withClientEventCallback(metrics).build();
+    }
+
+    private Consul.Builder newConsulBuilder() {
         var consulBuilder = Consul.builder().withPing(servicePing);
         if (unixDomainSocketPath != null) {
             consulBuilder.withUnixDomainSocket(unixDomainSocketPath);
@@ -313,7 +604,7 @@ public class ConsulFactory {
         getNetworkReadTimeoutMillis().ifPresent(consulBuilder::withReadTimeoutMillis);
         getClientConfig().ifPresent(consulBuilder::withClientConfiguration);
 
-        return consulBuilder.build();
+        return consulBuilder;
     }
 
     @Override
@@ -332,7 +623,19 @@ public class ConsulFactory {
             aclToken,
             serviceMeta,
             servicePing,
-            unixDomainSocketPath);
+            unixDomainSocketPath,
+            saturationMonitor,
+            serviceIdStrategy,
+            deregisterStaleInstances,
+            agentHealthCheck,
+            clusterHealthCheck,
+            discovery,
+            coordinates,
+            locality,
+            readConsistency,
+            watch,
+            leaderElection,
+            cacheInvalidation);
     }
 
     @Override
@@ -357,7 +660,19 @@ public class ConsulFactory {
             && Objects.equals(this.aclToken, other.aclToken)
             && Objects.equals(this.serviceMeta, other.serviceMeta)
             && Objects.equals(this.servicePing, other.servicePing)
-            && Objects.equals(this.unixDomainSocketPath, other.unixDomainSocketPath);
+            && Objects.equals(this.unixDomainSocketPath, other.unixDomainSocketPath)
+            && Objects.equals(this.saturationMonitor, other.saturationMonitor)
+            && Objects.equals(this.serviceIdStrategy, other.serviceIdStrategy)
+            && this.deregisterStaleInstances == other.deregisterStaleInstances
+            && Objects.equals(this.agentHealthCheck, other.agentHealthCheck)
+            && Objects.equals(this.clusterHealthCheck, other.clusterHealthCheck)
+            && Objects.equals(this.discovery, other.discovery)
+            && Objects.equals(this.coordinates, other.coordinates)
+            && Objects.equals(this.locality, other.locality)
+            && Objects.equals(this.readConsistency, other.readConsistency)
+            && Objects.equals(this.watch, other.watch)
+            && Objects.equals(this.leaderElection, other.leaderElection)
+            && Objects.equals(this.cacheInvalidation, other.cacheInvalidation);
     }
 
     private static boolean isValidCidrIp(String cidrIp) {
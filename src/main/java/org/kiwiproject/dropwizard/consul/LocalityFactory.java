@@ -0,0 +1,102 @@
+package org.kiwiproject.dropwizard.consul;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.jspecify.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Declares where this service instance runs. Each configured attribute is published as service meta when the
+ * service registers, under the {@link #ZONE_META_KEY zone}, {@link #RACK_META_KEY rack}, and
+ * {@link #DATACENTER_META_KEY datacenter} keys, so that clients can prefer nearby instances, e.g., using
+ * {@link org.kiwiproject.dropwizard.consul.loadbalancer.LoadBalancingStrategy#zoneAware(String, int,
+ * org.kiwiproject.dropwizard.consul.loadbalancer.LoadBalancingStrategy) zone-aware load balancing}.
+ */
+public class LocalityFactory {
+
+    /**
+     * The service meta key of the zone, e.g., a cloud availability zone.
+     */
+    public static final String ZONE_META_KEY = "zone";
+
+    /**
+     * The service meta key of the rack.
+     */
+    public static final String RACK_META_KEY = "rack";
+
+    /**
+     * The service meta key of the datacenter or region.
+     */
+    public static final String DATACENTER_META_KEY = "datacenter";
+
+    private String zone;
+    private String rack;
+    private String datacenter;
+
+    @JsonProperty
+    public Optional<String> getZone() {
+        return Optional.ofNullable(zone);
+    }
+
+    @JsonProperty
+    public void setZone(@Nullable String zone) {
+        this.zone = zone;
+    }
+
+    @JsonProperty
+    public Optional<String> getRack() {
+        return Optional.ofNullable(rack);
+    }
+
+    @JsonProperty
+    public void setRack(@Nullable String rack) {
+        this.rack = rack;
+    }
+
+    @JsonProperty
+    public Optional<String> getDatacenter() {
+        return Optional.ofNullable(datacenter);
+    }
+
+    @JsonProperty
+    public void setDatacenter(@Nullable String datacenter) {
+        this.datacenter = datacenter;
+    }
+
+    /**
+     * Return the service meta to publish for the configured attributes.
+     *
+     * @return a map from meta key to value, containing only the configured attributes
+     */
+    @JsonIgnore
+    public Map<String, String> toMeta() {
+        var meta = new LinkedHashMap<String, String>();
+        getZone().ifPresent(value -> meta.put(ZONE_META_KEY, value));
+        getRack().ifPresent(value -> meta.put(RACK_META_KEY, value));
+        getDatacenter().ifPresent(value -> meta.put(DATACENTER_META_KEY, value));
+        return meta;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(zone, rack, datacenter);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (LocalityFactory) obj;
+        return Objects.equals(this.zone, other.zone)
+            && Objects.equals(this.rack, other.rack)
+            && Objects.equals(this.datacenter, other.datacenter);
+    }
+}
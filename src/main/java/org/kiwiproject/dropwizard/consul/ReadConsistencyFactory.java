@@ -0,0 +1,152 @@
+package org.kiwiproject.dropwizard.consul;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.option.ConsistencyMode;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Configures the consistency mode of reads issued by this library, e.g., by the
+ * {@link org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache ServiceDiscoveryCache}.
+ * <p>
+ * In {@link Mode#CACHED CACHED} mode, reads are served from the local agent's cache ({@code ?cached}) where the
+ * endpoint supports it, which takes load off the Consul servers. The optional {@code maxAge} and {@code maxStale}
+ * are sent as {@code Cache-Control: max-age} and {@code stale-if-error} directives.
+ */
+public class ReadConsistencyFactory {
+
+    /**
+     * The read consistency modes. See the Consul documentation on consistency modes and agent caching.
+     */
+    public enum Mode {
+
+        /**
+         * Reads are served by the leader, which may rarely return stale data during a leader change.
+         */
+        DEFAULT,
+
+        /**
+         * Reads may be served by any server, and may be stale (see {@code X-Consul-LastContact}).
+         */
+        STALE,
+
+        /**
+         * Reads are served by the leader after confirming it is still the leader.
+         */
+        CONSISTENT,
+
+        /**
+         * Reads are served from the local agent's cache when the endpoint supports it.
+         */
+        CACHED
+    }
+
+    @NotNull
+    private Mode mode = Mode.DEFAULT;
+
+    private Duration maxAge;
+    private Duration maxStale;
+
+    @JsonProperty
+    public Mode getMode() {
+        return mode;
+    }
+
+    @JsonProperty
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * The maximum age of a cached response; only used in {@link Mode#CACHED CACHED} mode.
+     *
+     * @return the maximum age, or an empty Optional to use the agent's default
+     */
+    @JsonProperty
+    public Optional<Duration> getMaxAge() {
+        return Optional.ofNullable(maxAge);
+    }
+
+    @JsonProperty
+    public void setMaxAge(@Nullable Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * How stale a cached response may be if the servers cannot be reached; only used in
+     * {@link Mode#CACHED CACHED} mode.
+     *
+     * @return the maximum staleness, or an empty Optional to use the agent's default
+     */
+    @JsonProperty
+    public Optional<Duration> getMaxStale() {
+        return Optional.ofNullable(maxStale);
+    }
+
+    @JsonProperty
+    public void setMaxStale(@Nullable Duration maxStale) {
+        this.maxStale = maxStale;
+    }
+
+    @AssertTrue(message = "maxAge and maxStale may only be set when mode is CACHED")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isCacheControlValid() {
+        return mode == Mode.CACHED || (maxAge == null && maxStale == null);
+    }
+
+    /**
+     * Return the Consul client consistency mode for endpoints that support the agent cache, such as
+     * {@code /v1/health/service}.
+     *
+     * @return the consistency mode
+     */
+    @JsonIgnore
+    public ConsistencyMode toConsistencyMode() {
+        return switch (mode) {
+            case DEFAULT -> ConsistencyMode.DEFAULT;
+            case STALE -> ConsistencyMode.STALE;
+            case CONSISTENT -> ConsistencyMode.CONSISTENT;
+            case CACHED -> ConsistencyMode.createCachedConsistencyWithMaxAgeAndStale(
+                getMaxAge().map(Duration::toSeconds),
+                getMaxStale().map(Duration::toSeconds));
+        };
+    }
+
+    /**
+     * Return the Consul client consistency mode for KV reads. The agent does not cache KV reads, so
+     * {@link Mode#CACHED CACHED} falls back to {@link Mode#STALE STALE}, which still spreads the reads across all
+     * servers instead of sending them to the leader.
+     *
+     * @return the consistency mode
+     */
+    @JsonIgnore
+    public ConsistencyMode toKeyValueConsistencyMode() {
+        return mode == Mode.CACHED ? ConsistencyMode.STALE : toConsistencyMode();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, maxAge, maxStale);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (ReadConsistencyFactory) obj;
+        return this.mode == other.mode
+            && Objects.equals(this.maxAge, other.maxAge)
+            && Objects.equals(this.maxStale, other.maxStale);
+    }
+}
@@ -0,0 +1,52 @@
+package org.kiwiproject.dropwizard.consul;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Determines how {@link ConsulBundle} generates a Consul service ID when {@code serviceId} is not
+ * explicitly configured in the {@link ConsulFactory}.
+ */
+public enum ServiceIdStrategy {
+
+    /**
+     * Generate a random UUID each time the application starts. This is the default.
+     * <p>
+     * Note that if the application is killed without deregistering, the old instance remains in the
+     * catalog (in critical state) until the {@code deregisterInterval} expires.
+     */
+    RANDOM,
+
+    /**
+     * Generate an ID from the service name, host, and application port, e.g., {@code orders-host1.acme.com-8080}.
+     * <p>
+     * Because a restarted instance uses the same ID as the instance it replaces, it takes over the existing
+     * registration rather than leaving an orphaned one behind.
+     */
+    HOST_AND_PORT;
+
+    private static final Pattern DISALLOWED_CHARACTERS = Pattern.compile("[^A-Za-z0-9._-]");
+
+    /**
+     * Generate a random service ID.
+     *
+     * @return a new random service ID
+     */
+    public static String randomServiceId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Generate a deterministic service ID from its parts. Characters other than letters, digits, periods,
+     * underscores, and hyphens are replaced with hyphens, so the ID is safe to use in Consul API paths.
+     *
+     * @param serviceName the Consul service name
+     * @param host        the host name or IP address of the instance
+     * @param port        the application port of the instance
+     * @return the service ID
+     */
+    public static String hostAndPortServiceId(String serviceName, String host, int port) {
+        var id = serviceName + "-" + host + "-" + port;
+        return DISALLOWED_CHARACTERS.matcher(id).replaceAll("-");
+    }
+}
@@ -0,0 +1,51 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import io.dropwizard.client.JerseyClientBuilder;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+/**
+ * Static helpers to add Consul service discovery to clients built with Dropwizard's {@link JerseyClientBuilder}.
+ * <p>
+ * Note that {@code dropwizard-client} is an optional dependency of this library.
+ */
+public final class ConsulJerseyClients {
+
+    private ConsulJerseyClients() {
+        // utility class
+    }
+
+    /**
+     * Register a {@link ConsulServiceFilter}, so that {@code consul://service-name/path} URIs are sent to a healthy
+     * instance of the service. Failed requests are not retried.
+     *
+     * @param builder  the client builder
+     * @param resolver the resolver to select instances with
+     * @return the builder
+     */
+    public static JerseyClientBuilder withConsulDiscovery(JerseyClientBuilder builder, ConsulServiceResolver resolver) {
+        return builder.withProvider(new ConsulServiceFilter(resolver));
+    }
+
+    /**
+     * Register a {@link ConsulServiceFilter} and use a {@link ConsulRetryingConnectorProvider}, so that
+     * {@code consul://service-name/path} URIs are sent to a healthy instance of the service, and idempotent
+     * requests that fail with an I/O error are retried on another instance.
+     * <p>
+     * Dropwizard does not expose its default Apache connector as a {@link ConnectorProvider}, so the connector
+     * that sends the requests must be provided, e.g., Jersey's {@code HttpUrlConnectorProvider} or an Apache
+     * connector provider from {@code jersey-apache5-connector}. It replaces Dropwizard's default connector.
+     *
+     * @param builder           the client builder
+     * @param resolver          the resolver to select instances with
+     * @param connectorProvider the provider of the connector that sends the requests
+     * @param maxAttempts       the maximum number of attempts per request, including the first
+     * @return the builder
+     */
+    public static JerseyClientBuilder withConsulDiscovery(JerseyClientBuilder builder,
+                                                          ConsulServiceResolver resolver,
+                                                          ConnectorProvider connectorProvider,
+                                                          int maxAttempts) {
+        return withConsulDiscovery(builder, resolver)
+            .using(new ConsulRetryingConnectorProvider(connectorProvider, resolver, maxAttempts));
+    }
+}
@@ -0,0 +1,131 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.kiwiproject.dropwizard.consul.client.ConsulServiceResolver.Selection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Jersey {@link ConnectorProvider} that decorates another provider's connector so that requests resolved by a
+ * {@link ConsulServiceFilter} are retried on another healthy instance when they fail with an I/O error.
+ * <p>
+ * Only requests with an idempotent method ({@code GET}, {@code HEAD}, {@code OPTIONS}, {@code PUT},
+ * {@code DELETE}, {@code TRACE}) and no entity are retried, since an entity may not be repeatable. Requests that
+ * received a response, even an error response, are never retried. Asynchronous requests are passed through
+ * without retries.
+ * <p>
+ * Each failed attempt is recorded as a failure of its instance in the resolver's outlier detector, if any.
+ */
+public class ConsulRetryingConnectorProvider implements ConnectorProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConsulRetryingConnectorProvider.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE");
+
+    private final ConnectorProvider delegate;
+    private final ConsulServiceResolver resolver;
+    private final int maxAttempts;
+
+    /**
+     * Constructor
+     *
+     * @param delegate    the provider of the connector that actually sends requests
+     * @param resolver    the resolver used to select another instance
+     * @param maxAttempts the maximum number of attempts per request, including the first
+     */
+    public ConsulRetryingConnectorProvider(ConnectorProvider delegate, ConsulServiceResolver resolver, int maxAttempts) {
+        checkArgument(maxAttempts >= 1, "maxAttempts must be at least 1");
+        this.delegate = requireNonNull(delegate, "delegate must not be null");
+        this.resolver = requireNonNull(resolver, "resolver must not be null");
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public Connector getConnector(Client client, Configuration runtimeConfig) {
+        return new RetryingConnector(delegate.getConnector(client, runtimeConfig));
+    }
+
+    static boolean isRetryable(ClientRequest request) {
+        return IDEMPOTENT_METHODS.contains(request.getMethod()) && !request.hasEntity();
+    }
+
+    private class RetryingConnector implements Connector {
+
+        private final Connector connector;
+
+        RetryingConnector(Connector connector) {
+            this.connector = connector;
+        }
+
+        @Override
+        public ClientResponse apply(ClientRequest request) {
+            var attempt = 1;
+            while (true) {
+                try {
+                    return connector.apply(request);
+                } catch (ProcessingException e) {
+                    if (request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY) instanceof Selection failed) {
+                        resolver.recordFailure(failed.instance());
+                    }
+                    if (attempt >= maxAttempts || !retryOnAnotherInstance(request, attempt, e)) {
+                        ConsulServiceFilter.release(request);
+                        throw e;
+                    }
+                    attempt++;
+                }
+            }
+        }
+
+        private boolean retryOnAnotherInstance(ClientRequest request, int attempt, ProcessingException e) {
+            if (!(request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY) instanceof Selection failed)
+                    || !isRetryable(request)) {
+                return false;
+            }
+
+            var serviceName = (String) request.getProperty(ConsulServiceFilter.SERVICE_NAME_PROPERTY);
+            var next = resolver.selectOther(serviceName, failed.instance());
+            if (next == null) {
+                return false;
+            }
+
+            ConsulServiceFilter.release(request);
+            var originalUri = (URI) request.getProperty(ConsulServiceFilter.ORIGINAL_URI_PROPERTY);
+            var nextUri = ConsulServiceResolver.resolve(originalUri, next.instance());
+            LOG.debug("{} {} failed on attempt {} ({}); retrying on {}",
+                request.getMethod(), request.getUri(), attempt, e.getMessage(), nextUri);
+
+            request.setProperty(ConsulServiceFilter.SELECTION_PROPERTY, next);
+            request.setUri(nextUri);
+            return true;
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+            return connector.apply(request, callback);
+        }
+
+        @Override
+        public String getName() {
+            return connector.getName();
+        }
+
+        @Override
+        public void close() {
+            connector.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.net.InetAddresses;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.routing.DefaultRoutePlanner;
+import org.apache.hc.client5.http.routing.HttpRoutePlanner;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+
+/**
+ * Apache HttpClient {@link HttpRoutePlanner} that routes requests for logical service hosts, e.g.,
+ * {@code http://orders.service.consul/api/orders}, to a healthy instance chosen by a {@link ConsulServiceResolver}.
+ * Requests to other hosts are routed by the delegate planner.
+ * <p>
+ * The route's target keeps the logical host name (so the {@code Host} header and TLS host name verification are
+ * unchanged) but carries the instance's address and port. The connection pool therefore keeps a separate pool per
+ * instance, and connections to healthy instances are reused without any DNS lookups.
+ * <p>
+ * Since a route planner is not told when a request completes, the selected instance is released immediately. Use
+ * the round-robin or weighted random strategies with this planner.
+ */
+public class ConsulRoutePlanner implements HttpRoutePlanner {
+
+    /**
+     * The default suffix of logical service host names, matching Consul DNS names.
+     */
+    public static final String DEFAULT_DOMAIN_SUFFIX = ".service.consul";
+
+    private final ConsulServiceResolver resolver;
+    private final String domainSuffix;
+    private final HttpRoutePlanner delegate;
+
+    /**
+     * Create a route planner for {@code <service>.service.consul} hosts that delegates other hosts to a
+     * {@link DefaultRoutePlanner}.
+     *
+     * @param resolver the resolver to select instances with
+     */
+    public ConsulRoutePlanner(ConsulServiceResolver resolver) {
+        this(resolver, DEFAULT_DOMAIN_SUFFIX, new DefaultRoutePlanner(null));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param resolver     the resolver to select instances with
+     * @param domainSuffix the suffix identifying logical service host names, e.g., {@code .service.consul}
+     * @param delegate     the planner that determines the route to the resolved target (or to other hosts),
+     *                     e.g., to apply proxy settings
+     */
+    public ConsulRoutePlanner(ConsulServiceResolver resolver, String domainSuffix, HttpRoutePlanner delegate) {
+        this.resolver = requireNonNull(resolver, "resolver must not be null");
+        this.domainSuffix = requireNonNull(domainSuffix, "domainSuffix must not be null").toLowerCase(Locale.ROOT);
+        this.delegate = requireNonNull(delegate, "delegate must not be null");
+    }
+
+    @Override
+    public HttpRoute determineRoute(HttpHost target, HttpContext context) throws HttpException {
+        return delegate.determineRoute(resolveTarget(target), context);
+    }
+
+    @Override
+    public HttpRoute determineRoute(HttpHost target, HttpRequest request, HttpContext context) throws HttpException {
+        return delegate.determineRoute(resolveTarget(target), request, context);
+    }
+
+    /**
+     * If the target is a logical service host, return a target with the same scheme and host name but the address
+     * and port of a healthy instance. Otherwise, return the target unchanged.
+     */
+    HttpHost resolveTarget(HttpHost target) throws HttpException {
+        var serviceName = serviceName(target.getHostName());
+        if (serviceName == null) {
+            return target;
+        }
+
+        var selection = resolver.select(serviceName);
+        if (selection == null) {
+            throw new HttpException("No healthy instances of service " + serviceName);
+        }
+        var instance = selection.instance();
+        selection.release();
+
+        return new HttpHost(target.getSchemeName(), address(instance), target.getHostName(), instance.port());
+    }
+
+    @Nullable
+    private String serviceName(String hostName) {
+        var host = hostName.toLowerCase(Locale.ROOT);
+        if (host.length() <= domainSuffix.length() || !host.endsWith(domainSuffix)) {
+            return null;
+        }
+        return host.substring(0, host.length() - domainSuffix.length());
+    }
+
+    private static InetAddress address(ServiceInstance instance) throws HttpException {
+        var address = instance.address();
+        if (InetAddresses.isInetAddress(address)) {
+            return InetAddresses.forString(address);
+        }
+        try {
+            return InetAddress.getByName(address);
+        } catch (UnknownHostException e) {
+            throw new HttpException("Unable to resolve address " + address + " of instance " + instance.id(), e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static java.util.Objects.requireNonNull;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import org.kiwiproject.dropwizard.consul.client.ConsulServiceResolver.Selection;
+
+/**
+ * Jersey client filter that rewrites logical service URIs such as {@code consul://orders/api/orders} to a healthy
+ * instance of the service, chosen by a {@link ConsulServiceResolver}. Requests to other URIs are not changed.
+ * <p>
+ * The filter runs before other request filters, so they see the resolved URI. The selected instance is released
+ * when the response is received. Requests that fail without a response are only released (and retried) when the
+ * client also uses a {@link ConsulRetryingConnectorProvider}, which matters for the least outstanding requests
+ * strategy.
+ * <p>
+ * When the resolver has an outlier detector, 5xx responses count as failures of the instance and other responses
+ * as successes. I/O errors, such as timeouts, only count as failures with a {@link ConsulRetryingConnectorProvider}.
+ * <p>
+ * If the service has no healthy instances, the request fails with a {@link ProcessingException}.
+ */
+@Priority(ConsulServiceFilter.PRIORITY)
+public class ConsulServiceFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    /**
+     * The filter priority; lower than all of the standard {@link jakarta.ws.rs.Priorities}.
+     */
+    public static final int PRIORITY = 100;
+
+    static final String SERVICE_NAME_PROPERTY = "org.kiwiproject.dropwizard.consul.serviceName";
+    static final String ORIGINAL_URI_PROPERTY = "org.kiwiproject.dropwizard.consul.originalUri";
+    static final String SELECTION_PROPERTY = "org.kiwiproject.dropwizard.consul.selection";
+
+    private final ConsulServiceResolver resolver;
+
+    public ConsulServiceFilter(ConsulServiceResolver resolver) {
+        this.resolver = requireNonNull(resolver, "resolver must not be null");
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        var uri = requestContext.getUri();
+        if (!ConsulServiceResolver.isConsulUri(uri)) {
+            return;
+        }
+
+        var serviceName = ConsulServiceResolver.serviceName(uri);
+        var selection = resolver.select(serviceName);
+        if (selection == null) {
+            throw new ProcessingException("No healthy instances of service " + serviceName);
+        }
+
+        requestContext.setProperty(SERVICE_NAME_PROPERTY, serviceName);
+        requestContext.setProperty(ORIGINAL_URI_PROPERTY, uri);
+        requestContext.setProperty(SELECTION_PROPERTY, selection);
+        requestContext.setUri(ConsulServiceResolver.resolve(uri, selection.instance()));
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        if (requestContext.getProperty(SELECTION_PROPERTY) instanceof Selection selection) {
+            if (responseContext.getStatus() >= 500) {
+                resolver.recordFailure(selection.instance());
+            } else {
+                resolver.recordSuccess(selection.instance());
+            }
+        }
+        release(requestContext);
+    }
+
+    /**
+     * Release the instance selected for a request, if any. Safe to call more than once.
+     */
+    static void release(ClientRequestContext requestContext) {
+        if (requestContext.getProperty(SELECTION_PROPERTY) instanceof Selection selection) {
+            requestContext.removeProperty(SELECTION_PROPERTY);
+            selection.release();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.loadbalancer.InstanceSelector;
+import org.kiwiproject.dropwizard.consul.loadbalancer.LoadBalancer;
+import org.kiwiproject.dropwizard.consul.loadbalancer.LoadBalancingStrategy;
+import org.kiwiproject.dropwizard.consul.loadbalancer.OutlierDetector;
+
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves logical service names to healthy instances from a {@link ServiceDiscoveryCache}, using one
+ * {@link LoadBalancer} per service. Shared by the HTTP client integrations in this package.
+ * <p>
+ * The scheme of an instance comes from the {@code applicationScheme} (or, failing that, {@code scheme}) service
+ * meta published by {@link org.kiwiproject.dropwizard.consul.core.ConsulAdvertiser ConsulAdvertiser}, and
+ * defaults to {@code http}.
+ * <p>
+ * With an {@link OutlierDetector}, instances the detector has ejected are skipped, and the client integrations
+ * record the outcome of each request via {@link #recordSuccess(ServiceInstance)} and
+ * {@link #recordFailure(ServiceInstance)}.
+ */
+public class ConsulServiceResolver {
+
+    /**
+     * The URI scheme for logical service URIs, e.g., {@code consul://orders/api/orders}.
+     */
+    public static final String CONSUL_SCHEME = "consul";
+
+    private static final String DEFAULT_SCHEME = "http";
+
+    private final ServiceDiscoveryCache cache;
+    private final LoadBalancingStrategy strategy;
+    @Nullable
+    private final OutlierDetector outlierDetector;
+    private final ConcurrentMap<String, LoadBalancer> loadBalancers = new ConcurrentHashMap<>();
+
+    /**
+     * A selected instance, which must be {@link #release() released} once the request to it completes.
+     *
+     * @param selector the selector that selected the instance
+     * @param index    the index of the instance in the selector
+     */
+    public record Selection(InstanceSelector selector, int index) {
+
+        public ServiceInstance instance() {
+            return selector.get(index);
+        }
+
+        public void release() {
+            selector.release(index);
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cache    the discovery cache; services are watched as they are first resolved
+     * @param strategy the load balancing strategy used for every service
+     */
+    public ConsulServiceResolver(ServiceDiscoveryCache cache, LoadBalancingStrategy strategy) {
+        this(cache, strategy, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cache           the discovery cache; services are watched as they are first resolved
+     * @param strategy        the load balancing strategy used for every service
+     * @param outlierDetector the outlier detector, or null to select among all healthy instances
+     */
+    public ConsulServiceResolver(ServiceDiscoveryCache cache,
+                                 LoadBalancingStrategy strategy,
+                                 @Nullable OutlierDetector outlierDetector) {
+        this.cache = requireNonNull(cache, "cache must not be null");
+        this.strategy = requireNonNull(strategy, "strategy must not be null");
+        this.outlierDetector = outlierDetector;
+    }
+
+    /**
+     * Return the load balancer for a service, creating it (and watching the service) if necessary.
+     *
+     * @param serviceName the Consul service name
+     * @return the load balancer
+     */
+    public LoadBalancer loadBalancer(String serviceName) {
+        return loadBalancers.computeIfAbsent(serviceName,
+            name -> new LoadBalancer(cache, name, strategy, outlierDetector));
+    }
+
+    /**
+     * Record a request to an instance that received a response other than a 5xx.
+     * Does nothing without an outlier detector.
+     *
+     * @param instance the instance
+     */
+    public void recordSuccess(ServiceInstance instance) {
+        if (outlierDetector != null) {
+            outlierDetector.recordSuccess(instance);
+        }
+    }
+
+    /**
+     * Record a request to an instance that received a 5xx response or failed with an I/O error.
+     * Does nothing without an outlier detector.
+     *
+     * @param instance the instance
+     */
+    public void recordFailure(ServiceInstance instance) {
+        if (outlierDetector != null) {
+            outlierDetector.recordFailure(instance);
+        }
+    }
+
+    /**
+     * Select a healthy instance of a service.
+     *
+     * @param serviceName the Consul service name
+     * @return the selection, or null if the service has no healthy instances
+     */
+    @Nullable
+    public Selection select(String serviceName) {
+        var selector = loadBalancer(serviceName).selector();
+        var index = selector.selectIndex();
+        return index < 0 ? null : new Selection(selector, index);
+    }
+
+    /**
+     * Select a healthy instance of a service other than the given one, e.g., to retry a failed request.
+     * <p>
+     * The load balancing strategy selects among the other instances (see
+     * {@link InstanceSelector#selectIndexExcluding(int)}), so the selection is counted by strategies that track
+     * outstanding requests, and skips ejected instances like any other.
+     *
+     * @param serviceName the Consul service name
+     * @param excluded    the instance to avoid
+     * @return the selection, or null if the service has no other healthy instance
+     */
+    @Nullable
+    public Selection selectOther(String serviceName, ServiceInstance excluded) {
+        var selector = loadBalancer(serviceName).selector();
+        var index = selector.selectIndexExcluding(indexOf(selector, excluded));
+        return index < 0 ? null : new Selection(selector, index);
+    }
+
+    /**
+     * Return the index of an instance in a selector, which may have been built from a newer snapshot than the one
+     * the instance was selected from.
+     */
+    private static int indexOf(InstanceSelector selector, ServiceInstance instance) {
+        for (var index = 0; index < selector.size(); index++) {
+            if (Objects.equals(selector.get(index).id(), instance.id())) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the given URI is a logical service URI.
+     *
+     * @param uri the URI
+     * @return true if the URI uses the {@code consul} scheme
+     */
+    public static boolean isConsulUri(URI uri) {
+        return CONSUL_SCHEME.equalsIgnoreCase(uri.getScheme());
+    }
+
+    /**
+     * Return the service name of a logical service URI, i.e., its host.
+     *
+     * @param uri a {@code consul://} URI
+     * @return the service name
+     */
+    public static String serviceName(URI uri) {
+        // service names containing characters not allowed in host names (e.g., '_') only parse as an authority
+        return uri.getHost() != null ? uri.getHost() : uri.getRawAuthority();
+    }
+
+    /**
+     * Rewrite a logical service URI to point at the given instance, keeping its path, query, and fragment.
+     *
+     * @param uri      a {@code consul://} URI
+     * @param instance the instance
+     * @return the resolved URI
+     */
+    public static URI resolve(URI uri, ServiceInstance instance) {
+        var resolved = new StringBuilder()
+            .append(schemeOf(instance))
+            .append("://")
+            .append(instance.hostAndPort());
+        if (uri.getRawPath() != null) {
+            resolved.append(uri.getRawPath());
+        }
+        if (uri.getRawQuery() != null) {
+            resolved.append('?').append(uri.getRawQuery());
+        }
+        if (uri.getRawFragment() != null) {
+            resolved.append('#').append(uri.getRawFragment());
+        }
+        return URI.create(resolved.toString());
+    }
+
+    /**
+     * Return the scheme an instance serves its application on.
+     *
+     * @param instance the instance
+     * @return the scheme from the instance's meta, or {@code http}
+     */
+    public static String schemeOf(ServiceInstance instance) {
+        var meta = instance.meta();
+        return meta.getOrDefault("applicationScheme", meta.getOrDefault("scheme", DEFAULT_SCHEME));
+    }
+}
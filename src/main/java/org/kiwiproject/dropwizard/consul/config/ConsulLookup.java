@@ -6,6 +6,14 @@ import io.dropwizard.configuration.UndefinedEnvironmentVariableException;
 import org.apache.commons.text.lookup.StringLookup;
 import org.jspecify.annotations.Nullable;
 import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.ImmutableQueryOptions;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent.Outcome;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueCompression;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,6 +29,8 @@ public class ConsulLookup implements StringLookup {
 
     private final boolean strict;
     private final Consul consul;
+    private final ConsulMetrics metrics;
+    private final QueryOptions queryOptions;
 
     /**
      * Create a new instance with strict behavior.
@@ -41,8 +51,37 @@ public class ConsulLookup implements StringLookup {
      *                                               strict behavior is enabled.
      */
     public ConsulLookup(Consul consul, boolean strict) {
+        this(consul, strict, ConsulMetrics.noop());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul  Consul client
+     * @param strict  {@code true} if looking up undefined environment variables should throw a {@link
+     *                UndefinedEnvironmentVariableException}, {@code false} otherwise.
+     * @param metrics metrics to record KV lookups in
+     */
+    public ConsulLookup(Consul consul, boolean strict, ConsulMetrics metrics) {
+        this(consul, strict, metrics, ConsistencyMode.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul          Consul client
+     * @param strict          {@code true} if looking up undefined environment variables should throw a {@link
+     *                        UndefinedEnvironmentVariableException}, {@code false} otherwise.
+     * @param metrics         metrics to record KV lookups in
+     * @param consistencyMode the consistency mode of KV reads
+     */
+    public ConsulLookup(Consul consul, boolean strict, ConsulMetrics metrics, ConsistencyMode consistencyMode) {
         this.consul = requireNonNull(consul);
         this.strict = strict;
+        this.metrics = requireNonNull(metrics);
+        this.queryOptions = ImmutableQueryOptions.builder()
+            .consistencyMode(requireNonNull(consistencyMode))
+            .build();
     }
 
     /**
@@ -54,12 +93,23 @@ public class ConsulLookup implements StringLookup {
     @Nullable
     @Override
     public String lookup(String key) {
+        var event = ConsulOperationEvent.begin("kv.get", key);
         try {
-            Optional<String> value = consul.keyValueClient().getValueAsString(key);
+            var response = metrics.time("kv.get",
+                () -> consul.keyValueClient().getConsulResponseWithValue(key, queryOptions));
+            response.ifPresent(consulResponse -> metrics.recordResponse("kv.get", consulResponse));
+
+            var found = response.map(consulResponse -> consulResponse.getResponse());
+            Optional<String> value = found.flatMap(KeyValueCompression::decodeToString);
             if (value.isPresent()) {
+                // the size of the value as stored, derived from its base64 length
+                event.end(Outcome.SUCCESS,
+                    found.flatMap(Value::getValue).map(encoded -> encoded.length() / 4L * 3).orElse(0L));
                 return value.get();
             }
+            event.end(Outcome.NOT_FOUND, 0);
         } catch (Exception e) {
+            event.end(Outcome.FAILURE, 0);
             LOG.warn("Unable to lookup key in consul", e);
         }
 
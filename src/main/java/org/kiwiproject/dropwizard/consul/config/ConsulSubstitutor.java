@@ -3,6 +3,8 @@ package org.kiwiproject.dropwizard.consul.config;
 import io.dropwizard.configuration.EnvironmentVariableSubstitutor;
 import io.dropwizard.configuration.UndefinedEnvironmentVariableException;
 import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
 
 /**
  * A custom {@link EnvironmentVariableSubstitutor} using Consul KV as lookup source.
@@ -27,8 +29,41 @@ public class ConsulSubstitutor extends EnvironmentVariableSubstitutor {
      * @see org.apache.commons.text.StringSubstitutor#setEnableSubstitutionInVariables(boolean)
      */
     public ConsulSubstitutor(Consul consul, boolean strict, boolean substitutionInVariables) {
+        this(consul, strict, substitutionInVariables, ConsulMetrics.noop());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul                  Consul client
+     * @param strict                  {@code true} if looking up undefined environment variables should throw a {@link
+     *                                UndefinedEnvironmentVariableException}, {@code false} otherwise.
+     * @param substitutionInVariables a flag whether substitution is done in variable names.
+     * @param metrics                 metrics to record KV lookups in
+     * @see org.apache.commons.text.StringSubstitutor#setEnableSubstitutionInVariables(boolean)
+     */
+    public ConsulSubstitutor(Consul consul, boolean strict, boolean substitutionInVariables, ConsulMetrics metrics) {
+        this(consul, strict, substitutionInVariables, metrics, ConsistencyMode.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul                  Consul client
+     * @param strict                  {@code true} if looking up undefined environment variables should throw a {@link
+     *                                UndefinedEnvironmentVariableException}, {@code false} otherwise.
+     * @param substitutionInVariables a flag whether substitution is done in variable names.
+     * @param metrics                 metrics to record KV lookups in
+     * @param consistencyMode         the consistency mode of KV reads
+     * @see org.apache.commons.text.StringSubstitutor#setEnableSubstitutionInVariables(boolean)
+     */
+    public ConsulSubstitutor(Consul consul,
+                             boolean strict,
+                             boolean substitutionInVariables,
+                             ConsulMetrics metrics,
+                             ConsistencyMode consistencyMode) {
         super(strict);
-        this.setVariableResolver(new ConsulLookup(consul, strict));
+        this.setVariableResolver(new ConsulLookup(consul, strict, metrics, consistencyMode));
         this.setEnableSubstitutionInVariables(substitutionInVariables);
     }
 }
@@ -0,0 +1,196 @@
+package org.kiwiproject.dropwizard.consul.config;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.validation.Validator;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueCompression;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueQuery;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * A typed configuration object bound to a Consul KV key or prefix, and kept up to date by a blocking query.
+ * <p>
+ * If the key ends with {@code /}, every key under it is bound: the path of each key relative to the prefix becomes a
+ * (nested) property, e.g., {@code config/orders/limits/max} becomes {@code limits.max}, and values starting with
+ * <code>{</code> or {@code [} are read as JSON. Otherwise, the value of the key itself is read as JSON.
+ * <p>
+ * Each new value is bound using the application's {@link ObjectMapper} and validated with its {@link Validator}. An
+ * invalid value (one that cannot be bound or has constraint violations) is logged and ignored, so the previous value
+ * stays in effect until a valid one is written. If the key, or every key under the prefix, is deleted, the default
+ * value applies again.
+ * <p>
+ * {@link #get()} is a single read of a volatile field and never does any I/O, so it is safe on hot paths; it returns
+ * the default value until the first query completes.
+ *
+ * @param <T> the type of the configuration object
+ */
+public class DynamicConfig<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DynamicConfig.class);
+
+    private final String key;
+    private final Class<T> type;
+    private final T defaultValue;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final WatchSubscription subscription;
+
+    private volatile T value;
+
+    /**
+     * Create an instance and start watching the key on the given engine.
+     *
+     * @param consul          Consul client
+     * @param watchEngine     the engine to run the blocking query on
+     * @param metrics         metrics to record KV reads in
+     * @param consistencyMode the consistency mode of the KV reads
+     * @param key             the key, or the prefix if it ends with {@code /}
+     * @param type            the type of the configuration object
+     * @param defaultValue    the value until the key is read, and while it does not exist
+     * @param objectMapper    the mapper to bind the values with
+     * @param validator       the validator to validate the bound values with
+     */
+    public DynamicConfig(Consul consul,
+                         WatchEngine watchEngine,
+                         ConsulMetrics metrics,
+                         ConsistencyMode consistencyMode,
+                         String key,
+                         Class<T> type,
+                         T defaultValue,
+                         ObjectMapper objectMapper,
+                         Validator validator) {
+        this.key = requireNonNull(key, "key must not be null");
+        this.type = requireNonNull(type, "type must not be null");
+        this.defaultValue = requireNonNull(defaultValue, "defaultValue must not be null");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper must not be null");
+        this.validator = requireNonNull(validator, "validator must not be null");
+        this.value = defaultValue;
+
+        requireNonNull(watchEngine, "watchEngine must not be null");
+        var query = new KeyValueQuery(consul, metrics, consistencyMode, key);
+        this.subscription = watchEngine.watch(query.watchKey(), query, this::update);
+    }
+
+    /**
+     * Return the current value. Never does any I/O.
+     *
+     * @return the current value, or the default value if the key has not been read yet or does not exist
+     */
+    public T get() {
+        return value;
+    }
+
+    /**
+     * Return the bound key or prefix.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Whether a prefix is bound, rather than a single key.
+     *
+     * @return true if the key ends with {@code /}
+     */
+    public boolean isPrefix() {
+        return key.endsWith("/");
+    }
+
+    /**
+     * Stop watching the key. The current value stays available.
+     */
+    @Override
+    public void close() {
+        subscription.close();
+    }
+
+    /**
+     * Bind and validate the values read from Consul, and make them the current value if they are valid.
+     *
+     * @param values the values of the key (and, since KV reads are recursive, of any keys it is a prefix of)
+     */
+    @VisibleForTesting
+    void update(List<Value> values) {
+        try {
+            var tree = isPrefix() ? prefixTree(values) : keyTree(values);
+            if (tree == null) {
+                if (value != defaultValue) {
+                    LOG.info("Dynamic config {} no longer exists; using the default value", key);
+                }
+                value = defaultValue;
+                return;
+            }
+
+            var newValue = objectMapper.treeToValue(tree, type);
+            var violations = validator.validate(newValue);
+            if (!violations.isEmpty()) {
+                LOG.warn("Ignoring invalid update of dynamic config {}: {}", key, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(joining(", ")));
+                return;
+            }
+
+            value = newValue;
+            LOG.debug("Updated dynamic config {}", key);
+        } catch (JsonProcessingException | IllegalArgumentException | UncheckedIOException e) {
+            LOG.warn("Ignoring update of dynamic config {} that cannot be bound to {}", key, type.getName(), e);
+        }
+    }
+
+    @Nullable
+    private JsonNode keyTree(List<Value> values) throws JsonProcessingException {
+        var text = values.stream()
+            .filter(value -> key.equals(value.getKey()))
+            .findFirst()
+            .flatMap(KeyValueCompression::decodeToString);
+        return text.isEmpty() ? null : objectMapper.readTree(text.get());
+    }
+
+    @Nullable
+    private ObjectNode prefixTree(List<Value> values) throws JsonProcessingException {
+        var root = objectMapper.createObjectNode();
+        for (var entry : values) {
+            var text = KeyValueCompression.decodeToString(entry);
+            if (text.isEmpty() || !entry.getKey().startsWith(key) || entry.getKey().endsWith("/")) {
+                continue;
+            }
+
+            var path = entry.getKey().substring(key.length()).split("/");
+            var node = root;
+            for (var i = 0; i < path.length - 1; i++) {
+                var child = node.get(path[i]);
+                node = child instanceof ObjectNode objectNode ? objectNode : node.putObject(path[i]);
+            }
+            node.set(path[path.length - 1], leaf(text.get()));
+        }
+        return root.isEmpty() ? null : root;
+    }
+
+    private JsonNode leaf(String text) throws JsonProcessingException {
+        var trimmed = text.strip();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            return objectMapper.readTree(trimmed);
+        }
+        return objectMapper.getNodeFactory().textNode(text);
+    }
+}
@@ -0,0 +1,103 @@
+package org.kiwiproject.dropwizard.consul.coordinate;
+
+import static java.util.Objects.requireNonNull;
+
+import org.kiwiproject.consul.model.coordinate.Coord;
+
+import java.util.Arrays;
+
+/**
+ * An immutable Vivaldi network coordinate of a Consul node, as returned by {@code /v1/coordinate/nodes}.
+ * <p>
+ * The estimated round-trip time between two nodes is the Euclidean distance between their vectors plus both
+ * heights, adjusted by both adjustment terms when the adjusted value is positive. This is the same calculation
+ * Consul uses for {@code ?near=} sorting and {@code consul rtt}.
+ *
+ * @param vec        the Euclidean part of the coordinate, in seconds
+ * @param error      the node's confidence in its coordinate (lower is better)
+ * @param adjustment the node's local adjustment, in seconds
+ * @param height     the node's distance from the network core (e.g., its access link latency), in seconds
+ */
+public record NetworkCoordinate(double[] vec, double error, double adjustment, double height) {
+
+    public NetworkCoordinate {
+        vec = requireNonNull(vec, "vec must not be null").clone();
+    }
+
+    /**
+     * Create a coordinate from a Consul coordinate.
+     *
+     * @param coord the coordinate returned by Consul
+     * @return a new coordinate
+     */
+    public static NetworkCoordinate from(Coord coord) {
+        return new NetworkCoordinate(coord.getVec(), coord.getError(), coord.getAdjustment(), coord.getHeight());
+    }
+
+    /**
+     * Whether the round-trip time to the other coordinate can be estimated, i.e., whether both have the same
+     * number of dimensions.
+     *
+     * @param other the other coordinate
+     * @return true if the coordinates are compatible
+     */
+    public boolean isCompatibleWith(NetworkCoordinate other) {
+        return vec.length == other.vec.length;
+    }
+
+    /**
+     * Estimate the round-trip time to another coordinate.
+     *
+     * @param other the other coordinate
+     * @return the estimated round-trip time in milliseconds
+     * @throws IllegalArgumentException if the coordinates are not compatible
+     */
+    public double rttMillisTo(NetworkCoordinate other) {
+        if (!isCompatibleWith(other)) {
+            throw new IllegalArgumentException("Coordinate dimensions do not match");
+        }
+
+        var sumOfSquares = 0.0;
+        for (var i = 0; i < vec.length; i++) {
+            var diff = vec[i] - other.vec[i];
+            sumOfSquares += diff * diff;
+        }
+
+        var distanceSeconds = Math.sqrt(sumOfSquares) + height + other.height;
+        var adjustedSeconds = distanceSeconds + adjustment + other.adjustment;
+        if (adjustedSeconds > 0.0) {
+            distanceSeconds = adjustedSeconds;
+        }
+        return distanceSeconds * 1000.0;
+    }
+
+    @Override
+    public double[] vec() {
+        return vec.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NetworkCoordinate other
+            && Arrays.equals(vec, other.vec)
+            && Double.compare(error, other.error) == 0
+            && Double.compare(adjustment, other.adjustment) == 0
+            && Double.compare(height, other.height) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        var result = Arrays.hashCode(vec);
+        result = 31 * result + Double.hashCode(error);
+        result = 31 * result + Double.hashCode(adjustment);
+        return 31 * result + Double.hashCode(height);
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkCoordinate[vec=" + Arrays.toString(vec)
+            + ", error=" + error
+            + ", adjustment=" + adjustment
+            + ", height=" + height + "]";
+    }
+}
@@ -0,0 +1,164 @@
+package org.kiwiproject.dropwizard.consul.coordinate;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Vivaldi network coordinates of the nodes in the local datacenter, refreshed periodically from
+ * {@code /v1/coordinate/nodes}, and estimates the round-trip time from the local node to any other node locally,
+ * without any I/O.
+ * <p>
+ * Estimates are unavailable until the first refresh completes, for nodes without a coordinate (e.g., nodes that
+ * just joined), and if the local node has no coordinate. If a refresh fails, the previous coordinates are kept.
+ *
+ * @see NetworkCoordinatesFactory
+ * @see org.kiwiproject.dropwizard.consul.loadbalancer.LoadBalancingStrategy#nearest(NetworkCoordinates, int)
+ */
+public class NetworkCoordinates implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkCoordinates.class);
+
+    private final Consul consul;
+    private final NetworkCoordinatesFactory config;
+    private final ConsulMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile State state = new State(null, Map.of(), 0);
+    private String localNodeName;
+    private ScheduledFuture<?> refreshFuture;
+
+    private record State(@Nullable NetworkCoordinate local, Map<String, NetworkCoordinate> nodes, long version) {
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul    Consul client
+     * @param config    the refresh interval and optional local node name
+     * @param metrics   metrics to record Consul calls in
+     * @param scheduler the scheduler used to refresh the coordinates; it is not shut down by this class
+     */
+    public NetworkCoordinates(Consul consul,
+                              NetworkCoordinatesFactory config,
+                              ConsulMetrics metrics,
+                              ScheduledExecutorService scheduler) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.config = requireNonNull(config, "config must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+        this.localNodeName = config.getNodeName().orElse(null);
+    }
+
+    @Override
+    public synchronized void start() {
+        var intervalMillis = config.getRefreshInterval().toMilliseconds();
+        LOG.info("Refreshing Consul network coordinates every {} ms", intervalMillis);
+        refreshFuture = scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (refreshFuture != null) {
+            refreshFuture.cancel(false);
+            refreshFuture = null;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (ConsulException e) {
+            LOG.warn("Unable to refresh Consul network coordinates; keeping previous coordinates", e);
+        } catch (Exception e) {
+            // never let an exception cancel the scheduled task
+            LOG.error("Unexpected error refreshing Consul network coordinates", e);
+        }
+    }
+
+    /**
+     * Fetch the coordinates of all nodes and replace the current coordinates. Only called from the scheduler,
+     * so refreshes never overlap.
+     */
+    @VisibleForTesting
+    void refresh() {
+        if (localNodeName == null) {
+            localNodeName = metrics.time("agent.self", () -> consul.agentClient().getAgent().getConfig().getNodeName());
+        }
+
+        var coordinates = metrics.time("coordinate.nodes", () -> consul.coordinateClient().getNodes());
+        var nodes = new HashMap<String, NetworkCoordinate>();
+        for (var coordinate : coordinates) {
+            // a node has one coordinate per network segment; keep the first one
+            nodes.putIfAbsent(coordinate.getNode(), NetworkCoordinate.from(coordinate.getCoord()));
+        }
+
+        var local = nodes.get(localNodeName);
+        if (local == null) {
+            LOG.warn("Local node {} has no network coordinate; round-trip times cannot be estimated", localNodeName);
+        }
+        state = new State(local, Map.copyOf(nodes), state.version() + 1);
+        LOG.debug("Refreshed network coordinates of {} nodes", nodes.size());
+    }
+
+    /**
+     * Return the coordinate of the local node.
+     *
+     * @return the local coordinate, or an empty Optional if it is not known (yet)
+     */
+    public Optional<NetworkCoordinate> getLocalCoordinate() {
+        return Optional.ofNullable(state.local());
+    }
+
+    /**
+     * Return the coordinate of a node.
+     *
+     * @param nodeName the Consul node name
+     * @return the node's coordinate, or an empty Optional if it is not known (yet)
+     */
+    public Optional<NetworkCoordinate> getCoordinate(String nodeName) {
+        return Optional.ofNullable(state.nodes().get(nodeName));
+    }
+
+    /**
+     * Estimate the round-trip time from the local node to another node. Never does any I/O.
+     *
+     * @param nodeName the Consul node name
+     * @return the estimated round-trip time in milliseconds, or an empty OptionalDouble if either coordinate is
+     * unknown or they are not compatible
+     */
+    public OptionalDouble estimateRttMillis(String nodeName) {
+        var current = state;
+        var local = current.local();
+        var other = current.nodes().get(nodeName);
+        if (local == null || other == null || !local.isCompatibleWith(other)) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(local.rttMillisTo(other));
+    }
+
+    /**
+     * Return a number that increases each time the coordinates are refreshed, so that callers can cache values
+     * derived from the coordinates until the next refresh.
+     *
+     * @return the current version of the coordinates
+     */
+    public long version() {
+        return state.version();
+    }
+}
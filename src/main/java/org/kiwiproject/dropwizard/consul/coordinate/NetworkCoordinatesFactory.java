@@ -0,0 +1,65 @@
+package org.kiwiproject.dropwizard.consul.coordinate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.NotNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for {@link NetworkCoordinates}.
+ * <p>
+ * The coordinates of all nodes in the datacenter are fetched every {@code refreshInterval}. Consul nodes update
+ * their coordinates slowly, so there is little point in refreshing more often than every few seconds. The local
+ * node name is read from the agent unless {@code nodeName} is set.
+ */
+public class NetworkCoordinatesFactory {
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration refreshInterval = Duration.seconds(30);
+
+    private String nodeName;
+
+    @JsonProperty
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    @JsonProperty
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    @JsonProperty
+    public Optional<String> getNodeName() {
+        return Optional.ofNullable(nodeName);
+    }
+
+    @JsonProperty
+    public void setNodeName(@Nullable String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(refreshInterval, nodeName);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (NetworkCoordinatesFactory) obj;
+        return Objects.equals(this.refreshInterval, other.refreshInterval)
+            && Objects.equals(this.nodeName, other.nodeName);
+    }
+}
@@ -0,0 +1,180 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.util.Duration;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.model.session.ImmutableSession;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A Consul session with a TTL, renewed in the background at half the TTL.
+ * <p>
+ * The behavior decides what happens to the locks the session holds when it is invalidated: {@code release} releases
+ * them, and {@code delete} deletes the locked keys. If Consul reports that the session no longer exists (an empty
+ * renewal, or a 404 response), or it could not be renewed for a whole TTL, the session is considered lost: the
+ * {@code onLost} callback is called, and the next {@link #getOrCreate()} creates a new session.
+ */
+final class ConsulSession {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConsulSession.class);
+
+    private final Consul consul;
+    private final ConsulMetrics metrics;
+    private final String name;
+    private final Duration ttl;
+    private final Duration lockDelay;
+    private final String behavior;
+    private final ScheduledExecutorService scheduler;
+    private final Runnable onLost;
+    private final LongSupplier clock;
+
+    private String id;
+    private long lastRenewedAtMillis;
+    private ScheduledFuture<?> renewFuture;
+
+    ConsulSession(Consul consul,
+                  ConsulMetrics metrics,
+                  String name,
+                  Duration ttl,
+                  Duration lockDelay,
+                  String behavior,
+                  ScheduledExecutorService scheduler,
+                  Runnable onLost) {
+        this(consul, metrics, name, ttl, lockDelay, behavior, scheduler, onLost, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ConsulSession(Consul consul,
+                  ConsulMetrics metrics,
+                  String name,
+                  Duration ttl,
+                  Duration lockDelay,
+                  String behavior,
+                  ScheduledExecutorService scheduler,
+                  Runnable onLost,
+                  LongSupplier clock) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.name = requireNonNull(name, "name must not be null");
+        this.ttl = requireNonNull(ttl, "ttl must not be null");
+        this.lockDelay = requireNonNull(lockDelay, "lockDelay must not be null");
+        this.behavior = requireNonNull(behavior, "behavior must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+        this.onLost = requireNonNull(onLost, "onLost must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Return the ID of the current session.
+     *
+     * @return the session ID, or an empty Optional if there is no session
+     */
+    synchronized Optional<String> currentId() {
+        return Optional.ofNullable(id);
+    }
+
+    /**
+     * Return the ID of the current session, creating a session (and starting to renew it) if there is none.
+     *
+     * @return the session ID
+     * @throws ConsulException if the session cannot be created
+     */
+    synchronized String getOrCreate() {
+        if (id != null) {
+            return id;
+        }
+
+        var session = ImmutableSession.builder()
+            .name(name)
+            .ttl(ttl.toSeconds() + "s")
+            .lockDelay(lockDelay.toSeconds() + "s")
+            .behavior(behavior)
+            .build();
+        id = metrics.time("session.create", () -> consul.sessionClient().createSession(session)).getId();
+        lastRenewedAtMillis = clock.getAsLong();
+        var renewMillis = ttl.toMilliseconds() / 2;
+        renewFuture = scheduler.scheduleWithFixedDelay(this::renew, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        LOG.info("Created Consul session {} ({})", id, name);
+        return id;
+    }
+
+    @VisibleForTesting
+    void renew() {
+        String lostId = null;
+        synchronized (this) {
+            if (id == null) {
+                return;
+            }
+            try {
+                var sessionId = id;
+                var renewed = metrics.time("session.renew", () -> consul.sessionClient().renewSession(sessionId));
+                if (renewed.isPresent()) {
+                    lastRenewedAtMillis = clock.getAsLong();
+                    return;
+                }
+                LOG.warn("Consul session {} ({}) no longer exists", id, name);
+            } catch (ConsulException e) {
+                if (e.getCode() == HTTP_NOT_FOUND) {
+                    LOG.warn("Consul session {} ({}) no longer exists", id, name);
+                } else {
+                    var sinceRenewedMillis = clock.getAsLong() - lastRenewedAtMillis;
+                    if (sinceRenewedMillis < ttl.toMilliseconds()) {
+                        LOG.warn("Unable to renew Consul session {} ({}); retrying", id, name, e);
+                        return;
+                    }
+                    LOG.warn("Unable to renew Consul session {} ({}) for {} ms; considering it lost", id, name,
+                        sinceRenewedMillis, e);
+                }
+            }
+            lostId = id;
+            clear();
+        }
+
+        LOG.info("Lost Consul session {} ({})", lostId, name);
+        onLost.run();
+    }
+
+    /**
+     * Stop renewing and destroy the current session, if any, which releases its locks.
+     */
+    synchronized void close() {
+        if (id == null) {
+            return;
+        }
+        var sessionId = id;
+        clear();
+        try {
+            metrics.time("session.destroy", () -> consul.sessionClient().destroySession(sessionId));
+            LOG.info("Destroyed Consul session {} ({})", sessionId, name);
+        } catch (ConsulException e) {
+            LOG.warn("Unable to destroy Consul session {} ({}); it will expire after its TTL", sessionId, name, e);
+        }
+    }
+
+    private void clear() {
+        id = null;
+        if (renewFuture != null) {
+            renewFuture.cancel(false);
+            renewFuture = null;
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    synchronized ScheduledFuture<?> getRenewFuture() {
+        return renewFuture;
+    }
+}
@@ -0,0 +1,307 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ImmutablePutOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of an operation across all instances sharing a budget in Consul KV, e.g., of calls to a partner API
+ * that allows a fixed number of calls per second for the whole fleet.
+ * <p>
+ * The budget of {@code permitsPerWindow} is stored under {@code key} for the current window, windows being aligned to
+ * the epoch (so every instance agrees on them, within clock skew). Each instance leases batches of permits from the
+ * budget with check-and-set updates, and hands them out from a local atomic counter: {@link #tryAcquire()} never
+ * does any I/O or blocks. When the local permits run low, the next batch is leased in the background. The batch size
+ * adapts to the instance's consumption rate, to last about until the end of the window (at most {@code maxBatch}), so
+ * that busy instances lease more per round trip and idle instances do not hold permits others could use. The first
+ * lease, before the rate is known, is a single permit, so that a fleet starting at once does not drain the budget
+ * before any instance has measured its rate. Leased permits expire with their window.
+ * <p>
+ * If Consul cannot be reached, no more permits are leased, so the limiter fails closed. A budget that cannot be read
+ * is replaced by a full one. A budget stored for a later window (by an instance whose clock is ahead) is never
+ * replaced: the current window is treated as exhausted instead, so clock skew cannot reset the shared budget.
+ */
+public class DistributedRateLimiter implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedRateLimiter.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * The number of check-and-set attempts of one lease before giving up, when other instances keep leasing
+     * concurrently.
+     */
+    @VisibleForTesting
+    static final int MAX_CAS_ATTEMPTS = 5;
+
+    /**
+     * The weight of the latest consumption rate in the moving average the batch size is based on.
+     */
+    private static final double RATE_WEIGHT = 0.5;
+
+    private final Consul consul;
+    private final String key;
+    private final long permitsPerWindow;
+    private final long windowMillis;
+    private final long maxBatch;
+    private final ConsulMetrics metrics;
+    private final ExecutorService executor;
+    private final LongSupplier clock;
+
+    private final AtomicLong permits = new AtomicLong();
+    private final LongAdder consumed = new LongAdder();
+    private final AtomicBoolean leasing = new AtomicBoolean();
+
+    private volatile long leaseWindowStartMillis = -1;
+    private volatile long leaseExpiresAtMillis;
+    private volatile long refillThreshold;
+    private volatile long exhaustedUntilMillis;
+    private volatile boolean stopped;
+
+    // only accessed by the lease in progress; leases never overlap; negative until measured
+    private double ratePerMilli = -1;
+    private long lastLeaseAtMillis = -1;
+
+    @VisibleForTesting
+    record Budget(@JsonProperty("WindowStart") long windowStartMillis, @JsonProperty("Remaining") long remaining) {
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul           Consul client
+     * @param key              the KV key of the shared budget
+     * @param permitsPerWindow the number of permits per window, across all instances
+     * @param window           the length of a window
+     * @param maxBatch         the maximum number of permits leased at once
+     * @param metrics          metrics to record Consul calls in
+     * @param executor         the executor to lease permits on; it is not shut down by this class
+     */
+    public DistributedRateLimiter(Consul consul,
+                                  String key,
+                                  long permitsPerWindow,
+                                  Duration window,
+                                  long maxBatch,
+                                  ConsulMetrics metrics,
+                                  ExecutorService executor) {
+        this(consul, key, permitsPerWindow, window, maxBatch, metrics, executor, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    DistributedRateLimiter(Consul consul,
+                           String key,
+                           long permitsPerWindow,
+                           Duration window,
+                           long maxBatch,
+                           ConsulMetrics metrics,
+                           ExecutorService executor,
+                           LongSupplier clock) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.key = requireNonNull(key, "key must not be null");
+        checkArgument(permitsPerWindow > 0, "permitsPerWindow must be positive");
+        checkArgument(requireNonNull(window, "window must not be null").toMilliseconds() > 0,
+            "window must be positive");
+        checkArgument(maxBatch > 0, "maxBatch must be positive");
+        this.permitsPerWindow = permitsPerWindow;
+        this.windowMillis = window.toMilliseconds();
+        this.maxBatch = Math.min(maxBatch, permitsPerWindow);
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.executor = requireNonNull(executor, "executor must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+    }
+
+    @Override
+    public void start() {
+        stopped = false;
+        requestLease();
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        permits.set(0);
+    }
+
+    /**
+     * Take a permit if one is available locally. Never does any I/O or blocks; if permits are running low, more are
+     * leased in the background.
+     *
+     * @return true if a permit was taken
+     */
+    public boolean tryAcquire() {
+        if (clock.getAsLong() >= leaseExpiresAtMillis) {
+            requestLease();
+            return false;
+        }
+
+        long available;
+        do {
+            available = permits.get();
+            if (available <= 0) {
+                requestLease();
+                return false;
+            }
+        } while (!permits.compareAndSet(available, available - 1));
+
+        consumed.increment();
+        if (available - 1 <= refillThreshold) {
+            requestLease();
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of permits available locally, which is zero if the lease has expired.
+     *
+     * @return the number of local permits
+     */
+    public long availablePermits() {
+        return clock.getAsLong() >= leaseExpiresAtMillis ? 0 : Math.max(0, permits.get());
+    }
+
+    /**
+     * Return the KV key of the shared budget.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    private void requestLease() {
+        if (stopped || clock.getAsLong() < exhaustedUntilMillis || !leasing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::lease);
+        } catch (RejectedExecutionException e) {
+            leasing.set(false);
+            LOG.trace("Not leasing permits of {}; the executor is shutting down", key);
+        }
+    }
+
+    /**
+     * Lease a batch of permits from the shared budget.
+     */
+    @VisibleForTesting
+    void lease() {
+        try {
+            var now = clock.getAsLong();
+            var windowStart = now - Math.floorMod(now, windowMillis);
+            var batch = nextBatchSize(now, windowStart + windowMillis);
+            for (var attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+                if (tryLease(windowStart, batch)) {
+                    return;
+                }
+            }
+            LOG.debug("Unable to update {} after {} attempts; it is contended", key, MAX_CAS_ATTEMPTS);
+        } catch (ConsulException | IllegalStateException e) {
+            LOG.warn("Unable to lease permits of {}", key, e);
+        } finally {
+            leasing.set(false);
+        }
+    }
+
+    private boolean tryLease(long windowStart, long batch) {
+        var windowEnd = windowStart + windowMillis;
+
+        Optional<Value> current = metrics.time("kv.get", () -> consul.keyValueClient().getValue(key));
+        var stored = current.flatMap(Value::getValueAsString).flatMap(this::parse);
+        if (stored.isPresent() && stored.get().windowStartMillis() > windowStart) {
+            exhaustedUntilMillis = windowEnd;
+            LOG.debug("Budget of {} is for a later window than {}; the clock of this instance is behind", key,
+                windowStart);
+            return true;
+        }
+        var budget = stored.filter(budgetOfWindow -> budgetOfWindow.windowStartMillis() == windowStart)
+            .orElseGet(() -> new Budget(windowStart, permitsPerWindow));
+
+        var granted = Math.min(batch, budget.remaining());
+        if (granted <= 0) {
+            exhaustedUntilMillis = windowEnd;
+            LOG.debug("Budget of {} is exhausted until {}", key, windowEnd);
+            return true;
+        }
+
+        var putOptions = ImmutablePutOptions.builder().cas(current.map(Value::getModifyIndex).orElse(0L)).build();
+        var json = write(new Budget(windowStart, budget.remaining() - granted));
+        if (!metrics.time("kv.put", () -> consul.keyValueClient().putValue(key, json, 0L, putOptions))) {
+            return false;
+        }
+
+        if (leaseWindowStartMillis == windowStart) {
+            permits.addAndGet(granted);
+        } else {
+            permits.set(granted);
+            leaseWindowStartMillis = windowStart;
+        }
+        leaseExpiresAtMillis = windowEnd;
+        refillThreshold = granted / 4;
+        LOG.trace("Leased {} permits of {}; {} remain in the window", granted, key, budget.remaining() - granted);
+        return true;
+    }
+
+    /**
+     * Return the number of permits to lease: enough to last until the end of the window at the average consumption
+     * rate, between one and {@code maxBatch}. The first lease, before any rate is known, is a single permit; the
+     * first measured rate then replaces the unknown one rather than being averaged with it.
+     */
+    @VisibleForTesting
+    long nextBatchSize(long now, long windowEnd) {
+        var previousLeaseAtMillis = lastLeaseAtMillis;
+        var consumedSinceLastLease = consumed.sumThenReset();
+        lastLeaseAtMillis = now;
+
+        if (previousLeaseAtMillis < 0) {
+            return 1;
+        }
+        var elapsedMillis = now - previousLeaseAtMillis;
+        if (elapsedMillis > 0) {
+            var latestRate = (double) consumedSinceLastLease / elapsedMillis;
+            ratePerMilli = ratePerMilli < 0 ? latestRate : RATE_WEIGHT * latestRate + (1 - RATE_WEIGHT) * ratePerMilli;
+        }
+
+        var wanted = (long) Math.ceil(Math.max(0, ratePerMilli) * (windowEnd - now));
+        return Math.max(1, Math.min(maxBatch, wanted));
+    }
+
+    private Optional<Budget> parse(String json) {
+        try {
+            return Optional.of(MAPPER.readValue(json, Budget.class));
+        } catch (JsonProcessingException e) {
+            LOG.warn("Replacing invalid budget of {}: {}", key, json, e);
+            return Optional.empty();
+        }
+    }
+
+    private static String write(Budget budget) {
+        try {
+            return MAPPER.writeValueAsString(budget);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
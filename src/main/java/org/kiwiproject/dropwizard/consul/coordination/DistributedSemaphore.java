@@ -0,0 +1,375 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.ImmutablePutOptions;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueQuery;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Limits how many instances (across all services using the same prefix) hold a permit at once, e.g., to keep every
+ * instance from starting the same heavy job against a shared database at the same time.
+ * <p>
+ * This implements the Consul semaphore recipe. Each instance has a session, renewed in the background, and a contender
+ * key {@code <prefix><sessionId>} locked by it. The key {@code <prefix>.lock} holds the limit and the sessions holding
+ * a permit, as {@code {"Limit": 2, "Holders": ["<sessionId>", ...]}}; it is only updated with check-and-set, and
+ * holders whose contender key is no longer locked (because their session expired) are pruned on every acquisition.
+ * The session uses the {@code delete} behavior, so the contender keys of expired sessions are deleted rather than
+ * left behind unlocked.
+ * {@link #acquire(Duration)} waits for changes under the prefix, which it watches on the {@link WatchEngine} once
+ * started.
+ * <p>
+ * Each instance holds at most one permit. The permit is released by {@link #release()}, on stop, and when the session
+ * is lost, in which case {@link #isHeld()} turns false and work done under the permit should stop.
+ */
+public class DistributedSemaphore implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedSemaphore.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * The default session TTL, the same as the default of leader elections: a permit of an instance that dies is
+     * released after about 15 seconds (Consul may take up to twice as long), while renewals every 7.5 seconds ride
+     * out brief Consul hiccups.
+     */
+    public static final Duration DEFAULT_SESSION_TTL = Duration.seconds(15);
+
+    /**
+     * The number of check-and-set attempts of one acquisition or release before giving up, when other instances keep
+     * updating the lock key concurrently.
+     */
+    @VisibleForTesting
+    static final int MAX_CAS_ATTEMPTS = 5;
+
+    private static final long MAX_WAIT_MILLIS = 1_000;
+
+    private final Consul consul;
+    private final WatchEngine watchEngine;
+    private final String prefix;
+    private final String lockKey;
+    private final int limit;
+    private final String holderId;
+    private final ConsulMetrics metrics;
+    private final ConsulSession session;
+    private final KeyValueQuery query;
+    private final Object changeMonitor = new Object();
+
+    private volatile boolean held;
+    private volatile boolean stopped;
+    private long changes;
+    private WatchSubscription subscription;
+
+    @VisibleForTesting
+    record SemaphoreLock(@JsonProperty("Limit") int limit, @JsonProperty("Holders") List<String> holders) {
+
+        SemaphoreLock {
+            holders = holders == null ? List.of() : List.copyOf(holders);
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul      Consul client
+     * @param watchEngine the engine to watch the prefix on
+     * @param prefix      the KV prefix of the semaphore; must end with {@code /}
+     * @param limit       the number of permits
+     * @param holderId    identifies this instance, e.g., its service ID; written as the value of its contender key
+     * @param sessionTtl  the TTL of the session, between 10 seconds and 24 hours as Consul requires; a permit of an
+     *                    instance that dies is released after about this long
+     * @param metrics     metrics to record Consul calls in
+     * @param scheduler   the scheduler used to renew the session; it is not shut down by this class
+     */
+    public DistributedSemaphore(Consul consul,
+                                WatchEngine watchEngine,
+                                String prefix,
+                                int limit,
+                                String holderId,
+                                Duration sessionTtl,
+                                ConsulMetrics metrics,
+                                ScheduledExecutorService scheduler) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.watchEngine = requireNonNull(watchEngine, "watchEngine must not be null");
+        this.prefix = requireNonNull(prefix, "prefix must not be null");
+        checkArgument(prefix.endsWith("/"), "prefix must end with /");
+        checkArgument(limit > 0, "limit must be positive");
+        requireNonNull(sessionTtl, "sessionTtl must not be null");
+        checkArgument(sessionTtl.toSeconds() >= 10 && sessionTtl.toSeconds() <= TimeUnit.HOURS.toSeconds(24),
+            "sessionTtl must be between 10 seconds and 24 hours");
+        this.lockKey = prefix + ".lock";
+        this.limit = limit;
+        this.holderId = requireNonNull(holderId, "holderId must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.session = new ConsulSession(consul, metrics, "semaphore " + prefix, sessionTtl, Duration.seconds(0),
+            "delete", scheduler, this::onSessionLost);
+        this.query = new KeyValueQuery(consul, metrics, ConsistencyMode.DEFAULT, prefix);
+    }
+
+    @Override
+    public synchronized void start() {
+        subscription = watchEngine.watch(query.watchKey(), query, values -> signalChange());
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopped = true;
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        if (held) {
+            try {
+                release();
+            } catch (ConsulException e) {
+                LOG.warn("Unable to release semaphore {}; it is released when the session is destroyed", prefix, e);
+            }
+        }
+        session.close();
+        signalChange();
+    }
+
+    /**
+     * Try to acquire a permit without waiting.
+     *
+     * @return true if this instance holds a permit (including if it already did)
+     * @throws IllegalStateException                  if this semaphore has stopped
+     * @throws org.kiwiproject.consul.ConsulException if Consul cannot be reached
+     */
+    public synchronized boolean tryAcquire() {
+        checkState(!stopped, "semaphore %s has stopped", prefix);
+        if (held) {
+            return true;
+        }
+
+        var sessionId = session.getOrCreate();
+        var contenderKey = prefix + sessionId;
+        var contending = metrics.time("kv.acquire",
+            () -> consul.keyValueClient().acquireLock(contenderKey, holderId, sessionId));
+        if (!contending) {
+            LOG.warn("Unable to lock contender key {} of semaphore {}", contenderKey, prefix);
+            return false;
+        }
+
+        for (var attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+            var values = query.execute(null, 0).value();
+            var lockValue = findLock(values);
+            var lock = lockValue.map(this::parse).orElseGet(() -> new SemaphoreLock(limit, List.of()));
+
+            var liveSessions = liveSessions(values);
+            var holders = lock.holders().stream().filter(liveSessions::contains).collect(Collectors.toCollection(ArrayList::new));
+            if (holders.size() >= lock.limit()) {
+                deleteContenderKey(contenderKey);
+                return false;
+            }
+
+            holders.add(sessionId);
+            if (compareAndSet(new SemaphoreLock(lock.limit(), holders), lockValue)) {
+                held = true;
+                LOG.info("Acquired semaphore {} ({} of {} permits held)", prefix, holders.size(), lock.limit());
+                return true;
+            }
+        }
+
+        LOG.debug("Unable to update {} after {} attempts; it is contended", lockKey, MAX_CAS_ATTEMPTS);
+        deleteContenderKey(contenderKey);
+        return false;
+    }
+
+    /**
+     * Acquire a permit, waiting up to the given time for one to become available.
+     *
+     * @param timeout the maximum time to wait
+     * @return true if this instance holds a permit, false if none became available in time
+     * @throws InterruptedException                   if interrupted while waiting
+     * @throws IllegalStateException                  if this semaphore has stopped
+     * @throws org.kiwiproject.consul.ConsulException if Consul cannot be reached
+     */
+    public boolean acquire(Duration timeout) throws InterruptedException {
+        var deadlineNanos = System.nanoTime() + timeout.toNanoseconds();
+        while (true) {
+            long seenChanges;
+            synchronized (changeMonitor) {
+                seenChanges = changes;
+            }
+            if (tryAcquire()) {
+                return true;
+            }
+
+            var remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            synchronized (changeMonitor) {
+                if (changes == seenChanges) {
+                    // without a watch (before start) this polls
+                    changeMonitor.wait(Math.min(remainingMillis, MAX_WAIT_MILLIS));
+                }
+            }
+        }
+    }
+
+    /**
+     * Release the permit held by this instance, if any.
+     *
+     * @throws org.kiwiproject.consul.ConsulException if Consul cannot be reached; the permit is released anyway
+     *                                                when the session is destroyed or expires
+     */
+    public synchronized void release() {
+        if (!held) {
+            return;
+        }
+        held = false;
+
+        var sessionId = session.currentId();
+        if (sessionId.isEmpty()) {
+            return;
+        }
+        for (var attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+            var lockValue = findLock(query.execute(null, 0).value());
+            if (lockValue.isEmpty()) {
+                break;
+            }
+            var lock = parse(lockValue.get());
+            var holders = new ArrayList<>(lock.holders());
+            if (!holders.remove(sessionId.get()) || compareAndSet(new SemaphoreLock(lock.limit(), holders), lockValue)) {
+                break;
+            }
+        }
+        deleteContenderKey(prefix + sessionId.get());
+        LOG.info("Released semaphore {}", prefix);
+    }
+
+    /**
+     * Run a task if a permit can be acquired without waiting, and release the permit afterward.
+     *
+     * @param task the task
+     * @return true if the task ran
+     */
+    public boolean runIfAcquired(Runnable task) {
+        if (!tryAcquire()) {
+            return false;
+        }
+        try {
+            task.run();
+        } finally {
+            release();
+        }
+        return true;
+    }
+
+    /**
+     * Whether this instance currently holds a permit.
+     *
+     * @return true if a permit is held
+     */
+    public boolean isHeld() {
+        return held;
+    }
+
+    /**
+     * Return the KV prefix of this semaphore.
+     *
+     * @return the prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Return the number of permits.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    private Optional<Value> findLock(List<Value> values) {
+        return values.stream().filter(value -> lockKey.equals(value.getKey())).findFirst();
+    }
+
+    private Set<String> liveSessions(List<Value> values) {
+        return values.stream()
+            .filter(value -> !lockKey.equals(value.getKey()))
+            .map(Value::getSession)
+            .flatMap(Optional::stream)
+            .collect(Collectors.toSet());
+    }
+
+    private SemaphoreLock parse(Value value) {
+        var json = value.getValueAsString().orElse("");
+        if (json.isBlank()) {
+            return new SemaphoreLock(limit, List.of());
+        }
+        try {
+            var lock = MAPPER.readValue(json, SemaphoreLock.class);
+            if (lock.limit() != limit) {
+                LOG.warn("Semaphore {} has a limit of {}, not {}; using {}", prefix, lock.limit(), limit, lock.limit());
+            }
+            return lock;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid semaphore lock " + lockKey + ": " + json, e);
+        }
+    }
+
+    private boolean compareAndSet(SemaphoreLock lock, Optional<Value> previous) {
+        String json;
+        try {
+            json = MAPPER.writeValueAsString(lock);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        var putOptions = ImmutablePutOptions.builder().cas(previous.map(Value::getModifyIndex).orElse(0L)).build();
+        return metrics.time("kv.put", () -> consul.keyValueClient().putValue(lockKey, json, 0L, putOptions));
+    }
+
+    private void deleteContenderKey(String contenderKey) {
+        try {
+            metrics.time("kv.delete", () -> consul.keyValueClient().deleteKey(contenderKey));
+        } catch (ConsulException e) {
+            LOG.warn("Unable to delete contender key {}; it is released with the session", contenderKey, e);
+        }
+    }
+
+    private void onSessionLost() {
+        if (held) {
+            held = false;
+            LOG.warn("Lost the permit of semaphore {} with the session", prefix);
+        }
+        signalChange();
+    }
+
+    private void signalChange() {
+        synchronized (changeMonitor) {
+            changes++;
+            changeMonitor.notifyAll();
+        }
+    }
+}
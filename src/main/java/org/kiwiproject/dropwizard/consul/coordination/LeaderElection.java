@@ -0,0 +1,281 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueQuery;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects one instance of a service as the leader, using a Consul session and a lock on a KV key (acquired with
+ * {@code ?acquire} and released with {@code ?release}), so that singleton work such as scheduled jobs runs on one
+ * instance only.
+ * <p>
+ * On start, the election creates a session, and watches the key with a blocking query on the {@link WatchEngine}.
+ * Whenever the key has no holder, the election tries to acquire it; the instance holding it is the leader. The
+ * session is renewed in the background. If it is lost (e.g., after a long GC pause or a network partition), this
+ * instance stops being the leader immediately, and competes again with a new session. On stop, the leader releases
+ * the lock and destroys its session, so another instance can take over right away.
+ * <p>
+ * Note that leadership is only as current as the last renewal or watch result: a leader that is partitioned from
+ * Consul keeps believing it leads until its session is considered lost. The lock delay (see
+ * {@link LeaderElectionFactory}) gives it that time before another instance can take over.
+ *
+ * @see LeaderElectionFactory
+ */
+public class LeaderElection implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeaderElection.class);
+
+    private final Consul consul;
+    private final WatchEngine watchEngine;
+    private final LeaderElectionFactory config;
+    private final String key;
+    private final String candidateId;
+    private final ConsulMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final ConsulSession session;
+    private final List<LeadershipListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean leader;
+    private volatile String currentLeader;
+    private boolean running;
+    private WatchSubscription subscription;
+    private ScheduledFuture<?> retryFuture;
+
+    /**
+     * Constructor
+     *
+     * @param consul      Consul client
+     * @param watchEngine the engine to watch the lock key on
+     * @param config      the session and retry settings
+     * @param key         the lock key
+     * @param candidateId identifies this instance, e.g., its service ID; written as the value of the key when it
+     *                    leads
+     * @param metrics     metrics to record Consul calls in
+     * @param scheduler   the scheduler used to renew the session and retry; it is not shut down by this class
+     */
+    public LeaderElection(Consul consul,
+                          WatchEngine watchEngine,
+                          LeaderElectionFactory config,
+                          String key,
+                          String candidateId,
+                          ConsulMetrics metrics,
+                          ScheduledExecutorService scheduler) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.watchEngine = requireNonNull(watchEngine, "watchEngine must not be null");
+        this.config = requireNonNull(config, "config must not be null");
+        this.key = requireNonNull(key, "key must not be null");
+        this.candidateId = requireNonNull(candidateId, "candidateId must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+        this.session = new ConsulSession(consul, metrics, "leader-election " + key, config.getSessionTtl(),
+            config.getLockDelay(), "release", scheduler, this::onSessionLost);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        LOG.info("Competing for leadership of {} as {}", key, candidateId);
+        var query = new KeyValueQuery(consul, metrics, ConsistencyMode.DEFAULT, key);
+        subscription = watchEngine.watch(query.watchKey(), query, this::onLockChange);
+        tryAcquire();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        cancelRetry();
+
+        if (leader) {
+            session.currentId().ifPresent(sessionId -> {
+                try {
+                    metrics.time("kv.release", () -> consul.keyValueClient().releaseLock(key, sessionId));
+                } catch (ConsulException e) {
+                    LOG.warn("Unable to release leadership of {}; it is released when the session is destroyed", key, e);
+                }
+            });
+            setLeader(false);
+        }
+        session.close();
+    }
+
+    /**
+     * Add a listener for leadership changes. If this instance is the leader already, the listener is called right
+     * away.
+     *
+     * @param listener the listener
+     */
+    public synchronized void addListener(LeadershipListener listener) {
+        listeners.add(requireNonNull(listener, "listener must not be null"));
+        if (leader) {
+            notifyGained(listener);
+        }
+    }
+
+    /**
+     * Remove a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(LeadershipListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Whether this instance is currently the leader.
+     *
+     * @return true if this instance holds the lock
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Run a task only if this instance is the leader, e.g., from a job scheduled on every instance.
+     *
+     * @param task the task
+     * @return true if the task ran
+     */
+    public boolean runIfLeader(Runnable task) {
+        if (!leader) {
+            return false;
+        }
+        task.run();
+        return true;
+    }
+
+    /**
+     * Return the candidate ID of the current leader, as last seen.
+     *
+     * @return the leader's candidate ID, or an empty Optional if there is no leader or it is not known yet
+     */
+    public Optional<String> getLeader() {
+        return Optional.ofNullable(currentLeader);
+    }
+
+    /**
+     * Return the lock key.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @VisibleForTesting
+    synchronized void onLockChange(List<Value> values) {
+        if (!running) {
+            return;
+        }
+
+        var lock = values.stream().filter(value -> key.equals(value.getKey())).findFirst();
+        var holder = lock.flatMap(Value::getSession);
+        if (holder.isEmpty()) {
+            currentLeader = null;
+            tryAcquire();
+            return;
+        }
+
+        currentLeader = lock.flatMap(Value::getValueAsString).orElse(null);
+        var held = holder.equals(session.currentId());
+        if (!held && leader) {
+            LOG.warn("Leadership of {} was taken by session {}", key, holder.get());
+        }
+        setLeader(held);
+    }
+
+    @VisibleForTesting
+    synchronized void tryAcquire() {
+        if (!running || leader) {
+            return;
+        }
+        try {
+            var sessionId = session.getOrCreate();
+            var acquired = metrics.time("kv.acquire",
+                () -> consul.keyValueClient().acquireLock(key, candidateId, sessionId));
+            if (acquired) {
+                currentLeader = candidateId;
+                setLeader(true);
+                return;
+            }
+            LOG.debug("Unable to acquire leadership of {}; it is held or in its lock delay", key);
+        } catch (ConsulException e) {
+            LOG.warn("Unable to compete for leadership of {}", key, e);
+        }
+        scheduleRetry();
+    }
+
+    private void onSessionLost() {
+        synchronized (this) {
+            setLeader(false);
+        }
+        scheduleRetry();
+    }
+
+    private synchronized void scheduleRetry() {
+        if (!running || (retryFuture != null && !retryFuture.isDone())) {
+            return;
+        }
+        retryFuture = scheduler.schedule(this::tryAcquire, config.getRetryInterval().toMilliseconds(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelRetry() {
+        if (retryFuture != null) {
+            retryFuture.cancel(false);
+            retryFuture = null;
+        }
+    }
+
+    private void setLeader(boolean newLeader) {
+        if (leader == newLeader) {
+            return;
+        }
+        leader = newLeader;
+        if (newLeader) {
+            LOG.info("Gained leadership of {}", key);
+            cancelRetry();
+            listeners.forEach(this::notifyGained);
+        } else {
+            LOG.info("Lost leadership of {}", key);
+            listeners.forEach(this::notifyLost);
+        }
+    }
+
+    private void notifyGained(LeadershipListener listener) {
+        try {
+            listener.onLeadershipGained();
+        } catch (Exception e) {
+            LOG.error("Leadership listener {} failed for {}", listener, key, e);
+        }
+    }
+
+    private void notifyLost(LeadershipListener listener) {
+        try {
+            listener.onLeadershipLost();
+        } catch (Exception e) {
+            LOG.error("Leadership listener {} failed for {}", listener, key, e);
+        }
+    }
+}
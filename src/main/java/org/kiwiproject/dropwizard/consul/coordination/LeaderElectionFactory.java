@@ -0,0 +1,100 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MaxDuration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.NotNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for {@link LeaderElection}.
+ * <p>
+ * The instances of a service compete for a lock on {@code key} (by default {@code service/<serviceName>/leader})
+ * using a Consul session with a TTL of {@code sessionTtl}, which is renewed at half the TTL. If the leader dies, its
+ * session expires after at most {@code sessionTtl} (Consul may wait up to twice as long), and Consul then prevents
+ * the lock from being acquired for {@code lockDelay}, to give a leader that is only partitioned away time to notice
+ * and stop its work. While the lock is free but cannot be acquired, the followers retry every {@code retryInterval}.
+ */
+public class LeaderElectionFactory {
+
+    private String key;
+
+    @NotNull
+    @MinDuration(value = 10, unit = TimeUnit.SECONDS)
+    @MaxDuration(value = 24, unit = TimeUnit.HOURS)
+    private Duration sessionTtl = Duration.seconds(15);
+
+    @NotNull
+    @MinDuration(value = 0, unit = TimeUnit.SECONDS)
+    @MaxDuration(value = 60, unit = TimeUnit.SECONDS)
+    private Duration lockDelay = Duration.seconds(15);
+
+    @NotNull
+    @MinDuration(value = 100, unit = TimeUnit.MILLISECONDS)
+    private Duration retryInterval = Duration.seconds(5);
+
+    @JsonProperty
+    public Optional<String> getKey() {
+        return Optional.ofNullable(key);
+    }
+
+    @JsonProperty
+    public void setKey(@Nullable String key) {
+        this.key = key;
+    }
+
+    @JsonProperty
+    public Duration getSessionTtl() {
+        return sessionTtl;
+    }
+
+    @JsonProperty
+    public void setSessionTtl(Duration sessionTtl) {
+        this.sessionTtl = sessionTtl;
+    }
+
+    @JsonProperty
+    public Duration getLockDelay() {
+        return lockDelay;
+    }
+
+    @JsonProperty
+    public void setLockDelay(Duration lockDelay) {
+        this.lockDelay = lockDelay;
+    }
+
+    @JsonProperty
+    public Duration getRetryInterval() {
+        return retryInterval;
+    }
+
+    @JsonProperty
+    public void setRetryInterval(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, sessionTtl, lockDelay, retryInterval);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (LeaderElectionFactory) obj;
+        return Objects.equals(this.key, other.key)
+            && Objects.equals(this.sessionTtl, other.sessionTtl)
+            && Objects.equals(this.lockDelay, other.lockDelay)
+            && Objects.equals(this.retryInterval, other.retryInterval);
+    }
+}
@@ -0,0 +1,22 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+/**
+ * Receives leadership changes from a {@link LeaderElection}.
+ * <p>
+ * Listeners are called while the election's state is locked, so they should return quickly, e.g., by starting or
+ * stopping work on an executor of their own. An exception thrown by a listener is logged and does not affect the
+ * election or other listeners.
+ */
+public interface LeadershipListener {
+
+    /**
+     * Called when this instance becomes the leader.
+     */
+    void onLeadershipGained();
+
+    /**
+     * Called when this instance stops being the leader, because it lost its session, another instance took the lock
+     * (e.g., after an operator released it), or the election is stopping.
+     */
+    void onLeadershipLost();
+}
@@ -12,11 +12,16 @@ import jakarta.ws.rs.core.UriBuilder;
 import org.apache.commons.net.util.SubnetUtils;
 import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
 import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.AgentClient;
 import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.ConsulException;
 import org.kiwiproject.consul.model.agent.ImmutableRegCheck;
 import org.kiwiproject.consul.model.agent.ImmutableRegistration;
 import org.kiwiproject.dropwizard.consul.ConsulFactory;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent.Outcome;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.saturation.SaturationMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +56,7 @@ public class ConsulAdvertiser {
     private final ConsulFactory configuration;
     private final Consul consul;
     private final String serviceId;
+    private final ConsulMetrics metrics;
     private final AtomicReference<String> healthCheckPath = new AtomicReference<>();
     private final AtomicReference<Boolean> healthCheckSkipTlsVerify = new AtomicReference<>();
 
@@ -63,10 +69,28 @@ public class ConsulAdvertiser {
      * @param serviceId     Consul service ID
      */
     public ConsulAdvertiser(Environment environment, ConsulFactory configuration, Consul consul, String serviceId) {
+        this(environment, configuration, consul, serviceId, ConsulMetrics.noop());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param environment   Dropwizard environment
+     * @param configuration Consul configuration
+     * @param consul        Consul client
+     * @param serviceId     Consul service ID
+     * @param metrics       metrics to record registration calls in
+     */
+    public ConsulAdvertiser(Environment environment,
+                            ConsulFactory configuration,
+                            Consul consul,
+                            String serviceId,
+                            ConsulMetrics metrics) {
         this.environment = requireNonNull(environment, "environment == null");
         this.configuration = requireNonNull(configuration, "configuration == null");
         this.consul = requireNonNull(consul, "consul == null");
         this.serviceId = requireNonNull(serviceId, "serviceId == null");
+        this.metrics = requireNonNull(metrics, "metrics == null");
 
         configuration
             .getServicePort()
@@ -237,8 +261,26 @@ public class ConsulAdvertiser {
         checkState(isNotBlank(serviceName),
             "serviceName must not be blank; make sure it is set (e.g., in ConsulFactory) before calling register");
 
+        var event = ConsulOperationEvent.begin("agent.register", serviceId);
+        try {
+            var registered = registerIfNotRegistered(
+                serviceName, applicationScheme, applicationPort, adminScheme, adminPort, hosts);
+            event.end(registered ? Outcome.SUCCESS : Outcome.SKIPPED, 0);
+            return registered;
+        } catch (RuntimeException e) {
+            event.end(Outcome.FAILURE, 0);
+            throw e;
+        }
+    }
+
+    private boolean registerIfNotRegistered(String serviceName,
+                                            String applicationScheme,
+                                            int applicationPort,
+                                            String adminScheme,
+                                            int adminPort,
+                                            @Nullable Collection<String> hosts) {
         var agentClient = consul.agentClient();
-        if (agentClient.isRegistered(serviceId)) {
+        if (isRegistered(agentClient)) {
             LOG.info("Service ({}) [{}] already registered", serviceName, serviceId);
             return false;
         }
@@ -253,6 +295,10 @@ public class ConsulAdvertiser {
         var serviceAddressOrNull = serviceAddressOpt.orElse(null);
         var healthCheckUrl = getHealthCheckUrl(adminScheme, serviceAddressOrNull);
 
+        if (configuration.isDeregisterStaleInstances()) {
+            deregisterStaleInstances(agentClient, serviceName, serviceAddressOrNull, servicePort.get());
+        }
+
         LOG.info(
             "Registering service {} [id: {}] with address {} on port {}" +
                 " (admin port {}) with health check path '{}' (URL: {}) and interval of {}s",
@@ -279,6 +325,16 @@ public class ConsulAdvertiser {
             .check(registrationCheck)
             .id(serviceId);
 
+        // If saturation monitoring is enabled, add the TTL check the monitor updates.
+        configuration.getSaturationMonitor().ifPresent(saturationConfig ->
+            registrationBuilder.addChecks(ImmutableRegCheck.builder()
+                .id(SaturationMonitor.checkId(serviceId))
+                .name("Service saturation")
+                .ttl(String.format("%ds", saturationConfig.getCheckTtl().toSeconds()))
+                .deregisterCriticalServiceAfter(
+                    String.format("%dm", configuration.getDeregisterInterval().toMinutes()))
+                .build()));
+
         // If we have set the serviceAddress, add it to the registration.
         serviceAddressOpt.ifPresent(registrationBuilder::address);
 
@@ -292,14 +348,57 @@ public class ConsulAdvertiser {
             registrationBuilder.meta(serviceMeta.get());
         }
 
+        // If we have a locality, publish it as service meta.
+        configuration.getLocality().ifPresent(locality -> registrationBuilder.putAllMeta(locality.toMeta()));
+
         registrationBuilder.putMeta("scheme", applicationScheme);
         registrationBuilder.putMeta("applicationScheme", applicationScheme);
         registrationBuilder.putMeta("adminScheme", adminScheme);
 
-        agentClient.register(registrationBuilder.build());
+        var registration = registrationBuilder.build();
+        metrics.time("agent.register", () -> agentClient.register(registration));
         return true;
     }
 
+    private boolean isRegistered(AgentClient agentClient) {
+        return metrics.time("agent.isRegistered", () -> agentClient.isRegistered(serviceId));
+    }
+
+    /**
+     * Deregister instances of the same service that are registered on the local agent with the same address
+     * and port as this instance, but with a different service ID. Since this instance owns the port, those
+     * registrations can only belong to processes that exited without deregistering.
+     * <p>
+     * Failures are logged but do not prevent registration.
+     */
+    @VisibleForTesting
+    void deregisterStaleInstances(AgentClient agentClient,
+                                  String serviceName,
+                                  @Nullable String address,
+                                  int port) {
+        try {
+            agentClient.getServices().values().stream()
+                .filter(service -> serviceName.equals(service.getService()))
+                .filter(service -> !serviceId.equals(service.getId()))
+                .filter(service -> service.getPort() == port)
+                .filter(service -> isSameAddress(service.getAddress(), address))
+                .forEach(service -> {
+                    LOG.warn("Deregistering stale instance {} of service {} (address: {}, port: {})",
+                        service.getId(), serviceName, service.getAddress(), port);
+                    agentClient.deregister(service.getId());
+                });
+        } catch (ConsulException e) {
+            LOG.warn("Unable to deregister stale instances of service {}; continuing with registration",
+                serviceName, e);
+        }
+    }
+
+    private static boolean isSameAddress(@Nullable String registeredAddress, @Nullable String address) {
+        var registered = isNotBlank(registeredAddress) ? registeredAddress : "";
+        var ours = isNotBlank(address) ? address : "";
+        return registered.equals(ours);
+    }
+
     /**
      * Returns the service address from best provided options. The order of precedence is as follows:
      * serviceAddress, if provided, then the subnet resolution, lastly the supplier. If none of the
@@ -371,23 +470,28 @@ public class ConsulAdvertiser {
      * Deregister a service from Consul
      */
     public void deregister() {
+        var event = ConsulOperationEvent.begin("agent.deregister", serviceId);
         var agentClient = consul.agentClient();
         try {
-            if (!agentClient.isRegistered(serviceId)) {
+            if (!isRegistered(agentClient)) {
                 LOG.info("No service registered with ID \"{}\"", serviceId);
+                event.end(Outcome.SKIPPED, 0);
                 return;
             }
         } catch (ConsulException e) {
             LOG.error("Failed to determine if service ID \"{}\" is registered", serviceId, e);
+            event.end(Outcome.FAILURE, 0);
             return;
         }
 
         LOG.info("Deregistering service ID \"{}\"", serviceId);
 
         try {
-            agentClient.deregister(serviceId);
+            metrics.time("agent.deregister", () -> agentClient.deregister(serviceId));
+            event.end(Outcome.SUCCESS, 0);
         } catch (ConsulException e) {
             LOG.error("Failed to deregister service from Consul", e);
+            event.end(Outcome.FAILURE, 0);
         }
     }
 
@@ -0,0 +1,87 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The difference between two snapshots of the same service, keyed by Consul service ID.
+ * <p>
+ * An instance is <em>added</em> if its ID is only in the current snapshot, <em>removed</em> if its ID is only in
+ * the previous snapshot, and <em>changed</em> if its ID is in both but any of its other properties (address,
+ * port, tags, metadata, weight, etc.) differ. The changed list contains the current version of each instance.
+ *
+ * @param previous the previous snapshot
+ * @param current  the current snapshot
+ * @param added    the instances that were added, in the order of the current snapshot
+ * @param removed  the instances that were removed, in the order of the previous snapshot
+ * @param changed  the current version of the instances that changed, in the order of the current snapshot
+ */
+public record ServiceChange(ServiceSnapshot previous,
+                            ServiceSnapshot current,
+                            List<ServiceInstance> added,
+                            List<ServiceInstance> removed,
+                            List<ServiceInstance> changed) {
+
+    public ServiceChange {
+        requireNonNull(previous, "previous must not be null");
+        requireNonNull(current, "current must not be null");
+        added = List.copyOf(added);
+        removed = List.copyOf(removed);
+        changed = List.copyOf(changed);
+    }
+
+    /**
+     * Compute the difference between two snapshots, in time proportional to the number of instances.
+     *
+     * @param previous the previous snapshot
+     * @param current  the current snapshot
+     * @return the difference, which is {@link #isEmpty() empty} if the instances are the same
+     */
+    public static ServiceChange between(ServiceSnapshot previous, ServiceSnapshot current) {
+        requireNonNull(previous, "previous must not be null");
+        requireNonNull(current, "current must not be null");
+
+        var previousById = Maps.<String, ServiceInstance>newHashMapWithExpectedSize(previous.size());
+        previous.instances().forEach(instance -> previousById.put(instance.id(), instance));
+
+        var added = new ArrayList<ServiceInstance>();
+        var changed = new ArrayList<ServiceInstance>();
+        for (var instance : current.instances()) {
+            var previousInstance = previousById.remove(instance.id());
+            if (previousInstance == null) {
+                added.add(instance);
+            } else if (!Objects.equals(previousInstance, instance)) {
+                changed.add(instance);
+            }
+        }
+
+        var removed = previous.instances().stream()
+            .filter(instance -> previousById.containsKey(instance.id()))
+            .toList();
+
+        return new ServiceChange(previous, current, added, removed, changed);
+    }
+
+    /**
+     * Return the Consul service name.
+     *
+     * @return the service name
+     */
+    public String serviceName() {
+        return current.serviceName();
+    }
+
+    /**
+     * Whether no instances were added, removed, or changed.
+     *
+     * @return true if the snapshots have the same instances
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
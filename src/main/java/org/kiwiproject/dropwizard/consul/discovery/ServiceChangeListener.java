@@ -0,0 +1,20 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+/**
+ * Receives the incremental changes to the healthy instances of a watched service.
+ * <p>
+ * Listeners are called on the service's watcher thread, so they should return quickly; the next blocking query is
+ * not issued until they do. An exception thrown by a listener is logged and does not affect other listeners.
+ *
+ * @see ServiceDiscoveryCache#addListener(String, ServiceChangeListener)
+ */
+@FunctionalInterface
+public interface ServiceChangeListener {
+
+    /**
+     * Called after the snapshot of a service is replaced and its instances differ from the previous snapshot.
+     *
+     * @param change the added, removed, and changed instances
+     */
+    void onChange(ServiceChange change);
+}
@@ -0,0 +1,419 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.model.health.ServiceHealth;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.ImmutableQueryOptions;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.BlockingQuery;
+import org.kiwiproject.dropwizard.consul.watch.QueryResult;
+import org.kiwiproject.dropwizard.consul.watch.RetryPolicy;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
+import org.kiwiproject.dropwizard.consul.watch.WatchSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps an in-memory, immutable snapshot of the healthy instances of each watched service, kept up to date by
+ * Consul blocking queries against {@code /v1/health/service/<name>?passing}.
+ * <p>
+ * Each watched service is a watch of a {@link WatchEngine}, which holds a blocking query open until the service
+ * changes or the configured wait elapses; the service's {@link ServiceSnapshot} is replaced when the Consul index
+ * changes. Watches do not own threads, so the engine (normally shared with the rest of the bundle) bounds the
+ * number of queries in flight regardless of how many services are watched. Reads via {@link #getInstances(String)}
+ * and {@link #getSnapshot(String)} never do any I/O or take any locks; they return whatever snapshot is current,
+ * which is empty until the first query for the service completes.
+ * <p>
+ * If a query fails, the previous snapshot is kept and the query is retried with exponential backoff, using the
+ * retry settings of the {@link ServiceDiscoveryFactory}.
+ * <p>
+ * Queries use the given consistency mode; in cached mode, they are served from the local agent's cache, which
+ * keeps its own blocking query open against the servers. If the agent has {@code use_streaming_backend} enabled,
+ * the agent cache is fed by Consul's streaming backend, which receives only the changed instances from the servers
+ * instead of the full list on every change (see {@link ServiceDiscoveryFactory#isStreaming()}).
+ * <p>
+ * With a {@link ServiceDiscoveryFactory#getSnapshotFile() snapshot file}, the snapshots are saved periodically and on
+ * stop, and restored as {@link ServiceSnapshot#stale() stale} snapshots on start, so that instances are available
+ * immediately after a restart, even if the agent is not.
+ * <p>
+ * Consumers that only want to process what changed can {@link #addListener(String, ServiceChangeListener) add a
+ * listener}, which receives the added, removed, and changed instances whenever a snapshot is replaced.
+ *
+ * @see ServiceDiscoveryFactory
+ */
+public class ServiceDiscoveryCache implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceDiscoveryCache.class);
+
+    private final Consul consul;
+    private final ServiceDiscoveryFactory config;
+    private final ConsistencyMode consistencyMode;
+    private final ConsulMetrics metrics;
+    private final WatchEngine watchEngine;
+    private final boolean ownsWatchEngine;
+    private final RetryPolicy retryPolicy;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, ServiceSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<String> watchedServices = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, List<ServiceChangeListener>> listeners = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, WatchSubscription> subscriptions = new ConcurrentHashMap<>();
+    @Nullable
+    private final SnapshotStore snapshotStore;
+    private final AtomicBoolean snapshotsChanged = new AtomicBoolean();
+
+    private ScheduledExecutorService snapshotSaver;
+    private volatile boolean running;
+
+    /**
+     * Constructor
+     *
+     * @param consul  Consul client
+     * @param config  the services to watch and the blocking query settings
+     * @param metrics metrics to record Consul calls in
+     */
+    public ServiceDiscoveryCache(Consul consul, ServiceDiscoveryFactory config, ConsulMetrics metrics) {
+        this(consul, config, ConsistencyMode.DEFAULT, metrics);
+    }
+
+    /**
+     * Constructor that uses a watch engine of its own, which it starts and stops.
+     *
+     * @param consul          Consul client
+     * @param config          the services to watch and the blocking query settings
+     * @param consistencyMode the consistency mode of the queries
+     * @param metrics         metrics to record Consul calls in
+     */
+    public ServiceDiscoveryCache(Consul consul,
+                                 ServiceDiscoveryFactory config,
+                                 ConsistencyMode consistencyMode,
+                                 ConsulMetrics metrics) {
+        this(consul, config, consistencyMode, metrics, null, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor that uses a shared watch engine, which must be started and stopped by its owner.
+     *
+     * @param consul          Consul client
+     * @param config          the services to watch and the blocking query settings
+     * @param consistencyMode the consistency mode of the queries
+     * @param metrics         metrics to record Consul calls in
+     * @param watchEngine     the engine to run the queries on
+     */
+    public ServiceDiscoveryCache(Consul consul,
+                                 ServiceDiscoveryFactory config,
+                                 ConsistencyMode consistencyMode,
+                                 ConsulMetrics metrics,
+                                 WatchEngine watchEngine) {
+        this(consul, config, consistencyMode, metrics, requireNonNull(watchEngine, "watchEngine must not be null"),
+            System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ServiceDiscoveryCache(Consul consul,
+                          ServiceDiscoveryFactory config,
+                          ConsistencyMode consistencyMode,
+                          ConsulMetrics metrics,
+                          LongSupplier clock) {
+        this(consul, config, consistencyMode, metrics, null, clock);
+    }
+
+    private ServiceDiscoveryCache(Consul consul,
+                                  ServiceDiscoveryFactory config,
+                                  ConsistencyMode consistencyMode,
+                                  ConsulMetrics metrics,
+                                  @Nullable WatchEngine watchEngine,
+                                  LongSupplier clock) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.config = requireNonNull(config, "config must not be null");
+        this.consistencyMode = requireNonNull(consistencyMode, "consistencyMode must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+        this.ownsWatchEngine = watchEngine == null;
+        this.watchEngine = watchEngine == null ? new WatchEngine(new WatchEngineFactory()) : watchEngine;
+        this.retryPolicy = new RetryPolicy(config.getRetryInterval().toMilliseconds(),
+            config.getMaxRetryInterval().toMilliseconds());
+        this.snapshotStore = config.getSnapshotFile().map(file -> new SnapshotStore(Path.of(file))).orElse(null);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (ownsWatchEngine) {
+            watchEngine.start();
+        }
+        running = true;
+
+        if (snapshotStore != null) {
+            restoreSnapshots();
+            snapshotSaver = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("consul-discovery-snapshot-%d")
+                .setDaemon(true)
+                .build());
+            var intervalMillis = config.getSnapshotSaveInterval().toMilliseconds();
+            snapshotSaver.scheduleWithFixedDelay(this::saveSnapshotsIfChanged, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        }
+
+        // services watched before starting, then the configured ones (which start their own watches)
+        watchedServices.forEach(this::startWatcher);
+        config.getServices().forEach(this::watch);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        subscriptions.values().forEach(WatchSubscription::close);
+        subscriptions.clear();
+        if (ownsWatchEngine) {
+            watchEngine.stop();
+        }
+        if (snapshotSaver != null) {
+            snapshotSaver.shutdownNow();
+            snapshotSaver = null;
+            saveSnapshotsIfChanged();
+        }
+    }
+
+    /**
+     * Restore the snapshots saved by a previous run, for services that have not been read from Consul yet. Listeners
+     * receive the restored instances as added, so that later changes are relative to what they have seen.
+     */
+    @VisibleForTesting
+    void restoreSnapshots() {
+        try {
+            var restored = requireNonNull(snapshotStore).load();
+            restored.forEach(this::restore);
+            LOG.info("Restored stale snapshots of {} services from {}", restored.size(), snapshotStore.getFile());
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to restore service snapshots from {}; starting without them", snapshotStore.getFile(), e);
+        }
+    }
+
+    private void restore(String serviceName, ServiceSnapshot staleSnapshot) {
+        var serviceListeners = listenersOf(serviceName);
+        synchronized (serviceListeners) {
+            var current = snapshots.get(serviceName);
+            if (current != null && current.index() != 0) {
+                return;
+            }
+            snapshots.put(serviceName, staleSnapshot);
+            notifyListeners(serviceListeners, current == null ? ServiceSnapshot.empty(serviceName) : current,
+                staleSnapshot);
+        }
+    }
+
+    /**
+     * Save the snapshots of the watched services that have been read, if any snapshot changed since the last save.
+     */
+    @VisibleForTesting
+    void saveSnapshotsIfChanged() {
+        if (snapshotStore == null || !snapshotsChanged.getAndSet(false)) {
+            return;
+        }
+
+        var toSave = watchedServices.stream()
+            .map(snapshots::get)
+            .filter(snapshot -> snapshot != null && snapshot.index() > 0)
+            .toList();
+        try {
+            snapshotStore.save(toSave);
+            LOG.debug("Saved snapshots of {} services to {}", toSave.size(), snapshotStore.getFile());
+        } catch (IOException | RuntimeException e) {
+            snapshotsChanged.set(true);
+            LOG.warn("Unable to save service snapshots to {}", snapshotStore.getFile(), e);
+        }
+    }
+
+    /**
+     * Start watching a service. Does nothing if the service is already watched. If this cache has not been
+     * started yet, the service will be watched once it is.
+     *
+     * @param serviceName the Consul service name
+     * @throws IllegalStateException if the watch engine already runs as many watches as its
+     *                               {@link WatchEngineFactory#getMaxConcurrentQueries() maxConcurrentQueries}
+     */
+    public synchronized void watch(String serviceName) {
+        requireNonNull(serviceName, "serviceName must not be null");
+        if (watchedServices.add(serviceName)) {
+            snapshots.putIfAbsent(serviceName, ServiceSnapshot.empty(serviceName));
+            if (running) {
+                startWatcher(serviceName);
+            }
+        }
+    }
+
+    /**
+     * Add a listener for the changes to the healthy instances of a service, and start watching it if it is not
+     * already watched. If the service already has instances, the listener is called right away with all of them as
+     * added; after that, it is called with the changes relative to the snapshot that was current when the change
+     * happened.
+     *
+     * @param serviceName the Consul service name
+     * @param listener    the listener
+     */
+    public void addListener(String serviceName, ServiceChangeListener listener) {
+        requireNonNull(serviceName, "serviceName must not be null");
+        requireNonNull(listener, "listener must not be null");
+        var serviceListeners = listenersOf(serviceName);
+        synchronized (serviceListeners) {
+            serviceListeners.add(listener);
+            var change = ServiceChange.between(ServiceSnapshot.empty(serviceName), getSnapshot(serviceName));
+            if (!change.isEmpty()) {
+                notifyListener(listener, change);
+            }
+        }
+        watch(serviceName);
+    }
+
+    /**
+     * Remove a listener added by {@link #addListener(String, ServiceChangeListener)}. The service stays watched.
+     *
+     * @param serviceName the Consul service name
+     * @param listener    the listener to remove
+     */
+    public void removeListener(String serviceName, ServiceChangeListener listener) {
+        var serviceListeners = listeners.get(serviceName);
+        if (serviceListeners != null) {
+            serviceListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Return the names of the watched services.
+     *
+     * @return an unmodifiable copy of the watched service names
+     */
+    public Set<String> getWatchedServices() {
+        return Set.copyOf(watchedServices);
+    }
+
+    /**
+     * Return the current healthy instances of a service. Never does any I/O.
+     *
+     * @param serviceName the Consul service name
+     * @return the healthy instances, or an empty list if the service is not watched or has not been read yet
+     */
+    public List<ServiceInstance> getInstances(String serviceName) {
+        return getSnapshot(serviceName).instances();
+    }
+
+    /**
+     * Return the current snapshot of a service. Never does any I/O.
+     *
+     * @param serviceName the Consul service name
+     * @return the current snapshot, or an empty snapshot if the service is not watched or has not been read yet
+     */
+    public ServiceSnapshot getSnapshot(String serviceName) {
+        var snapshot = snapshots.get(serviceName);
+        return snapshot == null ? ServiceSnapshot.empty(serviceName) : snapshot;
+    }
+
+    private void startWatcher(String serviceName) {
+        LOG.info("Watching healthy instances of service {}", serviceName);
+        var key = "health.service:" + serviceName + ":" + consistencyMode.name();
+        subscriptions.computeIfAbsent(serviceName, name ->
+            watchEngine.watch(key, query(name), config.getWait(), retryPolicy, response -> apply(name, response)));
+    }
+
+    private BlockingQuery<ConsulResponse<List<ServiceHealth>>> query(String serviceName) {
+        return (index, waitSeconds) -> {
+            QueryOptions queryOptions = index == null
+                ? ImmutableQueryOptions.builder().consistencyMode(consistencyMode).build()
+                : QueryOptions.blockSeconds(waitSeconds, index).consistencyMode(consistencyMode).build();
+
+            var response = metrics.time("health.service",
+                () -> consul.healthClient().getHealthyServiceInstances(serviceName, queryOptions));
+            metrics.recordResponse("health.service", response);
+            return new QueryResult<>(response, response.getIndex());
+        };
+    }
+
+    /**
+     * Perform a single (blocking, if an index is given) query for the healthy instances of a service, replace
+     * its snapshot if the Consul index changed, and return the index to use for the next query. This is what each
+     * query of the service's watch does.
+     */
+    @VisibleForTesting
+    @Nullable
+    BigInteger poll(String serviceName, @Nullable BigInteger index) {
+        var result = query(serviceName).execute(index, (int) config.getWait().toSeconds());
+        if (index == null || !index.equals(result.index())) {
+            apply(serviceName, result.value());
+        }
+        return WatchEngine.nextIndex(index, result.index());
+    }
+
+    private void apply(String serviceName, ConsulResponse<List<ServiceHealth>> response) {
+        var newIndex = response.getIndex();
+        var instances = response.getResponse().stream().map(ServiceInstance::from).toList();
+        var indexValue = newIndex == null ? 0 : newIndex.longValue();
+        var snapshot = new ServiceSnapshot(serviceName, instances, indexValue, clock.getAsLong());
+
+        // replace and notify under the listeners' lock, so a listener being added sees each change exactly once
+        var serviceListeners = listenersOf(serviceName);
+        synchronized (serviceListeners) {
+            var previousSnapshot = snapshots.put(serviceName, snapshot);
+            snapshotsChanged.set(true);
+            LOG.debug("Service {} has {} healthy instances at index {}", serviceName, instances.size(), newIndex);
+
+            notifyListeners(serviceListeners,
+                previousSnapshot == null ? ServiceSnapshot.empty(serviceName) : previousSnapshot, snapshot);
+        }
+    }
+
+    private List<ServiceChangeListener> listenersOf(String serviceName) {
+        return listeners.computeIfAbsent(serviceName, name -> new CopyOnWriteArrayList<>());
+    }
+
+    private void notifyListeners(List<ServiceChangeListener> serviceListeners,
+                                 ServiceSnapshot previousSnapshot,
+                                 ServiceSnapshot snapshot) {
+        if (serviceListeners.isEmpty()) {
+            return;
+        }
+
+        var change = ServiceChange.between(previousSnapshot, snapshot);
+        if (change.isEmpty()) {
+            return;
+        }
+
+        LOG.debug("Service {} changed: {} added, {} removed, {} changed", snapshot.serviceName(),
+            change.added().size(), change.removed().size(), change.changed().size());
+        serviceListeners.forEach(listener -> notifyListener(listener, change));
+    }
+
+    private static void notifyListener(ServiceChangeListener listener, ServiceChange change) {
+        try {
+            listener.onChange(change);
+        } catch (Exception e) {
+            LOG.error("Service change listener {} failed for service {}", listener, change.current().serviceName(), e);
+        }
+    }
+
+    @VisibleForTesting
+    long retryDelayMillis(int consecutiveFailures) {
+        return retryPolicy.delayMillis(consecutiveFailures);
+    }
+}
@@ -0,0 +1,192 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MaxDuration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.dropwizard.consul.loadbalancer.OutlierDetectionFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link ServiceDiscoveryCache}.
+ * <p>
+ * The {@code services} are watched from startup; other services can be watched later using
+ * {@link ServiceDiscoveryCache#watch(String)}. Each blocking query waits up to {@code wait} for a change. Note
+ * that {@code wait} must be shorter than the Consul client's read timeout (10 seconds unless
+ * {@code networkReadTimeoutMillis} is configured), since Consul may hold a request up to 1/16 longer than the wait;
+ * {@link org.kiwiproject.dropwizard.consul.ConsulFactory ConsulFactory} validates this.
+ * After a failed query, the watch backs off exponentially from {@code retryInterval} up to
+ * {@code maxRetryInterval}.
+ * <p>
+ * Setting {@code streaming} makes the watches read from the local agent's cache regardless of the configured read
+ * consistency. On agents with {@code use_streaming_backend} enabled, the cache then uses Consul's streaming backend,
+ * so servers send the agent only the changed instances instead of the full list of a large service on every change.
+ * <p>
+ * Setting {@code snapshotFile} saves the snapshots of the watched services to that file every
+ * {@code snapshotSaveInterval} (if they changed) and on shutdown, and restores them as stale snapshots on startup,
+ * so that a restarted application can route requests before its first queries complete, or when the Consul agent is
+ * unavailable.
+ * <p>
+ * Configuring {@code outlierDetection} creates an
+ * {@link org.kiwiproject.dropwizard.consul.loadbalancer.OutlierDetector OutlierDetector} for the discovered
+ * services.
+ */
+public class ServiceDiscoveryFactory {
+
+    @NotNull
+    private List<String> services = List.of();
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    @MaxDuration(value = 10, unit = TimeUnit.MINUTES)
+    private Duration wait = Duration.seconds(5);
+
+    @NotNull
+    @MinDuration(value = 10, unit = TimeUnit.MILLISECONDS)
+    private Duration retryInterval = Duration.seconds(1);
+
+    @NotNull
+    @MinDuration(value = 10, unit = TimeUnit.MILLISECONDS)
+    private Duration maxRetryInterval = Duration.seconds(30);
+
+    private boolean streaming;
+
+    private String snapshotFile;
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration snapshotSaveInterval = Duration.seconds(30);
+
+    @Valid
+    private OutlierDetectionFactory outlierDetection;
+
+    @JsonProperty
+    public List<String> getServices() {
+        return services;
+    }
+
+    @JsonProperty
+    public void setServices(List<String> services) {
+        this.services = services;
+    }
+
+    @JsonProperty
+    public Duration getWait() {
+        return wait;
+    }
+
+    @JsonProperty
+    public void setWait(Duration wait) {
+        this.wait = wait;
+    }
+
+    @JsonProperty
+    public Duration getRetryInterval() {
+        return retryInterval;
+    }
+
+    @JsonProperty
+    public void setRetryInterval(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @JsonProperty
+    public Duration getMaxRetryInterval() {
+        return maxRetryInterval;
+    }
+
+    @JsonProperty
+    public void setMaxRetryInterval(Duration maxRetryInterval) {
+        this.maxRetryInterval = maxRetryInterval;
+    }
+
+    @JsonProperty
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Set whether the watches read from the local agent's cache, so that agents with {@code use_streaming_backend}
+     * enabled serve them from Consul's streaming backend. Streaming watches always use
+     * {@link org.kiwiproject.consul.option.ConsistencyMode#CACHED CACHED} reads, overriding the configured read
+     * consistency (the bundle logs when it does); other reads are not affected.
+     *
+     * @param streaming true to read the watched services from the agent cache
+     */
+    @JsonProperty
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    @JsonProperty
+    public Optional<String> getSnapshotFile() {
+        return Optional.ofNullable(snapshotFile);
+    }
+
+    @JsonProperty
+    public void setSnapshotFile(@Nullable String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    @JsonProperty
+    public Duration getSnapshotSaveInterval() {
+        return snapshotSaveInterval;
+    }
+
+    @JsonProperty
+    public void setSnapshotSaveInterval(Duration snapshotSaveInterval) {
+        this.snapshotSaveInterval = snapshotSaveInterval;
+    }
+
+    @JsonProperty
+    public Optional<OutlierDetectionFactory> getOutlierDetection() {
+        return Optional.ofNullable(outlierDetection);
+    }
+
+    @JsonProperty
+    public void setOutlierDetection(@Nullable OutlierDetectionFactory outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
+    @AssertTrue(message = "retryInterval must not be greater than maxRetryInterval")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isRetryIntervalValid() {
+        return retryInterval == null || maxRetryInterval == null
+            || retryInterval.toMilliseconds() <= maxRetryInterval.toMilliseconds();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(services, wait, retryInterval, maxRetryInterval, streaming, snapshotFile, snapshotSaveInterval,
+            outlierDetection);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (ServiceDiscoveryFactory) obj;
+        return Objects.equals(this.services, other.services)
+            && Objects.equals(this.wait, other.wait)
+            && Objects.equals(this.retryInterval, other.retryInterval)
+            && Objects.equals(this.maxRetryInterval, other.maxRetryInterval)
+            && this.streaming == other.streaming
+            && Objects.equals(this.snapshotFile, other.snapshotFile)
+            && Objects.equals(this.snapshotSaveInterval, other.snapshotSaveInterval)
+            && Objects.equals(this.outlierDetection, other.outlierDetection);
+    }
+}
@@ -0,0 +1,80 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import org.kiwiproject.consul.model.health.ServiceHealth;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, healthy instance of a service discovered in Consul.
+ *
+ * @param id          the Consul service ID
+ * @param serviceName the Consul service name
+ * @param node        the name of the Consul node the instance is registered on
+ * @param address     the service address, or the node address if the service has no address of its own
+ * @param port        the service port
+ * @param tags        the service tags
+ * @param meta        the service metadata
+ * @param weight      the service's {@code Weights.Passing} value, or 1 if it has no weights
+ */
+public record ServiceInstance(String id,
+                              String serviceName,
+                              String node,
+                              String address,
+                              int port,
+                              List<String> tags,
+                              Map<String, String> meta,
+                              int weight) {
+
+    /**
+     * The weight Consul assigns to passing instances that do not specify weights.
+     */
+    public static final int DEFAULT_WEIGHT = 1;
+
+    public ServiceInstance {
+        requireNonNull(id, "id must not be null");
+        requireNonNull(serviceName, "serviceName must not be null");
+        requireNonNull(node, "node must not be null");
+        requireNonNull(address, "address must not be null");
+        tags = List.copyOf(tags);
+        meta = Map.copyOf(meta);
+    }
+
+    /**
+     * Create an instance from a Consul health query result.
+     *
+     * @param serviceHealth an entry returned by the {@code /v1/health/service/<name>} endpoint
+     * @return a new instance
+     */
+    public static ServiceInstance from(ServiceHealth serviceHealth) {
+        var service = serviceHealth.getService();
+        var node = serviceHealth.getNode();
+        var address = isBlank(service.getAddress()) ? node.getAddress() : service.getAddress();
+        var weight = service.getWeights()
+            .map(weights -> weights.getPassing())
+            .orElse(DEFAULT_WEIGHT);
+
+        return new ServiceInstance(
+            service.getId(),
+            service.getService(),
+            node.getNode(),
+            address,
+            service.getPort(),
+            service.getTags(),
+            service.getMeta(),
+            weight);
+    }
+
+    /**
+     * Return the instance's address and port as a {@code host:port} string, suitable for use as a URI
+     * authority. IPv6 addresses are enclosed in brackets.
+     *
+     * @return the host and port
+     */
+    public String hostAndPort() {
+        return (address.indexOf(':') >= 0 ? "[" + address + "]" : address) + ":" + port;
+    }
+}
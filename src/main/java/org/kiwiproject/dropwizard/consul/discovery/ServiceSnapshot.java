@@ -0,0 +1,73 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of the healthy instances of a service, as of a Consul index.
+ * <p>
+ * A new snapshot replaces the previous one whenever the set of healthy instances changes, so a snapshot can be
+ * read and iterated without locking. Snapshots can also be compared by identity to detect that nothing has
+ * changed since they were last seen.
+ * <p>
+ * A snapshot is <em>stale</em> if it was restored from a snapshot file saved by a previous run rather than read from
+ * Consul; it is replaced as soon as the first live query for the service completes.
+ *
+ * @param serviceName     the Consul service name
+ * @param instances       the healthy instances
+ * @param index           the Consul index the snapshot was read at, or zero if the service has not been read yet
+ * @param updatedAtMillis the time the snapshot was created, in milliseconds since the epoch
+ * @param stale           whether the snapshot was restored from a previous run and not yet confirmed by Consul
+ */
+public record ServiceSnapshot(String serviceName,
+                              List<ServiceInstance> instances,
+                              long index,
+                              long updatedAtMillis,
+                              boolean stale) {
+
+    public ServiceSnapshot {
+        requireNonNull(serviceName, "serviceName must not be null");
+        instances = List.copyOf(instances);
+    }
+
+    /**
+     * Create a snapshot read from Consul, i.e., that is not stale.
+     *
+     * @param serviceName     the Consul service name
+     * @param instances       the healthy instances
+     * @param index           the Consul index the snapshot was read at
+     * @param updatedAtMillis the time the snapshot was created, in milliseconds since the epoch
+     */
+    public ServiceSnapshot(String serviceName, List<ServiceInstance> instances, long index, long updatedAtMillis) {
+        this(serviceName, instances, index, updatedAtMillis, false);
+    }
+
+    /**
+     * Create a snapshot with no instances, for a service that has not been read from Consul yet.
+     *
+     * @param serviceName the Consul service name
+     * @return an empty snapshot
+     */
+    public static ServiceSnapshot empty(String serviceName) {
+        return new ServiceSnapshot(serviceName, List.of(), 0, 0);
+    }
+
+    /**
+     * Whether this snapshot has no instances.
+     *
+     * @return true if there are no healthy instances
+     */
+    public boolean isEmpty() {
+        return instances.isEmpty();
+    }
+
+    /**
+     * Return the number of instances in this snapshot.
+     *
+     * @return the number of healthy instances
+     */
+    public int size() {
+        return instances.size();
+    }
+}
@@ -0,0 +1,146 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static java.util.Objects.requireNonNull;
+
+import org.kiwiproject.dropwizard.consul.util.AtomicFiles;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves service snapshots to, and loads them from, a local file in a compact binary format.
+ * <p>
+ * The file is written to a temporary file in the same directory, forced to disk, and then atomically moved over the
+ * previous file, so a crash while saving never leaves a partially written file behind. Loaded snapshots are marked
+ * {@link ServiceSnapshot#stale() stale}.
+ */
+class SnapshotStore {
+
+    private static final int MAGIC = 0x43534e50;  // "CSNP"
+    private static final int VERSION = 1;
+
+    private final Path file;
+
+    SnapshotStore(Path file) {
+        this.file = requireNonNull(file, "file must not be null").toAbsolutePath();
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Atomically replace the file with the given snapshots.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    void save(Collection<ServiceSnapshot> snapshots) throws IOException {
+        AtomicFiles.write(file, channel -> {
+            var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            write(out, snapshots);
+            out.flush();
+        });
+    }
+
+    /**
+     * Load the snapshots from the file.
+     *
+     * @return the stale snapshots by service name, or an empty map if the file does not exist
+     * @throws IOException if the file cannot be read or is not a valid snapshot file
+     */
+    Map<String, ServiceSnapshot> load() throws IOException {
+        if (!Files.exists(file)) {
+            return Map.of();
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return read(in);
+        }
+    }
+
+    private static void write(DataOutputStream out, Collection<ServiceSnapshot> snapshots) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(snapshots.size());
+        for (var snapshot : snapshots) {
+            out.writeUTF(snapshot.serviceName());
+            out.writeLong(snapshot.index());
+            out.writeLong(snapshot.updatedAtMillis());
+            out.writeInt(snapshot.size());
+            for (var instance : snapshot.instances()) {
+                out.writeUTF(instance.id());
+                out.writeUTF(instance.node());
+                out.writeUTF(instance.address());
+                out.writeInt(instance.port());
+                out.writeInt(instance.weight());
+                out.writeInt(instance.tags().size());
+                for (var tag : instance.tags()) {
+                    out.writeUTF(tag);
+                }
+                out.writeInt(instance.meta().size());
+                for (var entry : instance.meta().entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static Map<String, ServiceSnapshot> read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a service snapshot file");
+        }
+        var version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported service snapshot file version " + version);
+        }
+
+        var snapshotCount = in.readInt();
+        var snapshots = new LinkedHashMap<String, ServiceSnapshot>();
+        for (var i = 0; i < snapshotCount; i++) {
+            var serviceName = in.readUTF();
+            var index = in.readLong();
+            var updatedAtMillis = in.readLong();
+            var instanceCount = in.readInt();
+            var instances = new ArrayList<ServiceInstance>();
+            for (var j = 0; j < instanceCount; j++) {
+                instances.add(readInstance(in, serviceName));
+            }
+            snapshots.put(serviceName, new ServiceSnapshot(serviceName, instances, index, updatedAtMillis, true));
+        }
+        return snapshots;
+    }
+
+    private static ServiceInstance readInstance(DataInputStream in, String serviceName) throws IOException {
+        var id = in.readUTF();
+        var node = in.readUTF();
+        var address = in.readUTF();
+        var port = in.readInt();
+        var weight = in.readInt();
+
+        var tagCount = in.readInt();
+        var tags = new ArrayList<String>();
+        for (var i = 0; i < tagCount; i++) {
+            tags.add(in.readUTF());
+        }
+
+        var metaCount = in.readInt();
+        var meta = new HashMap<String, String>();
+        for (var i = 0; i < metaCount; i++) {
+            meta.put(in.readUTF(), in.readUTF());
+        }
+
+        return new ServiceInstance(id, serviceName, node, address, port, List.copyOf(tags), meta, weight);
+    }
+}
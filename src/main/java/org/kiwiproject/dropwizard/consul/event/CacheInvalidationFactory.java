@@ -0,0 +1,67 @@
+package org.kiwiproject.dropwizard.consul.event;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MaxDuration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for {@link CacheInvalidator}.
+ * <p>
+ * Invalidations are sent as Consul user events named {@code eventName}, so every service that should see each other's
+ * invalidations must use the same name. Invalidations received within {@code coalesceWindow} of the first one of a
+ * burst are delivered to the listeners together.
+ */
+public class CacheInvalidationFactory {
+
+    @NotBlank
+    private String eventName = "cache-invalidation";
+
+    @NotNull
+    @MinDuration(value = 0, unit = TimeUnit.MILLISECONDS)
+    @MaxDuration(value = 10, unit = TimeUnit.SECONDS)
+    private Duration coalesceWindow = Duration.milliseconds(200);
+
+    @JsonProperty
+    public String getEventName() {
+        return eventName;
+    }
+
+    @JsonProperty
+    public void setEventName(String eventName) {
+        this.eventName = eventName;
+    }
+
+    @JsonProperty
+    public Duration getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    @JsonProperty
+    public void setCoalesceWindow(Duration coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventName, coalesceWindow);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (CacheInvalidationFactory) obj;
+        return Objects.equals(this.eventName, other.eventName)
+            && Objects.equals(this.coalesceWindow, other.coalesceWindow);
+    }
+}
@@ -0,0 +1,24 @@
+package org.kiwiproject.dropwizard.consul.event;
+
+import java.util.Set;
+
+/**
+ * Invalidates entries of an application cache when a {@link CacheInvalidator} receives invalidations for it.
+ * <p>
+ * Listeners are called on the invalidator's scheduler thread, once per coalesced burst of invalidations. An
+ * exception thrown by a listener is logged and does not affect other listeners.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * Invalidate the given keys.
+     *
+     * @param keys the keys invalidated since the previous call; never empty
+     */
+    void invalidateKeys(Set<String> keys);
+
+    /**
+     * Invalidate every entry.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,282 @@
+package org.kiwiproject.dropwizard.consul.event;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.event.Event;
+import org.kiwiproject.consul.option.EventOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidates application caches across the fleet using Consul user events, so that caches can keep long TTLs and
+ * still see changes within about a second, without a message broker.
+ * <p>
+ * {@link #invalidate(String, Collection)} and {@link #invalidateAll(String)} fire an event (through the local agent,
+ * which gossips it to every node) naming a cache and, optionally, keys. Every instance, including the sender, watches
+ * the events with a blocking query on the {@link WatchEngine} and calls the listeners registered for the cache.
+ * <p>
+ * Events are deduplicated by ID, since the event list returns the recent events again on every change. Events already
+ * buffered by the agent when the first query completes predate this instance and are skipped. Invalidations are
+ * coalesced: those received within {@link CacheInvalidationFactory#getCoalesceWindow() coalesceWindow} of the first
+ * one of a burst are merged per cache and delivered in a single call.
+ * <p>
+ * Delivery is best effort: user events are not persisted, and an instance that is down or partitioned misses them.
+ * Caches should still expire their entries eventually.
+ *
+ * @see CacheInvalidationFactory
+ */
+public class CacheInvalidator implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * The maximum size of an event payload, which is Consul's default limit on the size of user events.
+     */
+    public static final int MAX_PAYLOAD_BYTES = 512;
+
+    /**
+     * The number of event IDs remembered for deduplication; more than the agent buffers.
+     */
+    @VisibleForTesting
+    static final int MAX_SEEN_EVENTS = 1024;
+
+    private final Consul consul;
+    private final WatchEngine watchEngine;
+    private final CacheInvalidationFactory config;
+    private final ConsulMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, List<CacheInvalidationListener>> listeners = new ConcurrentHashMap<>();
+
+    private final Set<String> seenEventIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_SEEN_EVENTS;
+        }
+    });
+
+    // guarded by this
+    private boolean primed;
+    private Map<String, Pending> pending = new HashMap<>();
+    private boolean flushScheduled;
+    private WatchSubscription subscription;
+
+    @VisibleForTesting
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Invalidation(@JsonProperty("cache") String cache, @JsonProperty("keys") @Nullable List<String> keys) {
+    }
+
+    private static final class Pending {
+        boolean all;
+        final Set<String> keys = new HashSet<>();
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul      Consul client
+     * @param watchEngine the engine to watch the events on
+     * @param config      the event name and coalesce window
+     * @param metrics     metrics to record Consul calls in
+     * @param scheduler   the scheduler to deliver coalesced invalidations on; it is not shut down by this class
+     */
+    public CacheInvalidator(Consul consul,
+                            WatchEngine watchEngine,
+                            CacheInvalidationFactory config,
+                            ConsulMetrics metrics,
+                            ScheduledExecutorService scheduler) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.watchEngine = requireNonNull(watchEngine, "watchEngine must not be null");
+        this.config = requireNonNull(config, "config must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+    }
+
+    @Override
+    public synchronized void start() {
+        var query = new EventQuery(consul, metrics, config.getEventName());
+        subscription = watchEngine.watch(query.watchKey(), query, this::onEvents);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Register a listener for the invalidations of a cache.
+     *
+     * @param cache    the cache name
+     * @param listener the listener
+     */
+    public void register(String cache, CacheInvalidationListener listener) {
+        requireNonNull(cache, "cache must not be null");
+        requireNonNull(listener, "listener must not be null");
+        listeners.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Invalidate keys of a cache on every instance.
+     *
+     * @param cache the cache name
+     * @param keys  the keys to invalidate
+     * @throws IllegalArgumentException               if the keys are empty, or the event payload exceeds
+     *                                                {@link #MAX_PAYLOAD_BYTES}
+     * @throws org.kiwiproject.consul.ConsulException if the event cannot be fired
+     */
+    public void invalidate(String cache, Collection<String> keys) {
+        checkArgument(!keys.isEmpty(), "keys must not be empty");
+        fire(new Invalidation(requireNonNull(cache, "cache must not be null"), List.copyOf(keys)));
+    }
+
+    /**
+     * Invalidate every entry of a cache on every instance.
+     *
+     * @param cache the cache name
+     * @throws org.kiwiproject.consul.ConsulException if the event cannot be fired
+     */
+    public void invalidateAll(String cache) {
+        fire(new Invalidation(requireNonNull(cache, "cache must not be null"), null));
+    }
+
+    private void fire(Invalidation invalidation) {
+        String payload;
+        try {
+            payload = MAPPER.writeValueAsString(invalidation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        var payloadBytes = payload.getBytes(StandardCharsets.UTF_8).length;
+        checkArgument(payloadBytes <= MAX_PAYLOAD_BYTES,
+            "invalidation of %s is %s bytes, which exceeds the limit of %s bytes; invalidate fewer keys at once",
+            invalidation.cache(), payloadBytes, MAX_PAYLOAD_BYTES);
+
+        var event = metrics.time("event.fire",
+            () -> consul.eventClient().fireEvent(config.getEventName(), EventOptions.BLANK, payload));
+        LOG.debug("Fired invalidation of {} as event {}", invalidation.cache(), event.getId());
+    }
+
+    /**
+     * Record the new events, and queue their invalidations for delivery.
+     *
+     * @param events the recent events, as returned by the event list
+     */
+    @VisibleForTesting
+    synchronized void onEvents(List<Event> events) {
+        if (!primed) {
+            events.forEach(event -> seenEventIds.add(event.getId()));
+            primed = true;
+            return;
+        }
+
+        for (var event : events) {
+            if (!seenEventIds.add(event.getId())) {
+                continue;
+            }
+            parse(event).filter(invalidation -> listeners.containsKey(invalidation.cache()))
+                .ifPresent(invalidation -> {
+                    var cachePending = pending.computeIfAbsent(invalidation.cache(), name -> new Pending());
+                    if (invalidation.keys() == null) {
+                        cachePending.all = true;
+                    } else {
+                        cachePending.keys.addAll(invalidation.keys());
+                    }
+                });
+        }
+
+        if (!pending.isEmpty() && !flushScheduled) {
+            flushScheduled = true;
+            try {
+                scheduler.schedule(this::flush, config.getCoalesceWindow().toMilliseconds(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flushScheduled = false;
+                LOG.trace("Not delivering invalidations; the scheduler is shutting down");
+            }
+        }
+    }
+
+    /**
+     * Deliver the queued invalidations to the listeners.
+     */
+    @VisibleForTesting
+    void flush() {
+        Map<String, Pending> toDeliver;
+        synchronized (this) {
+            toDeliver = pending;
+            pending = new HashMap<>();
+            flushScheduled = false;
+        }
+
+        toDeliver.forEach((cache, cachePending) -> listeners.getOrDefault(cache, List.of()).forEach(listener -> {
+            try {
+                if (cachePending.all) {
+                    listener.invalidateAll();
+                } else {
+                    listener.invalidateKeys(Set.copyOf(cachePending.keys));
+                }
+            } catch (Exception e) {
+                LOG.error("Cache invalidation listener {} failed for {}", listener, cache, e);
+            }
+        }));
+    }
+
+    private Optional<Invalidation> parse(Event event) {
+        var payload = event.getPayload().map(CacheInvalidator::decodePayload).orElse("");
+        try {
+            var invalidation = MAPPER.readValue(payload, Invalidation.class);
+            return Optional.ofNullable(invalidation).filter(parsed -> parsed.cache() != null);
+        } catch (JsonProcessingException e) {
+            LOG.warn("Ignoring event {} with an invalid invalidation payload: {}", event.getId(), payload);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The event list returns payloads base64-encoded; accept them decoded too, since our payloads are JSON objects.
+     */
+    private static String decodePayload(String payload) {
+        if (payload.startsWith("{")) {
+            return payload;
+        }
+        try {
+            return new String(Base64.getDecoder().decode(payload), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.kiwiproject.dropwizard.consul.event;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.EventResponse;
+import org.kiwiproject.consul.model.event.Event;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.BlockingQuery;
+import org.kiwiproject.dropwizard.consul.watch.QueryResult;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A blocking query of the recent user events with a given name, as buffered by the local agent.
+ * <p>
+ * Unlike other endpoints, the index of the event list is a hash of the ID of the latest event rather than a raft
+ * index, so it does not increase monotonically; when it appears to go backwards, the watch engine simply starts over
+ * with a non-blocking query. Listeners must therefore expect to see the same events more than once.
+ */
+public class EventQuery implements BlockingQuery<List<Event>> {
+
+    private final Consul consul;
+    private final ConsulMetrics metrics;
+    private final String name;
+
+    /**
+     * Constructor
+     *
+     * @param consul  Consul client
+     * @param metrics metrics to record event reads in
+     * @param name    the event name
+     */
+    public EventQuery(Consul consul, ConsulMetrics metrics, String name) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.name = requireNonNull(name, "name must not be null");
+    }
+
+    /**
+     * Return the key identifying the watch of this query.
+     *
+     * @return the watch key
+     */
+    public String watchKey() {
+        return "event:" + name;
+    }
+
+    @Override
+    public QueryResult<List<Event>> execute(@Nullable BigInteger index, int waitSeconds) {
+        var queryOptions = index == null
+            ? QueryOptions.BLANK
+            : QueryOptions.blockSeconds(waitSeconds, index).build();
+
+        EventResponse response = metrics.time("event.list", () -> consul.eventClient().listEvents(name, queryOptions));
+        var events = Optional.ofNullable(response.getEvents()).orElse(List.of());
+        return new QueryResult<>(events, response.getIndex());
+    }
+}
@@ -0,0 +1,90 @@
+package org.kiwiproject.dropwizard.consul.health;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the health check that pings the Consul agent.
+ * <p>
+ * When {@code async} is true (the default), the agent is pinged every {@code interval} on a background thread
+ * by an {@link AsyncConsulHealthCheck}, and health check requests return the most recent result. If no ping has
+ * completed within {@code staleThreshold}, e.g., because a ping is hanging, the check reports unhealthy.
+ * When {@code async} is false, the agent is pinged synchronously by a {@link ConsulHealthCheck} on every
+ * health check request.
+ */
+public class AgentHealthCheckFactory {
+
+    private boolean async = true;
+
+    @NotNull
+    @MinDuration(value = 100, unit = TimeUnit.MILLISECONDS)
+    private Duration interval = Duration.seconds(10);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration staleThreshold = Duration.seconds(30);
+
+    @JsonProperty
+    public boolean isAsync() {
+        return async;
+    }
+
+    @JsonProperty
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    @JsonProperty
+    public Duration getInterval() {
+        return interval;
+    }
+
+    @JsonProperty
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    @JsonProperty
+    public Duration getStaleThreshold() {
+        return staleThreshold;
+    }
+
+    @JsonProperty
+    public void setStaleThreshold(Duration staleThreshold) {
+        this.staleThreshold = staleThreshold;
+    }
+
+    @AssertTrue(message = "staleThreshold must be greater than interval")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isStaleThresholdValid() {
+        return staleThreshold == null || interval == null
+            || staleThreshold.toMilliseconds() > interval.toMilliseconds();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(async, interval, staleThreshold);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (AgentHealthCheckFactory) obj;
+        return this.async == other.async
+            && Objects.equals(this.interval, other.interval)
+            && Objects.equals(this.staleThreshold, other.staleThreshold);
+    }
+}
@@ -0,0 +1,164 @@
+package org.kiwiproject.dropwizard.consul.health;
+
+import static java.util.Objects.requireNonNull;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.health.HealthCheck;
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Health check that pings the Consul agent on a background schedule, similar to a Dropwizard
+ * {@link com.codahale.metrics.health.annotation.Async @Async} health check, so that a slow agent can never stall
+ * the health check endpoint.
+ * <p>
+ * Each call to {@link #execute()} returns the result of the most recent ping without doing any I/O. The result
+ * details include the age of that ping, the number of consecutive failed pings, and round-trip time percentiles
+ * (in milliseconds) over the most recent pings. If the most recent ping is older than the configured stale
+ * threshold, the check is unhealthy regardless of the ping result.
+ *
+ * @see AgentHealthCheckFactory
+ */
+public class AsyncConsulHealthCheck extends HealthCheck implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncConsulHealthCheck.class);
+
+    @VisibleForTesting
+    static final int RTT_WINDOW_SIZE = 128;
+
+    private final ConsulHealthCheck delegate;
+    private final AgentHealthCheckFactory config;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier clock;
+    private final Histogram pingRttMicros = new Histogram(new SlidingWindowReservoir(RTT_WINDOW_SIZE));
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile PingResult lastPing;
+    private ScheduledFuture<?> pingFuture;
+
+    private record PingResult(Result result, long completedAtMillis) {
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul    Consul client
+     * @param metrics   metrics to record pings in
+     * @param config    the ping interval and stale threshold
+     * @param scheduler the scheduler used to ping the agent; it is not shut down by this class
+     */
+    public AsyncConsulHealthCheck(Consul consul,
+                                  ConsulMetrics metrics,
+                                  AgentHealthCheckFactory config,
+                                  ScheduledExecutorService scheduler) {
+        this(new ConsulHealthCheck(consul, metrics), config, scheduler, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    AsyncConsulHealthCheck(ConsulHealthCheck delegate,
+                           AgentHealthCheckFactory config,
+                           ScheduledExecutorService scheduler,
+                           LongSupplier clock) {
+        this.delegate = requireNonNull(delegate, "delegate must not be null");
+        this.config = requireNonNull(config, "config must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+    }
+
+    @Override
+    public synchronized void start() {
+        var intervalMillis = config.getInterval().toMilliseconds();
+        LOG.info("Pinging Consul agent every {} ms for health checks", intervalMillis);
+        pingFuture = scheduler.scheduleWithFixedDelay(this::ping, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (pingFuture != null) {
+            pingFuture.cancel(false);
+            pingFuture = null;
+        }
+    }
+
+    /**
+     * Ping the agent and cache the result. Only called from the scheduler, so pings never overlap.
+     */
+    @VisibleForTesting
+    void ping() {
+        var startNanos = System.nanoTime();
+        Result result;
+        try {
+            result = delegate.check();
+        } catch (Exception e) {
+            // never let an exception cancel the scheduled task
+            LOG.warn("Unexpected error pinging Consul agent", e);
+            result = Result.unhealthy(e);
+        }
+        pingRttMicros.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+
+        if (result.isHealthy()) {
+            consecutiveFailures.set(0);
+        } else {
+            consecutiveFailures.incrementAndGet();
+        }
+        lastPing = new PingResult(result, clock.getAsLong());
+    }
+
+    @Override
+    protected Result check() {
+        var ping = lastPing;
+        if (ping == null) {
+            return Result.builder()
+                .unhealthy()
+                .withMessage("Consul agent has not been pinged yet")
+                .withDetail("consecutiveFailures", consecutiveFailures.get())
+                .build();
+        }
+
+        var ageMillis = clock.getAsLong() - ping.completedAtMillis();
+        var builder = Result.builder();
+        if (ageMillis > config.getStaleThreshold().toMilliseconds()) {
+            builder.unhealthy().withMessage("Last Consul agent ping completed %d ms ago", ageMillis);
+        } else if (ping.result().isHealthy()) {
+            builder.healthy();
+        } else if (ping.result().getError() != null) {
+            builder.unhealthy(ping.result().getError());
+        } else {
+            builder.unhealthy().withMessage(ping.result().getMessage());
+        }
+
+        return builder
+            .withDetail("ageMillis", ageMillis)
+            .withDetail("consecutiveFailures", consecutiveFailures.get())
+            .withDetail("pingRttMillis", pingRttDetails())
+            .build();
+    }
+
+    private Map<String, Object> pingRttDetails() {
+        var snapshot = pingRttMicros.getSnapshot();
+        var details = new LinkedHashMap<String, Object>();
+        details.put("count", snapshot.size());
+        details.put("p50", microsToMillis(snapshot.getMedian()));
+        details.put("p95", microsToMillis(snapshot.get95thPercentile()));
+        details.put("p99", microsToMillis(snapshot.get99thPercentile()));
+        details.put("max", microsToMillis(snapshot.getMax()));
+        return details;
+    }
+
+    private static double microsToMillis(double micros) {
+        return micros / 1_000.0;
+    }
+}
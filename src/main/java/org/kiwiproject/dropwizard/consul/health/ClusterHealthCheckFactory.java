@@ -0,0 +1,65 @@
+package org.kiwiproject.dropwizard.consul.health;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link ConsulClusterHealthCheck}.
+ * <p>
+ * The check samples the Consul cluster at most once per {@code sampleInterval}; health check requests in
+ * between reuse the cached sample. The cluster is considered degraded when it has no leader, or when the
+ * server answering the agent has not been in contact with the leader for longer than {@code maxLastContact}.
+ */
+public class ClusterHealthCheckFactory {
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration sampleInterval = Duration.seconds(10);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration maxLastContact = Duration.seconds(5);
+
+    @JsonProperty
+    public Duration getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @JsonProperty
+    public void setSampleInterval(Duration sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    @JsonProperty
+    public Duration getMaxLastContact() {
+        return maxLastContact;
+    }
+
+    @JsonProperty
+    public void setMaxLastContact(Duration maxLastContact) {
+        this.maxLastContact = maxLastContact;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sampleInterval, maxLastContact);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (ClusterHealthCheckFactory) obj;
+        return Objects.equals(this.sampleInterval, other.sampleInterval)
+            && Objects.equals(this.maxLastContact, other.maxLastContact);
+    }
+}
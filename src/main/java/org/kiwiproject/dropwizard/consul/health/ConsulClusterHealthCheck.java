@@ -0,0 +1,218 @@
+package org.kiwiproject.dropwizard.consul.health;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toMap;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.commons.lang3.StringUtils;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.ImmutableQueryOptions;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Health check that reports on the health of the Consul cluster rather than just the local agent, so that
+ * "Consul is degraded" can be told apart from "this application is degraded".
+ * <p>
+ * The cluster is sampled on a background schedule, once per sample interval, and {@link #execute()} only reads the
+ * most recent sample, so a slow or partitioned cluster can never stall the health check endpoint. Each sample makes
+ * cheap requests: {@code /v1/status/leader} to determine whether the cluster has a Raft leader, a stale read of the
+ * local node's checks, whose {@code X-Consul-LastContact} and {@code X-Consul-KnownLeader} headers show how far
+ * behind the answering server is, and the local agent's checks. The check is unhealthy when there is no leader, when
+ * the server is lagging by more than the configured maximum, or when no sample has completed for three sample
+ * intervals.
+ * <p>
+ * The status of this service's own checks, as known to the local agent, is included in the result details, but
+ * intentionally does not affect the result. Consul's HTTP check calls this application's health check endpoint, so
+ * letting a critical self-check make this check unhealthy would latch the service in the critical state.
+ * <p>
+ * Note that the same feedback applies to the cluster itself: while the cluster has no leader, this check makes the
+ * health check endpoint unhealthy, so the service's own Consul HTTP check turns critical too, and anything that
+ * restarts instances on a critical check restarts them all during a Consul outage. Point
+ * {@link org.kiwiproject.dropwizard.consul.ConsulFactory#setHealthCheckPath(String) healthCheckPath} at an endpoint
+ * that does not include this check in that case.
+ *
+ * @see ClusterHealthCheckFactory
+ */
+public class ConsulClusterHealthCheck extends HealthCheck implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConsulClusterHealthCheck.class);
+
+    private static final QueryOptions STALE = ImmutableQueryOptions.builder()
+        .consistencyMode(ConsistencyMode.STALE)
+        .build();
+
+    private final Consul consul;
+    private final String serviceName;
+    private final String serviceId;
+    private final ClusterHealthCheckFactory config;
+    private final ConsulMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier clock;
+
+    private volatile Sample lastSample;
+    private volatile String localNodeName;
+    private ScheduledFuture<?> sampleFuture;
+
+    @VisibleForTesting
+    record Sample(@Nullable String leader,
+                  boolean knownLeader,
+                  long lastContactMillis,
+                  Map<String, String> serviceChecks,
+                  @Nullable Exception error,
+                  long sampledAtMillis) {
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul      Consul client
+     * @param serviceName the Consul service name of this application
+     * @param serviceId   the Consul service ID of this application
+     * @param config      the sample interval and lag threshold
+     * @param metrics     metrics to record Consul calls in
+     * @param scheduler   the scheduler used to sample the cluster; it is not shut down by this class
+     */
+    public ConsulClusterHealthCheck(Consul consul,
+                                    String serviceName,
+                                    String serviceId,
+                                    ClusterHealthCheckFactory config,
+                                    ConsulMetrics metrics,
+                                    ScheduledExecutorService scheduler) {
+        this(consul, serviceName, serviceId, config, metrics, scheduler, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ConsulClusterHealthCheck(Consul consul,
+                             String serviceName,
+                             String serviceId,
+                             ClusterHealthCheckFactory config,
+                             ConsulMetrics metrics,
+                             ScheduledExecutorService scheduler,
+                             LongSupplier clock) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.serviceName = requireNonNull(serviceName, "serviceName must not be null");
+        this.serviceId = requireNonNull(serviceId, "serviceId must not be null");
+        this.config = requireNonNull(config, "config must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+    }
+
+    @Override
+    public synchronized void start() {
+        var intervalMillis = config.getSampleInterval().toMilliseconds();
+        LOG.info("Sampling Consul cluster health of {} every {} ms", serviceName, intervalMillis);
+        sampleFuture = scheduler.scheduleWithFixedDelay(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (sampleFuture != null) {
+            sampleFuture.cancel(false);
+            sampleFuture = null;
+        }
+    }
+
+    @Override
+    protected Result check() {
+        var sample = lastSample;
+        if (sample == null) {
+            return Result.builder()
+                .unhealthy()
+                .withMessage("Consul cluster has not been sampled yet")
+                .build();
+        }
+
+        var sampleAgeMillis = clock.getAsLong() - sample.sampledAtMillis();
+        if (sampleAgeMillis > 3 * config.getSampleInterval().toMilliseconds()) {
+            return Result.builder()
+                .unhealthy()
+                .withMessage("Last Consul cluster sample completed %d ms ago", sampleAgeMillis)
+                .withDetail("sampleAgeMillis", sampleAgeMillis)
+                .build();
+        }
+
+        if (sample.error() != null) {
+            return Result.builder()
+                .unhealthy(sample.error())
+                .withDetail("sampleAgeMillis", sampleAgeMillis)
+                .build();
+        }
+
+        var builder = Result.builder();
+        if (isBlank(sample.leader())) {
+            builder.unhealthy().withMessage("Consul cluster has no leader");
+        } else if (!sample.knownLeader()) {
+            builder.unhealthy().withMessage("Consul server does not know of a leader");
+        } else if (sample.lastContactMillis() > config.getMaxLastContact().toMilliseconds()) {
+            builder.unhealthy().withMessage("Consul server last contacted the leader %d ms ago", sample.lastContactMillis());
+        } else {
+            builder.healthy();
+        }
+
+        return builder
+            .withDetail("leader", StringUtils.defaultString(sample.leader()))
+            .withDetail("knownLeader", sample.knownLeader())
+            .withDetail("lastContactMillis", sample.lastContactMillis())
+            .withDetail("serviceChecks", sample.serviceChecks())
+            .withDetail("sampleAgeMillis", sampleAgeMillis)
+            .build();
+    }
+
+    /**
+     * Sample the cluster and cache the result. Only called from the scheduler, so samples never overlap.
+     */
+    @VisibleForTesting
+    void sample() {
+        var now = clock.getAsLong();
+        try {
+            var leader = metrics.time("status.leader", () -> consul.statusClient().getLeader());
+            var nodeName = localNodeName();
+            var response = metrics.time("health.nodeChecks",
+                () -> consul.healthClient().getNodeChecks(nodeName, STALE));
+            metrics.recordResponse("health.nodeChecks", response);
+
+            var agentChecks = metrics.time("agent.checks", () -> consul.agentClient().getChecks());
+            var serviceChecks = agentChecks.values().stream()
+                .filter(check -> check.getServiceId().map(serviceId::equals).orElse(false))
+                .collect(toMap(
+                    org.kiwiproject.consul.model.health.HealthCheck::getCheckId,
+                    org.kiwiproject.consul.model.health.HealthCheck::getStatus,
+                    (first, second) -> first,
+                    TreeMap::new));
+
+            lastSample = new Sample(StringUtils.strip(leader, "\""),
+                response.isKnownLeader(),
+                response.getLastContact(),
+                serviceChecks,
+                null,
+                now);
+        } catch (Exception e) {
+            // never let an exception cancel the scheduled task
+            LOG.warn("Unable to sample Consul cluster health", e);
+            lastSample = new Sample(null, false, -1, Map.of(), e, now);
+        }
+    }
+
+    private String localNodeName() {
+        if (localNodeName == null) {
+            localNodeName = metrics.time("agent.self", () -> consul.agentClient().getAgent().getConfig().getNodeName());
+        }
+        return localNodeName;
+    }
+}
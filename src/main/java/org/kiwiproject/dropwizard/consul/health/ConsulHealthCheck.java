@@ -5,6 +5,8 @@ import static java.util.Objects.requireNonNull;
 import com.codahale.metrics.health.HealthCheck;
 import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +15,7 @@ public class ConsulHealthCheck extends HealthCheck {
     private static final Logger LOG = LoggerFactory.getLogger(ConsulHealthCheck.class);
 
     private final Consul consul;
+    private final ConsulMetrics metrics;
 
     /**
      * Constructor
@@ -20,15 +23,29 @@ public class ConsulHealthCheck extends HealthCheck {
      * @param consul Consul client
      */
     public ConsulHealthCheck(Consul consul) {
+        this(consul, ConsulMetrics.noop());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul  Consul client
+     * @param metrics metrics to record pings in
+     */
+    public ConsulHealthCheck(Consul consul, ConsulMetrics metrics) {
         this.consul = requireNonNull(consul);
+        this.metrics = requireNonNull(metrics);
     }
 
     @Override
     protected Result check() {
+        var event = ConsulOperationEvent.begin("agent.ping", null);
         try {
-            consul.agentClient().ping();
+            metrics.time("agent.ping", () -> consul.agentClient().ping());
+            event.end(true);
             return Result.healthy();
         } catch (ConsulException e) {
+            event.end(false);
             LOG.warn("Unable to ping consul", e);
         }
         return Result.unhealthy("Could not ping consul");
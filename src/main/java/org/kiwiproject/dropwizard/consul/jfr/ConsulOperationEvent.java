@@ -0,0 +1,101 @@
+package org.kiwiproject.dropwizard.consul.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for each Consul operation performed by this library, e.g., a KV lookup
+ * during configuration substitution, service registration, or the Consul health check.
+ * <p>
+ * The event duration is the time taken by the operation. Events are enabled by default with no threshold, and
+ * are only recorded while a recording is running, so the overhead outside a recording is a single check.
+ * <p>
+ * Usage:
+ * <pre>
+ * var event = ConsulOperationEvent.begin("kv.get", key);
+ * try {
+ *     var value = ...;
+ *     event.end(ConsulOperationEvent.Outcome.SUCCESS, value.getBytes(StandardCharsets.UTF_8).length);
+ * } catch (ConsulException e) {
+ *     event.end(ConsulOperationEvent.Outcome.FAILURE, 0);
+ *     throw e;
+ * }
+ * </pre>
+ */
+@Name(ConsulOperationEvent.NAME)
+@Label("Consul Operation")
+@Category({"Dropwizard", "Consul"})
+@Description("An operation performed against Consul by the Dropwizard Consul bundle")
+@StackTrace(false)
+public final class ConsulOperationEvent extends Event {
+
+    public static final String NAME = "org.kiwiproject.dropwizard.consul.Operation";
+
+    /**
+     * The outcome of an operation.
+     */
+    public enum Outcome {
+        SUCCESS, FAILURE, NOT_FOUND, SKIPPED
+    }
+
+    @Label("Operation")
+    @Description("The operation, e.g., kv.get or agent.register")
+    String operation;
+
+    @Label("Target")
+    @Description("The KV key or service ID the operation applies to")
+    String target;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Response Size")
+    @Description("Size of the response payload in bytes when applicable, e.g., of a KV value")
+    long responseSize;
+
+    /**
+     * Create a new event and start timing it.
+     *
+     * @param operation the operation name
+     * @param target    the KV key or service ID
+     * @return the started event
+     */
+    public static ConsulOperationEvent begin(String operation, String target) {
+        var event = new ConsulOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.target = target;
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Stop timing this event and commit it if it should be recorded.
+     *
+     * @param outcome      the outcome of the operation
+     * @param responseSize the size of the response payload in bytes, or zero if not applicable
+     */
+    public void end(Outcome outcome, long responseSize) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome.name();
+            this.responseSize = responseSize;
+            commit();
+        }
+    }
+
+    /**
+     * Stop timing this event and commit it with an outcome of {@link Outcome#SUCCESS SUCCESS} or
+     * {@link Outcome#FAILURE FAILURE} and no response size.
+     *
+     * @param succeeded whether the operation succeeded
+     */
+    public void end(boolean succeeded) {
+        end(succeeded ? Outcome.SUCCESS : Outcome.FAILURE, 0);
+    }
+}
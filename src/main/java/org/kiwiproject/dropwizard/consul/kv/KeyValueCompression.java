@@ -0,0 +1,163 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.PutOptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Support for gzip-compressed KV values.
+ * <p>
+ * A value is compressed if bit {@link #GZIP_FLAG} is set in its Consul KV {@code flags}; the other bits are left
+ * alone, so applications can still use them. The readers of this library ({@link org.kiwiproject.dropwizard.consul.config.ConsulLookup
+ * ConsulLookup}, {@link org.kiwiproject.dropwizard.consul.config.DynamicConfig DynamicConfig}, {@link KeyValueMirror},
+ * and {@link KeyValueReader}) decompress such values transparently. Use {@link #putCompressed(Consul, String, byte[])}
+ * or the {@code consul-kv-put-compressed} admin task to write them.
+ */
+public final class KeyValueCompression {
+
+    /**
+     * The flag bit marking a gzip-compressed value.
+     */
+    public static final long GZIP_FLAG = 1L << 62;
+
+    /**
+     * The maximum size of a KV value accepted by Consul, by default.
+     */
+    public static final int MAX_VALUE_BYTES = 512 * 1024;
+
+    /**
+     * The maximum size of a decompressed value, to guard against corrupt or malicious values expanding without bound.
+     */
+    public static final int MAX_DECOMPRESSED_BYTES = 64 * 1024 * 1024;
+
+    private KeyValueCompression() {
+        // utility class
+    }
+
+    /**
+     * Whether a value is marked as compressed.
+     *
+     * @param value the value read from Consul
+     * @return true if the {@link #GZIP_FLAG} bit is set
+     */
+    public static boolean isCompressed(Value value) {
+        return (value.getFlags() & GZIP_FLAG) != 0;
+    }
+
+    /**
+     * Decode a value into bytes, decompressing it if it is marked as compressed.
+     *
+     * @param value the value read from Consul
+     * @return the decoded bytes; empty if the value has no payload
+     * @throws UncheckedIOException if a compressed value cannot be decompressed
+     */
+    public static byte[] decode(Value value) {
+        var bytes = value.getValue().map(Base64.getDecoder()::decode).orElseGet(() -> new byte[0]);
+        return isCompressed(value) && bytes.length > 0 ? decompress(bytes) : bytes;
+    }
+
+    /**
+     * Decode a value into a UTF-8 string, decompressing it if it is marked as compressed.
+     *
+     * @param value the value read from Consul
+     * @return the decoded string, or an empty Optional if the value has no payload
+     * @throws UncheckedIOException if a compressed value cannot be decompressed
+     */
+    public static Optional<String> decodeToString(Value value) {
+        if (!isCompressed(value)) {
+            return value.getValueAsString();
+        }
+        return value.getValue().map(encoded -> new String(decode(value), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Open a stream of the decoded bytes of a value, decompressing it if it is marked as compressed.
+     *
+     * @param value the value read from Consul
+     * @return the stream of decoded bytes
+     * @throws IOException if the compressed stream cannot be opened
+     */
+    static InputStream decodingStream(Value value) throws IOException {
+        var encoded = value.getValue().orElse("").getBytes(StandardCharsets.ISO_8859_1);
+        var decoded = Base64.getDecoder().wrap(new ByteArrayInputStream(encoded));
+        return isCompressed(value) && encoded.length > 0 ? new GZIPInputStream(decoded) : decoded;
+    }
+
+    /**
+     * Compress bytes with gzip.
+     *
+     * @param bytes the bytes to compress
+     * @return the compressed bytes
+     */
+    public static byte[] compress(byte[] bytes) {
+        requireNonNull(bytes, "bytes must not be null");
+        var out = new ByteArrayOutputStream(Math.max(32, bytes.length / 4));
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompress gzip-compressed bytes.
+     *
+     * @param bytes the compressed bytes
+     * @return the decompressed bytes
+     * @throws UncheckedIOException if the bytes are not valid gzip data, or decompress to more than
+     *                              {@link #MAX_DECOMPRESSED_BYTES}
+     */
+    public static byte[] decompress(byte[] bytes) {
+        requireNonNull(bytes, "bytes must not be null");
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            var decompressed = gzip.readNBytes(MAX_DECOMPRESSED_BYTES + 1);
+            if (decompressed.length > MAX_DECOMPRESSED_BYTES) {
+                throw new IOException("Decompressed value exceeds " + MAX_DECOMPRESSED_BYTES + " bytes");
+            }
+            return decompressed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compress a value and write it to a key, marked as compressed.
+     *
+     * @param consul Consul client
+     * @param key    the key
+     * @param bytes  the uncompressed value
+     * @return the size of the compressed value written
+     * @throws IllegalArgumentException                if the compressed value exceeds {@link #MAX_VALUE_BYTES}
+     * @throws IllegalStateException                   if Consul did not accept the value
+     * @throws org.kiwiproject.consul.ConsulException if the value cannot be written
+     */
+    public static int putCompressed(Consul consul, String key, byte[] bytes) {
+        requireNonNull(consul, "consul must not be null");
+        requireNonNull(key, "key must not be null");
+        var compressed = compress(bytes);
+        checkArgument(compressed.length <= MAX_VALUE_BYTES,
+            "compressed value of %s is %s bytes, which exceeds the Consul limit of %s bytes",
+            key, compressed.length, MAX_VALUE_BYTES);
+
+        var written = consul.keyValueClient().putValue(key, compressed, GZIP_FLAG, PutOptions.BLANK);
+        if (!written) {
+            throw new IllegalStateException("Consul did not accept the value of " + key);
+        }
+        return compressed.length;
+    }
+}
@@ -0,0 +1,130 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps every key under a KV prefix (e.g., {@code config/orders/}) in memory, kept up to date by a single recursive
+ * blocking query on a {@link WatchEngine}.
+ * <p>
+ * Each change replaces the {@link KeyValueSnapshot}, so reads never do any I/O or take any locks. Until the first
+ * query completes, the mirror is empty. If a query fails, the previous snapshot is kept.
+ */
+public class KeyValueMirror implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyValueMirror.class);
+
+    private final String prefix;
+    private final WatchSubscription subscription;
+
+    private volatile KeyValueSnapshot snapshot = KeyValueSnapshot.empty();
+
+    /**
+     * Create a mirror and start watching the prefix on the given engine.
+     *
+     * @param consul          Consul client
+     * @param watchEngine     the engine to run the blocking query on
+     * @param metrics         metrics to record KV reads in
+     * @param consistencyMode the consistency mode of the KV reads
+     * @param prefix          the prefix to mirror
+     */
+    public KeyValueMirror(Consul consul,
+                          WatchEngine watchEngine,
+                          ConsulMetrics metrics,
+                          ConsistencyMode consistencyMode,
+                          String prefix) {
+        this.prefix = requireNonNull(prefix, "prefix must not be null");
+        requireNonNull(watchEngine, "watchEngine must not be null");
+        var query = new KeyValueQuery(consul, metrics, consistencyMode, prefix);
+        this.subscription = watchEngine.watch(query.watchKey(), query, this::update);
+    }
+
+    /**
+     * Return the mirrored prefix.
+     *
+     * @return the prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Return the current snapshot. Reading several keys from one snapshot gives a consistent view of them.
+     *
+     * @return the current snapshot
+     */
+    public KeyValueSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Return the current value of a key. Never does any I/O.
+     *
+     * @param key the full key
+     * @return the value, or an empty Optional if the key does not exist or has not been read yet
+     */
+    public Optional<String> get(String key) {
+        return snapshot.get(key);
+    }
+
+    /**
+     * Return the current value of a key, without allocating. Never does any I/O.
+     *
+     * @param key          the full key
+     * @param defaultValue the value to return if the key does not exist or has not been read yet
+     * @return the value, or the default value
+     */
+    @Nullable
+    public String getOrDefault(String key, @Nullable String defaultValue) {
+        return snapshot.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Call the given action with each current key starting with a prefix, and its value, in key order.
+     *
+     * @param keyPrefix the prefix of the full keys
+     * @param action    the action to call
+     */
+    public void forEachWithPrefix(String keyPrefix, BiConsumer<String, String> action) {
+        snapshot.forEachWithPrefix(keyPrefix, action);
+    }
+
+    /**
+     * Return the current keys starting with a prefix, and their values.
+     *
+     * @param keyPrefix the prefix of the full keys
+     * @return an unmodifiable map, in key order
+     */
+    public Map<String, String> getAllWithPrefix(String keyPrefix) {
+        return snapshot.getAllWithPrefix(keyPrefix);
+    }
+
+    /**
+     * Stop watching the prefix. The current snapshot stays available.
+     */
+    @Override
+    public void close() {
+        subscription.close();
+    }
+
+    @VisibleForTesting
+    void update(List<Value> values) {
+        snapshot = KeyValueSnapshot.of(values);
+        LOG.debug("KV prefix {} has {} keys at index {}", prefix, snapshot.size(), snapshot.index());
+    }
+}
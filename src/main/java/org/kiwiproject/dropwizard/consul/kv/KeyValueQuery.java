@@ -0,0 +1,70 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.ImmutableQueryOptions;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.BlockingQuery;
+import org.kiwiproject.dropwizard.consul.watch.QueryResult;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A recursive blocking query of a KV key, returning the key and every key it is a prefix of.
+ * <p>
+ * Queries of the same key with the same consistency mode have the same {@link #watchKey()}, so that users of a
+ * {@link org.kiwiproject.dropwizard.consul.watch.WatchEngine WatchEngine} reading the same key share one watch.
+ */
+public class KeyValueQuery implements BlockingQuery<List<Value>> {
+
+    private final Consul consul;
+    private final ConsulMetrics metrics;
+    private final ConsistencyMode consistencyMode;
+    private final String key;
+
+    /**
+     * Constructor
+     *
+     * @param consul          Consul client
+     * @param metrics         metrics to record KV reads in
+     * @param consistencyMode the consistency mode of the KV reads
+     * @param key             the key or prefix
+     */
+    public KeyValueQuery(Consul consul, ConsulMetrics metrics, ConsistencyMode consistencyMode, String key) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.consistencyMode = requireNonNull(consistencyMode, "consistencyMode must not be null");
+        this.key = requireNonNull(key, "key must not be null");
+    }
+
+    /**
+     * Return the key identifying the watch of this query.
+     *
+     * @return the watch key
+     */
+    public String watchKey() {
+        return "kv:" + key + ":" + consistencyMode.name();
+    }
+
+    @Override
+    public QueryResult<List<Value>> execute(@Nullable BigInteger index, int waitSeconds) {
+        QueryOptions queryOptions = index == null
+            ? ImmutableQueryOptions.builder().consistencyMode(consistencyMode).build()
+            : QueryOptions.blockSeconds(waitSeconds, index).consistencyMode(consistencyMode).build();
+
+        ConsulResponse<List<Value>> response = metrics.time("kv.watch",
+            () -> consul.keyValueClient().getConsulResponseWithValues(key, queryOptions));
+        metrics.recordResponse("kv.watch", response);
+
+        var values = Optional.ofNullable(response.getResponse()).orElse(List.of());
+        return new QueryResult<>(values, response.getIndex());
+    }
+}
@@ -0,0 +1,182 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.ImmutableQueryOptions;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent.Outcome;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.util.AtomicFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Reads KV values as bytes rather than strings.
+ * <p>
+ * Consul returns KV values base64-encoded. {@code Value.getValueAsString()} decodes them into a {@code String},
+ * which doubles the size of ASCII data in memory (as UTF-16) and has to be encoded back into bytes for binary values
+ * such as certificates or serialized messages. The methods of this class decode the base64 payload straight into a
+ * {@code byte[]}, a read-only {@link ByteBuffer} wrapping it, or, for large values, a file, which is written in
+ * chunks without ever holding the whole decoded value in memory. {@link KeyValueCompression Compressed} values are
+ * decompressed.
+ */
+public class KeyValueReader {
+
+    /**
+     * The number of base64 characters decoded at a time by {@link #copyTo(String, Path)}; a multiple of four, so
+     * that every chunk decodes on its own.
+     */
+    @VisibleForTesting
+    static final int CHUNK_CHARS = 64 * 1024;
+
+    private final Consul consul;
+    private final ConsulMetrics metrics;
+    private final QueryOptions queryOptions;
+
+    /**
+     * Constructor
+     *
+     * @param consul          Consul client
+     * @param metrics         metrics to record KV reads in
+     * @param consistencyMode the consistency mode of KV reads
+     */
+    public KeyValueReader(Consul consul, ConsulMetrics metrics, ConsistencyMode consistencyMode) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.metrics = requireNonNull(metrics, "metrics must not be null");
+        this.queryOptions = ImmutableQueryOptions.builder()
+            .consistencyMode(requireNonNull(consistencyMode, "consistencyMode must not be null"))
+            .build();
+    }
+
+    /**
+     * Read the value of a key as bytes.
+     *
+     * @param key the key
+     * @return the decoded value, or an empty Optional if the key does not exist or has no value
+     * @throws org.kiwiproject.consul.ConsulException if the value cannot be read
+     */
+    public Optional<byte[]> getBytes(String key) {
+        return read(key).map(KeyValueReader::decode);
+    }
+
+    /**
+     * Read the value of a key as a read-only buffer.
+     *
+     * @param key the key
+     * @return the decoded value, or an empty Optional if the key does not exist or has no value
+     * @throws org.kiwiproject.consul.ConsulException if the value cannot be read
+     */
+    public Optional<ByteBuffer> getByteBuffer(String key) {
+        return getBytes(key).map(bytes -> ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+    }
+
+    /**
+     * Read the value of a key and write it to a file, replacing the file atomically. The value is decoded in chunks,
+     * so the decoded value is never held in memory as a whole.
+     *
+     * @param key  the key
+     * @param file the file to write
+     * @return true if the value was written, false if the key does not exist or has no value (the file is unchanged)
+     * @throws IOException                            if the file cannot be written, or a compressed value cannot be
+     *                                                decompressed or decompresses to more than
+     *                                                {@link KeyValueCompression#MAX_DECOMPRESSED_BYTES} (the file is
+     *                                                unchanged)
+     * @throws org.kiwiproject.consul.ConsulException if the value cannot be read
+     */
+    public boolean copyTo(String key, Path file) throws IOException {
+        requireNonNull(file, "file must not be null");
+        var value = read(key);
+        if (value.isEmpty()) {
+            return false;
+        }
+
+        AtomicFiles.write(file, channel -> {
+            if (KeyValueCompression.isCompressed(value.get())) {
+                try (var in = KeyValueCompression.decodingStream(value.get())) {
+                    copyLimited(in, channel, KeyValueCompression.MAX_DECOMPRESSED_BYTES);
+                }
+            } else {
+                writeDecoded(value.get().getValue().orElseThrow(), channel);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Copy a stream to a channel, failing as soon as the stream turns out to be longer than the limit, so that a
+     * small compressed value cannot expand into an arbitrarily large file.
+     */
+    @VisibleForTesting
+    static void copyLimited(InputStream in, FileChannel channel, long maxBytes) throws IOException {
+        var buffer = new byte[CHUNK_CHARS];
+        var total = 0L;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxBytes) {
+                throw new IOException("Decompressed value exceeds " + maxBytes + " bytes");
+            }
+            var chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static void writeDecoded(String base64, FileChannel channel) throws IOException {
+        var decoder = Base64.getDecoder();
+        for (var start = 0; start < base64.length(); start += CHUNK_CHARS) {
+            var end = Math.min(base64.length(), start + CHUNK_CHARS);
+            var chunk = StandardCharsets.ISO_8859_1.encode(CharBuffer.wrap(base64, start, end));
+            var decoded = decoder.decode(chunk);
+            while (decoded.hasRemaining()) {
+                channel.write(decoded);
+            }
+        }
+    }
+
+    /**
+     * Decode the base64 payload of a value into bytes, without going through a {@code String}, and decompress it if
+     * it is {@link KeyValueCompression compressed}.
+     *
+     * @param value the value read from Consul
+     * @return the decoded bytes; empty if the value has no payload
+     * @throws java.io.UncheckedIOException if a compressed value cannot be decompressed
+     */
+    public static byte[] decode(Value value) {
+        return KeyValueCompression.decode(value);
+    }
+
+    private Optional<Value> read(String key) {
+        requireNonNull(key, "key must not be null");
+        var event = ConsulOperationEvent.begin("kv.get", key);
+        try {
+            var response = metrics.time("kv.get",
+                () -> consul.keyValueClient().getConsulResponseWithValue(key, queryOptions));
+            response.ifPresent(consulResponse -> metrics.recordResponse("kv.get", consulResponse));
+
+            var value = response.map(consulResponse -> consulResponse.getResponse())
+                .filter(found -> found.getValue().isPresent());
+            event.end(value.isPresent() ? Outcome.SUCCESS : Outcome.NOT_FOUND,
+                value.flatMap(Value::getValue).map(encoded -> encoded.length() / 4L * 3).orElse(0L));
+            return value;
+        } catch (RuntimeException e) {
+            event.end(Outcome.FAILURE, 0);
+            throw e;
+        }
+    }
+}
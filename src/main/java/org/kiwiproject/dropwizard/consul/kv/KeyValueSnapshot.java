@@ -0,0 +1,179 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.model.kv.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable snapshot of the keys and values under a KV prefix.
+ * <p>
+ * The keys are kept in a sorted array, with the values in a parallel array, so a point read is a binary search
+ * and a prefix scan is a binary search followed by a sequential walk; neither takes a lock, and
+ * {@link #getOrDefault(String, String)} and {@link #forEachWithPrefix(String, BiConsumer)} allocate nothing.
+ * Keys without a value (e.g., "folders" ending in {@code /}) are omitted, and
+ * {@link KeyValueCompression compressed} values are decompressed.
+ */
+public final class KeyValueSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyValueSnapshot.class);
+
+    private static final KeyValueSnapshot EMPTY = new KeyValueSnapshot(new String[0], new String[0], 0);
+
+    private final String[] keys;
+    private final String[] values;
+    private final long index;
+
+    private KeyValueSnapshot(String[] keys, String[] values, long index) {
+        this.keys = keys;
+        this.values = values;
+        this.index = index;
+    }
+
+    /**
+     * Return a snapshot with no keys.
+     *
+     * @return the empty snapshot
+     */
+    public static KeyValueSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a snapshot of the given values.
+     *
+     * @param values the values read from Consul
+     * @return a new snapshot, whose index is the highest modify index of the values
+     */
+    public static KeyValueSnapshot of(List<Value> values) {
+        requireNonNull(values, "values must not be null");
+        var entries = values.stream()
+            .filter(value -> value.getValue().isPresent())
+            .sorted(Comparator.comparing(Value::getKey))
+            .toList();
+
+        var keys = new ArrayList<String>(entries.size());
+        var strings = new ArrayList<String>(entries.size());
+        var index = 0L;
+        for (var entry : entries) {
+            index = Math.max(index, entry.getModifyIndex());
+            try {
+                var text = KeyValueCompression.decodeToString(entry).orElseThrow();
+                keys.add(entry.getKey());
+                strings.add(text);
+            } catch (UncheckedIOException e) {
+                LOG.warn("Omitting key {}, whose compressed value cannot be decompressed", entry.getKey(), e);
+            }
+        }
+        return new KeyValueSnapshot(keys.toArray(String[]::new), strings.toArray(String[]::new), index);
+    }
+
+    /**
+     * Return the value of a key.
+     *
+     * @param key the full key
+     * @return the value, or an empty Optional if the key does not exist
+     */
+    public Optional<String> get(String key) {
+        return Optional.ofNullable(getOrDefault(key, null));
+    }
+
+    /**
+     * Return the value of a key, without allocating.
+     *
+     * @param key          the full key
+     * @param defaultValue the value to return if the key does not exist
+     * @return the value, or the default value
+     */
+    @Nullable
+    public String getOrDefault(String key, @Nullable String defaultValue) {
+        var position = Arrays.binarySearch(keys, requireNonNull(key, "key must not be null"));
+        return position >= 0 ? values[position] : defaultValue;
+    }
+
+    /**
+     * Whether a key exists.
+     *
+     * @param key the full key
+     * @return true if the key has a value
+     */
+    public boolean containsKey(String key) {
+        return Arrays.binarySearch(keys, requireNonNull(key, "key must not be null")) >= 0;
+    }
+
+    /**
+     * Call the given action with each key starting with a prefix, and its value, in key order.
+     *
+     * @param prefix the prefix; an empty prefix matches every key
+     * @param action the action to call
+     */
+    public void forEachWithPrefix(String prefix, BiConsumer<String, String> action) {
+        requireNonNull(action, "action must not be null");
+        for (var i = firstWithPrefix(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            action.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Return the keys starting with a prefix, and their values.
+     *
+     * @param prefix the prefix; an empty prefix matches every key
+     * @return an unmodifiable map, in key order
+     */
+    public Map<String, String> getAllWithPrefix(String prefix) {
+        var result = new LinkedHashMap<String, String>();
+        forEachWithPrefix(prefix, result::put);
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Return the number of keys starting with a prefix.
+     *
+     * @param prefix the prefix; an empty prefix matches every key
+     * @return the number of keys
+     */
+    public int countWithPrefix(String prefix) {
+        var first = firstWithPrefix(prefix);
+        var i = first;
+        while (i < keys.length && keys[i].startsWith(prefix)) {
+            i++;
+        }
+        return i - first;
+    }
+
+    private int firstWithPrefix(String prefix) {
+        var position = Arrays.binarySearch(keys, requireNonNull(prefix, "prefix must not be null"));
+        return position >= 0 ? position : -(position + 1);
+    }
+
+    /**
+     * Return the number of keys.
+     *
+     * @return the number of keys with a value
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Return the highest modify index of the keys, which identifies the version of the snapshot.
+     *
+     * @return the index, or zero if there are no keys
+     */
+    public long index() {
+        return index;
+    }
+}
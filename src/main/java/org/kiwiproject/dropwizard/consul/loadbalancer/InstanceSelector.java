@@ -0,0 +1,96 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+
+/**
+ * Selects instances from a fixed set of instances, usually those of a single
+ * {@link org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot ServiceSnapshot}.
+ * <p>
+ * Selection works on indexes into the instance array, so selecting an instance does not allocate. Callers that
+ * use a strategy which tracks outstanding requests must {@link #release(int) release} each selected index when
+ * the request completes, on the same selector that selected it:
+ * <pre>
+ * var selector = loadBalancer.selector();
+ * var index = selector.selectIndex();
+ * try {
+ *     var instance = selector.get(index);
+ *     // make the request
+ * } finally {
+ *     selector.release(index);
+ * }
+ * </pre>
+ * Implementations must be thread-safe.
+ */
+public interface InstanceSelector {
+
+    /**
+     * Select an instance.
+     *
+     * @return the index of the selected instance, or -1 if there are no instances
+     */
+    int selectIndex();
+
+    /**
+     * Select an instance other than the one at the given index, e.g., to retry a failed request on another instance.
+     * The selected index must be {@link #release(int) released} like one returned by {@link #selectIndex()}.
+     * <p>
+     * The default implementation selects with {@link #selectIndex()} up to {@link #size()} times, releasing the
+     * excluded index whenever it is selected. Implementations that can select among the other instances directly
+     * should override it.
+     *
+     * @param excludedIndex the index of the instance to avoid, or -1 to avoid none
+     * @return the index of the selected instance, or -1 if no other instance was selected
+     */
+    default int selectIndexExcluding(int excludedIndex) {
+        if (excludedIndex < 0) {
+            return selectIndex();
+        }
+        for (var attempt = 0; attempt < size(); attempt++) {
+            var index = selectIndex();
+            if (index != excludedIndex) {
+                return index;
+            }
+            release(index);
+        }
+        return -1;
+    }
+
+    /**
+     * Return the instance at the given index.
+     *
+     * @param index an index returned by {@link #selectIndex()}
+     * @return the instance
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    ServiceInstance get(int index);
+
+    /**
+     * Return the number of instances this selector selects from.
+     *
+     * @return the number of instances
+     */
+    int size();
+
+    /**
+     * Release an index returned by {@link #selectIndex()} once the request to that instance has completed.
+     * Does nothing for strategies that do not track outstanding requests, or if the index is -1.
+     *
+     * @param index the selected index
+     */
+    default void release(int index) {
+        // stateless by default
+    }
+
+    /**
+     * Select an instance. For strategies that track outstanding requests, prefer {@link #selectIndex()} and
+     * {@link #release(int)}.
+     *
+     * @return the selected instance, or null if there are no instances
+     */
+    @Nullable
+    default ServiceInstance select() {
+        var index = selectIndex();
+        return index < 0 ? null : get(index);
+    }
+}
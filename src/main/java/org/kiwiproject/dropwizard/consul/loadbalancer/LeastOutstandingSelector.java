@@ -0,0 +1,112 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Selects the instance with fewer outstanding requests out of two chosen at random ("power of two choices").
+ * Every selected index must be released once its request completes.
+ */
+class LeastOutstandingSelector implements InstanceSelector {
+
+    private final ServiceInstance[] instances;
+    private final AtomicIntegerArray outstanding;
+
+    LeastOutstandingSelector(ServiceSnapshot snapshot) {
+        this.instances = snapshot.instances().toArray(ServiceInstance[]::new);
+        this.outstanding = new AtomicIntegerArray(instances.length);
+    }
+
+    @Override
+    public int selectIndex() {
+        var count = instances.length;
+        if (count == 0) {
+            return -1;
+        }
+
+        int index;
+        if (count == 1) {
+            index = 0;
+        } else {
+            var random = ThreadLocalRandom.current();
+            var first = random.nextInt(count);
+            var second = random.nextInt(count - 1);
+            if (second >= first) {
+                second++;
+            }
+            index = outstanding.get(second) < outstanding.get(first) ? second : first;
+        }
+
+        outstanding.incrementAndGet(index);
+        return index;
+    }
+
+    /**
+     * Pick two of the instances other than the excluded one and select the one with fewer outstanding requests.
+     */
+    @Override
+    public int selectIndexExcluding(int excludedIndex) {
+        if (excludedIndex < 0 || excludedIndex >= instances.length) {
+            return selectIndex();
+        }
+        var count = instances.length - 1;
+        if (count == 0) {
+            return -1;
+        }
+
+        int index;
+        if (count == 1) {
+            index = skip(0, excludedIndex);
+        } else {
+            var random = ThreadLocalRandom.current();
+            var first = random.nextInt(count);
+            var second = random.nextInt(count - 1);
+            if (second >= first) {
+                second++;
+            }
+            first = skip(first, excludedIndex);
+            second = skip(second, excludedIndex);
+            index = outstanding.get(second) < outstanding.get(first) ? second : first;
+        }
+
+        outstanding.incrementAndGet(index);
+        return index;
+    }
+
+    /**
+     * Map a position among the instances other than the excluded one to an index among all instances.
+     */
+    private static int skip(int position, int excludedIndex) {
+        return position >= excludedIndex ? position + 1 : position;
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    @Override
+    public int size() {
+        return instances.length;
+    }
+
+    @Override
+    public void release(int index) {
+        if (index >= 0) {
+            outstanding.getAndUpdate(index, count -> count > 0 ? count - 1 : 0);
+        }
+    }
+
+    /**
+     * Return the number of outstanding requests to the instance at the given index.
+     *
+     * @param index the instance index
+     * @return the number of selected but not yet released requests
+     */
+    int outstanding(int index) {
+        return outstanding.get(index);
+    }
+}
@@ -0,0 +1,101 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+/**
+ * Client-side load balancer over the healthy instances of a service in a {@link ServiceDiscoveryCache}.
+ * <p>
+ * The load balancer keeps one {@link InstanceSelector} per {@link ServiceSnapshot}, and only creates a new one
+ * when the cache publishes a new snapshot, so choosing an instance does not copy or allocate anything.
+ * <p>
+ * With an {@link OutlierDetector}, the load balancer skips instances the detector has ejected. Callers must then
+ * record the outcome of each request to the chosen instance in the detector.
+ *
+ * @see LoadBalancingStrategy
+ */
+public class LoadBalancer {
+
+    private final ServiceDiscoveryCache cache;
+    private final String serviceName;
+    private final LoadBalancingStrategy strategy;
+    @Nullable
+    private final OutlierDetector outlierDetector;
+
+    private volatile CachedSelector cachedSelector;
+
+    private record CachedSelector(ServiceSnapshot snapshot, InstanceSelector selector) {
+    }
+
+    /**
+     * Create a new load balancer, and start watching the service in the cache if it is not watched already.
+     *
+     * @param cache       the discovery cache
+     * @param serviceName the Consul service name
+     * @param strategy    the load balancing strategy
+     */
+    public LoadBalancer(ServiceDiscoveryCache cache, String serviceName, LoadBalancingStrategy strategy) {
+        this(cache, serviceName, strategy, null);
+    }
+
+    /**
+     * Create a new load balancer that skips instances ejected by an outlier detector, and start watching the
+     * service in the cache if it is not watched already.
+     *
+     * @param cache           the discovery cache
+     * @param serviceName     the Consul service name
+     * @param strategy        the load balancing strategy
+     * @param outlierDetector the outlier detector, or null to select among all healthy instances
+     */
+    public LoadBalancer(ServiceDiscoveryCache cache,
+                        String serviceName,
+                        LoadBalancingStrategy strategy,
+                        @Nullable OutlierDetector outlierDetector) {
+        this.cache = requireNonNull(cache, "cache must not be null");
+        this.serviceName = requireNonNull(serviceName, "serviceName must not be null");
+        this.strategy = requireNonNull(strategy, "strategy must not be null");
+        this.outlierDetector = outlierDetector;
+        cache.watch(serviceName);
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    /**
+     * Return the selector for the current snapshot of the service. Use the same selector to select and release
+     * an instance.
+     *
+     * @return the current selector
+     */
+    public InstanceSelector selector() {
+        var snapshot = cache.getSnapshot(serviceName);
+        var cached = cachedSelector;
+        if (cached != null && cached.snapshot() == snapshot) {
+            return cached.selector();
+        }
+
+        // if two threads race here, both selectors are valid and the last one wins
+        var selector = strategy.selectorFor(snapshot);
+        if (outlierDetector != null) {
+            selector = new OutlierFilteringSelector(selector, outlierDetector);
+        }
+        cachedSelector = new CachedSelector(snapshot, selector);
+        return selector;
+    }
+
+    /**
+     * Choose an instance. For strategies that track outstanding requests, use {@link #selector()} instead so that
+     * the chosen instance can be released.
+     *
+     * @return the chosen instance, or null if there are no healthy instances
+     */
+    @Nullable
+    public ServiceInstance choose() {
+        return selector().select();
+    }
+}
@@ -0,0 +1,97 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import org.kiwiproject.dropwizard.consul.LocalityFactory;
+import org.kiwiproject.dropwizard.consul.coordinate.NetworkCoordinates;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.Objects;
+
+/**
+ * Creates an {@link InstanceSelector} for each {@link ServiceSnapshot}.
+ * <p>
+ * Creating a selector copies the snapshot's instances into primitive arrays once, so that selection itself is
+ * allocation-free. A {@link LoadBalancer} creates a new selector only when the snapshot changes.
+ */
+@FunctionalInterface
+public interface LoadBalancingStrategy {
+
+    /**
+     * Create a selector over the instances of the given snapshot.
+     *
+     * @param snapshot the service snapshot
+     * @return a new selector
+     */
+    InstanceSelector selectorFor(ServiceSnapshot snapshot);
+
+    /**
+     * Select instances in turn.
+     *
+     * @return a round-robin strategy
+     */
+    static LoadBalancingStrategy roundRobin() {
+        return RoundRobinSelector::new;
+    }
+
+    /**
+     * Select instances randomly, in proportion to their Consul {@code Weights.Passing} value.
+     *
+     * @return a weighted random strategy
+     */
+    static LoadBalancingStrategy weightedRandom() {
+        return WeightedRandomSelector::new;
+    }
+
+    /**
+     * Pick two instances at random and select the one with fewer outstanding requests ("power of two choices").
+     * Callers must {@link InstanceSelector#release(int) release} each selected index.
+     *
+     * @return a least-outstanding-requests strategy
+     */
+    static LoadBalancingStrategy leastOutstandingRequests() {
+        return LeastOutstandingSelector::new;
+    }
+
+    /**
+     * Select in turn among the {@code count} instances with the lowest estimated round-trip time from the local
+     * node, based on Consul's network coordinates. Until the coordinates are known, this behaves like
+     * {@link #roundRobin()}.
+     *
+     * @param coordinates the network coordinates
+     * @param count       the number of nearest instances to select among; 1 always selects the nearest instance
+     * @return a nearest-instances strategy
+     */
+    static LoadBalancingStrategy nearest(NetworkCoordinates coordinates, int count) {
+        requireNonNull(coordinates, "coordinates must not be null");
+        checkArgument(count > 0, "count must be positive");
+        return snapshot -> new NearestSelector(snapshot, coordinates, count);
+    }
+
+    /**
+     * Prefer the instances in the given zone, as published in their {@link LocalityFactory#ZONE_META_KEY zone}
+     * service meta, and only spill over to all instances when fewer than {@code minLocalInstances} instances in the
+     * zone are healthy. The delegate strategy selects among the chosen instances.
+     *
+     * @param zone              the local zone
+     * @param minLocalInstances the minimum number of healthy instances in the zone to keep traffic in the zone
+     * @param delegate          the strategy used to select among the chosen instances
+     * @return a zone-aware strategy
+     */
+    static LoadBalancingStrategy zoneAware(String zone, int minLocalInstances, LoadBalancingStrategy delegate) {
+        requireNonNull(zone, "zone must not be null");
+        checkArgument(minLocalInstances > 0, "minLocalInstances must be positive");
+        requireNonNull(delegate, "delegate must not be null");
+        return snapshot -> {
+            var localInstances = snapshot.instances().stream()
+                .filter(instance -> Objects.equals(zone, instance.meta().get(LocalityFactory.ZONE_META_KEY)))
+                .toList();
+            if (localInstances.size() < minLocalInstances) {
+                return delegate.selectorFor(snapshot);
+            }
+            return delegate.selectorFor(new ServiceSnapshot(
+                snapshot.serviceName(), localInstances, snapshot.index(), snapshot.updatedAtMillis()));
+        };
+    }
+}
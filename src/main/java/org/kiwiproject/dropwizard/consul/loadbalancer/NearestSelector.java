@@ -0,0 +1,114 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static java.util.Comparator.comparingDouble;
+
+import org.kiwiproject.dropwizard.consul.coordinate.NetworkCoordinates;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Selects in turn among the N instances whose nodes have the lowest estimated round-trip time from the local node.
+ * Instances whose round-trip time cannot be estimated rank after all others. If no round-trip times can be
+ * estimated, e.g., before the coordinates are first fetched, it selects among all instances in turn.
+ * <p>
+ * The ranking is computed when it is first needed and again whenever the network coordinates are refreshed, not on
+ * each selection.
+ */
+class NearestSelector implements InstanceSelector {
+
+    private final ServiceInstance[] instances;
+    private final NetworkCoordinates coordinates;
+    private final int count;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile Ranking ranking;
+
+    private record Ranking(long version, int[] nearest) {
+    }
+
+    NearestSelector(ServiceSnapshot snapshot, NetworkCoordinates coordinates, int count) {
+        this.instances = snapshot.instances().toArray(ServiceInstance[]::new);
+        this.coordinates = coordinates;
+        this.count = Math.min(count, instances.length);
+    }
+
+    @Override
+    public int selectIndex() {
+        if (count == 0) {
+            return -1;
+        }
+        var nearest = currentRanking().nearest();
+        return nearest[Math.floorMod(next.getAndIncrement(), nearest.length)];
+    }
+
+    /**
+     * Select in turn among the nearest instances other than the excluded one. If the excluded instance is the only
+     * nearest one, select among all other instances in turn.
+     */
+    @Override
+    public int selectIndexExcluding(int excludedIndex) {
+        if (excludedIndex < 0 || excludedIndex >= instances.length) {
+            return selectIndex();
+        }
+        if (instances.length == 1) {
+            return -1;
+        }
+
+        var nearest = currentRanking().nearest();
+        var turn = next.getAndIncrement();
+        var position = Math.floorMod(turn, nearest.length);
+        if (nearest[position] != excludedIndex) {
+            return nearest[position];
+        }
+        if (nearest.length > 1) {
+            return nearest[(position + 1) % nearest.length];
+        }
+        var other = Math.floorMod(turn, instances.length - 1);
+        return other >= excludedIndex ? other + 1 : other;
+    }
+
+    private Ranking currentRanking() {
+        var version = coordinates.version();
+        var current = ranking;
+        if (current == null || current.version() != version) {
+            // concurrent callers may rank at the same time, which is harmless
+            current = new Ranking(version, rank());
+            ranking = current;
+        }
+        return current;
+    }
+
+    private int[] rank() {
+        var rttMillis = new double[instances.length];
+        var anyEstimated = false;
+        for (var i = 0; i < instances.length; i++) {
+            var estimate = coordinates.estimateRttMillis(instances[i].node());
+            rttMillis[i] = estimate.orElse(Double.POSITIVE_INFINITY);
+            anyEstimated |= estimate.isPresent();
+        }
+
+        if (!anyEstimated) {
+            // no coordinates yet, so there is no reason to prefer any instances
+            return IntStream.range(0, instances.length).toArray();
+        }
+        return IntStream.range(0, instances.length)
+            .boxed()
+            .sorted(comparingDouble(i -> rttMillis[i]))
+            .limit(count)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    @Override
+    public int size() {
+        return instances.length;
+    }
+}
@@ -0,0 +1,108 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link OutlierDetector}.
+ * <p>
+ * An instance is ejected after {@code consecutiveFailures} consecutive failed requests (5xx responses or I/O
+ * errors such as timeouts). The first ejection lasts {@code baseEjectionTime}, and each further ejection of the
+ * same instance doubles that, up to {@code maxEjectionTime}. At most {@code maxEjectionPercent} of the instances of
+ * a service are ejected at a time, but at least one unless it is zero, which disables ejection. The only instance
+ * of a service is never ejected.
+ */
+public class OutlierDetectionFactory {
+
+    @Min(1)
+    private int consecutiveFailures = 5;
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration baseEjectionTime = Duration.seconds(30);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration maxEjectionTime = Duration.minutes(5);
+
+    @Min(0)
+    @Max(100)
+    private int maxEjectionPercent = 10;
+
+    @JsonProperty
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @JsonProperty
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    @JsonProperty
+    public Duration getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    @JsonProperty
+    public void setBaseEjectionTime(Duration baseEjectionTime) {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+
+    @JsonProperty
+    public Duration getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    @JsonProperty
+    public void setMaxEjectionTime(Duration maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    @JsonProperty
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    @JsonProperty
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    @AssertTrue(message = "baseEjectionTime must not be greater than maxEjectionTime")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isEjectionTimeValid() {
+        return baseEjectionTime == null || maxEjectionTime == null
+            || baseEjectionTime.toMilliseconds() <= maxEjectionTime.toMilliseconds();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(consecutiveFailures, baseEjectionTime, maxEjectionTime, maxEjectionPercent);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (OutlierDetectionFactory) obj;
+        return this.consecutiveFailures == other.consecutiveFailures
+            && Objects.equals(this.baseEjectionTime, other.baseEjectionTime)
+            && Objects.equals(this.maxEjectionTime, other.maxEjectionTime)
+            && this.maxEjectionPercent == other.maxEjectionPercent;
+    }
+}
@@ -0,0 +1,215 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Passive outlier detection: tracks the outcome of requests to each instance, and locally ejects instances that
+ * fail repeatedly, without waiting for their next Consul health check.
+ * <p>
+ * Callers {@link #recordSuccess(ServiceInstance) record} the outcome of each request. An instance is ejected after
+ * the configured number of consecutive failures, for a period that doubles with each ejection of the same instance,
+ * up to the configured maximum. An instance that then succeeds for the maximum ejection time is forgiven. At most
+ * the configured percentage of a service's current instances (but at least one, unless the percentage is zero) are
+ * ejected at a time, and the only instance of a service is never ejected; the cap is approximate when instances of
+ * the same service are ejected concurrently.
+ * <p>
+ * Only instances that have failed are tracked, so checking whether an instance is ejected is a single map lookup,
+ * and is skipped entirely while no instance of any service is ejected. Instances that have left the service's
+ * snapshot stop being tracked the next time another instance of the service starts being tracked or is ejected.
+ *
+ * @see OutlierDetectionFactory
+ * @see LoadBalancer#LoadBalancer(ServiceDiscoveryCache, String, LoadBalancingStrategy, OutlierDetector)
+ */
+public class OutlierDetector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutlierDetector.class);
+
+    private final OutlierDetectionFactory config;
+    private final ServiceDiscoveryCache cache;
+    private final LongSupplier clock;
+    private final ConcurrentMap<InstanceKey, InstanceState> states = new ConcurrentHashMap<>();
+
+    private volatile long lastEjectionEndMillis;
+
+    private record InstanceKey(String serviceName, String node, String id) {
+
+        static InstanceKey of(ServiceInstance instance) {
+            return new InstanceKey(instance.serviceName(), instance.node(), instance.id());
+        }
+    }
+
+    private static class InstanceState {
+        int consecutiveFailures;
+        int ejections;
+        volatile long ejectedUntilMillis;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param config the ejection thresholds and times
+     * @param cache  the discovery cache, used to cap the number of ejected instances of a service
+     */
+    public OutlierDetector(OutlierDetectionFactory config, ServiceDiscoveryCache cache) {
+        this(config, cache, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    OutlierDetector(OutlierDetectionFactory config, ServiceDiscoveryCache cache, LongSupplier clock) {
+        this.config = requireNonNull(config, "config must not be null");
+        this.cache = requireNonNull(cache, "cache must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Record a successful request to an instance, i.e., one that received a response other than a 5xx.
+     *
+     * @param instance the instance
+     */
+    public void recordSuccess(ServiceInstance instance) {
+        var key = InstanceKey.of(instance);
+        var state = states.get(key);
+        if (state == null) {
+            return;
+        }
+
+        var now = clock.getAsLong();
+        synchronized (state) {
+            state.consecutiveFailures = 0;
+            if (now - state.ejectedUntilMillis >= config.getMaxEjectionTime().toMilliseconds()) {
+                // healthy for long enough since the last ejection; stop tracking it
+                states.remove(key, state);
+            }
+        }
+    }
+
+    /**
+     * Record a failed request to an instance, i.e., a 5xx response or an I/O error such as a timeout. Ejects the
+     * instance if it has now failed too many times in a row.
+     *
+     * @param instance the instance
+     */
+    public void recordFailure(ServiceInstance instance) {
+        var instanceKey = InstanceKey.of(instance);
+        var state = states.get(instanceKey);
+        if (state == null) {
+            pruneRemovedInstances(instance.serviceName(), instanceKey);
+            state = states.computeIfAbsent(instanceKey, key -> new InstanceState());
+        }
+        var now = clock.getAsLong();
+        synchronized (state) {
+            state.consecutiveFailures++;
+            if (state.consecutiveFailures < config.getConsecutiveFailures() || state.ejectedUntilMillis > now) {
+                return;
+            }
+            if (!canEject(instance.serviceName(), instanceKey, now)) {
+                LOG.debug("Not ejecting instance {} of service {}; too many instances are ejected",
+                    instance.id(), instance.serviceName());
+                return;
+            }
+
+            var ejectionMillis = ejectionMillis(state.ejections);
+            state.ejections++;
+            state.consecutiveFailures = 0;
+            state.ejectedUntilMillis = now + ejectionMillis;
+            lastEjectionEndMillis = Math.max(lastEjectionEndMillis, state.ejectedUntilMillis);
+            LOG.warn("Ejecting instance {} ({}) of service {} for {} ms after {} consecutive failures",
+                instance.id(), instance.hostAndPort(), instance.serviceName(), ejectionMillis,
+                config.getConsecutiveFailures());
+        }
+    }
+
+    /**
+     * Whether an instance is currently ejected.
+     *
+     * @param instance the instance
+     * @return true if the instance should not receive requests
+     */
+    public boolean isEjected(ServiceInstance instance) {
+        var now = clock.getAsLong();
+        if (now >= lastEjectionEndMillis) {
+            return false;
+        }
+        var state = states.get(InstanceKey.of(instance));
+        return state != null && state.ejectedUntilMillis > now;
+    }
+
+    /**
+     * Whether any instance of any service may currently be ejected. Used to skip ejection checks entirely in the
+     * common case.
+     *
+     * @return false if no instance is ejected
+     */
+    public boolean hasEjections() {
+        return clock.getAsLong() < lastEjectionEndMillis;
+    }
+
+    /**
+     * Return the number of currently ejected instances of a service.
+     *
+     * @param serviceName the Consul service name
+     * @return the number of ejected instances
+     */
+    public int ejectedCount(String serviceName) {
+        return ejectedCount(serviceName, clock.getAsLong());
+    }
+
+    private int ejectedCount(String serviceName, long now) {
+        var count = 0;
+        for (var entry : states.entrySet()) {
+            if (entry.getKey().serviceName().equals(serviceName) && entry.getValue().ejectedUntilMillis > now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean canEject(String serviceName, InstanceKey instanceKey, long now) {
+        var instanceCount = cache.getSnapshot(serviceName).size();
+        if (config.getMaxEjectionPercent() == 0 || instanceCount <= 1) {
+            return false;
+        }
+        pruneRemovedInstances(serviceName, instanceKey);
+        var maxEjected = Math.max(1, instanceCount * config.getMaxEjectionPercent() / 100);
+        return ejectedCount(serviceName, now) < maxEjected;
+    }
+
+    /**
+     * Stop tracking the instances of a service that are no longer in its snapshot, e.g., because they were
+     * deregistered while ejected, so they neither leak nor count against the ejection cap. Does nothing until the
+     * service has been read.
+     */
+    private void pruneRemovedInstances(String serviceName, InstanceKey keep) {
+        var snapshot = cache.getSnapshot(serviceName);
+        if (snapshot.index() == 0) {
+            return;
+        }
+        var current = snapshot.instances().stream().map(InstanceKey::of).collect(toSet());
+        states.keySet().removeIf(key ->
+            key.serviceName().equals(serviceName) && !key.equals(keep) && !current.contains(key));
+    }
+
+    @VisibleForTesting
+    int trackedCount() {
+        return states.size();
+    }
+
+    @VisibleForTesting
+    long ejectionMillis(int previousEjections) {
+        var base = config.getBaseEjectionTime().toMilliseconds();
+        var max = config.getMaxEjectionTime().toMilliseconds();
+        var shift = Math.min(previousEjections, 20);
+        return Math.min(max, base << shift);
+    }
+}
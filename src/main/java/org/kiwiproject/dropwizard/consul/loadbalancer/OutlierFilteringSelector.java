@@ -0,0 +1,65 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+
+/**
+ * Decorates a selector so that it skips instances ejected by an {@link OutlierDetector}. If every attempt selects
+ * an ejected instance, e.g., because all instances are ejected, it selects one anyway rather than failing.
+ */
+class OutlierFilteringSelector implements InstanceSelector {
+
+    private final InstanceSelector delegate;
+    private final OutlierDetector outlierDetector;
+
+    OutlierFilteringSelector(InstanceSelector delegate, OutlierDetector outlierDetector) {
+        this.delegate = delegate;
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public int selectIndex() {
+        if (!outlierDetector.hasEjections()) {
+            return delegate.selectIndex();
+        }
+
+        for (var attempt = 0; attempt < delegate.size(); attempt++) {
+            var index = delegate.selectIndex();
+            if (index < 0 || !outlierDetector.isEjected(delegate.get(index))) {
+                return index;
+            }
+            delegate.release(index);
+        }
+        return delegate.selectIndex();
+    }
+
+    @Override
+    public int selectIndexExcluding(int excludedIndex) {
+        if (!outlierDetector.hasEjections()) {
+            return delegate.selectIndexExcluding(excludedIndex);
+        }
+
+        for (var attempt = 0; attempt < delegate.size(); attempt++) {
+            var index = delegate.selectIndexExcluding(excludedIndex);
+            if (index < 0 || !outlierDetector.isEjected(delegate.get(index))) {
+                return index;
+            }
+            delegate.release(index);
+        }
+        return delegate.selectIndexExcluding(excludedIndex);
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return delegate.get(index);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void release(int index) {
+        delegate.release(index);
+    }
+}
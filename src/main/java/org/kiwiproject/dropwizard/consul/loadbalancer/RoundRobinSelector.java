@@ -0,0 +1,57 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects instances in turn, starting at a random instance so that clients which all build a selector for the same
+ * new snapshot do not all send their first requests to the first instance.
+ */
+class RoundRobinSelector implements InstanceSelector {
+
+    private final ServiceInstance[] instances;
+    private final AtomicInteger next;
+
+    RoundRobinSelector(ServiceSnapshot snapshot) {
+        this.instances = snapshot.instances().toArray(ServiceInstance[]::new);
+        this.next = new AtomicInteger(instances.length == 0 ? 0 : ThreadLocalRandom.current().nextInt(instances.length));
+    }
+
+    @Override
+    public int selectIndex() {
+        var count = instances.length;
+        if (count == 0) {
+            return -1;
+        }
+        return Math.floorMod(next.getAndIncrement(), count);
+    }
+
+    /**
+     * Take the next instance in turn, or the one after it if the next one is excluded.
+     */
+    @Override
+    public int selectIndexExcluding(int excludedIndex) {
+        if (excludedIndex < 0 || excludedIndex >= instances.length) {
+            return selectIndex();
+        }
+        var count = instances.length;
+        if (count == 1) {
+            return -1;
+        }
+        var index = Math.floorMod(next.getAndIncrement(), count);
+        return index == excludedIndex ? (index + 1) % count : index;
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    @Override
+    public int size() {
+        return instances.length;
+    }
+}
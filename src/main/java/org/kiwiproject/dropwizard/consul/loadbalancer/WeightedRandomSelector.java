@@ -0,0 +1,100 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects instances randomly in proportion to their weights, using a binary search over cumulative weights.
+ * Instances with a weight of zero or less are never selected, unless all instances have such weights, in which
+ * case instances are selected uniformly.
+ */
+class WeightedRandomSelector implements InstanceSelector {
+
+    private final ServiceInstance[] instances;
+    private final long[] cumulativeWeights;
+    private final long totalWeight;
+
+    WeightedRandomSelector(ServiceSnapshot snapshot) {
+        this.instances = snapshot.instances().toArray(ServiceInstance[]::new);
+        this.cumulativeWeights = new long[instances.length];
+
+        var total = 0L;
+        for (var i = 0; i < instances.length; i++) {
+            total += Math.max(0, instances[i].weight());
+            cumulativeWeights[i] = total;
+        }
+        this.totalWeight = total;
+    }
+
+    @Override
+    public int selectIndex() {
+        var count = instances.length;
+        if (count == 0) {
+            return -1;
+        }
+
+        var random = ThreadLocalRandom.current();
+        if (totalWeight == 0) {
+            return random.nextInt(count);
+        }
+
+        return indexOf(random.nextLong(totalWeight));
+    }
+
+    /**
+     * Select randomly in proportion to the weights of the instances other than the excluded one, as if it were not
+     * there. If none of the others has a positive weight, select among them uniformly.
+     */
+    @Override
+    public int selectIndexExcluding(int excludedIndex) {
+        if (excludedIndex < 0 || excludedIndex >= instances.length) {
+            return selectIndex();
+        }
+        var count = instances.length;
+        if (count == 1) {
+            return -1;
+        }
+
+        var random = ThreadLocalRandom.current();
+        var excludedStart = excludedIndex == 0 ? 0 : cumulativeWeights[excludedIndex - 1];
+        var excludedWeight = cumulativeWeights[excludedIndex] - excludedStart;
+        var remainingWeight = totalWeight - excludedWeight;
+        if (remainingWeight == 0) {
+            var position = random.nextInt(count - 1);
+            return position >= excludedIndex ? position + 1 : position;
+        }
+
+        // skip over the excluded instance's range of values
+        var value = random.nextLong(remainingWeight);
+        return indexOf(value >= excludedStart ? value + excludedWeight : value);
+    }
+
+    /**
+     * Return the index of the first instance whose cumulative weight is greater than the given value.
+     */
+    private int indexOf(long value) {
+        var index = Arrays.binarySearch(cumulativeWeights, value);
+        if (index >= 0) {
+            // an exact match is the upper bound of this instance's range; skip past any zero-weight instances
+            index++;
+            while (cumulativeWeights[index] == value) {
+                index++;
+            }
+            return index;
+        }
+        return -index - 1;
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    @Override
+    public int size() {
+        return instances.length;
+    }
+}
@@ -0,0 +1,193 @@
+package org.kiwiproject.dropwizard.consul.metrics;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Objects.requireNonNull;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.NoopMetricRegistry;
+import com.codahale.metrics.Timer;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.monitoring.ClientEventCallback;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Records Dropwizard metrics for calls made to Consul.
+ * <p>
+ * For each named endpoint that is called via {@link #time(String, Supplier)} or {@link #time(String, Runnable)},
+ * the following metrics are registered:
+ * <ul>
+ *     <li>{@code consul.<endpoint>.requests} - a {@link Timer} of all calls</li>
+ *     <li>{@code consul.<endpoint>.errors} - a {@link Meter} of calls that threw an exception</li>
+ *     <li>{@code consul.<endpoint>.inFlight} - a {@link Gauge} of calls currently in progress</li>
+ * </ul>
+ * <p>
+ * Responses passed to {@link #recordResponse(ConsulResponse)} update the {@code consul.index},
+ * {@code consul.lastContactMillis}, and {@code consul.knownLeader} gauges from the Consul response headers.
+ * Responses passed to {@link #recordResponse(String, ConsulResponse)} that were read in cached mode also mark
+ * the {@code consul.<endpoint>.cache.hits} or {@code consul.<endpoint>.cache.misses} meter, based on the
+ * {@code X-Cache} header, and update the {@code consul.<endpoint>.cache.ageSeconds} histogram from the
+ * {@code Age} header.
+ * <p>
+ * This class is also a {@link ClientEventCallback}, so it can be attached to a Consul client to meter every
+ * HTTP request the client makes as {@code consul.client.<client>.<method>.success} and {@code .failure}.
+ * <p>
+ * All instances created with the same registry share their state, since the registry returns the gauges registered
+ * by the first one: an application may create its own instances (e.g., for a {@code ConsulLookup}) without its
+ * updates being lost.
+ */
+public class ConsulMetrics implements ClientEventCallback {
+
+    public static final String PREFIX = "consul";
+
+    // the state shared by all instances using a registry; registries do not override equals, so this is by identity
+    private static final Map<MetricRegistry, SharedState> SHARED_STATES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    // declared after SHARED_STATES, which its constructor uses
+    private static final ConsulMetrics NOOP = new ConsulMetrics(new NoopMetricRegistry());
+
+    private final MetricRegistry registry;
+    private final SharedState state;
+
+    private record EndpointMetrics(Timer requests, Meter errors, AtomicLong inFlight) {
+    }
+
+    private static final class SharedState {
+        final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+        final AtomicLong lastIndex = new AtomicLong(-1);
+        final AtomicLong lastContactMillis = new AtomicLong(-1);
+        final AtomicLong knownLeader = new AtomicLong(-1);
+    }
+
+    /**
+     * Create a new instance that registers metrics in the given registry.
+     *
+     * @param registry the metric registry, usually the application's
+     */
+    public ConsulMetrics(MetricRegistry registry) {
+        this.registry = requireNonNull(registry, "registry must not be null");
+        this.state = SHARED_STATES.computeIfAbsent(registry, key -> new SharedState());
+
+        registry.gauge(name(PREFIX, "index"), () -> (Gauge<Long>) state.lastIndex::get);
+        registry.gauge(name(PREFIX, "lastContactMillis"), () -> (Gauge<Long>) state.lastContactMillis::get);
+        registry.gauge(name(PREFIX, "knownLeader"), () -> (Gauge<Long>) state.knownLeader::get);
+    }
+
+    /**
+     * Return an instance that does not record anything.
+     *
+     * @return a no-op instance
+     */
+    public static ConsulMetrics noop() {
+        return NOOP;
+    }
+
+    /**
+     * Return the registry this instance registers metrics in.
+     *
+     * @return the metric registry
+     */
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Time a call to Consul.
+     *
+     * @param endpoint the logical endpoint name, e.g., {@code agent.ping}
+     * @param call     the call to time
+     * @param <T>      the result type
+     * @return the result of the call
+     */
+    public <T> T time(String endpoint, Supplier<T> call) {
+        var metrics = endpointMetrics(endpoint);
+        metrics.inFlight().incrementAndGet();
+        try (var ignored = metrics.requests().time()) {
+            return call.get();
+        } catch (RuntimeException e) {
+            metrics.errors().mark();
+            throw e;
+        } finally {
+            metrics.inFlight().decrementAndGet();
+        }
+    }
+
+    /**
+     * Time a call to Consul that does not return a result.
+     *
+     * @param endpoint the logical endpoint name, e.g., {@code agent.deregister}
+     * @param call     the call to time
+     */
+    public void time(String endpoint, Runnable call) {
+        time(endpoint, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Update the index, last contact, and known leader gauges from a response.
+     *
+     * @param response the Consul response
+     */
+    public void recordResponse(ConsulResponse<?> response) {
+        if (response.getIndex() != null) {
+            state.lastIndex.set(response.getIndex().longValue());
+        }
+        state.lastContactMillis.set(response.getLastContact());
+        state.knownLeader.set(response.isKnownLeader() ? 1 : 0);
+    }
+
+    /**
+     * Update the index, last contact, and known leader gauges from a response, and record whether it was served
+     * from the agent cache.
+     *
+     * @param endpoint the logical endpoint name, e.g., {@code health.service}
+     * @param response the Consul response
+     */
+    public void recordResponse(String endpoint, ConsulResponse<?> response) {
+        recordResponse(response);
+        response.getCacheResponseInfo().ifPresent(cacheInfo -> {
+            var hitOrMiss = cacheInfo.isCacheHit() ? "hits" : "misses";
+            registry.meter(name(PREFIX, endpoint, "cache", hitOrMiss)).mark();
+            if (cacheInfo.getAgeInSeconds() != null) {
+                cacheAgeSeconds(endpoint).update(cacheInfo.getAgeInSeconds());
+            }
+        });
+    }
+
+    private Histogram cacheAgeSeconds(String endpoint) {
+        return registry.histogram(name(PREFIX, endpoint, "cache", "ageSeconds"));
+    }
+
+    @Override
+    public void onHttpRequestSuccess(String clientName, String method, String queryString) {
+        registry.meter(name(PREFIX, "client", clientName, method, "success")).mark();
+    }
+
+    @Override
+    public void onHttpRequestFailure(String clientName, String method, String queryString, Throwable throwable) {
+        registry.meter(name(PREFIX, "client", clientName, method, "failure")).mark();
+    }
+
+    private EndpointMetrics endpointMetrics(String endpoint) {
+        return state.endpoints.computeIfAbsent(endpoint, key -> {
+            var inFlight = new AtomicLong();
+            registry.gauge(name(PREFIX, key, "inFlight"), () -> (Gauge<Long>) inFlight::get);
+            return new EndpointMetrics(
+                registry.timer(name(PREFIX, key, "requests")),
+                registry.meter(name(PREFIX, key, "errors")),
+                inFlight);
+        });
+    }
+}
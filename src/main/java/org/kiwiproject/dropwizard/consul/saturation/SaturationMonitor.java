@@ -0,0 +1,234 @@
+package org.kiwiproject.dropwizard.consul.saturation;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.ServerLifecycleListener;
+import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.NotRegisteredException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Dropwizard {@link ServerLifecycleListener} that watches the Jetty {@link QueuedThreadPool} (and, when the
+ * connectors carry a {@link ConnectionStatistics} bean, the number of open connections) and signals overload
+ * to Consul through a TTL check registered alongside the service's HTTP check.
+ * <p>
+ * While overloaded, the check is moved to {@code warning}, which removes the instance from {@code ?passing}
+ * queries and applies the service's warning weight in DNS. It is moved back to {@code passing} once load
+ * drops. The check note only changes together with the state, so heartbeats do not cause catalog updates.
+ *
+ * @see SaturationMonitorFactory
+ */
+public class SaturationMonitor implements ServerLifecycleListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SaturationMonitor.class);
+
+    @VisibleForTesting
+    static final String OVERLOADED_NOTE = "Jetty request processing is saturated";
+
+    @VisibleForTesting
+    static final String OK_NOTE = "Jetty request processing is not saturated";
+
+    private final Consul consul;
+    private final String checkId;
+    private final SaturationMonitorFactory config;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier clock;
+
+    private volatile boolean overloaded;
+    private int consecutiveOverloadedSamples;
+    private int consecutiveRecoveredSamples;
+    private boolean reportPending = true;
+    private long lastReportMillis;
+
+    /**
+     * Create a new instance.
+     *
+     * @param consul    Consul client
+     * @param serviceId Consul service ID whose saturation check will be updated
+     * @param config    saturation thresholds
+     * @param scheduler the scheduler used to sample the thread pool; it is not shut down by this class
+     */
+    public SaturationMonitor(Consul consul,
+                             String serviceId,
+                             SaturationMonitorFactory config,
+                             ScheduledExecutorService scheduler) {
+        this(consul, serviceId, config, scheduler, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    SaturationMonitor(Consul consul,
+                      String serviceId,
+                      SaturationMonitorFactory config,
+                      ScheduledExecutorService scheduler,
+                      LongSupplier clock) {
+        this.consul = requireNonNull(consul, "consul must not be null");
+        this.checkId = checkId(requireNonNull(serviceId, "serviceId must not be null"));
+        this.config = requireNonNull(config, "config must not be null");
+        this.scheduler = requireNonNull(scheduler, "scheduler must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Return the ID of the TTL check used to report saturation for the given service.
+     *
+     * @param serviceId Consul service ID
+     * @return the check ID
+     */
+    public static String checkId(String serviceId) {
+        return "saturation:" + serviceId;
+    }
+
+    /**
+     * Return the ID of the TTL check this monitor updates.
+     *
+     * @return the check ID
+     */
+    public String getCheckId() {
+        return checkId;
+    }
+
+    /**
+     * Whether the monitor currently considers the server overloaded.
+     *
+     * @return true if overloaded
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    @Override
+    public void serverStarted(Server server) {
+        if (!(server.getThreadPool() instanceof QueuedThreadPool threadPool)) {
+            LOG.warn("Jetty thread pool is a {}, not a QueuedThreadPool; saturation monitoring is disabled",
+                server.getThreadPool().getClass().getName());
+            return;
+        }
+
+        var connectionStatistics = Arrays.stream(server.getConnectors())
+            .map(SaturationMonitor::connectionStatisticsOrNull)
+            .filter(Objects::nonNull)
+            .toList();
+
+        if (config.getConnectionsHighWatermark().isPresent() && connectionStatistics.isEmpty()) {
+            LOG.warn("Connection watermarks are configured but no connector has a ConnectionStatistics bean;" +
+                " only the thread pool will be considered");
+        }
+
+        var intervalMillis = config.getSampleInterval().toMilliseconds();
+        LOG.info("Monitoring Jetty saturation every {} ms using check {}", intervalMillis, checkId);
+
+        scheduler.scheduleWithFixedDelay(
+            () -> sampleSafely(threadPool, connectionStatistics),
+            intervalMillis,
+            intervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @Nullable
+    private static ConnectionStatistics connectionStatisticsOrNull(Connector connector) {
+        return connector.getBean(ConnectionStatistics.class);
+    }
+
+    private void sampleSafely(QueuedThreadPool threadPool, List<ConnectionStatistics> connectionStatistics) {
+        try {
+            var connections = connectionStatistics.stream().mapToLong(ConnectionStatistics::getConnections).sum();
+            sample(threadPool.getUtilizationRate(), threadPool.getQueueSize(), connections);
+        } catch (Exception e) {
+            // never let an exception cancel the scheduled task
+            LOG.warn("Unexpected error sampling Jetty saturation", e);
+        }
+    }
+
+    /**
+     * Evaluate a single sample, transition state if a threshold has been crossed enough times in a row,
+     * and report the state to Consul when it changed or the TTL heartbeat is due.
+     */
+    @VisibleForTesting
+    synchronized void sample(double utilization, int queueSize, long connections) {
+        if (overloaded) {
+            evaluateRecovery(utilization, queueSize, connections);
+        } else {
+            evaluateOverload(utilization, queueSize, connections);
+        }
+
+        var heartbeatDue = clock.getAsLong() - lastReportMillis >= heartbeatIntervalMillis();
+        if (reportPending || heartbeatDue) {
+            report();
+        }
+    }
+
+    private void evaluateOverload(double utilization, int queueSize, long connections) {
+        var aboveHigh = utilization >= config.getUtilizationHighWatermark()
+            || queueSize >= config.getQueueSizeHighWatermark()
+            || config.getConnectionsHighWatermark().map(high -> connections >= high).orElse(false);
+
+        consecutiveOverloadedSamples = aboveHigh ? consecutiveOverloadedSamples + 1 : 0;
+        if (consecutiveOverloadedSamples >= config.getOverloadSamples()) {
+            LOG.warn("Server is saturated (utilization: {}, queue size: {}, connections: {}); marking check {} as warning",
+                utilization, queueSize, connections, checkId);
+            transition(true);
+        }
+    }
+
+    private void evaluateRecovery(double utilization, int queueSize, long connections) {
+        var atOrBelowLow = utilization <= config.getUtilizationLowWatermark()
+            && queueSize <= config.getQueueSizeLowWatermark()
+            && config.getConnectionsLowWatermark().map(low -> connections <= low).orElse(true);
+
+        consecutiveRecoveredSamples = atOrBelowLow ? consecutiveRecoveredSamples + 1 : 0;
+        if (consecutiveRecoveredSamples >= config.getRecoverySamples()) {
+            LOG.info("Server is no longer saturated (utilization: {}, queue size: {}, connections: {}); marking check {} as passing",
+                utilization, queueSize, connections, checkId);
+            transition(false);
+        }
+    }
+
+    private void transition(boolean nowOverloaded) {
+        overloaded = nowOverloaded;
+        consecutiveOverloadedSamples = 0;
+        consecutiveRecoveredSamples = 0;
+        reportPending = true;
+    }
+
+    private long heartbeatIntervalMillis() {
+        return config.getCheckTtl().toMilliseconds() / 3;
+    }
+
+    private void report() {
+        var agentClient = consul.agentClient();
+        try {
+            if (overloaded) {
+                agentClient.warnCheck(checkId, OVERLOADED_NOTE);
+            } else {
+                agentClient.passCheck(checkId, OK_NOTE);
+            }
+            reportPending = false;
+            lastReportMillis = clock.getAsLong();
+        } catch (NotRegisteredException e) {
+            // expected until the advertiser has registered the service
+            LOG.debug("Check {} is not registered yet", checkId);
+        } catch (ConsulException e) {
+            LOG.warn("Unable to update saturation check {} (overloaded: {})", checkId, overloaded, e);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isReportPending() {
+        return reportPending;
+    }
+}
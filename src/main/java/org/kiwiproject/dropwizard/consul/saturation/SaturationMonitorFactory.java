@@ -0,0 +1,226 @@
+package org.kiwiproject.dropwizard.consul.saturation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link SaturationMonitor}.
+ * <p>
+ * The monitor moves the service's saturation check to {@code warning} once the Jetty thread pool (and optionally
+ * the connection count) has been above the high watermarks for {@code overloadSamples} consecutive samples, and
+ * moves it back to {@code passing} once everything has been at or below the low watermarks for
+ * {@code recoverySamples} consecutive samples. The gap between the watermarks provides the hysteresis.
+ */
+public class SaturationMonitorFactory {
+
+    @NotNull
+    @MinDuration(value = 100, unit = TimeUnit.MILLISECONDS)
+    private Duration sampleInterval = Duration.seconds(1);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration checkTtl = Duration.seconds(30);
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double utilizationHighWatermark = 0.9;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double utilizationLowWatermark = 0.7;
+
+    @Min(0)
+    private int queueSizeHighWatermark = 100;
+
+    @Min(0)
+    private int queueSizeLowWatermark = 10;
+
+    private Long connectionsHighWatermark;
+    private Long connectionsLowWatermark;
+
+    @Min(1)
+    private int overloadSamples = 2;
+
+    @Min(1)
+    private int recoverySamples = 5;
+
+    @JsonProperty
+    public Duration getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @JsonProperty
+    public void setSampleInterval(Duration sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    @JsonProperty
+    public Duration getCheckTtl() {
+        return checkTtl;
+    }
+
+    @JsonProperty
+    public void setCheckTtl(Duration checkTtl) {
+        this.checkTtl = checkTtl;
+    }
+
+    @JsonProperty
+    public double getUtilizationHighWatermark() {
+        return utilizationHighWatermark;
+    }
+
+    @JsonProperty
+    public void setUtilizationHighWatermark(double utilizationHighWatermark) {
+        this.utilizationHighWatermark = utilizationHighWatermark;
+    }
+
+    @JsonProperty
+    public double getUtilizationLowWatermark() {
+        return utilizationLowWatermark;
+    }
+
+    @JsonProperty
+    public void setUtilizationLowWatermark(double utilizationLowWatermark) {
+        this.utilizationLowWatermark = utilizationLowWatermark;
+    }
+
+    @JsonProperty
+    public int getQueueSizeHighWatermark() {
+        return queueSizeHighWatermark;
+    }
+
+    @JsonProperty
+    public void setQueueSizeHighWatermark(int queueSizeHighWatermark) {
+        this.queueSizeHighWatermark = queueSizeHighWatermark;
+    }
+
+    @JsonProperty
+    public int getQueueSizeLowWatermark() {
+        return queueSizeLowWatermark;
+    }
+
+    @JsonProperty
+    public void setQueueSizeLowWatermark(int queueSizeLowWatermark) {
+        this.queueSizeLowWatermark = queueSizeLowWatermark;
+    }
+
+    @JsonProperty
+    public Optional<Long> getConnectionsHighWatermark() {
+        return Optional.ofNullable(connectionsHighWatermark);
+    }
+
+    @JsonProperty
+    public void setConnectionsHighWatermark(@Nullable Long connectionsHighWatermark) {
+        this.connectionsHighWatermark = connectionsHighWatermark;
+    }
+
+    @JsonProperty
+    public Optional<Long> getConnectionsLowWatermark() {
+        return Optional.ofNullable(connectionsLowWatermark);
+    }
+
+    @JsonProperty
+    public void setConnectionsLowWatermark(@Nullable Long connectionsLowWatermark) {
+        this.connectionsLowWatermark = connectionsLowWatermark;
+    }
+
+    @JsonProperty
+    public int getOverloadSamples() {
+        return overloadSamples;
+    }
+
+    @JsonProperty
+    public void setOverloadSamples(int overloadSamples) {
+        this.overloadSamples = overloadSamples;
+    }
+
+    @JsonProperty
+    public int getRecoverySamples() {
+        return recoverySamples;
+    }
+
+    @JsonProperty
+    public void setRecoverySamples(int recoverySamples) {
+        this.recoverySamples = recoverySamples;
+    }
+
+    @AssertTrue(message = "utilizationLowWatermark must not be greater than utilizationHighWatermark")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isUtilizationWatermarksValid() {
+        return utilizationLowWatermark <= utilizationHighWatermark;
+    }
+
+    @AssertTrue(message = "queueSizeLowWatermark must not be greater than queueSizeHighWatermark")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isQueueSizeWatermarksValid() {
+        return queueSizeLowWatermark <= queueSizeHighWatermark;
+    }
+
+    @AssertTrue(message = "connectionsHighWatermark and connectionsLowWatermark must both be set (low <= high) or both be omitted")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isConnectionsWatermarksValid() {
+        if (connectionsHighWatermark == null || connectionsLowWatermark == null) {
+            return connectionsHighWatermark == null && connectionsLowWatermark == null;
+        }
+        return connectionsLowWatermark <= connectionsHighWatermark;
+    }
+
+    @AssertTrue(message = "checkTtl must be greater than sampleInterval")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isCheckTtlValid() {
+        return checkTtl == null || sampleInterval == null
+            || checkTtl.toMilliseconds() > sampleInterval.toMilliseconds();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            sampleInterval,
+            checkTtl,
+            utilizationHighWatermark,
+            utilizationLowWatermark,
+            queueSizeHighWatermark,
+            queueSizeLowWatermark,
+            connectionsHighWatermark,
+            connectionsLowWatermark,
+            overloadSamples,
+            recoverySamples);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (SaturationMonitorFactory) obj;
+        return Objects.equals(this.sampleInterval, other.sampleInterval)
+            && Objects.equals(this.checkTtl, other.checkTtl)
+            && this.utilizationHighWatermark == other.utilizationHighWatermark
+            && this.utilizationLowWatermark == other.utilizationLowWatermark
+            && this.queueSizeHighWatermark == other.queueSizeHighWatermark
+            && this.queueSizeLowWatermark == other.queueSizeLowWatermark
+            && Objects.equals(this.connectionsHighWatermark, other.connectionsHighWatermark)
+            && Objects.equals(this.connectionsLowWatermark, other.connectionsLowWatermark)
+            && this.overloadSamples == other.overloadSamples
+            && this.recoverySamples == other.recoverySamples;
+    }
+}
@@ -0,0 +1,68 @@
+package org.kiwiproject.dropwizard.consul.task;
+
+import static java.util.Objects.requireNonNull;
+
+import io.dropwizard.servlets.tasks.PostBodyTask;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueCompression;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Admin task that writes the request body to a KV key, gzip-compressed and marked with
+ * {@link KeyValueCompression#GZIP_FLAG}, e.g.:
+ * <pre>
+ * curl -X POST --data-binary @config.json 'http://localhost:8081/tasks/consul-kv-put-compressed?key=config/orders'
+ * </pre>
+ */
+public class CompressedKeyValueTask extends PostBodyTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressedKeyValueTask.class);
+
+    private final Consul consul;
+    private final ConsulMetrics metrics;
+
+    /**
+     * Constructor
+     *
+     * @param consul  Consul client
+     * @param metrics metrics to record KV writes in
+     */
+    public CompressedKeyValueTask(Consul consul, ConsulMetrics metrics) {
+        super("consul-kv-put-compressed");
+        this.consul = requireNonNull(consul);
+        this.metrics = requireNonNull(metrics);
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, String body, PrintWriter output) {
+        var key = parameters.getOrDefault("key", List.of()).stream()
+            .filter(Objects::nonNull)
+            .filter(value -> !value.isBlank())
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Parameter \"key\" not found"));
+
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        var event = ConsulOperationEvent.begin("kv.put", key);
+        int compressedSize;
+        try {
+            compressedSize = metrics.time("kv.put", () -> KeyValueCompression.putCompressed(consul, key, bytes));
+            event.end(true);
+        } catch (RuntimeException e) {
+            event.end(false);
+            throw e;
+        }
+
+        LOG.info("Wrote compressed value of {} ({} bytes, {} compressed)", key, bytes.length, compressedSize);
+        output.printf("OK: %d bytes compressed to %d%n", bytes.length, compressedSize);
+        output.flush();
+    }
+}
@@ -4,6 +4,8 @@ import static java.util.Objects.requireNonNull;
 
 import io.dropwizard.servlets.tasks.Task;
 import org.kiwiproject.consul.Consul;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +20,7 @@ public class MaintenanceTask extends Task {
 
     private final Consul consul;
     private final String serviceId;
+    private final ConsulMetrics metrics;
 
     /**
      * Constructor
@@ -26,9 +29,21 @@ public class MaintenanceTask extends Task {
      * @param serviceId Service ID to toggle maintenance mode
      */
     public MaintenanceTask(Consul consul, String serviceId) {
+        this(consul, serviceId, ConsulMetrics.noop());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param consul    Consul client
+     * @param serviceId Service ID to toggle maintenance mode
+     * @param metrics   metrics to record maintenance mode changes in
+     */
+    public MaintenanceTask(Consul consul, String serviceId, ConsulMetrics metrics) {
         super("maintenance");
         this.consul = requireNonNull(consul);
         this.serviceId = requireNonNull(serviceId);
+        this.metrics = requireNonNull(metrics);
     }
 
     @Override
@@ -47,7 +62,15 @@ public class MaintenanceTask extends Task {
         var reasonForLogs = reason.isEmpty() ? "none given" : reason;
         LOG.warn("{} maintenance mode for service {} (reason: {})", action, serviceId, reasonForLogs);
 
-        consul.agentClient().toggleMaintenanceMode(serviceId, enable, reason);
+        var event = ConsulOperationEvent.begin("agent.maintenance", serviceId);
+        try {
+            metrics.time("agent.maintenance",
+                () -> consul.agentClient().toggleMaintenanceMode(serviceId, enable, reason));
+            event.end(true);
+        } catch (RuntimeException e) {
+            event.end(false);
+            throw e;
+        }
 
         output.println("OK");
         output.flush();
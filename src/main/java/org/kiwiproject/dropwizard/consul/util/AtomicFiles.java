@@ -0,0 +1,72 @@
+package org.kiwiproject.dropwizard.consul.util;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files atomically, for the files the bundle writes locally (service discovery snapshots and KV values
+ * copied to disk). Internal to the bundle; not part of its API.
+ */
+public final class AtomicFiles {
+
+    /**
+     * Writes the content of a file.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Write the content to the channel.
+         *
+         * @param channel the channel of the temporary file
+         * @throws IOException if the content cannot be written
+         */
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private AtomicFiles() {
+        // utility class
+    }
+
+    /**
+     * Replace a file with the content written by the given writer. The content is written to a temporary file in
+     * the same directory, forced to disk, and then moved over the file, atomically if the file system supports it,
+     * so a crash while writing never leaves a partially written file behind. The temporary file is deleted if
+     * writing fails.
+     *
+     * @param file   the file to replace; its directory is created if it does not exist
+     * @param writer writes the content
+     * @throws IOException if the file cannot be written, or the writer fails
+     */
+    public static void write(Path file, ContentWriter writer) throws IOException {
+        requireNonNull(writer, "writer must not be null");
+        var target = requireNonNull(file, "file must not be null").toAbsolutePath();
+        var directory = target.getParent();
+        Files.createDirectories(directory);
+        var tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(channel);
+                channel.force(true);
+            }
+            move(tempFile, target);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void move(Path tempFile, Path file) throws IOException {
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
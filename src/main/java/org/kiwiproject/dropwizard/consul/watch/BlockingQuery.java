@@ -0,0 +1,24 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+import org.jspecify.annotations.Nullable;
+
+import java.math.BigInteger;
+
+/**
+ * A Consul blocking query, executed repeatedly by a {@link WatchEngine}.
+ */
+@FunctionalInterface
+public interface BlockingQuery<T> {
+
+    /**
+     * Execute the query. If an index is given, the query should block until the data changes past that index or
+     * the given wait elapses, e.g., using {@code QueryOptions.blockSeconds(waitSeconds, index)}.
+     *
+     * @param index       the index of the previous result, or null for the first query (or after an index reset)
+     * @param waitSeconds the maximum time to block for; the engine shortens the wait of its watches while there are
+     *                    more of them than it queries at once
+     * @return the result
+     * @throws RuntimeException if the query fails; the engine retries it with backoff
+     */
+    QueryResult<T> execute(@Nullable BigInteger index, int waitSeconds);
+}
@@ -0,0 +1,15 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+import org.jspecify.annotations.Nullable;
+
+import java.math.BigInteger;
+
+/**
+ * The result of one execution of a {@link BlockingQuery}.
+ *
+ * @param value the value read from Consul
+ * @param index the {@code X-Consul-Index} of the response, or null if the response had none
+ * @param <T>   the type of the value
+ */
+public record QueryResult<T>(T value, @Nullable BigInteger index) {
+}
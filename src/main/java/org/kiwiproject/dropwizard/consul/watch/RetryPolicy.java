@@ -0,0 +1,30 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Exponential backoff for failed watch queries.
+ *
+ * @param retryIntervalMillis    the delay after the first failure
+ * @param maxRetryIntervalMillis the maximum delay
+ */
+public record RetryPolicy(long retryIntervalMillis, long maxRetryIntervalMillis) {
+
+    public RetryPolicy {
+        checkArgument(retryIntervalMillis > 0, "retryIntervalMillis must be positive");
+        checkArgument(maxRetryIntervalMillis >= retryIntervalMillis,
+            "maxRetryIntervalMillis must not be less than retryIntervalMillis");
+    }
+
+    /**
+     * Return the delay before retrying after the given number of consecutive failures, which doubles with each
+     * failure up to the maximum.
+     *
+     * @param consecutiveFailures the number of consecutive failures, at least 1
+     * @return the delay in milliseconds
+     */
+    public long delayMillis(int consecutiveFailures) {
+        var shift = Math.min(Math.max(consecutiveFailures, 1) - 1, 20);
+        return Math.min(maxRetryIntervalMillis, retryIntervalMillis << shift);
+    }
+}
@@ -0,0 +1,349 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs Consul blocking queries ("watches") on a bounded, shared set of threads.
+ * <p>
+ * A watch does not own a thread. Each query of a watch runs as a task on a fixed pool of
+ * {@link WatchEngineFactory#getMaxConcurrentQueries() maxConcurrentQueries} threads, which is the limit on the
+ * number of blocking queries in flight at once (and so on the connections they hold). Between queries, a watch only
+ * occupies a slot in a scheduler. Since the Consul client's calls are synchronous, a blocking query holds its thread
+ * for up to its wait. When more queries are due than there are threads, they wait in line in the order they became
+ * due, and while there are more watches than threads, the wait of each query is shortened in proportion (to no less
+ * than one second), so the watches take turns and each is still queried about once per wait. A change is never
+ * missed while a watch waits for its turn, since its next query returns at once if the index has moved on.
+ * <p>
+ * Watches are identified by key, and watching a key that is already watched adds a listener to the existing watch
+ * instead of issuing a second, identical query. The watch is cancelled when the last of its subscriptions is closed.
+ * <p>
+ * Per the Consul blocking query documentation, the index is reset if it goes backwards or is not positive, and the
+ * queries of a watch are rate limited: a query that returns sooner than
+ * {@link WatchEngineFactory#getMinQueryInterval() minQueryInterval} after it started is followed by a delay for the
+ * remainder plus random jitter, so that frequent changes or repeated index resets cannot turn a watch into a tight
+ * loop, and so that many watches woken by the same change do not all query again at once. Failed queries are retried
+ * with exponential backoff and jitter.
+ *
+ * @see WatchEngineFactory
+ */
+public class WatchEngine implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WatchEngine.class);
+
+    private final WatchEngineFactory config;
+    private final DoubleSupplier random;
+    private final ConcurrentMap<String, Watch<?>> watches = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService queryExecutor;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    /**
+     * Constructor
+     *
+     * @param config the concurrency limit, wait, rate limit, and retry settings
+     */
+    public WatchEngine(WatchEngineFactory config) {
+        this(config, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    @VisibleForTesting
+    WatchEngine(WatchEngineFactory config, DoubleSupplier random) {
+        this.config = requireNonNull(config, "config must not be null");
+        this.random = requireNonNull(random, "random must not be null");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        queryExecutor = Executors.newFixedThreadPool(config.getMaxConcurrentQueries(), new ThreadFactoryBuilder()
+            .setNameFormat("consul-watch-%d")
+            .setDaemon(true)
+            .build());
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("consul-watch-scheduler-%d")
+            .setDaemon(true)
+            .build());
+        running = true;
+
+        // watches added before starting
+        watches.values().forEach(watch -> schedule(watch, 0));
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+            queryExecutor = null;
+        }
+    }
+
+    /**
+     * Watch a key using the default wait and retry policy. See
+     * {@link #watch(String, BlockingQuery, Duration, RetryPolicy, WatchListener)}.
+     *
+     * @param key      identifies the watch; identical queries must have the same key
+     * @param query    the blocking query
+     * @param listener the listener for the values of the query
+     * @param <T>      the type of the values
+     * @return the subscription of the listener
+     */
+    public <T> WatchSubscription watch(String key, BlockingQuery<T> query, WatchListener<T> listener) {
+        return watch(key, query, config.getWait(), config.getRetryPolicy(), listener);
+    }
+
+    /**
+     * Watch a key. If the key is not watched yet, the query is run repeatedly (once this engine has started) until
+     * the returned subscription is closed. If it is already watched, the given query, wait, and retry policy are
+     * ignored, and the listener is added to the existing watch and called with its current value, if it has one.
+     *
+     * @param key         identifies the watch; identical queries must have the same key
+     * @param query       the blocking query
+     * @param wait        the longest time a query blocks for, in whole seconds
+     * @param retryPolicy the backoff after failed queries
+     * @param listener    the listener for the values of the query
+     * @param <T>         the type of the values
+     * @return the subscription of the listener
+     */
+    @SuppressWarnings("unchecked")
+    public <T> WatchSubscription watch(String key,
+                                       BlockingQuery<T> query,
+                                       Duration wait,
+                                       RetryPolicy retryPolicy,
+                                       WatchListener<T> listener) {
+        requireNonNull(key, "key must not be null");
+        requireNonNull(query, "query must not be null");
+        requireNonNull(wait, "wait must not be null");
+        requireNonNull(retryPolicy, "retryPolicy must not be null");
+        requireNonNull(listener, "listener must not be null");
+        checkArgument(wait.toSeconds() >= 1, "wait must be at least one second");
+
+        Watch<T> watch;
+        boolean created;
+        synchronized (this) {
+            var existing = (Watch<T>) watches.get(key);
+            created = existing == null;
+            watch = created ? new Watch<>(key, query, (int) wait.toSeconds(), retryPolicy) : existing;
+            watch.listeners.add(listener);
+            if (created) {
+                watches.put(key, watch);
+                LOG.debug("Watching {}", key);
+                if (running) {
+                    schedule(watch, 0);
+                }
+            }
+        }
+
+        if (!created && watch.hasValue) {
+            watch.notify(listener, watch.value);
+        }
+        return () -> unsubscribe(watch, listener);
+    }
+
+    private synchronized void unsubscribe(Watch<?> watch, WatchListener<?> listener) {
+        watch.listeners.remove(listener);
+        if (watch.listeners.isEmpty() && watches.remove(watch.key, watch)) {
+            watch.cancelled = true;
+            LOG.debug("Stopped watching {}", watch.key);
+        }
+    }
+
+    /**
+     * Whether a key is watched.
+     *
+     * @param key the key of the watch
+     * @return true if the key is watched
+     */
+    public boolean isWatched(String key) {
+        return watches.containsKey(key);
+    }
+
+    /**
+     * Return the number of watches, which is the number of distinct keys watched.
+     *
+     * @return the number of watches
+     */
+    public int watchCount() {
+        return watches.size();
+    }
+
+    private void schedule(Watch<?> watch, long delayMillis) {
+        var currentQueryExecutor = queryExecutor;
+        var currentScheduler = scheduler;
+        if (!running || watch.cancelled || currentQueryExecutor == null || currentScheduler == null) {
+            return;
+        }
+        try {
+            if (delayMillis <= 0) {
+                currentQueryExecutor.execute(() -> run(watch));
+            } else {
+                currentScheduler.schedule(() -> schedule(watch, 0), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            LOG.trace("Not scheduling {}; the engine is stopping", watch.key);
+        }
+    }
+
+    private void run(Watch<?> watch) {
+        if (!running || watch.cancelled) {
+            return;
+        }
+        schedule(watch, poll(watch));
+    }
+
+    /**
+     * Perform a single query of a watch, notify its listeners if the index changed, and return the delay before the
+     * next query.
+     */
+    @VisibleForTesting
+    <T> long poll(Watch<T> watch) {
+        var startNanos = System.nanoTime();
+        try {
+            var result = watch.query.execute(watch.index, waitSeconds(watch.waitSeconds, watches.size()));
+            watch.consecutiveFailures = 0;
+
+            var newIndex = result.index();
+            if (!watch.hasValue || watch.index == null || !watch.index.equals(newIndex)) {
+                watch.value = result.value();
+                watch.hasValue = true;
+                watch.listeners.forEach(listener -> watch.notify(listener, result.value()));
+            }
+            watch.index = nextIndex(watch.index, newIndex);
+
+            var elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            return delayAfterSuccessMillis(elapsedMillis);
+        } catch (Exception e) {
+            watch.consecutiveFailures++;
+            var delayMillis = delayAfterFailureMillis(watch.retryPolicy, watch.consecutiveFailures);
+            if (running) {
+                LOG.warn("Unable to query {} ({} consecutive failures); retrying in {} ms",
+                    watch.key, watch.consecutiveFailures, delayMillis, e);
+            }
+            return delayMillis;
+        }
+    }
+
+    /**
+     * Return the wait of a query while there are the given number of watches: the wait of its watch, shortened in
+     * proportion when there are more watches than concurrent queries, so that the watches take turns.
+     */
+    @VisibleForTesting
+    int waitSeconds(int watchWaitSeconds, int watchCount) {
+        var maxConcurrentQueries = config.getMaxConcurrentQueries();
+        if (watchCount <= maxConcurrentQueries) {
+            return watchWaitSeconds;
+        }
+        return (int) Math.max(1, (long) watchWaitSeconds * maxConcurrentQueries / watchCount);
+    }
+
+    /**
+     * Return the delay before the next query after a query that took the given time: zero if it took at least the
+     * minimum query interval, otherwise the remainder plus up to half of the interval as jitter.
+     */
+    @VisibleForTesting
+    long delayAfterSuccessMillis(long elapsedMillis) {
+        var minIntervalMillis = config.getMinQueryInterval().toMilliseconds();
+        if (elapsedMillis >= minIntervalMillis) {
+            return 0;
+        }
+        return minIntervalMillis - elapsedMillis + (long) (random.getAsDouble() * minIntervalMillis / 2);
+    }
+
+    /**
+     * Return the delay before retrying after the given number of consecutive failures: the backoff of the retry
+     * policy, reduced by up to a quarter as jitter.
+     */
+    @VisibleForTesting
+    long delayAfterFailureMillis(RetryPolicy retryPolicy, int consecutiveFailures) {
+        var delayMillis = retryPolicy.delayMillis(consecutiveFailures);
+        return delayMillis - (long) (random.getAsDouble() * delayMillis / 4);
+    }
+
+    /**
+     * Per the Consul blocking query documentation, the index must be reset if it goes backwards (e.g., after a
+     * snapshot restore) and must never be less than one.
+     *
+     * @param previousIndex the index of the previous query, or null if there was none
+     * @param newIndex      the index returned by the query
+     * @return the index to use for the next query, or null to start over with a non-blocking query
+     */
+    @Nullable
+    public static BigInteger nextIndex(@Nullable BigInteger previousIndex, @Nullable BigInteger newIndex) {
+        if (newIndex == null || newIndex.signum() <= 0) {
+            return null;
+        }
+        if (previousIndex != null && newIndex.compareTo(previousIndex) < 0) {
+            return null;
+        }
+        return newIndex;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    Watch<?> getWatch(String key) {
+        return watches.get(key);
+    }
+
+    @VisibleForTesting
+    static final class Watch<T> {
+
+        final String key;
+        final BlockingQuery<T> query;
+        final int waitSeconds;
+        final RetryPolicy retryPolicy;
+        final List<WatchListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+        // only accessed by the query in progress; queries of a watch never overlap
+        @Nullable
+        BigInteger index;
+        int consecutiveFailures;
+
+        volatile T value;
+        volatile boolean hasValue;
+        volatile boolean cancelled;
+
+        Watch(String key, BlockingQuery<T> query, int waitSeconds, RetryPolicy retryPolicy) {
+            this.key = key;
+            this.query = query;
+            this.waitSeconds = waitSeconds;
+            this.retryPolicy = retryPolicy;
+        }
+
+        void notify(WatchListener<T> listener, T value) {
+            try {
+                listener.onChange(value);
+            } catch (Exception e) {
+                LOG.error("Watch listener {} failed for {}", listener, key, e);
+            }
+        }
+    }
+}
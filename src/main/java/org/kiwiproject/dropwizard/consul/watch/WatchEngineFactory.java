@@ -0,0 +1,135 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MaxDuration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link WatchEngine}.
+ * <p>
+ * Each blocking query waits up to {@code wait} for a change, which must be shorter than the Consul client's read
+ * timeout. At most {@code maxConcurrentQueries} queries are in flight at a time, each holding a thread and a
+ * connection. There may be more watches than that: due queries then take turns in the order they became due, and
+ * their wait is shortened in proportion (to no less than one second), so every watch is still queried about once
+ * per {@code wait}. Successive queries of the same watch start at least {@code minQueryInterval} (plus up to half of
+ * that as random jitter) apart, which batches rapid changes and prevents tight loops when Consul resets an index.
+ * Failed queries are retried after {@code retryInterval}, doubling up to {@code maxRetryInterval}.
+ */
+public class WatchEngineFactory {
+
+    @Min(1)
+    private int maxConcurrentQueries = 64;
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    @MaxDuration(value = 10, unit = TimeUnit.MINUTES)
+    private Duration wait = Duration.seconds(5);
+
+    @NotNull
+    private Duration minQueryInterval = Duration.milliseconds(100);
+
+    @NotNull
+    @MinDuration(value = 10, unit = TimeUnit.MILLISECONDS)
+    private Duration retryInterval = Duration.seconds(1);
+
+    @NotNull
+    @MinDuration(value = 10, unit = TimeUnit.MILLISECONDS)
+    private Duration maxRetryInterval = Duration.seconds(30);
+
+    @JsonProperty
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    @JsonProperty
+    public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+        this.maxConcurrentQueries = maxConcurrentQueries;
+    }
+
+    @JsonProperty
+    public Duration getWait() {
+        return wait;
+    }
+
+    @JsonProperty
+    public void setWait(Duration wait) {
+        this.wait = wait;
+    }
+
+    @JsonProperty
+    public Duration getMinQueryInterval() {
+        return minQueryInterval;
+    }
+
+    @JsonProperty
+    public void setMinQueryInterval(Duration minQueryInterval) {
+        this.minQueryInterval = minQueryInterval;
+    }
+
+    @JsonProperty
+    public Duration getRetryInterval() {
+        return retryInterval;
+    }
+
+    @JsonProperty
+    public void setRetryInterval(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @JsonProperty
+    public Duration getMaxRetryInterval() {
+        return maxRetryInterval;
+    }
+
+    @JsonProperty
+    public void setMaxRetryInterval(Duration maxRetryInterval) {
+        this.maxRetryInterval = maxRetryInterval;
+    }
+
+    @AssertTrue(message = "retryInterval must not be greater than maxRetryInterval")
+    @JsonIgnore
+    @SuppressWarnings("unused")
+    public boolean isRetryIntervalValid() {
+        return retryInterval == null || maxRetryInterval == null
+            || retryInterval.toMilliseconds() <= maxRetryInterval.toMilliseconds();
+    }
+
+    /**
+     * Return the default retry policy of the watches.
+     *
+     * @return the retry policy
+     */
+    @JsonIgnore
+    public RetryPolicy getRetryPolicy() {
+        return new RetryPolicy(retryInterval.toMilliseconds(), maxRetryInterval.toMilliseconds());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxConcurrentQueries, wait, minQueryInterval, retryInterval, maxRetryInterval);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        var other = (WatchEngineFactory) obj;
+        return this.maxConcurrentQueries == other.maxConcurrentQueries
+            && Objects.equals(this.wait, other.wait)
+            && Objects.equals(this.minQueryInterval, other.minQueryInterval)
+            && Objects.equals(this.retryInterval, other.retryInterval)
+            && Objects.equals(this.maxRetryInterval, other.maxRetryInterval);
+    }
+}
@@ -0,0 +1,21 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+/**
+ * Receives the values of a watch.
+ * <p>
+ * Listeners are called on a watch engine thread, so they should return quickly; the next query of the watch is not
+ * issued until they do. An exception thrown by a listener is logged and does not affect other listeners.
+ *
+ * @param <T> the type of the value
+ */
+@FunctionalInterface
+public interface WatchListener<T> {
+
+    /**
+     * Called with the first value of the watch, and then whenever the value changes. A listener added to a watch
+     * that already has a value is called with it right away, on the calling thread.
+     *
+     * @param value the current value
+     */
+    void onChange(T value);
+}
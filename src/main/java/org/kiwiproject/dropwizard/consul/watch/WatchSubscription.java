@@ -0,0 +1,15 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+/**
+ * The subscription of a listener to a watch. Closing it removes the listener, and cancels the watch if it was the
+ * last listener.
+ */
+@FunctionalInterface
+public interface WatchSubscription extends AutoCloseable {
+
+    /**
+     * Remove the listener. Closing a subscription more than once has no further effect.
+     */
+    @Override
+    void close();
+}
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import io.dropwizard.configuration.ConfigurationSourceProvider;
 import io.dropwizard.configuration.FileConfigurationSourceProvider;
 import io.dropwizard.configuration.SubstitutingSourceProvider;
@@ -74,6 +75,7 @@ public class ConsulBundleIntegrationTest {
 
         var bootstrap = mock(Bootstrap.class);
         when(bootstrap.getConfigurationSourceProvider()).thenReturn(new FileConfigurationSourceProvider());
+        when(bootstrap.getMetricRegistry()).thenReturn(new MetricRegistry());
 
         consulBundle.initialize(bootstrap);
 
@@ -87,6 +89,7 @@ public class ConsulBundleIntegrationTest {
 
         var bootstrap = mock(Bootstrap.class);
         when(bootstrap.getConfigurationSourceProvider()).thenReturn(new FileConfigurationSourceProvider());
+        when(bootstrap.getMetricRegistry()).thenReturn(new MetricRegistry());
 
         consulBundle.initialize(bootstrap);
 
@@ -3,28 +3,37 @@ package org.kiwiproject.dropwizard.consul;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import io.dropwizard.configuration.ConfigurationSourceProvider;
 import io.dropwizard.core.Configuration;
 import io.dropwizard.core.setup.Bootstrap;
 import io.dropwizard.core.setup.Environment;
+import io.dropwizard.lifecycle.Managed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.ConsulException;
 import org.kiwiproject.consul.config.CacheConfig;
 import org.kiwiproject.consul.config.ClientConfig;
+import org.kiwiproject.dropwizard.consul.health.ClusterHealthCheckFactory;
+import org.kiwiproject.dropwizard.consul.health.ConsulClusterHealthCheck;
 import org.kiwiproject.net.LocalPortChecker;
+import org.mockito.ArgumentCaptor;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
@@ -79,6 +88,7 @@ class ConsulBundleTest {
         void shouldNotFail_WhenUnableToConnectToConsul() {
             var bootstrap = mock(Bootstrap.class);
             when(bootstrap.getConfigurationSourceProvider()).thenReturn(mock(ConfigurationSourceProvider.class));
+            when(bootstrap.getMetricRegistry()).thenReturn(new MetricRegistry());
 
             var openPort = new LocalPortChecker().findRandomOpenPort().orElseThrow();
             doReturn(openPort).when(bundle).getConsulAgentPort();
@@ -87,6 +97,7 @@ class ConsulBundleTest {
             assertThat(bundle.didAttemptInitialize()).isTrue();
             assertThat(bundle.didInitializeSucceed()).isTrue();
 
+            verify(bootstrap).getMetricRegistry();
             verify(bootstrap).getConfigurationSourceProvider();
             verify(bootstrap).setConfigurationSourceProvider(any());
             verifyNoMoreInteractions(bootstrap);
@@ -102,6 +113,7 @@ class ConsulBundleTest {
         @Test
         void shouldNotAllowConsulExceptionToEscape_IfConsulExceptionThrown() {
             var bootstrap = mock(Bootstrap.class);
+            when(bootstrap.getMetricRegistry()).thenReturn(new MetricRegistry());
 
             doThrow(new ConsulException("unexpected error")).when(bundle).buildConsulClient(any());
 
@@ -111,12 +123,14 @@ class ConsulBundleTest {
             assertThat(bundle.didInitializeSucceed()).isFalse();
 
             verify(bundle).buildConsulClient(any());
-            verifyNoInteractions(bootstrap);
+            verify(bootstrap).getMetricRegistry();
+            verifyNoMoreInteractions(bootstrap);
         }
 
         @Test
         void shouldNotAllowConsulExceptionToEscape_IfConsulExceptionThrown_ViaSocketPath() {
             var bootstrap = mock(Bootstrap.class);
+            when(bootstrap.getMetricRegistry()).thenReturn(new MetricRegistry());
 
             doReturn(Optional.of("/tmp/consul.sock")).when(bundle).getConsulAgentUnixDomainSocketPath();
             doThrow(new ConsulException("unexpected error")).when(bundle).buildConsulClient(any());
@@ -127,13 +141,15 @@ class ConsulBundleTest {
             assertThat(bundle.didInitializeSucceed()).isFalse();
 
             verify(bundle).buildConsulClient(any());
-            verifyNoInteractions(bootstrap);
+            verify(bootstrap).getMetricRegistry();
+            verifyNoMoreInteractions(bootstrap);
         }
 
         @Test
         void shouldInitializeViaSocketPath_WhenSocketPathIsPresent() {
             var bootstrap = mock(Bootstrap.class);
             when(bootstrap.getConfigurationSourceProvider()).thenReturn(mock(ConfigurationSourceProvider.class));
+            when(bootstrap.getMetricRegistry()).thenReturn(new MetricRegistry());
 
             doReturn(Optional.of("/tmp/consul.sock")).when(bundle).getConsulAgentUnixDomainSocketPath();
             assertThatCode(() -> bundle.initialize(bootstrap)).doesNotThrowAnyException();
@@ -141,12 +157,49 @@ class ConsulBundleTest {
             assertThat(bundle.didAttemptInitialize()).isTrue();
             assertThat(bundle.didInitializeSucceed()).isTrue();
 
+            verify(bootstrap).getMetricRegistry();
             verify(bootstrap).getConfigurationSourceProvider();
             verify(bootstrap).setConfigurationSourceProvider(any());
             verifyNoMoreInteractions(bootstrap);
         }
     }
 
+    @Nested
+    class SetupEnvironment {
+
+        private Environment environmentToSetUp;
+
+        @BeforeEach
+        void setUp() {
+            environmentToSetUp = mock(Environment.class, RETURNS_DEEP_STUBS);
+            factory.setServiceName("test");
+            doReturn(mock(Consul.class, RETURNS_DEEP_STUBS)).when(factory).build(any());
+        }
+
+        @Test
+        void shouldManageAndRegisterClusterHealthCheck_WhenConfigured() {
+            factory.setClusterHealthCheck(new ClusterHealthCheckFactory());
+
+            bundle.setupEnvironment(factory, environmentToSetUp);
+
+            var managed = ArgumentCaptor.forClass(Managed.class);
+            verify(environmentToSetUp.lifecycle(), atLeastOnce()).manage(managed.capture());
+            var clusterHealthCheck = managed.getAllValues().stream()
+                .filter(ConsulClusterHealthCheck.class::isInstance)
+                .map(ConsulClusterHealthCheck.class::cast)
+                .findFirst()
+                .orElseThrow();
+            verify(environmentToSetUp.healthChecks()).register("consul-cluster", clusterHealthCheck);
+        }
+
+        @Test
+        void shouldNotRegisterClusterHealthCheck_ByDefault() {
+            bundle.setupEnvironment(factory, environmentToSetUp);
+
+            verify(environmentToSetUp.healthChecks(), never()).register(eq("consul-cluster"), any());
+        }
+    }
+
     @Test
     void shouldReturnEmptyUnixDomainSocketPath_ByDefault() {
         assertThat(bundle.getConsulAgentUnixDomainSocketPath()).isEmpty();
@@ -202,6 +255,48 @@ class ConsulBundleTest {
             assertThat(theClientConfig.getCacheConfig().getWatchDuration().toSeconds()).isEqualTo(20L));
     }
 
+    @Nested
+    class ResolveServiceId {
+
+        @Test
+        void shouldNotGenerateServiceId_WithRandomStrategy() {
+            bundle.run(config, environment);
+            assertThat(factory.getServiceId()).isEmpty();
+        }
+
+        @Test
+        void shouldNotReplaceConfiguredServiceId() {
+            factory.setServiceIdStrategy(ServiceIdStrategy.HOST_AND_PORT);
+            factory.setServiceId("my-service-id");
+            bundle.run(config, environment);
+            assertThat(factory.getServiceId()).contains("my-service-id");
+        }
+
+        @Test
+        void shouldGenerateHostAndPortServiceId_FromConfiguredAddressAndPort() {
+            factory.setServiceIdStrategy(ServiceIdStrategy.HOST_AND_PORT);
+            factory.setServiceAddress("10.0.0.42");
+            factory.setServicePort(9090);
+            bundle.run(config, environment);
+            assertThat(factory.getServiceId()).contains("test-10.0.0.42-9090");
+        }
+
+        @Test
+        void shouldGenerateHostAndPortServiceId_UsingApplicationConnectorPort() {
+            factory.setServiceIdStrategy(ServiceIdStrategy.HOST_AND_PORT);
+            factory.setServiceName("orders");
+            factory.setServiceAddress("host1.acme.com");
+            bundle.run(config, environment);
+            assertThat(factory.getServiceId()).contains("orders-host1.acme.com-8080");
+        }
+
+        @Test
+        void shouldSanitizeGeneratedServiceId() {
+            assertThat(ServiceIdStrategy.hostAndPortServiceId("my service", "fe80::1", 8080))
+                .isEqualTo("my-service-fe80--1-8080");
+        }
+    }
+
     @Test
     void testAclToken() {
         var token = "acl-token";
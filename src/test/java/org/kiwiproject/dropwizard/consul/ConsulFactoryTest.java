@@ -14,8 +14,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.kiwiproject.consul.Consul;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryFactory;
 
 import java.util.List;
+import java.util.Map;
 
 class ConsulFactoryTest {
 
@@ -77,6 +79,16 @@ class ConsulFactoryTest {
         assertThat(consulFactory.getServiceName()).isEqualTo(serviceName);
     }
 
+    @Test
+    void shouldUseRandomServiceIds_AndNotDeregisterStaleInstances_ByDefault() {
+        var consulFactory = new ConsulFactory();
+
+        assertAll(
+                () -> assertThat(consulFactory.getServiceIdStrategy()).isEqualTo(ServiceIdStrategy.RANDOM),
+                () -> assertThat(consulFactory.isDeregisterStaleInstances()).isFalse()
+        );
+    }
+
     @Test
     void shouldBeEnabledByDefault() {
         var consulFactory = new ConsulFactory();
@@ -312,6 +324,107 @@ class ConsulFactoryTest {
                 .contains("unixDomainSocketPath")
                 .contains("endpoint");
         }
+
+        @Test
+        void shouldUseAsyncAgentHealthCheck_ByDefault() {
+            assertThat(factory.getAgentHealthCheck().isAsync()).isTrue();
+
+            var violations = VALIDATOR.validate(factory);
+            assertThat(violations).isEmpty();
+        }
+
+        @Test
+        void shouldRejectAgentHealthCheckStaleThreshold_NotGreaterThanInterval() {
+            factory.getAgentHealthCheck().setInterval(Duration.seconds(30));
+            factory.getAgentHealthCheck().setStaleThreshold(Duration.seconds(30));
+
+            var violations = VALIDATOR.validate(factory);
+            assertThat(violations).hasSize(1);
+            assertThat(violations.iterator().next().getMessage())
+                .isEqualTo("staleThreshold must be greater than interval");
+        }
+
+        @Test
+        void shouldRejectServiceMeta_ThatConflictsWithLocality() {
+            var locality = new LocalityFactory();
+            locality.setZone("us-east-1a");
+            factory.setLocality(locality);
+            factory.setServiceMeta(Map.of("zone", "us-east-1b"));
+
+            var violations = VALIDATOR.validate(factory);
+            assertThat(violations).hasSize(1);
+            assertThat(violations.iterator().next().getMessage())
+                .isEqualTo("serviceMeta must not contain the zone, rack, or datacenter keys configured in locality");
+        }
+
+        @Test
+        void shouldAllowServiceMeta_ThatDoesNotConflictWithLocality() {
+            var locality = new LocalityFactory();
+            locality.setZone("us-east-1a");
+            factory.setLocality(locality);
+            factory.setServiceMeta(Map.of("rack", "r42"));
+
+            assertThat(VALIDATOR.validate(factory)).isEmpty();
+        }
+
+        @Test
+        void shouldAllowDiscoveryWait_ShorterThanDefaultReadTimeout() {
+            var discovery = new ServiceDiscoveryFactory();
+            discovery.setWait(Duration.seconds(9));
+            factory.setDiscovery(discovery);
+
+            assertThat(VALIDATOR.validate(factory)).isEmpty();
+        }
+
+        @ParameterizedTest
+        @ValueSource(longs = {10, 30, 600})
+        void shouldRejectDiscoveryWait_NotShorterThanDefaultReadTimeout(long seconds) {
+            var discovery = new ServiceDiscoveryFactory();
+            discovery.setWait(Duration.seconds(seconds));
+            factory.setDiscovery(discovery);
+
+            var violations = VALIDATOR.validate(factory);
+            assertThat(violations).hasSize(1);
+            assertThat(violations.iterator().next().getMessage()).startsWith("discovery.wait");
+        }
+
+        @Test
+        void shouldAllowDiscoveryWait_ShorterThanConfiguredReadTimeout() {
+            var discovery = new ServiceDiscoveryFactory();
+            discovery.setWait(Duration.minutes(5));
+            factory.setDiscovery(discovery);
+            factory.setNetworkReadTimeoutMillis(Duration.minutes(6).toMilliseconds());
+
+            assertThat(VALIDATOR.validate(factory)).isEmpty();
+        }
+
+        @ParameterizedTest
+        @ValueSource(longs = {10, 30, 600})
+        void shouldRejectWatchWait_NotShorterThanDefaultReadTimeout(long seconds) {
+            factory.getWatch().setWait(Duration.seconds(seconds));
+
+            var violations = VALIDATOR.validate(factory);
+            assertThat(violations).hasSize(1);
+            assertThat(violations.iterator().next().getMessage()).startsWith("watch.wait");
+        }
+
+        @Test
+        void shouldAllowWatchWait_ShorterThanConfiguredReadTimeout() {
+            factory.getWatch().setWait(Duration.minutes(5));
+            factory.setNetworkReadTimeoutMillis(Duration.minutes(6).toMilliseconds());
+
+            assertThat(VALIDATOR.validate(factory)).isEmpty();
+        }
+
+        @Test
+        void shouldValidateReadConsistency() {
+            factory.getReadConsistency().setMaxStale(Duration.minutes(1));
+
+            var violations = VALIDATOR.validate(factory);
+            assertThat(violations).hasSize(1);
+            assertThat(violations.iterator().next().getMessage())
+                .isEqualTo("maxAge and maxStale may only be set when mode is CACHED");
+        }
     }
 
     private ConsulFactory createFullyPopulatedConsulFactory() {
@@ -0,0 +1,54 @@
+package org.kiwiproject.dropwizard.consul;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.consul.model.kv.ImmutableValue;
+import org.kiwiproject.consul.model.kv.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Test helpers for creating Consul KV {@link Value} entries, whose values are base64 encoded as in Consul responses.
+ */
+public final class KeyValues {
+
+    private KeyValues() {
+        // utility class
+    }
+
+    public static Value value(String key, @Nullable String text) {
+        return value(key, text, 1);
+    }
+
+    public static Value value(String key, @Nullable String text, long modifyIndex) {
+        return lockedValue(key, null, text, modifyIndex);
+    }
+
+    public static Value lockedValue(String key, @Nullable String session, @Nullable String text, long modifyIndex) {
+        return ImmutableValue.builder()
+            .key(key)
+            .value(Optional.ofNullable(text).map(KeyValues::encode))
+            .session(Optional.ofNullable(session))
+            .createIndex(1)
+            .modifyIndex(modifyIndex)
+            .lockIndex(session == null ? 0 : 1)
+            .flags(0)
+            .build();
+    }
+
+    public static Value binaryValue(String key, byte[] bytes, long flags) {
+        return ImmutableValue.builder()
+            .key(key)
+            .value(Base64.getEncoder().encodeToString(bytes))
+            .createIndex(1)
+            .modifyIndex(1)
+            .lockIndex(0)
+            .flags(flags)
+            .build();
+    }
+
+    private static String encode(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
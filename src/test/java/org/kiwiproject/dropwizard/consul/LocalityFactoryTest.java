@@ -0,0 +1,28 @@
+package org.kiwiproject.dropwizard.consul;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LocalityFactory")
+class LocalityFactoryTest {
+
+    @Test
+    void shouldHaveNoMeta_ByDefault() {
+        assertThat(new LocalityFactory().toMeta()).isEmpty();
+    }
+
+    @Test
+    void shouldPublishConfiguredAttributes() {
+        var locality = new LocalityFactory();
+        locality.setZone("us-east-1a");
+        locality.setDatacenter("us-east-1");
+
+        assertThat(locality.toMeta()).containsExactly(
+            entry(LocalityFactory.ZONE_META_KEY, "us-east-1a"),
+            entry(LocalityFactory.DATACENTER_META_KEY, "us-east-1"));
+        assertThat(locality.getRack()).isEmpty();
+    }
+}
@@ -0,0 +1,85 @@
+package org.kiwiproject.dropwizard.consul;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.dropwizard.util.Duration;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.kiwiproject.consul.option.ConsistencyMode;
+
+@DisplayName("ReadConsistencyFactory")
+class ReadConsistencyFactoryTest {
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void shouldUseDefaultMode_ByDefault() {
+        var factory = new ReadConsistencyFactory();
+
+        assertThat(factory.getMode()).isEqualTo(ReadConsistencyFactory.Mode.DEFAULT);
+        assertThat(factory.toConsistencyMode()).isEqualTo(ConsistencyMode.DEFAULT);
+        assertThat(factory.toKeyValueConsistencyMode()).isEqualTo(ConsistencyMode.DEFAULT);
+        assertThat(VALIDATOR.validate(factory)).isEmpty();
+    }
+
+    @Test
+    void shouldMapStaleAndConsistentModes() {
+        var factory = new ReadConsistencyFactory();
+
+        factory.setMode(ReadConsistencyFactory.Mode.STALE);
+        assertThat(factory.toConsistencyMode()).isEqualTo(ConsistencyMode.STALE);
+
+        factory.setMode(ReadConsistencyFactory.Mode.CONSISTENT);
+        assertThat(factory.toConsistencyMode()).isEqualTo(ConsistencyMode.CONSISTENT);
+        assertThat(factory.toKeyValueConsistencyMode()).isEqualTo(ConsistencyMode.CONSISTENT);
+    }
+
+    @Test
+    void shouldMapCachedMode_WithCacheControlDirectives() {
+        var factory = new ReadConsistencyFactory();
+        factory.setMode(ReadConsistencyFactory.Mode.CACHED);
+        factory.setMaxAge(Duration.seconds(30));
+        factory.setMaxStale(Duration.minutes(5));
+
+        var consistencyMode = factory.toConsistencyMode();
+
+        assertThat(consistencyMode.name()).isEqualTo("CACHED");
+        assertThat(consistencyMode.getAdditionalHeaders().get("Cache-Control"))
+            .contains("max-age=30")
+            .contains("stale-if-error=300");
+        assertThat(VALIDATOR.validate(factory)).isEmpty();
+    }
+
+    @Test
+    void shouldFallBackToStale_ForKeyValueReads_InCachedMode() {
+        var factory = new ReadConsistencyFactory();
+        factory.setMode(ReadConsistencyFactory.Mode.CACHED);
+
+        assertThat(factory.toKeyValueConsistencyMode()).isEqualTo(ConsistencyMode.STALE);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ReadConsistencyFactory.Mode.class, names = "CACHED", mode = EnumSource.Mode.EXCLUDE)
+    void shouldRejectCacheControl_WhenNotCached(ReadConsistencyFactory.Mode mode) {
+        var factory = new ReadConsistencyFactory();
+        factory.setMode(mode);
+        factory.setMaxAge(Duration.seconds(30));
+
+        var violations = VALIDATOR.validate(factory);
+        assertThat(violations).hasSize(1);
+        assertThat(violations.iterator().next().getMessage())
+            .isEqualTo("maxAge and maxStale may only be set when mode is CACHED");
+    }
+
+    @Test
+    void shouldRequireMode() {
+        var factory = new ReadConsistencyFactory();
+        factory.setMode(null);
+
+        assertThat(VALIDATOR.validateProperty(factory, "mode")).hasSize(1);
+    }
+}
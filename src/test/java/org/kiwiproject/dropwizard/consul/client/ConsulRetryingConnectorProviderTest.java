@@ -0,0 +1,123 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configuration;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.client.ConsulServiceResolver.Selection;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.loadbalancer.InstanceSelector;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("ConsulRetryingConnectorProvider")
+class ConsulRetryingConnectorProviderTest {
+
+    private static final URI ORIGINAL_URI = URI.create("consul://orders/api");
+    private static final ServiceInstance ORDERS_1 =
+        new ServiceInstance("orders-1", "orders", "node", "10.0.0.1", 8080, List.of(), Map.of(), 1);
+    private static final ServiceInstance ORDERS_2 =
+        new ServiceInstance("orders-2", "orders", "node", "10.0.0.2", 8080, List.of(), Map.of(), 1);
+
+    private Connector delegate;
+    private ConsulServiceResolver resolver;
+    private Connector connector;
+    private ClientRequest request;
+    private InstanceSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(Connector.class);
+        var delegateProvider = mock(ConnectorProvider.class);
+        when(delegateProvider.getConnector(any(), any())).thenReturn(delegate);
+
+        resolver = mock(ConsulServiceResolver.class);
+        connector = new ConsulRetryingConnectorProvider(delegateProvider, resolver, 3)
+            .getConnector(mock(Client.class), mock(Configuration.class));
+
+        selector = mock(InstanceSelector.class);
+        when(selector.get(0)).thenReturn(ORDERS_1);
+        when(selector.get(1)).thenReturn(ORDERS_2);
+
+        request = mock(ClientRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getProperty(ConsulServiceFilter.SERVICE_NAME_PROPERTY)).thenReturn("orders");
+        when(request.getProperty(ConsulServiceFilter.ORIGINAL_URI_PROPERTY)).thenReturn(ORIGINAL_URI);
+        when(request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY)).thenReturn(new Selection(selector, 0));
+    }
+
+    @Test
+    void shouldRetryOnAnotherInstance() {
+        var response = mock(ClientResponse.class);
+        when(delegate.apply(request))
+            .thenThrow(new ProcessingException("connection refused"))
+            .thenReturn(response);
+        var next = new Selection(selector, 1);
+        when(resolver.selectOther("orders", ORDERS_1)).thenReturn(next);
+
+        assertThat(connector.apply(request)).isSameAs(response);
+
+        verify(selector).release(0);
+        verify(request).setUri(URI.create("http://10.0.0.2:8080/api"));
+        verify(request).setProperty(ConsulServiceFilter.SELECTION_PROPERTY, next);
+    }
+
+    @Test
+    void shouldNotRetry_RequestsWithEntity() {
+        when(request.hasEntity()).thenReturn(true);
+        when(delegate.apply(request)).thenThrow(new ProcessingException("connection refused"));
+
+        assertThatThrownBy(() -> connector.apply(request)).isInstanceOf(ProcessingException.class);
+
+        verify(delegate, times(1)).apply(request);
+        verify(selector).release(0);
+    }
+
+    @Test
+    void shouldNotRetry_NonIdempotentRequests() {
+        when(request.getMethod()).thenReturn("POST");
+        when(delegate.apply(request)).thenThrow(new ProcessingException("connection refused"));
+
+        assertThatThrownBy(() -> connector.apply(request)).isInstanceOf(ProcessingException.class);
+
+        verify(delegate, times(1)).apply(request);
+        verify(resolver, never()).selectOther(any(), any());
+    }
+
+    @Test
+    void shouldStop_AfterMaxAttempts() {
+        when(delegate.apply(request)).thenThrow(new ProcessingException("connection refused"));
+        when(resolver.selectOther("orders", ORDERS_1)).thenReturn(new Selection(selector, 1));
+
+        assertThatThrownBy(() -> connector.apply(request)).isInstanceOf(ProcessingException.class);
+
+        verify(delegate, times(3)).apply(request);
+    }
+
+    @Test
+    void shouldNotRetry_RequestsNotResolvedByFilter() {
+        when(request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY)).thenReturn(null);
+        when(delegate.apply(request)).thenThrow(new ProcessingException("connection refused"));
+
+        assertThatThrownBy(() -> connector.apply(request)).isInstanceOf(ProcessingException.class);
+
+        verify(delegate, times(1)).apply(request);
+    }
+}
@@ -0,0 +1,97 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.routing.HttpRoutePlanner;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.client.ConsulServiceResolver.Selection;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.loadbalancer.InstanceSelector;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("ConsulRoutePlanner")
+class ConsulRoutePlannerTest {
+
+    private ConsulServiceResolver resolver;
+    private HttpRoutePlanner delegate;
+    private ConsulRoutePlanner routePlanner;
+    private InstanceSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        resolver = mock(ConsulServiceResolver.class);
+        delegate = mock(HttpRoutePlanner.class);
+        routePlanner = new ConsulRoutePlanner(resolver, ConsulRoutePlanner.DEFAULT_DOMAIN_SUFFIX, delegate);
+
+        selector = mock(InstanceSelector.class);
+        when(selector.get(0)).thenReturn(
+            new ServiceInstance("orders-1", "orders", "node", "10.0.0.1", 9090, List.of(), Map.of(), 1));
+    }
+
+    @Test
+    void shouldResolveServiceHost_ToInstanceAddressAndPort() throws Exception {
+        when(resolver.select("orders")).thenReturn(new Selection(selector, 0));
+
+        var target = routePlanner.resolveTarget(new HttpHost("https", "orders.service.consul", 443));
+
+        assertThat(target.getSchemeName()).isEqualTo("https");
+        assertThat(target.getHostName()).isEqualTo("orders.service.consul");
+        assertThat(target.getAddress()).isEqualTo(InetAddress.getByName("10.0.0.1"));
+        assertThat(target.getPort()).isEqualTo(9090);
+        verify(selector).release(0);
+    }
+
+    @Test
+    void shouldMatchDomainSuffix_IgnoringCase() throws Exception {
+        when(resolver.select("orders")).thenReturn(new Selection(selector, 0));
+
+        var target = routePlanner.resolveTarget(new HttpHost("http", "Orders.Service.Consul", 80));
+
+        assertThat(target.getPort()).isEqualTo(9090);
+    }
+
+    @Test
+    void shouldNotChangeOtherHosts() throws Exception {
+        var target = new HttpHost("http", "example.com", 80);
+
+        assertThat(routePlanner.resolveTarget(target)).isSameAs(target);
+        assertThat(routePlanner.resolveTarget(new HttpHost("http", "service.consul", 80)).getPort()).isEqualTo(80);
+        verifyNoInteractions(resolver);
+    }
+
+    @Test
+    void shouldFail_WhenServiceHasNoHealthyInstances() {
+        var target = new HttpHost("http", "orders.service.consul", 80);
+
+        assertThatThrownBy(() -> routePlanner.resolveTarget(target))
+            .isInstanceOf(HttpException.class)
+            .hasMessage("No healthy instances of service orders");
+    }
+
+    @Test
+    void shouldDelegateResolvedTarget() throws Exception {
+        when(resolver.select("orders")).thenReturn(new Selection(selector, 0));
+        var route = new HttpRoute(new HttpHost("http", "orders.service.consul", 9090));
+        when(delegate.determineRoute(any(HttpHost.class), any(), any())).thenReturn(route);
+        var context = HttpClientContext.create();
+
+        assertThat(routePlanner.determineRoute(new HttpHost("http", "orders.service.consul", 80), null, context))
+            .isSameAs(route);
+        verify(delegate).determineRoute(new HttpHost("http", InetAddress.getByName("10.0.0.1"), "orders.service.consul", 9090), null, context);
+    }
+}
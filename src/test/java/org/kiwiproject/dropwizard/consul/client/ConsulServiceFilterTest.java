@@ -0,0 +1,107 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.client.ConsulServiceResolver.Selection;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.loadbalancer.InstanceSelector;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("ConsulServiceFilter")
+class ConsulServiceFilterTest {
+
+    private ConsulServiceResolver resolver;
+    private ConsulServiceFilter filter;
+    private ClientRequestContext request;
+
+    @BeforeEach
+    void setUp() {
+        resolver = mock(ConsulServiceResolver.class);
+        filter = new ConsulServiceFilter(resolver);
+        request = mock(ClientRequestContext.class);
+    }
+
+    @Test
+    void shouldIgnoreNonConsulUris() {
+        when(request.getUri()).thenReturn(URI.create("http://localhost:8080/api"));
+
+        filter.filter(request);
+
+        verify(request, never()).setUri(any());
+        verify(request, never()).setProperty(anyString(), any());
+    }
+
+    @Test
+    void shouldRewriteConsulUri_AndReleaseOnResponse() {
+        var uri = URI.create("consul://orders/api/orders?limit=10");
+        var selector = mock(InstanceSelector.class);
+        when(selector.get(0)).thenReturn(
+            new ServiceInstance("orders-1", "orders", "node", "10.0.0.1", 8080, List.of(), Map.of("scheme", "https"), 1));
+        var selection = new Selection(selector, 0);
+        when(request.getUri()).thenReturn(uri);
+        when(resolver.select("orders")).thenReturn(selection);
+
+        filter.filter(request);
+
+        verify(request).setUri(URI.create("https://10.0.0.1:8080/api/orders?limit=10"));
+        verify(request).setProperty(ConsulServiceFilter.SERVICE_NAME_PROPERTY, "orders");
+        verify(request).setProperty(ConsulServiceFilter.ORIGINAL_URI_PROPERTY, uri);
+        verify(request).setProperty(ConsulServiceFilter.SELECTION_PROPERTY, selection);
+
+        when(request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY)).thenReturn(selection);
+        filter.filter(request, mock(ClientResponseContext.class));
+
+        verify(request).removeProperty(ConsulServiceFilter.SELECTION_PROPERTY);
+        verify(selector).release(0);
+    }
+
+    @Test
+    void shouldRecordResponseOutcomes() {
+        var selector = mock(InstanceSelector.class);
+        var instance = new ServiceInstance("orders-1", "orders", "node", "10.0.0.1", 8080, List.of(), Map.of(), 1);
+        when(selector.get(0)).thenReturn(instance);
+        when(request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY)).thenReturn(new Selection(selector, 0));
+        var response = mock(ClientResponseContext.class);
+
+        when(response.getStatus()).thenReturn(503);
+        filter.filter(request, response);
+        verify(resolver).recordFailure(instance);
+
+        when(response.getStatus()).thenReturn(404);
+        filter.filter(request, response);
+        verify(resolver).recordSuccess(instance);
+    }
+
+    @Test
+    void shouldFail_WhenServiceHasNoHealthyInstances() {
+        when(request.getUri()).thenReturn(URI.create("consul://orders/api"));
+
+        assertThatThrownBy(() -> filter.filter(request))
+            .isExactlyInstanceOf(ProcessingException.class)
+            .hasMessage("No healthy instances of service orders");
+    }
+
+    @Test
+    void shouldNotRelease_WhenNothingWasSelected() {
+        filter.filter(request, mock(ClientResponseContext.class));
+
+        verify(request, never()).removeProperty(anyString());
+        assertThat(request.getProperty(ConsulServiceFilter.SELECTION_PROPERTY)).isNull();
+    }
+}
@@ -0,0 +1,179 @@
+package org.kiwiproject.dropwizard.consul.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+import org.kiwiproject.dropwizard.consul.loadbalancer.InstanceSelector;
+import org.kiwiproject.dropwizard.consul.loadbalancer.LoadBalancingStrategy;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("ConsulServiceResolver")
+class ConsulServiceResolverTest {
+
+    private static final ServiceInstance ORDERS_1 = instance("orders-1", "10.0.0.1", Map.of("applicationScheme", "https"));
+    private static final ServiceInstance ORDERS_2 = instance("orders-2", "10.0.0.2", Map.of("scheme", "http"));
+
+    private ServiceDiscoveryCache cache;
+    private ConsulServiceResolver resolver;
+
+    static ServiceInstance instance(String id, String address, Map<String, String> meta) {
+        return new ServiceInstance(id, "orders", "node", address, 8080, List.of(), meta, 1);
+    }
+
+    @BeforeEach
+    void setUp() {
+        cache = mock(ServiceDiscoveryCache.class);
+        resolver = new ConsulServiceResolver(cache, LoadBalancingStrategy.roundRobin());
+    }
+
+    private void givenInstances(ServiceInstance... instances) {
+        when(cache.getSnapshot("orders")).thenReturn(new ServiceSnapshot("orders", List.of(instances), 1, 0));
+    }
+
+    @Test
+    void shouldWatchService_AndReuseLoadBalancer() {
+        var loadBalancer = resolver.loadBalancer("orders");
+
+        assertThat(resolver.loadBalancer("orders")).isSameAs(loadBalancer);
+        verify(cache).watch("orders");
+    }
+
+    @Test
+    void shouldSelectInstance() {
+        givenInstances(ORDERS_1, ORDERS_2);
+
+        var selection = resolver.select("orders");
+
+        assertThat(selection).isNotNull();
+        assertThat(selection.instance()).isIn(ORDERS_1, ORDERS_2);
+    }
+
+    @Test
+    void shouldReturnNull_WhenThereAreNoInstances() {
+        givenInstances();
+
+        assertThat(resolver.select("orders")).isNull();
+    }
+
+    @Test
+    void shouldSelectOtherInstance() {
+        givenInstances(ORDERS_1, ORDERS_2);
+
+        for (var i = 0; i < 4; i++) {
+            var selection = resolver.selectOther("orders", ORDERS_1);
+            assertThat(selection).isNotNull();
+            assertThat(selection.instance()).isEqualTo(ORDERS_2);
+        }
+    }
+
+    @Test
+    void shouldReselectThroughStrategy_AndReleaseExcludedInstance() {
+        var orders3 = instance("orders-3", "10.0.0.3", Map.of());
+        when(cache.getSnapshot("orders")).thenReturn(new ServiceSnapshot("orders", List.of(ORDERS_1, ORDERS_2, orders3), 1, 0));
+        var selections = new ArrayDeque<>(List.of(0, 0, 2));
+        var released = new ArrayList<Integer>();
+        var recording = new ConsulServiceResolver(cache, snapshot -> new InstanceSelector() {
+            @Override
+            public int selectIndex() {
+                return selections.remove();
+            }
+
+            @Override
+            public void release(int index) {
+                released.add(index);
+            }
+
+            @Override
+            public ServiceInstance get(int index) {
+                return snapshot.instances().get(index);
+            }
+
+            @Override
+            public int size() {
+                return snapshot.instances().size();
+            }
+        });
+
+        var selection = recording.selectOther("orders", ORDERS_1);
+
+        assertThat(selection).isNotNull();
+        assertThat(selection.instance()).isEqualTo(orders3);
+        assertThat(released).containsExactly(0, 0);
+    }
+
+    @Test
+    void shouldReturnNull_WhenStrategyOnlySelectsExcludedInstance() {
+        givenInstances(ORDERS_1, ORDERS_2);
+        var firstOnly = new ConsulServiceResolver(cache, snapshot -> new InstanceSelector() {
+            @Override
+            public int selectIndex() {
+                return 0;
+            }
+
+            @Override
+            public ServiceInstance get(int index) {
+                return snapshot.instances().get(index);
+            }
+
+            @Override
+            public int size() {
+                return snapshot.instances().size();
+            }
+        });
+
+        assertThat(firstOnly.selectOther("orders", ORDERS_1)).isNull();
+    }
+
+    @Test
+    void shouldReturnNull_WhenThereIsNoOtherInstance() {
+        givenInstances(ORDERS_1);
+
+        assertThat(resolver.selectOther("orders", ORDERS_1)).isNull();
+    }
+
+    @Nested
+    class Uris {
+
+        @Test
+        void shouldRecognizeConsulUris() {
+            assertThat(ConsulServiceResolver.isConsulUri(URI.create("consul://orders/api"))).isTrue();
+            assertThat(ConsulServiceResolver.isConsulUri(URI.create("CONSUL://orders/api"))).isTrue();
+            assertThat(ConsulServiceResolver.isConsulUri(URI.create("http://orders/api"))).isFalse();
+        }
+
+        @Test
+        void shouldExtractServiceName() {
+            assertThat(ConsulServiceResolver.serviceName(URI.create("consul://orders/api"))).isEqualTo("orders");
+            assertThat(ConsulServiceResolver.serviceName(URI.create("consul://order_service/api"))).isEqualTo("order_service");
+        }
+
+        @Test
+        void shouldResolveToInstance_KeepingPathQueryAndFragment() {
+            var uri = URI.create("consul://orders/api/orders%2F1?expand=items&q=a%20b#top");
+
+            assertThat(ConsulServiceResolver.resolve(uri, ORDERS_1))
+                .isEqualTo(URI.create("https://10.0.0.1:8080/api/orders%2F1?expand=items&q=a%20b#top"));
+            assertThat(ConsulServiceResolver.resolve(URI.create("consul://orders"), ORDERS_2))
+                .isEqualTo(URI.create("http://10.0.0.2:8080"));
+        }
+
+        @Test
+        void shouldDefaultSchemeToHttp() {
+            assertThat(ConsulServiceResolver.schemeOf(instance("orders-3", "10.0.0.3", Map.of()))).isEqualTo("http");
+        }
+    }
+}
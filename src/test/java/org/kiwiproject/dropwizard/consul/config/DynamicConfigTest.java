@@ -0,0 +1,135 @@
+package org.kiwiproject.dropwizard.consul.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.KeyValues.value;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
+
+import java.util.List;
+
+@DisplayName("DynamicConfig")
+class DynamicConfigTest {
+
+    public static class Limits {
+
+        @Min(1)
+        @JsonProperty
+        public int maxOrders = 10;
+
+        @NotBlank
+        @JsonProperty
+        public String mode = "normal";
+
+        @JsonProperty
+        public List<String> regions = List.of();
+
+        @JsonProperty
+        public Nested nested = new Nested();
+    }
+
+    public static class Nested {
+
+        @JsonProperty
+        public boolean enabled;
+    }
+
+    private static final Limits DEFAULT_LIMITS = new Limits();
+
+    private WatchEngine watchEngine;
+
+    @BeforeEach
+    void setUp() {
+        watchEngine = new WatchEngine(new WatchEngineFactory());
+    }
+
+    private DynamicConfig<Limits> bind(String key) {
+        return new DynamicConfig<>(mock(Consul.class), watchEngine, ConsulMetrics.noop(), ConsistencyMode.STALE,
+            key, Limits.class, DEFAULT_LIMITS, Jackson.newObjectMapper(), Validators.newValidator());
+    }
+
+    @Test
+    void shouldReturnDefaultValue_UntilKeyIsRead() {
+        var config = bind("config/orders/limits");
+
+        assertThat(config.get()).isSameAs(DEFAULT_LIMITS);
+        assertThat(config.isPrefix()).isFalse();
+        assertThat(watchEngine.isWatched("kv:config/orders/limits:STALE")).isTrue();
+    }
+
+    @Test
+    void shouldBindJsonValue_OfKey() {
+        var config = bind("config/orders/limits");
+
+        config.update(List.of(
+            value("config/orders/limits", "{\"maxOrders\": 25, \"mode\": \"strict\"}"),
+            value("config/orders/limits-old", "{\"maxOrders\": 99}")));
+
+        assertThat(config.get().maxOrders).isEqualTo(25);
+        assertThat(config.get().mode).isEqualTo("strict");
+    }
+
+    @Test
+    void shouldBindKeysUnderPrefix_AsProperties() {
+        var config = bind("config/orders/");
+
+        config.update(List.of(
+            value("config/orders/", null),
+            value("config/orders/maxOrders", "50"),
+            value("config/orders/regions", "[\"us-east\", \"eu-west\"]"),
+            value("config/orders/nested/enabled", "true")));
+
+        assertThat(config.isPrefix()).isTrue();
+        assertThat(config.get().maxOrders).isEqualTo(50);
+        assertThat(config.get().mode).isEqualTo("normal");
+        assertThat(config.get().regions).containsExactly("us-east", "eu-west");
+        assertThat(config.get().nested.enabled).isTrue();
+    }
+
+    @Test
+    void shouldKeepPreviousValue_WhenUpdateIsInvalid() {
+        var config = bind("config/orders/limits");
+        config.update(List.of(value("config/orders/limits", "{\"maxOrders\": 25}")));
+        var valid = config.get();
+
+        config.update(List.of(value("config/orders/limits", "{\"maxOrders\": 0}")));
+        assertThat(config.get()).isSameAs(valid);
+
+        config.update(List.of(value("config/orders/limits", "{\"maxOrders\": \"many\"}")));
+        assertThat(config.get()).isSameAs(valid);
+
+        config.update(List.of(value("config/orders/limits", "not json")));
+        assertThat(config.get()).isSameAs(valid);
+    }
+
+    @Test
+    void shouldRevertToDefaultValue_WhenKeyIsDeleted() {
+        var config = bind("config/orders/limits");
+        config.update(List.of(value("config/orders/limits", "{\"maxOrders\": 25}")));
+
+        config.update(List.of());
+
+        assertThat(config.get()).isSameAs(DEFAULT_LIMITS);
+    }
+
+    @Test
+    void shouldStopWatching_WhenClosed() {
+        var config = bind("config/orders/limits");
+
+        config.close();
+
+        assertThat(watchEngine.isWatched("kv:config/orders/limits:STALE")).isFalse();
+    }
+}
@@ -0,0 +1,56 @@
+package org.kiwiproject.dropwizard.consul.coordinate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("NetworkCoordinate")
+class NetworkCoordinateTest {
+
+    @Test
+    void shouldEstimateRtt_FromDistanceAndHeights() {
+        var a = new NetworkCoordinate(new double[] {0.0, 0.0}, 0.1, 0.0, 0.001);
+        var b = new NetworkCoordinate(new double[] {0.003, 0.004}, 0.1, 0.0, 0.001);
+
+        assertThat(a.rttMillisTo(b)).isCloseTo(7.0, within(1e-9));
+        assertThat(b.rttMillisTo(a)).isCloseTo(7.0, within(1e-9));
+    }
+
+    @Test
+    void shouldApplyAdjustments_WhenAdjustedDistanceIsPositive() {
+        var a = new NetworkCoordinate(new double[] {0.0, 0.0}, 0.1, 0.002, 0.0);
+        var b = new NetworkCoordinate(new double[] {0.003, 0.004}, 0.1, -0.001, 0.0);
+
+        assertThat(a.rttMillisTo(b)).isCloseTo(6.0, within(1e-9));
+    }
+
+    @Test
+    void shouldIgnoreAdjustments_WhenAdjustedDistanceIsNotPositive() {
+        var a = new NetworkCoordinate(new double[] {0.0, 0.0}, 0.1, -0.01, 0.0);
+        var b = new NetworkCoordinate(new double[] {0.003, 0.004}, 0.1, -0.01, 0.0);
+
+        assertThat(a.rttMillisTo(b)).isCloseTo(5.0, within(1e-9));
+    }
+
+    @Test
+    void shouldRejectIncompatibleCoordinates() {
+        var a = new NetworkCoordinate(new double[] {0.0, 0.0}, 0.1, 0.0, 0.0);
+        var b = new NetworkCoordinate(new double[] {0.0, 0.0, 0.0}, 0.1, 0.0, 0.0);
+
+        assertThat(a.isCompatibleWith(b)).isFalse();
+        assertThatIllegalArgumentException().isThrownBy(() -> a.rttMillisTo(b));
+    }
+
+    @Test
+    void shouldCopyVector() {
+        var vec = new double[] {1.0, 2.0};
+        var coordinate = new NetworkCoordinate(vec, 0.1, 0.0, 0.0);
+        vec[0] = 42.0;
+
+        assertThat(coordinate.vec()).containsExactly(1.0, 2.0);
+        assertThat(coordinate).isEqualTo(new NetworkCoordinate(new double[] {1.0, 2.0}, 0.1, 0.0, 0.0));
+    }
+}
@@ -0,0 +1,104 @@
+package org.kiwiproject.dropwizard.consul.coordinate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.model.coordinate.Coord;
+import org.kiwiproject.consul.model.coordinate.Coordinate;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+@DisplayName("NetworkCoordinates")
+class NetworkCoordinatesTest {
+
+    private Consul consul;
+    private NetworkCoordinates coordinates;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        when(consul.agentClient().getAgent().getConfig().getNodeName()).thenReturn("node-a");
+
+        coordinates = new NetworkCoordinates(consul, new NetworkCoordinatesFactory(), ConsulMetrics.noop(),
+            mock(ScheduledExecutorService.class));
+    }
+
+    @Test
+    void shouldNotEstimate_BeforeFirstRefresh() {
+        assertThat(coordinates.estimateRttMillis("node-b")).isEmpty();
+        assertThat(coordinates.getLocalCoordinate()).isEmpty();
+        assertThat(coordinates.version()).isZero();
+    }
+
+    @Test
+    void shouldEstimateRtt_FromLocalNode() {
+        var nodes = List.of(coordinate("node-a", 0.0, 0.0), coordinate("node-b", 0.003, 0.004));
+        when(consul.coordinateClient().getNodes()).thenReturn(nodes);
+
+        coordinates.refresh();
+
+        assertThat(coordinates.version()).isOne();
+        assertThat(coordinates.getLocalCoordinate()).isPresent();
+        assertThat(coordinates.getCoordinate("node-b")).isPresent();
+        assertThat(coordinates.estimateRttMillis("node-b").orElseThrow()).isCloseTo(5.0, within(1e-9));
+        assertThat(coordinates.estimateRttMillis("node-c")).isEmpty();
+    }
+
+    @Test
+    void shouldNotEstimate_WhenLocalNodeHasNoCoordinate() {
+        var nodes = List.of(coordinate("node-b", 0.003, 0.004));
+        when(consul.coordinateClient().getNodes()).thenReturn(nodes);
+
+        coordinates.refresh();
+
+        assertThat(coordinates.estimateRttMillis("node-b")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepPreviousCoordinates_WhenRefreshFails() {
+        var nodes = List.of(coordinate("node-a", 0.0, 0.0), coordinate("node-b", 0.003, 0.004));
+        when(consul.coordinateClient().getNodes()).thenReturn(nodes);
+        coordinates.refresh();
+        when(consul.coordinateClient().getNodes()).thenThrow(new ConsulException("unavailable"));
+
+        assertThatThrownBy(() -> coordinates.refresh()).isInstanceOf(ConsulException.class);
+
+        assertThat(coordinates.version()).isOne();
+        assertThat(coordinates.estimateRttMillis("node-b")).isPresent();
+    }
+
+    @Test
+    void shouldUseConfiguredNodeName() {
+        var config = new NetworkCoordinatesFactory();
+        config.setNodeName("node-b");
+        coordinates = new NetworkCoordinates(consul, config, ConsulMetrics.noop(), mock(ScheduledExecutorService.class));
+        var nodes = List.of(coordinate("node-a", 0.0, 0.0), coordinate("node-b", 0.003, 0.004));
+        when(consul.coordinateClient().getNodes()).thenReturn(nodes);
+
+        coordinates.refresh();
+
+        assertThat(coordinates.estimateRttMillis("node-b").orElseThrow()).isZero();
+    }
+
+    // build coordinates before stubbing with them, since creating mocks while stubbing another is not allowed
+    static Coordinate coordinate(String node, double x, double y) {
+        var coord = mock(Coord.class);
+        when(coord.getVec()).thenReturn(new double[] {x, y});
+
+        var coordinate = mock(Coordinate.class);
+        when(coordinate.getNode()).thenReturn(node);
+        when(coordinate.getCoord()).thenReturn(coord);
+        return coordinate;
+    }
+}
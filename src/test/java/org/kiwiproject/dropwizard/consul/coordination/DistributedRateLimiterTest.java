@@ -0,0 +1,247 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.kiwiproject.dropwizard.consul.KeyValues.value;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.option.PutOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+@DisplayName("DistributedRateLimiter")
+class DistributedRateLimiterTest {
+
+    private static final String KEY = "rate-limit/partner-api";
+
+    private Consul consul;
+    private ExecutorService executor;
+    private long now;
+    private DistributedRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        when(consul.keyValueClient().getValue(KEY)).thenReturn(Optional.empty());
+        when(consul.keyValueClient().putValue(eq(KEY), anyString(), eq(0L), any(PutOptions.class))).thenReturn(true);
+        executor = mock(ExecutorService.class);
+        now = 10_000;
+
+        limiter = new DistributedRateLimiter(consul, KEY, 1_000, Duration.seconds(1), 100, ConsulMetrics.noop(),
+            executor, () -> now);
+    }
+
+    /**
+     * Lease the first permit and consume it, then lease again 10 ms later, at 0.1 permits per ms: 99 permits.
+     */
+    private void leaseAtMeasuredRate() {
+        limiter.lease();
+        limiter.tryAcquire();
+        now += 10;
+        limiter.lease();
+        clearInvocations(executor);
+    }
+
+    private String lastBudgetWritten() {
+        var json = ArgumentCaptor.forClass(String.class);
+        verify(consul.keyValueClient(), atLeastOnce()).putValue(eq(KEY), json.capture(), eq(0L), any(PutOptions.class));
+        return json.getValue();
+    }
+
+    @Test
+    void shouldRequirePositivePermits() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new DistributedRateLimiter(consul, KEY, 0,
+            Duration.seconds(1), 100, ConsulMetrics.noop(), executor));
+    }
+
+    @Test
+    void shouldRequestLease_WhenNoPermitsAreLeased() {
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldRequestOneLeaseAtATime() {
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        verify(executor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldLeaseSinglePermit_First() {
+        limiter.lease();
+
+        assertThat(limiter.availablePermits()).isOne();
+        assertThat(lastBudgetWritten()).isEqualTo("{\"WindowStart\":10000,\"Remaining\":999}");
+    }
+
+    @Test
+    void shouldLeaseAtMeasuredRate_AfterFirstPermit() {
+        leaseAtMeasuredRate();
+
+        assertThat(limiter.availablePermits()).isEqualTo(99);
+    }
+
+    @Test
+    void shouldHandOutLeasedPermits_WithoutConsul() {
+        leaseAtMeasuredRate();
+
+        for (var i = 0; i < 99; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.availablePermits()).isZero();
+        verify(consul.keyValueClient(), times(2)).getValue(KEY);
+    }
+
+    @Test
+    void shouldRequestLease_WhenPermitsRunLow() {
+        leaseAtMeasuredRate();
+
+        // a quarter of the 99 leased permits is the refill threshold
+        for (var i = 0; i < 74; i++) {
+            limiter.tryAcquire();
+        }
+        verify(executor, never()).execute(any(Runnable.class));
+
+        limiter.tryAcquire();
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldLeaseFromCurrentWindow_WithCheckAndSet() {
+        var current = value(KEY, "{\"WindowStart\":10000,\"Remaining\":10}", 42);
+        when(consul.keyValueClient().getValue(KEY)).thenReturn(Optional.of(current));
+
+        // wants 99 permits, but only 10 remain
+        leaseAtMeasuredRate();
+
+        assertThat(limiter.availablePermits()).isEqualTo(10);
+        assertThat(lastBudgetWritten()).isEqualTo("{\"WindowStart\":10000,\"Remaining\":0}");
+        var putOptions = ArgumentCaptor.forClass(PutOptions.class);
+        verify(consul.keyValueClient(), atLeastOnce()).putValue(eq(KEY), anyString(), eq(0L), putOptions.capture());
+        assertThat(putOptions.getValue().getCas()).contains(42L);
+    }
+
+    @Test
+    void shouldStartNewBudget_WhenStoredWindowHasEnded() {
+        var previous = value(KEY, "{\"WindowStart\":9000,\"Remaining\":0}", 42);
+        when(consul.keyValueClient().getValue(KEY)).thenReturn(Optional.of(previous));
+
+        limiter.lease();
+
+        assertThat(limiter.availablePermits()).isOne();
+        assertThat(lastBudgetWritten()).isEqualTo("{\"WindowStart\":10000,\"Remaining\":999}");
+    }
+
+    @Test
+    void shouldNotLease_WhenStoredWindowIsLater() {
+        var later = value(KEY, "{\"WindowStart\":11000,\"Remaining\":900}", 42);
+        when(consul.keyValueClient().getValue(KEY)).thenReturn(Optional.of(later));
+
+        limiter.lease();
+
+        assertThat(limiter.availablePermits()).isZero();
+        verify(consul.keyValueClient(), never()).putValue(eq(KEY), anyString(), eq(0L), any(PutOptions.class));
+        assertThat(limiter.tryAcquire()).isFalse();
+        verify(executor, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldReplaceInvalidBudget() {
+        var invalid = value(KEY, "not json", 42);
+        when(consul.keyValueClient().getValue(KEY)).thenReturn(Optional.of(invalid));
+
+        limiter.lease();
+
+        assertThat(limiter.availablePermits()).isOne();
+    }
+
+    @Test
+    void shouldNotLeaseAgain_UntilExhaustedWindowEnds() {
+        var exhausted = value(KEY, "{\"WindowStart\":10000,\"Remaining\":0}", 42);
+        when(consul.keyValueClient().getValue(KEY)).thenReturn(Optional.of(exhausted));
+
+        limiter.lease();
+        assertThat(limiter.tryAcquire()).isFalse();
+        verify(executor, never()).execute(any(Runnable.class));
+
+        now = 11_000;
+        assertThat(limiter.tryAcquire()).isFalse();
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldExpireLeasedPermits_AtEndOfWindow() {
+        limiter.lease();
+        assertThat(limiter.availablePermits()).isOne();
+
+        now = 11_000;
+
+        assertThat(limiter.availablePermits()).isZero();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void shouldRetry_WhenCheckAndSetFails() {
+        when(consul.keyValueClient().putValue(eq(KEY), anyString(), eq(0L), any(PutOptions.class)))
+            .thenReturn(false, true);
+
+        limiter.lease();
+
+        assertThat(limiter.availablePermits()).isOne();
+        assertThat(lastBudgetWritten()).isEqualTo("{\"WindowStart\":10000,\"Remaining\":999}");
+        verify(consul.keyValueClient(), times(2)).putValue(eq(KEY), anyString(), eq(0L), any(PutOptions.class));
+    }
+
+    @Test
+    void shouldFailClosed_WhenConsulIsUnavailable() {
+        when(consul.keyValueClient().getValue(KEY)).thenThrow(new ConsulException("unavailable"));
+
+        limiter.lease();
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void shouldAdaptBatchSize_ToConsumptionRate() {
+        limiter.lease();
+        limiter.tryAcquire();
+
+        // the first measured rate, 1 permit in 100 ms: 0.01 per ms for the remaining 900 ms
+        assertThat(limiter.nextBatchSize(10_100, 11_000)).isEqualTo(9);
+
+        // idle for 400 ms, averaged with the previous rate: 0.005 per ms for the remaining 500 ms
+        assertThat(limiter.nextBatchSize(10_500, 11_000)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldCapBatchSize() {
+        limiter.lease();
+        limiter.tryAcquire();
+
+        assertThat(limiter.nextBatchSize(10_001, 11_000)).isEqualTo(100);
+    }
+}
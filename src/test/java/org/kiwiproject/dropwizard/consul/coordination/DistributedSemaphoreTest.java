@@ -0,0 +1,215 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.kiwiproject.dropwizard.consul.KeyValues.lockedValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.model.session.Session;
+import org.kiwiproject.consul.option.PutOptions;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("DistributedSemaphore")
+class DistributedSemaphoreTest {
+
+    private static final String PREFIX = "semaphore/reindex/";
+    private static final String LOCK_KEY = PREFIX + ".lock";
+
+    private Consul consul;
+    private ScheduledExecutorService scheduler;
+    private List<Value> values;
+    private DistributedSemaphore semaphore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        when(consul.sessionClient().createSession(any()).getId()).thenReturn("session-1");
+        when(consul.keyValueClient().acquireLock(anyString(), anyString(), anyString())).thenReturn(true);
+        when(consul.keyValueClient().putValue(eq(LOCK_KEY), anyString(), eq(0L), any(PutOptions.class)))
+            .thenReturn(true);
+
+        values = new ArrayList<>();
+        ConsulResponse<List<Value>> response = mock(ConsulResponse.class);
+        when(response.getResponse()).thenAnswer(invocation -> List.copyOf(values));
+        when(response.getIndex()).thenReturn(BigInteger.TEN);
+        when(consul.keyValueClient().getConsulResponseWithValues(eq(PREFIX), any(QueryOptions.class)))
+            .thenReturn(response);
+
+        scheduler = mock(ScheduledExecutorService.class);
+        semaphore = new DistributedSemaphore(consul, new WatchEngine(new WatchEngineFactory()), PREFIX, 2,
+            "indexer-1", DistributedSemaphore.DEFAULT_SESSION_TTL, ConsulMetrics.noop(), scheduler);
+    }
+
+    private String lastLockWritten() {
+        var json = ArgumentCaptor.forClass(String.class);
+        verify(consul.keyValueClient(), atLeastOnce())
+            .putValue(eq(LOCK_KEY), json.capture(), eq(0L), any(PutOptions.class));
+        return json.getValue();
+    }
+
+    @Test
+    void shouldRequirePrefixEndingWithSlash() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new DistributedSemaphore(consul,
+            new WatchEngine(new WatchEngineFactory()), "semaphore/reindex", 2, "indexer-1", Duration.seconds(15),
+            ConsulMetrics.noop(), scheduler));
+    }
+
+    @Test
+    void shouldRequireSessionTtlThatConsulAccepts() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new DistributedSemaphore(consul,
+            new WatchEngine(new WatchEngineFactory()), PREFIX, 2, "indexer-1", Duration.seconds(5),
+            ConsulMetrics.noop(), scheduler));
+        assertThatIllegalArgumentException().isThrownBy(() -> new DistributedSemaphore(consul,
+            new WatchEngine(new WatchEngineFactory()), PREFIX, 2, "indexer-1", Duration.hours(25),
+            ConsulMetrics.noop(), scheduler));
+    }
+
+    @Test
+    void shouldAcquire_WhenLockKeyDoesNotExist() {
+        assertThat(semaphore.tryAcquire()).isTrue();
+
+        assertThat(semaphore.isHeld()).isTrue();
+        verify(consul.keyValueClient()).acquireLock(PREFIX + "session-1", "indexer-1", "session-1");
+        assertThat(lastLockWritten()).isEqualTo("{\"Limit\":2,\"Holders\":[\"session-1\"]}");
+    }
+
+    @Test
+    void shouldCreateSession_ThatDeletesContenderKeyWhenInvalidated() {
+        semaphore.tryAcquire();
+
+        var session = ArgumentCaptor.forClass(Session.class);
+        verify(consul.sessionClient(), atLeastOnce()).createSession(session.capture());
+        assertThat(session.getValue().getBehavior()).contains("delete");
+    }
+
+    @Test
+    void shouldNotAcquire_WhenAllPermitsAreHeld() {
+        values.add(lockedValue(PREFIX + "session-2", "session-2", "indexer-2", 3));
+        values.add(lockedValue(PREFIX + "session-3", "session-3", "indexer-3", 4));
+        values.add(lockedValue(LOCK_KEY, null, "{\"Limit\":2,\"Holders\":[\"session-2\",\"session-3\"]}", 5));
+
+        assertThat(semaphore.tryAcquire()).isFalse();
+
+        assertThat(semaphore.isHeld()).isFalse();
+        verify(consul.keyValueClient(), never()).putValue(eq(LOCK_KEY), anyString(), eq(0L), any(PutOptions.class));
+        verify(consul.keyValueClient()).deleteKey(PREFIX + "session-1");
+    }
+
+    @Test
+    void shouldPruneHolders_WhoseSessionsAreGone() {
+        values.add(lockedValue(PREFIX + "session-2", "session-2", "indexer-2", 3));
+        values.add(lockedValue(PREFIX + "session-3", null, "indexer-3", 4));
+        values.add(lockedValue(LOCK_KEY, null, "{\"Limit\":2,\"Holders\":[\"session-2\",\"session-3\"]}", 5));
+
+        assertThat(semaphore.tryAcquire()).isTrue();
+
+        assertThat(lastLockWritten()).isEqualTo("{\"Limit\":2,\"Holders\":[\"session-2\",\"session-1\"]}");
+    }
+
+    @Test
+    void shouldRetry_WhenCheckAndSetFails() {
+        when(consul.keyValueClient().putValue(eq(LOCK_KEY), anyString(), eq(0L), any(PutOptions.class)))
+            .thenReturn(false, true);
+
+        assertThat(semaphore.tryAcquire()).isTrue();
+
+        verify(consul.keyValueClient(), times(2)).putValue(eq(LOCK_KEY), anyString(), eq(0L), any(PutOptions.class));
+    }
+
+    @Test
+    void shouldGiveUp_WhenCheckAndSetKeepsFailing() {
+        when(consul.keyValueClient().putValue(eq(LOCK_KEY), anyString(), eq(0L), any(PutOptions.class)))
+            .thenReturn(false);
+
+        assertThat(semaphore.tryAcquire()).isFalse();
+
+        verify(consul.keyValueClient(), times(DistributedSemaphore.MAX_CAS_ATTEMPTS))
+            .putValue(eq(LOCK_KEY), anyString(), eq(0L), any(PutOptions.class));
+    }
+
+    @Test
+    void shouldRemoveHolder_OnRelease() {
+        semaphore.tryAcquire();
+        values.add(lockedValue(PREFIX + "session-1", "session-1", "indexer-1", 6));
+        values.add(lockedValue(LOCK_KEY, null, "{\"Limit\":2,\"Holders\":[\"session-1\"]}", 7));
+
+        semaphore.release();
+
+        assertThat(semaphore.isHeld()).isFalse();
+        assertThat(lastLockWritten()).isEqualTo("{\"Limit\":2,\"Holders\":[]}");
+        verify(consul.keyValueClient()).deleteKey(PREFIX + "session-1");
+    }
+
+    @Test
+    void shouldRunTaskAndRelease_WhenAcquired() {
+        var task = mock(Runnable.class);
+
+        assertThat(semaphore.runIfAcquired(task)).isTrue();
+
+        verify(task).run();
+        assertThat(semaphore.isHeld()).isFalse();
+    }
+
+    @Test
+    void shouldStopHolding_WhenSessionIsLost() {
+        semaphore.tryAcquire();
+        var renew = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleWithFixedDelay(renew.capture(), eq(7_500L), eq(7_500L), eq(TimeUnit.MILLISECONDS));
+        when(consul.sessionClient().renewSession("session-1")).thenReturn(Optional.empty());
+
+        renew.getValue().run();
+
+        assertThat(semaphore.isHeld()).isFalse();
+    }
+
+    @Test
+    void shouldReleaseAndDestroySession_OnStop() {
+        semaphore.start();
+        semaphore.tryAcquire();
+
+        semaphore.stop();
+
+        assertThat(semaphore.isHeld()).isFalse();
+        verify(consul.keyValueClient()).deleteKey(PREFIX + "session-1");
+        verify(consul.sessionClient()).destroySession("session-1");
+        assertThatIllegalStateException().isThrownBy(() -> semaphore.tryAcquire());
+    }
+
+    @Test
+    void shouldTimeOut_WhenNoPermitBecomesAvailable() throws InterruptedException {
+        values.add(lockedValue(PREFIX + "session-2", "session-2", "indexer-2", 3));
+        values.add(lockedValue(PREFIX + "session-3", "session-3", "indexer-3", 4));
+        values.add(lockedValue(LOCK_KEY, null, "{\"Limit\":2,\"Holders\":[\"session-2\",\"session-3\"]}", 5));
+
+        assertThat(semaphore.acquire(Duration.milliseconds(50))).isFalse();
+    }
+}
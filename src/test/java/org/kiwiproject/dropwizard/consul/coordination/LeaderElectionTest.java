@@ -0,0 +1,273 @@
+package org.kiwiproject.dropwizard.consul.coordination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.KeyValues.lockedValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("LeaderElection")
+class LeaderElectionTest {
+
+    private static final String KEY = "service/orders/leader";
+
+    private Consul consul;
+    private ScheduledExecutorService scheduler;
+    private WatchEngine watchEngine;
+    private LeaderElection election;
+    private LeadershipListener listener;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        when(consul.sessionClient().createSession(any()).getId()).thenReturn("session-1");
+        scheduler = mock(ScheduledExecutorService.class);
+        watchEngine = new WatchEngine(new WatchEngineFactory());
+        listener = mock(LeadershipListener.class);
+
+        election = new LeaderElection(consul, watchEngine, new LeaderElectionFactory(), KEY, "orders-1",
+            ConsulMetrics.noop(), scheduler);
+        election.addListener(listener);
+    }
+
+    @Nested
+    class Start {
+
+        @Test
+        void shouldBecomeLeader_WhenLockIsAcquired() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+
+            election.start();
+
+            assertThat(election.isLeader()).isTrue();
+            assertThat(election.getLeader()).contains("orders-1");
+            assertThat(watchEngine.isWatched("kv:" + KEY + ":DEFAULT")).isTrue();
+            verify(listener).onLeadershipGained();
+        }
+
+        @Test
+        void shouldRetry_WhenLockIsNotAcquired() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(false);
+
+            election.start();
+
+            assertThat(election.isLeader()).isFalse();
+            verify(listener, never()).onLeadershipGained();
+            verify(scheduler).schedule(any(Runnable.class), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void shouldRetry_WhenSessionCannotBeCreated() {
+            when(consul.sessionClient().createSession(any())).thenThrow(new ConsulException("unavailable"));
+
+            election.start();
+
+            assertThat(election.isLeader()).isFalse();
+            verify(scheduler).schedule(any(Runnable.class), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Nested
+    class OnLockChange {
+
+        @BeforeEach
+        void setUp() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(false);
+            election.start();
+        }
+
+        @Test
+        void shouldFollow_WhenAnotherSessionHoldsTheLock() {
+            election.onLockChange(List.of(lockedValue(KEY, "session-2", "orders-2", 1)));
+
+            assertThat(election.isLeader()).isFalse();
+            assertThat(election.getLeader()).contains("orders-2");
+        }
+
+        @Test
+        void shouldTryToAcquire_WhenLockIsReleased() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+
+            election.onLockChange(List.of(lockedValue(KEY, null, "orders-2", 1)));
+
+            assertThat(election.isLeader()).isTrue();
+            verify(listener).onLeadershipGained();
+        }
+
+        @Test
+        void shouldTryToAcquire_WhenKeyDoesNotExist() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+
+            election.onLockChange(List.of());
+
+            assertThat(election.isLeader()).isTrue();
+        }
+
+        @Test
+        void shouldLoseLeadership_WhenAnotherSessionTakesTheLock() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.tryAcquire();
+
+            election.onLockChange(List.of(lockedValue(KEY, "session-1", "orders-1", 1)));
+            assertThat(election.isLeader()).isTrue();
+
+            election.onLockChange(List.of(lockedValue(KEY, "session-2", "orders-2", 1)));
+            assertThat(election.isLeader()).isFalse();
+            verify(listener).onLeadershipLost();
+        }
+    }
+
+    @Nested
+    class SessionLoss {
+
+        @Test
+        void shouldLoseLeadership_WhenSessionNoLongerExists() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.start();
+            var renew = ArgumentCaptor.forClass(Runnable.class);
+            verify(scheduler).scheduleWithFixedDelay(renew.capture(), eq(7_500L), eq(7_500L), eq(TimeUnit.MILLISECONDS));
+            when(consul.sessionClient().renewSession("session-1")).thenReturn(Optional.empty());
+
+            renew.getValue().run();
+
+            assertThat(election.isLeader()).isFalse();
+            verify(listener).onLeadershipLost();
+            verify(scheduler).schedule(any(Runnable.class), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void shouldLoseLeadership_WhenRenewalReturnsNotFound() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.start();
+            var renew = ArgumentCaptor.forClass(Runnable.class);
+            verify(scheduler).scheduleWithFixedDelay(renew.capture(), eq(7_500L), eq(7_500L), eq(TimeUnit.MILLISECONDS));
+            var notFound = mock(ConsulException.class);
+            when(notFound.getCode()).thenReturn(404);
+            when(consul.sessionClient().renewSession("session-1")).thenThrow(notFound);
+
+            renew.getValue().run();
+
+            assertThat(election.isLeader()).isFalse();
+            verify(listener).onLeadershipLost();
+            verify(scheduler).schedule(any(Runnable.class), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void shouldKeepLeadership_WhenRenewalFailsWithinTtl() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.start();
+            var renew = ArgumentCaptor.forClass(Runnable.class);
+            verify(scheduler).scheduleWithFixedDelay(renew.capture(), eq(7_500L), eq(7_500L), eq(TimeUnit.MILLISECONDS));
+            when(consul.sessionClient().renewSession("session-1")).thenThrow(new ConsulException("unavailable"));
+
+            renew.getValue().run();
+
+            assertThat(election.isLeader()).isTrue();
+            verify(listener, never()).onLeadershipLost();
+        }
+    }
+
+    @Nested
+    class Stop {
+
+        @Test
+        void shouldReleaseLockAndDestroySession_WhenLeader() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.start();
+
+            election.stop();
+
+            assertThat(election.isLeader()).isFalse();
+            assertThat(watchEngine.watchCount()).isZero();
+            verify(listener).onLeadershipLost();
+            verify(consul.keyValueClient()).releaseLock(KEY, "session-1");
+            verify(consul.sessionClient()).destroySession("session-1");
+        }
+
+        @Test
+        void shouldIgnoreLockChanges_AfterStopping() {
+            election.start();
+            election.stop();
+
+            election.onLockChange(List.of());
+
+            assertThat(election.isLeader()).isFalse();
+        }
+    }
+
+    @Nested
+    class Listeners {
+
+        @Test
+        void shouldNotifyNewListener_WhenAlreadyLeader() {
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.start();
+            var lateListener = mock(LeadershipListener.class);
+
+            election.addListener(lateListener);
+
+            verify(lateListener).onLeadershipGained();
+        }
+
+        @Test
+        void shouldNotifyOtherListeners_WhenOneFails() {
+            var failingListener = mock(LeadershipListener.class);
+            doThrow(new IllegalStateException("boom")).when(failingListener).onLeadershipGained();
+            var otherListener = mock(LeadershipListener.class);
+            election.addListener(failingListener);
+            election.addListener(otherListener);
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+
+            election.start();
+
+            assertThat(election.isLeader()).isTrue();
+            verify(otherListener).onLeadershipGained();
+        }
+    }
+
+    @Nested
+    class RunIfLeader {
+
+        @Test
+        void shouldRunTask_OnlyWhenLeader() {
+            var task = mock(Runnable.class);
+            assertThat(election.runIfLeader(task)).isFalse();
+            verify(task, never()).run();
+
+            when(consul.keyValueClient().acquireLock(KEY, "orders-1", "session-1")).thenReturn(true);
+            election.start();
+
+            assertThat(election.runIfLeader(task)).isTrue();
+            verify(task).run();
+        }
+    }
+
+    @Test
+    void shouldNotScheduleRetry_WhenNotRunning() {
+        election.tryAcquire();
+
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+}
@@ -9,12 +9,14 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.dropwizard.core.setup.Environment;
+import io.dropwizard.util.Duration;
 import io.dropwizard.jetty.MutableServletContextHandler;
 import org.apache.commons.net.util.SubnetUtils;
 import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
@@ -34,7 +36,10 @@ import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.ConsulException;
 import org.kiwiproject.consul.model.agent.ImmutableRegCheck;
 import org.kiwiproject.consul.model.agent.ImmutableRegistration;
+import org.kiwiproject.consul.model.health.Service;
 import org.kiwiproject.dropwizard.consul.ConsulFactory;
+import org.kiwiproject.dropwizard.consul.LocalityFactory;
+import org.kiwiproject.dropwizard.consul.saturation.SaturationMonitorFactory;
 
 import java.util.Collection;
 import java.util.List;
@@ -405,6 +410,39 @@ class ConsulAdvertiserTest {
         verify(agent).register(registration);
     }
 
+    @Test
+    void shouldPublishLocalityAsServiceMeta() {
+        var locality = new LocalityFactory();
+        locality.setZone("us-east-1a");
+        locality.setRack("r42");
+        factory.setLocality(locality);
+        factory.setServiceMeta(Map.of("team", "orders"));
+
+        when(agent.isRegistered(SERVICE_ID)).thenReturn(false);
+        advertiser = new ConsulAdvertiser(environment, factory, consul, SERVICE_ID);
+        registerAndEnsureRegistered(advertiser);
+
+        var registration = ImmutableRegistration.builder()
+            .meta(Map.of("team", "orders"))
+            .putMeta("zone", "us-east-1a")
+            .putMeta("rack", "r42")
+            .putMeta("scheme", "http")
+            .putMeta("applicationScheme", "http")
+            .putMeta("adminScheme", "http")
+            .check(
+                ImmutableRegCheck.builder()
+                    .http(healthCheckUrl)
+                    .interval("30s")
+                    .deregisterCriticalServiceAfter("1m")
+                    .build())
+            .name(SERVICE_NAME)
+            .port(8080)
+            .id(SERVICE_ID)
+            .build();
+
+        verify(agent).register(registration);
+    }
+
     @Test
     void testHealthCheckUrlFromConfig() {
         factory.setServicePort(8888);
@@ -459,6 +497,105 @@ class ConsulAdvertiserTest {
         verify(agent).register(registration);
     }
 
+    @Test
+    void shouldRegisterSaturationCheck_WhenSaturationMonitorIsConfigured() {
+        var saturationConfig = new SaturationMonitorFactory();
+        saturationConfig.setCheckTtl(Duration.seconds(15));
+        factory.setSaturationMonitor(saturationConfig);
+        advertiser = new ConsulAdvertiser(environment, factory, consul, SERVICE_ID);
+
+        when(agent.isRegistered(SERVICE_ID)).thenReturn(false);
+        registerAndEnsureRegistered(advertiser);
+
+        var registration = ImmutableRegistration.builder()
+            .port(8080)
+            .check(
+                ImmutableRegCheck.builder()
+                    .http(healthCheckUrl)
+                    .interval("30s")
+                    .deregisterCriticalServiceAfter("1m")
+                    .build())
+            .addChecks(
+                ImmutableRegCheck.builder()
+                    .id("saturation:" + SERVICE_ID)
+                    .name("Service saturation")
+                    .ttl("15s")
+                    .deregisterCriticalServiceAfter("1m")
+                    .build())
+            .name(SERVICE_NAME)
+            .meta(standardMetaForHttp())
+            .id(SERVICE_ID)
+            .build();
+
+        verify(agent).register(registration);
+    }
+
+    @Nested
+    class DeregisterStaleInstances {
+
+        @Test
+        void shouldDeregisterInstancesWithSameNameAddressAndPort_ButDifferentId() {
+            var stale = mockService("stale-id", SERVICE_NAME, "", 8080);
+            var self = mockService(SERVICE_ID, SERVICE_NAME, "", 8080);
+            var otherPort = mockService("other-port-id", SERVICE_NAME, "", 9090);
+            var otherService = mockService("other-service-id", "other-service", "", 8080);
+            when(agent.getServices()).thenReturn(Map.of(
+                "stale-id", stale,
+                SERVICE_ID, self,
+                "other-port-id", otherPort,
+                "other-service-id", otherService));
+
+            factory.setDeregisterStaleInstances(true);
+            factory.setServiceSubnet(null);
+            advertiser = new ConsulAdvertiser(environment, factory, consul, SERVICE_ID);
+
+            when(agent.isRegistered(SERVICE_ID)).thenReturn(false);
+            registerAndEnsureRegistered(advertiser);
+
+            verify(agent).deregister("stale-id");
+            verify(agent, never()).deregister(SERVICE_ID);
+            verify(agent, never()).deregister("other-port-id");
+            verify(agent, never()).deregister("other-service-id");
+        }
+
+        @Test
+        void shouldNotDeregisterInstancesAtDifferentAddress() {
+            var elsewhere = mockService("elsewhere-id", SERVICE_NAME, "10.1.2.3", 8080);
+            when(agent.getServices()).thenReturn(Map.of("elsewhere-id", elsewhere));
+
+            advertiser.deregisterStaleInstances(agent, SERVICE_NAME, "10.1.2.4", 8080);
+
+            verify(agent, never()).deregister(anyString());
+        }
+
+        @Test
+        void shouldNotCheckForStaleInstances_ByDefault() {
+            when(agent.isRegistered(SERVICE_ID)).thenReturn(false);
+            registerAndEnsureRegistered(advertiser);
+
+            verify(agent, never()).getServices();
+        }
+
+        @Test
+        void shouldStillRegister_WhenUnableToListServices() {
+            when(agent.getServices()).thenThrow(new ConsulException("agent unavailable"));
+            factory.setDeregisterStaleInstances(true);
+            advertiser = new ConsulAdvertiser(environment, factory, consul, SERVICE_ID);
+
+            when(agent.isRegistered(SERVICE_ID)).thenReturn(false);
+            registerAndEnsureRegistered(advertiser);
+        }
+
+        private static Service mockService(String id, String name, String address, int port) {
+            var service = mock(Service.class);
+            when(service.getId()).thenReturn(id);
+            when(service.getService()).thenReturn(name);
+            when(service.getAddress()).thenReturn(address);
+            when(service.getPort()).thenReturn(port);
+            return service;
+        }
+    }
+
     private static Map<String, String> standardMetaForHttp() {
         return standardMetaForScheme("http");
     }
@@ -0,0 +1,69 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("ServiceChange")
+class ServiceChangeTest {
+
+    @Test
+    void shouldBeEmpty_WhenInstancesAreTheSame() {
+        var previous = snapshot(1, instance("orders-1", 8080), instance("orders-2", 8080));
+        var current = snapshot(2, instance("orders-1", 8080), instance("orders-2", 8080));
+
+        var change = ServiceChange.between(previous, current);
+
+        assertThat(change.isEmpty()).isTrue();
+        assertThat(change.serviceName()).isEqualTo("orders");
+    }
+
+    @Test
+    void shouldReportAllInstancesAsAdded_FromEmptySnapshot() {
+        var current = snapshot(5, instance("orders-1", 8080), instance("orders-2", 8080));
+
+        var change = ServiceChange.between(ServiceSnapshot.empty("orders"), current);
+
+        assertThat(change.added()).extracting(ServiceInstance::id).containsExactly("orders-1", "orders-2");
+        assertThat(change.removed()).isEmpty();
+        assertThat(change.changed()).isEmpty();
+    }
+
+    @Test
+    void shouldReportAddedRemovedAndChangedInstances() {
+        var previous = snapshot(1, instance("orders-1", 8080), instance("orders-2", 8080), instance("orders-3", 8080));
+        var current = snapshot(2, instance("orders-2", 9090), instance("orders-3", 8080), instance("orders-4", 8080));
+
+        var change = ServiceChange.between(previous, current);
+
+        assertThat(change.added()).extracting(ServiceInstance::id).containsExactly("orders-4");
+        assertThat(change.removed()).extracting(ServiceInstance::id).containsExactly("orders-1");
+        assertThat(change.changed()).extracting(ServiceInstance::port).containsExactly(9090);
+        assertThat(change.previous()).isSameAs(previous);
+        assertThat(change.current()).isSameAs(current);
+        assertThat(change.isEmpty()).isFalse();
+    }
+
+    @Test
+    void shouldReportAllInstancesAsRemoved_WhenServiceHasNoHealthyInstances() {
+        var previous = snapshot(1, instance("orders-1", 8080));
+
+        var change = ServiceChange.between(previous, snapshot(2));
+
+        assertThat(change.removed()).extracting(ServiceInstance::id).containsExactly("orders-1");
+        assertThat(change.added()).isEmpty();
+    }
+
+    private static ServiceSnapshot snapshot(long index, ServiceInstance... instances) {
+        return new ServiceSnapshot("orders", List.of(instances), index, index);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new ServiceInstance(id, "orders", "node-1", "10.0.0.1", port, List.of(), Map.of(),
+            ServiceInstance.DEFAULT_WEIGHT);
+    }
+}
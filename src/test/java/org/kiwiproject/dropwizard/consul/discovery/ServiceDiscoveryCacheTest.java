@@ -0,0 +1,282 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.dropwizard.consul.discovery.ServiceHealths.serviceHealth;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.HealthClient;
+import org.kiwiproject.consul.model.health.ServiceHealth;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@DisplayName("ServiceDiscoveryCache")
+class ServiceDiscoveryCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Consul consul;
+    private HealthClient healthClient;
+    private ServiceDiscoveryFactory config;
+    private ServiceDiscoveryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class);
+        healthClient = mock(HealthClient.class);
+        when(consul.healthClient()).thenReturn(healthClient);
+
+        config = new ServiceDiscoveryFactory();
+        config.setRetryInterval(Duration.milliseconds(100));
+        config.setMaxRetryInterval(Duration.seconds(1));
+
+        cache = new ServiceDiscoveryCache(consul, config, ConsistencyMode.STALE, ConsulMetrics.noop(), () -> 42L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respondWith(long index, ServiceHealth... instances) {
+        ConsulResponse<List<ServiceHealth>> response = mock(ConsulResponse.class);
+        when(response.getIndex()).thenReturn(BigInteger.valueOf(index));
+        when(response.getResponse()).thenReturn(List.of(instances));
+        when(healthClient.getHealthyServiceInstances(eq("orders"), any(QueryOptions.class))).thenReturn(response);
+    }
+
+    @Test
+    void shouldReturnEmptyInstances_ForUnknownService() {
+        assertThat(cache.getInstances("unknown")).isEmpty();
+        assertThat(cache.getSnapshot("unknown").index()).isZero();
+    }
+
+    @Test
+    void shouldTrackWatchedServices_BeforeStarting() {
+        cache.watch("orders");
+        cache.watch("orders");
+
+        assertThat(cache.getWatchedServices()).containsExactly("orders");
+        assertThat(cache.getSnapshot("orders").isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldReplaceSnapshot_WhenIndexChanges() {
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+
+        var index = cache.poll("orders", null);
+
+        assertThat(index).isEqualTo(BigInteger.TEN);
+        var snapshot = cache.getSnapshot("orders");
+        assertThat(snapshot.index()).isEqualTo(10);
+        assertThat(snapshot.updatedAtMillis()).isEqualTo(42);
+        assertThat(snapshot.instances()).extracting(ServiceInstance::id).containsExactly("orders-1");
+
+        respondWith(11,
+            serviceHealth("orders-1", "orders", "10.0.0.1", 8080),
+            serviceHealth("orders-2", "orders", "10.0.0.2", 8080));
+
+        index = cache.poll("orders", index);
+
+        assertThat(index).isEqualTo(BigInteger.valueOf(11));
+        assertThat(cache.getInstances("orders")).extracting(ServiceInstance::id).containsExactly("orders-1", "orders-2");
+    }
+
+    @Test
+    void shouldKeepSameSnapshot_WhenIndexIsUnchanged() {
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        var index = cache.poll("orders", null);
+        var snapshot = cache.getSnapshot("orders");
+
+        var nextIndex = cache.poll("orders", index);
+
+        assertThat(nextIndex).isEqualTo(index);
+        assertThat(cache.getSnapshot("orders")).isSameAs(snapshot);
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshot_WhenQueryFails() {
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        var index = cache.poll("orders", null);
+        when(healthClient.getHealthyServiceInstances(eq("orders"), any(QueryOptions.class)))
+            .thenThrow(new ConsulException("timeout"));
+
+        assertThatThrownBy(() -> cache.poll("orders", index)).isInstanceOf(ConsulException.class);
+
+        assertThat(cache.getInstances("orders")).hasSize(1);
+    }
+
+    @Test
+    void shouldNotifyListeners_OfChangedInstances() {
+        var changes = new ArrayList<ServiceChange>();
+        cache.addListener("orders", changes::add);
+        cache.addListener("orders", change -> {
+            throw new IllegalStateException("listeners must not affect each other");
+        });
+
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        var index = cache.poll("orders", null);
+        respondWith(11,
+            serviceHealth("orders-1", "orders", "10.0.0.1", 8080),
+            serviceHealth("orders-2", "orders", "10.0.0.2", 8080));
+        index = cache.poll("orders", index);
+        cache.poll("orders", index);
+
+        assertThat(cache.getWatchedServices()).containsExactly("orders");
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(0).added()).extracting(ServiceInstance::id).containsExactly("orders-1");
+        assertThat(changes.get(1).added()).extracting(ServiceInstance::id).containsExactly("orders-2");
+        assertThat(changes.get(1).removed()).isEmpty();
+    }
+
+    @Test
+    void shouldNotifyNewListener_OfCurrentInstances() {
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        var index = cache.poll("orders", null);
+
+        var changes = new ArrayList<ServiceChange>();
+        cache.addListener("orders", changes::add);
+
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).previous().isEmpty()).isTrue();
+        assertThat(changes.get(0).added()).extracting(ServiceInstance::id).containsExactly("orders-1");
+
+        respondWith(11,
+            serviceHealth("orders-1", "orders", "10.0.0.1", 8080),
+            serviceHealth("orders-2", "orders", "10.0.0.2", 8080));
+        cache.poll("orders", index);
+
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(1).added()).extracting(ServiceInstance::id).containsExactly("orders-2");
+    }
+
+    @Test
+    void shouldNotNotifyNewListener_WhenServiceHasNoInstancesYet() {
+        var changes = new ArrayList<ServiceChange>();
+        cache.addListener("orders", changes::add);
+
+        assertThat(changes).isEmpty();
+    }
+
+    @Test
+    void shouldNotNotifyRemovedListeners() {
+        var changes = new ArrayList<ServiceChange>();
+        ServiceChangeListener listener = changes::add;
+        cache.addListener("orders", listener);
+        cache.removeListener("orders", listener);
+
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        cache.poll("orders", null);
+
+        assertThat(changes).isEmpty();
+    }
+
+    @Test
+    void shouldSaveAndRestoreSnapshots() {
+        config.setSnapshotFile(tempDir.resolve("discovery.bin").toString());
+        cache = new ServiceDiscoveryCache(consul, config, ConsistencyMode.STALE, ConsulMetrics.noop(), () -> 42L);
+        cache.watch("orders");
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        cache.poll("orders", null);
+        cache.saveSnapshotsIfChanged();
+
+        var restarted = new ServiceDiscoveryCache(consul, config, ConsistencyMode.STALE, ConsulMetrics.noop(), () -> 43L);
+        restarted.watch("orders");
+        restarted.restoreSnapshots();
+
+        var restored = restarted.getSnapshot("orders");
+        assertThat(restored.stale()).isTrue();
+        assertThat(restored.instances()).extracting(ServiceInstance::id).containsExactly("orders-1");
+
+        restarted.poll("orders", null);
+        assertThat(restarted.getSnapshot("orders").stale()).isFalse();
+    }
+
+    @Test
+    void shouldNotifyListeners_OfRestoredInstances_AndLaterChangesRelativeToThem() {
+        config.setSnapshotFile(tempDir.resolve("discovery.bin").toString());
+        cache = new ServiceDiscoveryCache(consul, config, ConsistencyMode.STALE, ConsulMetrics.noop(), () -> 42L);
+        cache.watch("orders");
+        respondWith(10,
+            serviceHealth("orders-1", "orders", "10.0.0.1", 8080),
+            serviceHealth("orders-2", "orders", "10.0.0.2", 8080));
+        cache.poll("orders", null);
+        cache.saveSnapshotsIfChanged();
+
+        var restarted = new ServiceDiscoveryCache(consul, config, ConsistencyMode.STALE, ConsulMetrics.noop(), () -> 43L);
+        var changes = new ArrayList<ServiceChange>();
+        restarted.addListener("orders", changes::add);
+        restarted.restoreSnapshots();
+
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).current().stale()).isTrue();
+        assertThat(changes.get(0).added()).extracting(ServiceInstance::id).containsExactlyInAnyOrder("orders-1", "orders-2");
+
+        respondWith(11,
+            serviceHealth("orders-2", "orders", "10.0.0.2", 8080),
+            serviceHealth("orders-3", "orders", "10.0.0.3", 8080));
+        restarted.poll("orders", null);
+
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(1).added()).extracting(ServiceInstance::id).containsExactly("orders-3");
+        assertThat(changes.get(1).removed()).extracting(ServiceInstance::id).containsExactly("orders-1");
+
+        var lateChanges = new ArrayList<ServiceChange>();
+        restarted.addListener("orders", lateChanges::add);
+
+        assertThat(lateChanges).hasSize(1);
+        assertThat(lateChanges.get(0).added()).extracting(ServiceInstance::id).containsExactly("orders-2", "orders-3");
+    }
+
+    @Test
+    void shouldStartWithoutSnapshots_WhenSnapshotFileIsInvalid() throws Exception {
+        var file = tempDir.resolve("discovery.bin");
+        Files.writeString(file, "garbage");
+        config.setSnapshotFile(file.toString());
+        cache = new ServiceDiscoveryCache(consul, config, ConsistencyMode.STALE, ConsulMetrics.noop(), () -> 42L);
+
+        cache.restoreSnapshots();
+
+        assertThat(cache.getSnapshot("orders").isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldUseConfiguredConsistencyMode() {
+        respondWith(10, serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+        var index = cache.poll("orders", null);
+        cache.poll("orders", index);
+
+        var captor = ArgumentCaptor.forClass(QueryOptions.class);
+        verify(healthClient, times(2)).getHealthyServiceInstances(eq("orders"), captor.capture());
+        assertThat(captor.getAllValues())
+            .extracting(QueryOptions::getConsistencyMode)
+            .containsOnly(ConsistencyMode.STALE);
+    }
+
+    @Test
+    void shouldBackOffExponentially_UpToMaxRetryInterval() {
+        assertThat(cache.retryDelayMillis(1)).isEqualTo(100);
+        assertThat(cache.retryDelayMillis(2)).isEqualTo(200);
+        assertThat(cache.retryDelayMillis(4)).isEqualTo(800);
+        assertThat(cache.retryDelayMillis(5)).isEqualTo(1_000);
+        assertThat(cache.retryDelayMillis(100)).isEqualTo(1_000);
+    }
+}
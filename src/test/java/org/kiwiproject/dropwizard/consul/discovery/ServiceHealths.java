@@ -0,0 +1,53 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.kiwiproject.consul.model.catalog.ServiceWeights;
+import org.kiwiproject.consul.model.health.Node;
+import org.kiwiproject.consul.model.health.Service;
+import org.kiwiproject.consul.model.health.ServiceHealth;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Test helpers for creating mock {@link ServiceHealth} entries.
+ */
+final class ServiceHealths {
+
+    private ServiceHealths() {
+        // utility class
+    }
+
+    static ServiceHealth serviceHealth(String id, String serviceName, String address, int port) {
+        return serviceHealth(id, serviceName, address, port, null);
+    }
+
+    static ServiceHealth serviceHealth(String id, String serviceName, String address, int port, Integer passingWeight) {
+        var service = mock(Service.class);
+        when(service.getId()).thenReturn(id);
+        when(service.getService()).thenReturn(serviceName);
+        when(service.getAddress()).thenReturn(address);
+        when(service.getPort()).thenReturn(port);
+        when(service.getTags()).thenReturn(List.of("tag1"));
+        when(service.getMeta()).thenReturn(Map.of("scheme", "http"));
+        if (passingWeight == null) {
+            when(service.getWeights()).thenReturn(Optional.empty());
+        } else {
+            var weights = mock(ServiceWeights.class);
+            when(weights.getPassing()).thenReturn(passingWeight);
+            when(service.getWeights()).thenReturn(Optional.of(weights));
+        }
+
+        var node = mock(Node.class);
+        when(node.getNode()).thenReturn("node-" + id);
+        when(node.getAddress()).thenReturn("10.0.0.100");
+
+        var serviceHealth = mock(ServiceHealth.class);
+        when(serviceHealth.getService()).thenReturn(service);
+        when(serviceHealth.getNode()).thenReturn(node);
+        return serviceHealth;
+    }
+}
@@ -0,0 +1,51 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.discovery.ServiceHealths.serviceHealth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("ServiceInstance")
+class ServiceInstanceTest {
+
+    @Test
+    void shouldCreateFromServiceHealth() {
+        var instance = ServiceInstance.from(serviceHealth("orders-1", "orders", "10.0.0.1", 8080, 5));
+
+        assertThat(instance.id()).isEqualTo("orders-1");
+        assertThat(instance.serviceName()).isEqualTo("orders");
+        assertThat(instance.node()).isEqualTo("node-orders-1");
+        assertThat(instance.address()).isEqualTo("10.0.0.1");
+        assertThat(instance.port()).isEqualTo(8080);
+        assertThat(instance.tags()).containsExactly("tag1");
+        assertThat(instance.meta()).containsEntry("scheme", "http");
+        assertThat(instance.weight()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldUseNodeAddress_WhenServiceHasNoAddress() {
+        var instance = ServiceInstance.from(serviceHealth("orders-1", "orders", "", 8080));
+
+        assertThat(instance.address()).isEqualTo("10.0.0.100");
+    }
+
+    @Test
+    void shouldUseDefaultWeight_WhenServiceHasNoWeights() {
+        var instance = ServiceInstance.from(serviceHealth("orders-1", "orders", "10.0.0.1", 8080));
+
+        assertThat(instance.weight()).isEqualTo(ServiceInstance.DEFAULT_WEIGHT);
+    }
+
+    @Test
+    void shouldFormatHostAndPort() {
+        var ipv4 = new ServiceInstance("a", "orders", "node", "10.0.0.1", 8080, List.of(), Map.of(), 1);
+        var ipv6 = new ServiceInstance("b", "orders", "node", "fd00::1", 8080, List.of(), Map.of(), 1);
+
+        assertThat(ipv4.hostAndPort()).isEqualTo("10.0.0.1:8080");
+        assertThat(ipv6.hostAndPort()).isEqualTo("[fd00::1]:8080");
+    }
+}
@@ -0,0 +1,74 @@
+package org.kiwiproject.dropwizard.consul.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("SnapshotStore")
+class SnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldLoadNothing_WhenFileDoesNotExist() throws IOException {
+        var store = new SnapshotStore(tempDir.resolve("missing.bin"));
+
+        assertThat(store.load()).isEmpty();
+    }
+
+    @Test
+    void shouldRoundTripSnapshots_AsStale() throws IOException {
+        var store = new SnapshotStore(tempDir.resolve("nested/discovery.bin"));
+        var orders = new ServiceSnapshot("orders", List.of(
+            new ServiceInstance("orders-1", "orders", "node-1", "10.0.0.1", 8080, List.of("a", "b"),
+                Map.of("zone", "us-east-1a", "scheme", "https"), 3),
+            new ServiceInstance("orders-2", "orders", "node-2", "fd00::2", 8081, List.of(), Map.of(), 1)),
+            42, 1_000);
+        var inventory = new ServiceSnapshot("inventory", List.of(), 7, 2_000);
+
+        store.save(List.of(orders, inventory));
+        var loaded = store.load();
+
+        assertThat(loaded).containsOnlyKeys("orders", "inventory");
+        var loadedOrders = loaded.get("orders");
+        assertThat(loadedOrders.stale()).isTrue();
+        assertThat(loadedOrders.instances()).isEqualTo(orders.instances());
+        assertThat(loadedOrders.index()).isEqualTo(42);
+        assertThat(loadedOrders.updatedAtMillis()).isEqualTo(1_000);
+        assertThat(loaded.get("inventory").isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldReplaceFile_WithoutLeavingTemporaryFiles() throws IOException {
+        var file = tempDir.resolve("discovery.bin");
+        var store = new SnapshotStore(file);
+
+        store.save(List.of(new ServiceSnapshot("orders", List.of(), 1, 1)));
+        store.save(List.of(new ServiceSnapshot("inventory", List.of(), 2, 2)));
+
+        assertThat(store.load()).containsOnlyKeys("inventory");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void shouldRejectOtherFiles() throws IOException {
+        var file = tempDir.resolve("discovery.bin");
+        Files.writeString(file, "not a snapshot file");
+
+        assertThatThrownBy(() -> new SnapshotStore(file).load())
+            .isInstanceOf(IOException.class)
+            .hasMessage("Not a service snapshot file");
+    }
+}
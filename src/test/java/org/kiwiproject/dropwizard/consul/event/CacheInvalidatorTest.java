@@ -0,0 +1,211 @@
+package org.kiwiproject.dropwizard.consul.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.event.Event;
+import org.kiwiproject.consul.option.EventOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("CacheInvalidator")
+class CacheInvalidatorTest {
+
+    private Consul consul;
+    private ScheduledExecutorService scheduler;
+    private WatchEngine watchEngine;
+    private CacheInvalidator invalidator;
+    private CacheInvalidationListener ordersListener;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        scheduler = mock(ScheduledExecutorService.class);
+        watchEngine = new WatchEngine(new WatchEngineFactory());
+        invalidator = new CacheInvalidator(consul, watchEngine, new CacheInvalidationFactory(), ConsulMetrics.noop(),
+            scheduler);
+        ordersListener = mock(CacheInvalidationListener.class);
+        invalidator.register("orders", ordersListener);
+    }
+
+    private static Event event(String id, String payload) {
+        var event = mock(Event.class);
+        when(event.getId()).thenReturn(id);
+        var encoded = Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        when(event.getPayload()).thenReturn(Optional.of(encoded));
+        return event;
+    }
+
+    @Nested
+    class Firing {
+
+        @Test
+        void shouldFireEvent_WithKeys() {
+            invalidator.invalidate("orders", List.of("42"));
+
+            verify(consul.eventClient()).fireEvent("cache-invalidation", EventOptions.BLANK,
+                "{\"cache\":\"orders\",\"keys\":[\"42\"]}");
+        }
+
+        @Test
+        void shouldFireEvent_WithoutKeys_ToInvalidateAll() {
+            invalidator.invalidateAll("orders");
+
+            verify(consul.eventClient()).fireEvent("cache-invalidation", EventOptions.BLANK, "{\"cache\":\"orders\"}");
+        }
+
+        @Test
+        void shouldRejectEmptyKeys() {
+            assertThatIllegalArgumentException().isThrownBy(() -> invalidator.invalidate("orders", List.of()));
+        }
+
+        @Test
+        void shouldRejectPayload_ThatIsTooLarge() {
+            var keys = Collections.nCopies(100, "order-12345");
+
+            assertThatIllegalArgumentException().isThrownBy(() -> invalidator.invalidate("orders", keys));
+            verify(consul.eventClient(), never()).fireEvent(any(), any(EventOptions.class), any());
+        }
+    }
+
+    @Nested
+    class Receiving {
+
+        @BeforeEach
+        void setUp() {
+            invalidator.onEvents(List.of(event("old-1", "{\"cache\":\"orders\",\"keys\":[\"1\"]}")));
+        }
+
+        @Test
+        void shouldWatchEvents_OnStart() {
+            invalidator.start();
+
+            assertThat(watchEngine.isWatched("event:cache-invalidation")).isTrue();
+
+            invalidator.stop();
+            assertThat(watchEngine.isWatched("event:cache-invalidation")).isFalse();
+        }
+
+        @Test
+        void shouldSkipEvents_BufferedBeforeFirstQuery() {
+            invalidator.onEvents(List.of(event("old-1", "{\"cache\":\"orders\",\"keys\":[\"1\"]}")));
+            invalidator.flush();
+
+            verifyNoInteractions(ordersListener);
+            verifyNoInteractions(scheduler);
+        }
+
+        @Test
+        void shouldDeliverNewEvents_AfterCoalesceWindow() {
+            invalidator.onEvents(List.of(
+                event("old-1", "{\"cache\":\"orders\",\"keys\":[\"1\"]}"),
+                event("new-1", "{\"cache\":\"orders\",\"keys\":[\"2\"]}")));
+
+            verify(scheduler).schedule(any(Runnable.class), eq(200L), eq(TimeUnit.MILLISECONDS));
+            verifyNoInteractions(ordersListener);
+
+            invalidator.flush();
+
+            verify(ordersListener).invalidateKeys(Set.of("2"));
+        }
+
+        @Test
+        void shouldCoalesceBurst_IntoOneCall() {
+            var events = new ArrayList<Event>();
+            events.add(event("new-1", "{\"cache\":\"orders\",\"keys\":[\"2\"]}"));
+            invalidator.onEvents(List.copyOf(events));
+            events.add(event("new-2", "{\"cache\":\"orders\",\"keys\":[\"3\",\"4\"]}"));
+            invalidator.onEvents(List.copyOf(events));
+
+            invalidator.flush();
+
+            verify(scheduler, times(1)).schedule(any(Runnable.class), eq(200L), eq(TimeUnit.MILLISECONDS));
+            verify(ordersListener).invalidateKeys(Set.of("2", "3", "4"));
+        }
+
+        @Test
+        void shouldInvalidateAll_WhenAnyEventOfBurstHasNoKeys() {
+            invalidator.onEvents(List.of(
+                event("new-1", "{\"cache\":\"orders\",\"keys\":[\"2\"]}"),
+                event("new-2", "{\"cache\":\"orders\"}")));
+
+            invalidator.flush();
+
+            verify(ordersListener).invalidateAll();
+            verify(ordersListener, never()).invalidateKeys(any());
+        }
+
+        @Test
+        void shouldDeduplicate_ByEventId() {
+            var newEvent = event("new-1", "{\"cache\":\"orders\",\"keys\":[\"2\"]}");
+            invalidator.onEvents(List.of(newEvent));
+            invalidator.flush();
+
+            invalidator.onEvents(List.of(newEvent));
+            invalidator.flush();
+
+            verify(ordersListener, times(1)).invalidateKeys(Set.of("2"));
+        }
+
+        @Test
+        void shouldIgnoreEvents_ForCachesWithoutListeners_AndInvalidPayloads() {
+            invalidator.onEvents(List.of(
+                event("new-1", "{\"cache\":\"customers\",\"keys\":[\"2\"]}"),
+                event("new-2", "not json")));
+
+            verifyNoInteractions(scheduler);
+        }
+
+        @Test
+        void shouldAcceptPayloads_ThatAreNotEncoded() {
+            var event = mock(Event.class);
+            when(event.getId()).thenReturn("new-1");
+            when(event.getPayload()).thenReturn(Optional.of("{\"cache\":\"orders\",\"keys\":[\"2\"]}"));
+
+            invalidator.onEvents(List.of(event));
+            invalidator.flush();
+
+            verify(ordersListener).invalidateKeys(Set.of("2"));
+        }
+
+        @Test
+        void shouldNotifyOtherListeners_WhenOneFails() {
+            var failingListener = mock(CacheInvalidationListener.class);
+            doThrow(new IllegalStateException("boom")).when(failingListener).invalidateKeys(any());
+            var otherListener = mock(CacheInvalidationListener.class);
+            invalidator.register("customers", failingListener);
+            invalidator.register("customers", otherListener);
+
+            invalidator.onEvents(List.of(event("new-1", "{\"cache\":\"customers\",\"keys\":[\"7\"]}")));
+            invalidator.flush();
+
+            verify(otherListener).invalidateKeys(Set.of("7"));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.kiwiproject.dropwizard.consul.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.health.HealthCheck.Result;
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("AsyncConsulHealthCheck")
+class AsyncConsulHealthCheckTest {
+
+    private ConsulHealthCheck delegate;
+    private ScheduledExecutorService scheduler;
+    private AtomicLong now;
+    private AsyncConsulHealthCheck healthCheck;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ConsulHealthCheck.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        now = new AtomicLong(1_000_000);
+
+        var config = new AgentHealthCheckFactory();
+        config.setInterval(Duration.seconds(5));
+        config.setStaleThreshold(Duration.seconds(15));
+
+        healthCheck = new AsyncConsulHealthCheck(delegate, config, scheduler, now::get);
+    }
+
+    @Test
+    void shouldSchedulePings_WhenStarted() {
+        healthCheck.start();
+
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldCancelPings_WhenStopped() {
+        var future = mock(ScheduledFuture.class);
+        doReturn(future).when(scheduler)
+            .scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+
+        healthCheck.start();
+        healthCheck.stop();
+
+        verify(future).cancel(false);
+    }
+
+    @Test
+    void shouldBeUnhealthy_BeforeFirstPing() {
+        var result = healthCheck.execute();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Consul agent has not been pinged yet");
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void shouldReturnCachedResult_WithoutPinging() {
+        when(delegate.check()).thenReturn(Result.healthy());
+        healthCheck.ping();
+
+        now.addAndGet(2_000);
+        var result = healthCheck.execute();
+
+        assertThat(result.isHealthy()).isTrue();
+        assertThat(result.getDetails())
+            .containsEntry("ageMillis", 2_000L)
+            .containsEntry("consecutiveFailures", 0);
+        verify(delegate).check();
+    }
+
+    @Test
+    void shouldReportPingRoundTripTimes() {
+        when(delegate.check()).thenReturn(Result.healthy());
+        healthCheck.ping();
+        healthCheck.ping();
+        healthCheck.ping();
+
+        var result = healthCheck.execute();
+
+        assertThat(result.getDetails()).containsKey("pingRttMillis");
+        @SuppressWarnings("unchecked")
+        var rtt = (Map<String, Object>) result.getDetails().get("pingRttMillis");
+        assertThat(rtt)
+            .containsEntry("count", 3)
+            .containsKeys("p50", "p95", "p99", "max");
+    }
+
+    @Test
+    void shouldCountConsecutiveFailures_AndResetOnSuccess() {
+        when(delegate.check())
+            .thenReturn(Result.unhealthy("Could not ping consul"))
+            .thenReturn(Result.unhealthy("Could not ping consul"))
+            .thenReturn(Result.healthy());
+
+        healthCheck.ping();
+        healthCheck.ping();
+        var failed = healthCheck.execute();
+
+        assertThat(failed.isHealthy()).isFalse();
+        assertThat(failed.getMessage()).isEqualTo("Could not ping consul");
+        assertThat(failed.getDetails()).containsEntry("consecutiveFailures", 2);
+
+        healthCheck.ping();
+        var recovered = healthCheck.execute();
+
+        assertThat(recovered.isHealthy()).isTrue();
+        assertThat(recovered.getDetails()).containsEntry("consecutiveFailures", 0);
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenDelegateThrowsUnexpectedException() {
+        var error = new IllegalStateException("oops");
+        when(delegate.check()).thenThrow(error);
+
+        healthCheck.ping();
+        var result = healthCheck.execute();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getError()).isSameAs(error);
+        assertThat(result.getDetails()).containsEntry("consecutiveFailures", 1);
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenLastPingIsStale() {
+        when(delegate.check()).thenReturn(Result.healthy());
+        healthCheck.ping();
+
+        now.addAndGet(15_001);
+        var result = healthCheck.execute();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Last Consul agent ping completed 15001 ms ago");
+        assertThat(result.getDetails()).containsEntry("ageMillis", 15_001L);
+    }
+}
@@ -0,0 +1,230 @@
+package org.kiwiproject.dropwizard.consul.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.AgentClient;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.HealthClient;
+import org.kiwiproject.consul.StatusClient;
+import org.kiwiproject.consul.model.health.HealthCheck;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("ConsulClusterHealthCheck")
+class ConsulClusterHealthCheckTest {
+
+    private static final String SERVICE_NAME = "orders";
+    private static final String SERVICE_ID = "orders-1";
+    private static final String NODE_NAME = "node-1";
+
+    private StatusClient statusClient;
+    private HealthClient healthClient;
+    private AgentClient agentClient;
+    private ConsulResponse<List<HealthCheck>> response;
+    private ScheduledExecutorService scheduler;
+    private AtomicLong now;
+    private ConsulClusterHealthCheck healthCheck;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        var consul = mock(Consul.class);
+        statusClient = mock(StatusClient.class);
+        healthClient = mock(HealthClient.class);
+        agentClient = mock(AgentClient.class, RETURNS_DEEP_STUBS);
+        response = mock(ConsulResponse.class);
+        when(consul.statusClient()).thenReturn(statusClient);
+        when(consul.healthClient()).thenReturn(healthClient);
+        when(consul.agentClient()).thenReturn(agentClient);
+        when(agentClient.getAgent().getConfig().getNodeName()).thenReturn(NODE_NAME);
+        when(healthClient.getNodeChecks(eq(NODE_NAME), any(QueryOptions.class))).thenReturn(response);
+
+        when(statusClient.getLeader()).thenReturn("10.0.0.1:8300");
+        when(response.isKnownLeader()).thenReturn(true);
+        when(response.getLastContact()).thenReturn(20L);
+        var agentChecks = Map.of(
+            "service:orders-1", check("service:orders-1", SERVICE_ID, "passing"),
+            "saturation:orders-1", check("saturation:orders-1", SERVICE_ID, "warning"),
+            "service:billing-1", check("service:billing-1", "billing-1", "critical"));
+        when(agentClient.getChecks()).thenReturn(agentChecks);
+
+        var config = new ClusterHealthCheckFactory();
+        config.setSampleInterval(Duration.seconds(10));
+        config.setMaxLastContact(Duration.seconds(2));
+
+        scheduler = mock(ScheduledExecutorService.class);
+        now = new AtomicLong(1_000_000);
+        healthCheck = new ConsulClusterHealthCheck(
+            consul, SERVICE_NAME, SERVICE_ID, config, ConsulMetrics.noop(), scheduler, now::get);
+    }
+
+    private static HealthCheck check(String checkId, String serviceId, String status) {
+        var check = mock(HealthCheck.class);
+        when(check.getCheckId()).thenReturn(checkId);
+        when(check.getServiceId()).thenReturn(Optional.of(serviceId));
+        when(check.getStatus()).thenReturn(status);
+        return check;
+    }
+
+    private com.codahale.metrics.health.HealthCheck.Result sampleAndCheck() {
+        healthCheck.sample();
+        return healthCheck.execute();
+    }
+
+    @Test
+    void shouldScheduleSamples_WhenStarted() {
+        healthCheck.start();
+
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(10_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldCancelSamples_WhenStopped() {
+        var future = mock(ScheduledFuture.class);
+        doReturn(future).when(scheduler)
+            .scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+
+        healthCheck.start();
+        healthCheck.stop();
+
+        verify(future).cancel(false);
+    }
+
+    @Test
+    void shouldBeUnhealthy_BeforeFirstSample() {
+        var result = healthCheck.execute();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Consul cluster has not been sampled yet");
+        verifyNoInteractions(statusClient, healthClient);
+    }
+
+    @Test
+    void shouldBeHealthy_WhenClusterHasLeaderAndServerIsNotLagging() {
+        var result = sampleAndCheck();
+
+        assertThat(result.isHealthy()).isTrue();
+        assertThat(result.getDetails())
+            .containsEntry("leader", "10.0.0.1:8300")
+            .containsEntry("knownLeader", true)
+            .containsEntry("lastContactMillis", 20L)
+            .containsEntry("serviceChecks", Map.of("service:orders-1", "passing", "saturation:orders-1", "warning"));
+    }
+
+    @Test
+    void shouldStripQuotesFromLeader() {
+        when(statusClient.getLeader()).thenReturn("\"10.0.0.1:8300\"");
+
+        var result = sampleAndCheck();
+
+        assertThat(result.getDetails()).containsEntry("leader", "10.0.0.1:8300");
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenClusterHasNoLeader() {
+        when(statusClient.getLeader()).thenReturn("");
+
+        var result = sampleAndCheck();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Consul cluster has no leader");
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenServerDoesNotKnowLeader() {
+        when(response.isKnownLeader()).thenReturn(false);
+
+        var result = sampleAndCheck();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Consul server does not know of a leader");
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenServerIsLagging() {
+        when(response.getLastContact()).thenReturn(2_001L);
+
+        var result = sampleAndCheck();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Consul server last contacted the leader 2001 ms ago");
+    }
+
+    @Test
+    void shouldRemainHealthy_WhenOwnServiceCheckIsCritical() {
+        var criticalCheck = check("service:orders-1", SERVICE_ID, "critical");
+        when(agentClient.getChecks()).thenReturn(Map.of("service:orders-1", criticalCheck));
+
+        var result = sampleAndCheck();
+
+        assertThat(result.isHealthy()).isTrue();
+        assertThat(result.getDetails()).containsEntry("serviceChecks", Map.of("service:orders-1", "critical"));
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenConsulCannotBeReached() {
+        var error = new ConsulException("connection refused");
+        when(statusClient.getLeader()).thenThrow(error);
+
+        var result = sampleAndCheck();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getError()).isSameAs(error);
+    }
+
+    @Test
+    void shouldReturnCachedSample_WithoutCallingConsul() {
+        healthCheck.sample();
+        now.addAndGet(9_999);
+
+        var result = healthCheck.execute();
+        healthCheck.execute();
+
+        verify(statusClient, times(1)).getLeader();
+        assertThat(result.getDetails()).containsEntry("sampleAgeMillis", 9_999L);
+    }
+
+    @Test
+    void shouldLookUpLocalNodeName_Once() {
+        healthCheck.sample();
+        healthCheck.sample();
+
+        verify(agentClient.getAgent().getConfig(), times(1)).getNodeName();
+        verify(healthClient, times(2)).getNodeChecks(eq(NODE_NAME), any(QueryOptions.class));
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenLastSampleIsStale() {
+        healthCheck.sample();
+        now.addAndGet(30_001);
+
+        var result = healthCheck.execute();
+
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Last Consul cluster sample completed 30001 ms ago");
+    }
+}
@@ -0,0 +1,74 @@
+package org.kiwiproject.dropwizard.consul.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiwiproject.dropwizard.consul.jfr.ConsulOperationEvent.Outcome;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@DisplayName("ConsulOperationEvent")
+class ConsulOperationEventTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void shouldRecordOperationTargetOutcomeAndSize() throws IOException {
+        var events = record(() -> {
+            var event = ConsulOperationEvent.begin("kv.get", "service/db/url");
+            event.end(Outcome.SUCCESS, 42);
+        });
+
+        assertThat(events).hasSize(1);
+        var event = events.get(0);
+        assertThat(event.getString("operation")).isEqualTo("kv.get");
+        assertThat(event.getString("target")).isEqualTo("service/db/url");
+        assertThat(event.getString("outcome")).isEqualTo("SUCCESS");
+        assertThat(event.getLong("responseSize")).isEqualTo(42);
+        assertThat(event.getDuration()).isGreaterThanOrEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void shouldRecordFailure() throws IOException {
+        var events = record(() -> ConsulOperationEvent.begin("agent.ping", null).end(false));
+
+        assertThat(events).singleElement()
+            .satisfies(event -> {
+                assertThat(event.getString("operation")).isEqualTo("agent.ping");
+                assertThat(event.getString("target")).isNull();
+                assertThat(event.getString("outcome")).isEqualTo("FAILURE");
+                assertThat(event.getLong("responseSize")).isZero();
+            });
+    }
+
+    @Test
+    void shouldNotFail_WhenNoRecordingIsRunning() {
+        var event = ConsulOperationEvent.begin("agent.register", "service-1");
+        event.end(Outcome.SKIPPED, 0);
+
+        assertThat(event.isEnabled()).isFalse();
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws IOException {
+        var file = tempDir.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(ConsulOperationEvent.NAME);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals(ConsulOperationEvent.NAME))
+            .toList();
+    }
+}
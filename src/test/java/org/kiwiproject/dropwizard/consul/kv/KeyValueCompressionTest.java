@@ -0,0 +1,91 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.dropwizard.consul.KeyValues.binaryValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.option.PutOptions;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+@DisplayName("KeyValueCompression")
+class KeyValueCompressionTest {
+
+    private static final String KEY = "config/orders/catalog";
+    private static final String JSON = "{\"maxOrders\": 25, \"regions\": [\"us-east\", \"eu-west\"]}".repeat(20);
+
+    @Test
+    void shouldRoundTrip() {
+        var bytes = JSON.getBytes(StandardCharsets.UTF_8);
+
+        var compressed = KeyValueCompression.compress(bytes);
+
+        assertThat(compressed.length).isLessThan(bytes.length);
+        assertThat(KeyValueCompression.decompress(compressed)).isEqualTo(bytes);
+    }
+
+    @Test
+    void shouldDecodeCompressedValues_MarkedByFlagBit() {
+        var compressed = binaryValue(KEY, KeyValueCompression.compress(JSON.getBytes(StandardCharsets.UTF_8)),
+            KeyValueCompression.GZIP_FLAG | 0x5);
+
+        assertThat(KeyValueCompression.isCompressed(compressed)).isTrue();
+        assertThat(KeyValueCompression.decodeToString(compressed)).contains(JSON);
+        assertThat(KeyValueCompression.decode(compressed)).isEqualTo(JSON.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldDecodeUncompressedValues_AsIs() {
+        var plain = binaryValue(KEY, JSON.getBytes(StandardCharsets.UTF_8), 0x5);
+
+        assertThat(KeyValueCompression.isCompressed(plain)).isFalse();
+        assertThat(KeyValueCompression.decodeToString(plain)).contains(JSON);
+        assertThat(KeyValueCompression.decode(plain)).isEqualTo(JSON.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldThrow_WhenCompressedValueIsCorrupt() {
+        var corrupt = binaryValue(KEY, "not gzip".getBytes(StandardCharsets.UTF_8), KeyValueCompression.GZIP_FLAG);
+
+        assertThatThrownBy(() -> KeyValueCompression.decodeToString(corrupt)).isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void shouldPutCompressedValue_WithFlagBit() {
+        var consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        when(consul.keyValueClient().putValue(eq("config/orders"), any(byte[].class), anyLong(), any(PutOptions.class)))
+            .thenReturn(true);
+
+        var size = KeyValueCompression.putCompressed(consul, "config/orders", JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(size).isLessThan(JSON.length());
+        verify(consul.keyValueClient()).putValue(eq("config/orders"), any(byte[].class),
+            eq(KeyValueCompression.GZIP_FLAG), any(PutOptions.class));
+    }
+
+    @Test
+    void shouldRejectValues_ThatExceedConsulLimit_WhenCompressed() {
+        var consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        var incompressible = new byte[KeyValueCompression.MAX_VALUE_BYTES + 1];
+        new Random(42).nextBytes(incompressible);
+
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> KeyValueCompression.putCompressed(consul, "blob", incompressible));
+        verify(consul.keyValueClient(), never()).putValue(anyString(), any(byte[].class), anyLong(), any(PutOptions.class));
+    }
+}
@@ -0,0 +1,84 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.KeyValues.value;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngine;
+import org.kiwiproject.dropwizard.consul.watch.WatchEngineFactory;
+
+import java.math.BigInteger;
+import java.util.List;
+
+@DisplayName("KeyValueMirror")
+class KeyValueMirrorTest {
+
+    private Consul consul;
+    private WatchEngine watchEngine;
+    private KeyValueMirror mirror;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        watchEngine = new WatchEngine(new WatchEngineFactory());
+        mirror = new KeyValueMirror(consul, watchEngine, ConsulMetrics.noop(), ConsistencyMode.DEFAULT,
+            "config/orders/");
+    }
+
+    @Test
+    void shouldBeEmpty_UntilPrefixIsRead() {
+        assertThat(mirror.snapshot().size()).isZero();
+        assertThat(mirror.get("config/orders/max")).isEmpty();
+        assertThat(watchEngine.isWatched("kv:config/orders/:DEFAULT")).isTrue();
+    }
+
+    @Test
+    void shouldReplaceSnapshot_OnUpdate() {
+        mirror.update(List.of(value("config/orders/max", "100", 5)));
+        var first = mirror.snapshot();
+
+        mirror.update(List.of(value("config/orders/max", "200", 6), value("config/orders/min", "1", 6)));
+
+        assertThat(first.get("config/orders/max")).contains("100");
+        assertThat(mirror.get("config/orders/max")).contains("200");
+        assertThat(mirror.getOrDefault("config/orders/min", "0")).isEqualTo("1");
+        assertThat(mirror.getAllWithPrefix("config/orders/")).hasSize(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReadPrefix_WithRecursiveBlockingQuery() {
+        var values = List.of(value("config/orders/max", "100", 5));
+        ConsulResponse<List<Value>> response = mock(ConsulResponse.class);
+        when(response.getResponse()).thenReturn(values);
+        when(response.getIndex()).thenReturn(BigInteger.valueOf(5));
+        when(consul.keyValueClient().getConsulResponseWithValues(eq("config/orders/"), any(QueryOptions.class)))
+            .thenReturn(response);
+
+        var query = new KeyValueQuery(consul, ConsulMetrics.noop(), ConsistencyMode.DEFAULT, "config/orders/");
+        var result = query.execute(null, 0);
+
+        assertThat(result.value()).hasSize(1);
+        assertThat(result.index()).isEqualTo(BigInteger.valueOf(5));
+    }
+
+    @Test
+    void shouldStopWatching_WhenClosed() {
+        mirror.close();
+
+        assertThat(watchEngine.isWatched("kv:config/orders/:DEFAULT")).isFalse();
+    }
+}
@@ -0,0 +1,169 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.ConsulResponse;
+import org.kiwiproject.consul.model.kv.Value;
+import org.kiwiproject.consul.option.ConsistencyMode;
+import org.kiwiproject.consul.option.QueryOptions;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+@DisplayName("KeyValueReader")
+class KeyValueReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Consul consul;
+    private KeyValueReader reader;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        reader = new KeyValueReader(consul, ConsulMetrics.noop(), ConsistencyMode.DEFAULT);
+    }
+
+    private void respondWith(String key, byte[] bytes) {
+        respondWith(key, bytes, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respondWith(String key, byte[] bytes, long flags) {
+        var value = mock(Value.class);
+        when(value.getKey()).thenReturn(key);
+        when(value.getValue()).thenReturn(Optional.of(Base64.getEncoder().encodeToString(bytes)));
+        when(value.getFlags()).thenReturn(flags);
+        ConsulResponse<Value> response = mock(ConsulResponse.class);
+        when(response.getResponse()).thenReturn(value);
+        when(consul.keyValueClient().getConsulResponseWithValue(eq(key), any(QueryOptions.class)))
+            .thenReturn(Optional.of(response));
+    }
+
+    private static byte[] randomBytes(int size) {
+        var bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void shouldReadBinaryValue_AsBytes() {
+        var bytes = randomBytes(1_000);
+        respondWith("certs/server.der", bytes);
+
+        assertThat(reader.getBytes("certs/server.der")).hasValueSatisfying(value -> assertThat(value).isEqualTo(bytes));
+    }
+
+    @Test
+    void shouldReadValue_AsReadOnlyBuffer() {
+        respondWith("blob", new byte[] { 1, 2, 3 });
+
+        var buffer = reader.getByteBuffer("blob").orElseThrow();
+
+        assertThat(buffer.remaining()).isEqualTo(3);
+        assertThat(buffer.get(2)).isEqualTo((byte) 3);
+        assertThatThrownBy(() -> buffer.put((byte) 0)).isInstanceOf(ReadOnlyBufferException.class);
+    }
+
+    @Test
+    void shouldReturnEmpty_WhenKeyDoesNotExist() {
+        when(consul.keyValueClient().getConsulResponseWithValue(eq("missing"), any(QueryOptions.class)))
+            .thenReturn(Optional.empty());
+
+        assertThat(reader.getBytes("missing")).isEmpty();
+        assertThat(reader.getByteBuffer("missing")).isEmpty();
+    }
+
+    @Test
+    void shouldCopyLargeValue_ToFileInChunks() throws Exception {
+        var bytes = randomBytes(3 * KeyValueReader.CHUNK_CHARS + 17);
+        respondWith("blob", bytes);
+        var file = tempDir.resolve("nested/blob.bin");
+
+        assertThat(reader.copyTo("blob", file)).isTrue();
+
+        assertThat(Files.readAllBytes(file)).isEqualTo(bytes);
+        assertThat(tempDir.resolve("nested")).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void shouldDecompressCompressedValues() throws Exception {
+        var bytes = "compressible ".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        respondWith("blob", KeyValueCompression.compress(bytes), KeyValueCompression.GZIP_FLAG);
+        var file = tempDir.resolve("blob.txt");
+
+        assertThat(reader.getBytes("blob")).hasValueSatisfying(value -> assertThat(value).isEqualTo(bytes));
+        assertThat(reader.copyTo("blob", file)).isTrue();
+        assertThat(Files.readAllBytes(file)).isEqualTo(bytes);
+    }
+
+    @Test
+    void shouldNotReplaceFile_WhenCompressedValueExceedsDecompressedLimit() throws Exception {
+        var compressed = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            var zeros = new byte[64 * 1024];
+            for (var written = 0L; written <= KeyValueCompression.MAX_DECOMPRESSED_BYTES; written += zeros.length) {
+                gzip.write(zeros);
+            }
+        }
+        respondWith("bomb", compressed.toByteArray(), KeyValueCompression.GZIP_FLAG);
+        var file = tempDir.resolve("bomb.bin");
+        Files.writeString(file, "previous");
+
+        assertThatThrownBy(() -> reader.copyTo("bomb", file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("exceeds");
+
+        assertThat(file).hasContent("previous");
+        assertThat(tempDir).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void shouldCopyStream_UpToLimit() throws Exception {
+        var file = tempDir.resolve("limited.bin");
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            KeyValueReader.copyLimited(new ByteArrayInputStream(new byte[100]), channel, 100);
+        }
+        assertThat(Files.size(file)).isEqualTo(100);
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            assertThatThrownBy(() -> KeyValueReader.copyLimited(new ByteArrayInputStream(new byte[101]), channel, 100))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Decompressed value exceeds 100 bytes");
+        }
+    }
+
+    @Test
+    void shouldNotWriteFile_WhenKeyDoesNotExist() throws Exception {
+        when(consul.keyValueClient().getConsulResponseWithValue(eq("missing"), any(QueryOptions.class)))
+            .thenReturn(Optional.empty());
+        var file = tempDir.resolve("missing.bin");
+
+        assertThat(reader.copyTo("missing", file)).isFalse();
+        assertThat(file).doesNotExist();
+    }
+}
@@ -0,0 +1,63 @@
+package org.kiwiproject.dropwizard.consul.kv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.kiwiproject.dropwizard.consul.KeyValues.value;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@DisplayName("KeyValueSnapshot")
+class KeyValueSnapshotTest {
+
+    private KeyValueSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = KeyValueSnapshot.of(List.of(
+            value("config/orders/limits/max", "100", 12),
+            value("config/orders/", null, 3),
+            value("config/orders/flags/fast-checkout", "true", 7),
+            value("config/orders/limits/min", "1", 5),
+            value("config/orders/flags/beta", "false", 9),
+            value("config/orders/limitsOld", "x", 4)));
+    }
+
+    @Test
+    void shouldReadKeys() {
+        assertThat(snapshot.get("config/orders/limits/max")).contains("100");
+        assertThat(snapshot.get("config/orders/limits")).isEmpty();
+        assertThat(snapshot.getOrDefault("config/orders/missing", "default")).isEqualTo("default");
+        assertThat(snapshot.containsKey("config/orders/flags/beta")).isTrue();
+    }
+
+    @Test
+    void shouldOmitKeysWithoutValues() {
+        assertThat(snapshot.containsKey("config/orders/")).isFalse();
+        assertThat(snapshot.size()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldUseHighestModifyIndex() {
+        assertThat(snapshot.index()).isEqualTo(12);
+        assertThat(KeyValueSnapshot.empty().index()).isZero();
+    }
+
+    @Test
+    void shouldScanPrefix_InKeyOrder() {
+        var keys = new ArrayList<String>();
+        snapshot.forEachWithPrefix("config/orders/flags/", (key, value) -> keys.add(key));
+
+        assertThat(keys).containsExactly("config/orders/flags/beta", "config/orders/flags/fast-checkout");
+        assertThat(snapshot.getAllWithPrefix("config/orders/limits/")).containsExactly(
+            entry("config/orders/limits/max", "100"),
+            entry("config/orders/limits/min", "1"));
+        assertThat(snapshot.countWithPrefix("config/orders/limits")).isEqualTo(3);
+        assertThat(snapshot.countWithPrefix("")).isEqualTo(5);
+        assertThat(snapshot.countWithPrefix("config/payments/")).isZero();
+    }
+}
@@ -0,0 +1,87 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.snapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LeastOutstandingSelector")
+class LeastOutstandingSelectorTest {
+
+    @Test
+    void shouldReturnMinusOne_WhenThereAreNoInstances() {
+        var selector = new LeastOutstandingSelector(snapshot());
+
+        assertThat(selector.selectIndex()).isEqualTo(-1);
+        selector.release(-1);
+    }
+
+    @Test
+    void shouldTrackOutstandingRequests() {
+        var selector = new LeastOutstandingSelector(snapshot("a"));
+
+        var first = selector.selectIndex();
+        var second = selector.selectIndex();
+        assertThat(selector.outstanding(0)).isEqualTo(2);
+
+        selector.release(first);
+        selector.release(second);
+        selector.release(second);
+        assertThat(selector.outstanding(0)).isZero();
+    }
+
+    @Test
+    void shouldPreferInstanceWithFewerOutstandingRequests() {
+        var selector = new LeastOutstandingSelector(snapshot("a", "b"));
+
+        // with two instances, both are always compared, so the selections alternate while nothing is released
+        var first = selector.selectIndex();
+        var second = selector.selectIndex();
+        assertThat(second).isNotEqualTo(first);
+
+        selector.release(first);
+        assertThat(selector.selectIndex()).isEqualTo(first);
+    }
+
+    @Test
+    void shouldSpreadLoad_WhenRequestsAreNotReleased() {
+        var selector = new LeastOutstandingSelector(snapshot("a", "b", "c", "d"));
+
+        for (var i = 0; i < 400; i++) {
+            selector.selectIndex();
+        }
+
+        for (var i = 0; i < 4; i++) {
+            assertThat(selector.outstanding(i)).isBetween(80, 120);
+        }
+    }
+
+    @Test
+    void shouldCountSelections_WhenExcludingInstance() {
+        var selector = new LeastOutstandingSelector(snapshot("a", "b", "c"));
+
+        var selected = new int[20];
+        for (var i = 0; i < selected.length; i++) {
+            selected[i] = selector.selectIndexExcluding(0);
+            assertThat(selected[i]).isIn(1, 2);
+        }
+        assertThat(selector.outstanding(0)).isZero();
+        assertThat(selector.outstanding(1)).isEqualTo(10);
+        assertThat(selector.outstanding(2)).isEqualTo(10);
+
+        for (var index : selected) {
+            selector.release(index);
+        }
+        assertThat(selector.outstanding(1)).isZero();
+        assertThat(selector.outstanding(2)).isZero();
+    }
+
+    @Test
+    void shouldReturnMinusOne_WhenExcludingOnlyInstance() {
+        var selector = new LeastOutstandingSelector(snapshot("a"));
+
+        assertThat(selector.selectIndexExcluding(0)).isEqualTo(-1);
+        assertThat(selector.outstanding(0)).isZero();
+    }
+}
@@ -0,0 +1,58 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.snapshot;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+
+@DisplayName("LoadBalancer")
+class LoadBalancerTest {
+
+    private ServiceDiscoveryCache cache;
+    private LoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        cache = mock(ServiceDiscoveryCache.class);
+        loadBalancer = new LoadBalancer(cache, "orders", LoadBalancingStrategy.roundRobin());
+    }
+
+    @Test
+    void shouldWatchService() {
+        verify(cache).watch("orders");
+    }
+
+    @Test
+    void shouldReuseSelector_WhileSnapshotIsUnchanged() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a", "b"));
+
+        var selector = loadBalancer.selector();
+
+        assertThat(loadBalancer.selector()).isSameAs(selector);
+    }
+
+    @Test
+    void shouldCreateNewSelector_WhenSnapshotChanges() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a"));
+        var selector = loadBalancer.selector();
+        assertThat(loadBalancer.choose()).extracting("id").isEqualTo("a");
+
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("b"));
+
+        assertThat(loadBalancer.selector()).isNotSameAs(selector);
+        assertThat(loadBalancer.choose()).extracting("id").isEqualTo("b");
+    }
+
+    @Test
+    void shouldReturnNull_WhenThereAreNoInstances() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot());
+
+        assertThat(loadBalancer.choose()).isNull();
+    }
+}
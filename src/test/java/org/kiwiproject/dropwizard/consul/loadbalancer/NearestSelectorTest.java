@@ -0,0 +1,104 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.snapshot;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.coordinate.NetworkCoordinates;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.OptionalDouble;
+
+@DisplayName("NearestSelector")
+class NearestSelectorTest {
+
+    private NetworkCoordinates coordinates;
+
+    @BeforeEach
+    void setUp() {
+        coordinates = mock(NetworkCoordinates.class);
+        when(coordinates.estimateRttMillis("node-a")).thenReturn(OptionalDouble.of(12.0));
+        when(coordinates.estimateRttMillis("node-b")).thenReturn(OptionalDouble.of(0.5));
+        when(coordinates.estimateRttMillis("node-c")).thenReturn(OptionalDouble.of(3.0));
+        when(coordinates.estimateRttMillis("node-d")).thenReturn(OptionalDouble.empty());
+    }
+
+    @Test
+    void shouldSelectNearestInstances_InTurn() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 2).selectorFor(snapshot("a", "b", "c", "d"));
+
+        var selected = new ArrayList<String>();
+        for (var i = 0; i < 4; i++) {
+            selected.add(selector.select().id());
+        }
+
+        assertThat(selected).containsExactly("b", "c", "b", "c");
+        assertThat(selector.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldSelectOtherNearestInstances_WhenExcludingInstance() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 2).selectorFor(snapshot("a", "b", "c", "d"));
+
+        for (var i = 0; i < 4; i++) {
+            assertThat(selector.get(selector.selectIndexExcluding(1)).id()).isEqualTo("c");
+        }
+    }
+
+    @Test
+    void shouldSelectAmongOtherInstances_WhenExcludingOnlyNearestInstance() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 1).selectorFor(snapshot("a", "b", "c"));
+
+        var selected = new ArrayList<String>();
+        for (var i = 0; i < 4; i++) {
+            selected.add(selector.get(selector.selectIndexExcluding(1)).id());
+        }
+
+        assertThat(selected).containsOnly("a", "c");
+    }
+
+    @Test
+    void shouldRankUnknownRttLast() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 1).selectorFor(snapshot("d", "a"));
+
+        assertThat(selector.select()).extracting(ServiceInstance::id).isEqualTo("a");
+    }
+
+    @Test
+    void shouldSelectAmongAllInstances_WhenNoRttIsKnown() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 1).selectorFor(snapshot("d", "e"));
+
+        assertThat(selector.select().id()).isEqualTo("d");
+        assertThat(selector.select().id()).isEqualTo("e");
+    }
+
+    @Test
+    void shouldRerank_WhenCoordinatesAreRefreshed() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 1).selectorFor(snapshot("a", "b"));
+        assertThat(selector.select().id()).isEqualTo("b");
+
+        when(coordinates.estimateRttMillis("node-a")).thenReturn(OptionalDouble.of(0.1));
+        assertThat(selector.select().id()).isEqualTo("b");
+
+        when(coordinates.version()).thenReturn(1L);
+        assertThat(selector.select().id()).isEqualTo("a");
+    }
+
+    @Test
+    void shouldReturnMinusOne_WhenThereAreNoInstances() {
+        var selector = LoadBalancingStrategy.nearest(coordinates, 3).selectorFor(snapshot());
+
+        assertThat(selector.selectIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldRequirePositiveCount() {
+        assertThatIllegalArgumentException().isThrownBy(() -> LoadBalancingStrategy.nearest(coordinates, 0));
+    }
+}
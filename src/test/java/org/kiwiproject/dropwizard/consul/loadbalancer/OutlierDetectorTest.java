@@ -0,0 +1,190 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.instance;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.snapshot;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceDiscoveryCache;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("OutlierDetector")
+class OutlierDetectorTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private ServiceDiscoveryCache cache;
+    private OutlierDetectionFactory config;
+    private OutlierDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        cache = mock(ServiceDiscoveryCache.class);
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"));
+
+        config = new OutlierDetectionFactory();
+        config.setConsecutiveFailures(3);
+        config.setBaseEjectionTime(Duration.seconds(10));
+        config.setMaxEjectionTime(Duration.seconds(30));
+        config.setMaxEjectionPercent(20);
+
+        detector = new OutlierDetector(config, cache, now::get);
+    }
+
+    @Test
+    void shouldNotEject_BeforeConsecutiveFailureThreshold() {
+        var a = instance("a", 1);
+        fail(a, 2);
+        detector.recordSuccess(a);
+        fail(a, 2);
+
+        assertThat(detector.isEjected(a)).isFalse();
+        assertThat(detector.hasEjections()).isFalse();
+    }
+
+    @Test
+    void shouldEject_AfterConsecutiveFailures_UntilEjectionTimeElapses() {
+        var a = instance("a", 1);
+        fail(a, 3);
+
+        assertThat(detector.isEjected(a)).isTrue();
+        assertThat(detector.isEjected(instance("b", 1))).isFalse();
+        assertThat(detector.ejectedCount("orders")).isOne();
+
+        now.addAndGet(10_000);
+        assertThat(detector.isEjected(a)).isFalse();
+        assertThat(detector.hasEjections()).isFalse();
+    }
+
+    @Test
+    void shouldDoubleEjectionTime_UpToMax() {
+        assertThat(detector.ejectionMillis(0)).isEqualTo(10_000);
+        assertThat(detector.ejectionMillis(1)).isEqualTo(20_000);
+        assertThat(detector.ejectionMillis(2)).isEqualTo(30_000);
+        assertThat(detector.ejectionMillis(40)).isEqualTo(30_000);
+
+        var a = instance("a", 1);
+        fail(a, 3);
+        now.addAndGet(10_000);
+        fail(a, 3);
+
+        now.addAndGet(19_999);
+        assertThat(detector.isEjected(a)).isTrue();
+        now.addAndGet(1);
+        assertThat(detector.isEjected(a)).isFalse();
+    }
+
+    @Test
+    void shouldForgiveInstance_AfterSucceedingForMaxEjectionTime() {
+        var a = instance("a", 1);
+        fail(a, 3);
+        now.addAndGet(10_000 + 30_000);
+        detector.recordSuccess(a);
+        fail(a, 3);
+
+        now.addAndGet(10_000);
+        assertThat(detector.isEjected(a)).isFalse();
+    }
+
+    @Test
+    void shouldCapEjectedInstances() {
+        fail(instance("a", 1), 3);
+        fail(instance("b", 1), 3);
+        fail(instance("c", 1), 3);
+
+        assertThat(detector.ejectedCount("orders")).isEqualTo(2);
+        assertThat(detector.isEjected(instance("c", 1))).isFalse();
+    }
+
+    @Test
+    void shouldAllowOneEjection_WhenPercentRoundsDown() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a", "b"));
+        config.setMaxEjectionPercent(10);
+
+        fail(instance("a", 1), 3);
+        fail(instance("b", 1), 3);
+
+        assertThat(detector.ejectedCount("orders")).isOne();
+    }
+
+    @Test
+    void shouldNeverEject_WhenMaxEjectionPercentIsZero() {
+        config.setMaxEjectionPercent(0);
+
+        fail(instance("a", 1), 3);
+
+        assertThat(detector.ejectedCount("orders")).isZero();
+        assertThat(detector.hasEjections()).isFalse();
+    }
+
+    @Test
+    void shouldNotEjectOnlyInstance() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a"));
+        config.setMaxEjectionPercent(100);
+
+        fail(instance("a", 1), 3);
+
+        assertThat(detector.isEjected(instance("a", 1))).isFalse();
+    }
+
+    @Test
+    void shouldStopTrackingRemovedInstances() {
+        fail(instance("a", 1), 3);
+        fail(instance("b", 1), 3);
+        assertThat(detector.ejectedCount("orders")).isEqualTo(2);
+
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("c", "d", "e", "f", "g", "h", "i", "j", "k", "l"));
+        fail(instance("c", 1), 3);
+
+        assertThat(detector.trackedCount()).isOne();
+        assertThat(detector.isEjected(instance("c", 1))).isTrue();
+    }
+
+    @Test
+    void shouldSkipEjectedInstances_InLoadBalancer() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a", "b"));
+        var loadBalancer = new LoadBalancer(cache, "orders", LoadBalancingStrategy.roundRobin(), detector);
+        fail(instance("a", 1), 3);
+
+        for (var i = 0; i < 4; i++) {
+            assertThat(loadBalancer.choose()).extracting(ServiceInstance::id).isEqualTo("b");
+        }
+    }
+
+    @Test
+    void shouldSkipEjectedInstances_WhenExcludingInstance() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a", "b", "c"));
+        config.setMaxEjectionPercent(50);
+        var loadBalancer = new LoadBalancer(cache, "orders", LoadBalancingStrategy.roundRobin(), detector);
+        fail(instance("c", 1), 3);
+
+        var selector = loadBalancer.selector();
+        for (var i = 0; i < 4; i++) {
+            assertThat(selector.get(selector.selectIndexExcluding(0)).id()).isEqualTo("b");
+        }
+    }
+
+    @Test
+    void shouldSelectEjectedInstances_WhenAllAreEjected() {
+        when(cache.getSnapshot("orders")).thenReturn(snapshot("a", "b"));
+        config.setMaxEjectionPercent(100);
+        var loadBalancer = new LoadBalancer(cache, "orders", LoadBalancingStrategy.roundRobin(), detector);
+        fail(instance("a", 1), 3);
+        fail(instance("b", 1), 3);
+
+        assertThat(detector.ejectedCount("orders")).isEqualTo(2);
+        assertThat(loadBalancer.choose()).extracting(ServiceInstance::id).isIn("a", "b");
+    }
+
+    private void fail(ServiceInstance instance, int times) {
+        for (var i = 0; i < times; i++) {
+            detector.recordFailure(instance);
+        }
+    }
+}
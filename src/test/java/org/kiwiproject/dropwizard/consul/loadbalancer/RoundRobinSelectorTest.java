@@ -0,0 +1,65 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.snapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+@DisplayName("RoundRobinSelector")
+class RoundRobinSelectorTest {
+
+    @Test
+    void shouldReturnMinusOne_WhenThereAreNoInstances() {
+        var selector = new RoundRobinSelector(snapshot());
+
+        assertThat(selector.selectIndex()).isEqualTo(-1);
+        assertThat(selector.select()).isNull();
+    }
+
+    @Test
+    void shouldSelectInstancesInTurn() {
+        var selector = new RoundRobinSelector(snapshot("a", "b", "c"));
+
+        var ids = IntStream.range(0, 6)
+            .mapToObj(i -> selector.select())
+            .map(ServiceInstance::id)
+            .toList();
+
+        var order = List.of("a", "b", "c");
+        var first = order.indexOf(ids.get(0));
+        var expected = IntStream.range(0, 6)
+            .mapToObj(i -> order.get((first + i) % 3))
+            .toList();
+        assertThat(ids).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldStartAtRandomInstance() {
+        var firstIds = IntStream.range(0, 100)
+            .mapToObj(i -> new RoundRobinSelector(snapshot("a", "b", "c")).select())
+            .map(ServiceInstance::id)
+            .distinct()
+            .toList();
+
+        assertThat(firstIds).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void shouldSelectOtherInstances_WhenExcludingInstance() {
+        var selector = new RoundRobinSelector(snapshot("a", "b", "c"));
+
+        var indexes = IntStream.range(0, 30)
+            .map(i -> selector.selectIndexExcluding(1))
+            .distinct()
+            .sorted()
+            .toArray();
+
+        assertThat(indexes).containsExactly(0, 2);
+        assertThat(new RoundRobinSelector(snapshot("a")).selectIndexExcluding(0)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,30 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test helpers for creating service snapshots.
+ */
+final class Snapshots {
+
+    private Snapshots() {
+        // utility class
+    }
+
+    static ServiceInstance instance(String id, int weight) {
+        return new ServiceInstance(id, "orders", "node-" + id, "10.0.0.1", 8080, List.of(), Map.of(), weight);
+    }
+
+    static ServiceSnapshot weightedSnapshot(ServiceInstance... instances) {
+        return new ServiceSnapshot("orders", Arrays.asList(instances), 1, 0);
+    }
+
+    static ServiceSnapshot snapshot(String... ids) {
+        return weightedSnapshot(Arrays.stream(ids).map(id -> instance(id, 1)).toArray(ServiceInstance[]::new));
+    }
+}
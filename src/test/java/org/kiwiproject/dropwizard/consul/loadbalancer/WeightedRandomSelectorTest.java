@@ -0,0 +1,81 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.instance;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.snapshot;
+import static org.kiwiproject.dropwizard.consul.loadbalancer.Snapshots.weightedSnapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("WeightedRandomSelector")
+class WeightedRandomSelectorTest {
+
+    private static final int SELECTIONS = 100_000;
+
+    @Test
+    void shouldReturnMinusOne_WhenThereAreNoInstances() {
+        var selector = new WeightedRandomSelector(snapshot());
+
+        assertThat(selector.selectIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldSelectInProportionToWeights() {
+        var selector = new WeightedRandomSelector(weightedSnapshot(instance("a", 1), instance("b", 3)));
+
+        var counts = new int[2];
+        for (var i = 0; i < SELECTIONS; i++) {
+            counts[selector.selectIndex()]++;
+        }
+
+        assertThat(counts[1] / (double) SELECTIONS).isCloseTo(0.75, within(0.02));
+    }
+
+    @RepeatedTest(20)
+    void shouldNeverSelectZeroWeightInstances() {
+        var selector = new WeightedRandomSelector(weightedSnapshot(instance("a", 0), instance("b", 2), instance("c", 0)));
+
+        for (var i = 0; i < 1_000; i++) {
+            assertThat(selector.select()).isNotNull()
+                .extracting("id").isEqualTo("b");
+        }
+    }
+
+    @Test
+    void shouldSelectUniformly_WhenAllWeightsAreZero() {
+        var selector = new WeightedRandomSelector(weightedSnapshot(instance("a", 0), instance("b", 0)));
+
+        var counts = new int[2];
+        for (var i = 0; i < SELECTIONS; i++) {
+            counts[selector.selectIndex()]++;
+        }
+
+        assertThat(counts[0] / (double) SELECTIONS).isCloseTo(0.5, within(0.02));
+    }
+
+    @Test
+    void shouldSelectInProportionToRemainingWeights_WhenExcludingInstance() {
+        var selector = new WeightedRandomSelector(weightedSnapshot(instance("a", 1), instance("b", 6), instance("c", 3)));
+
+        var counts = new int[3];
+        for (var i = 0; i < SELECTIONS; i++) {
+            counts[selector.selectIndexExcluding(1)]++;
+        }
+
+        assertThat(counts[1]).isZero();
+        assertThat(counts[2] / (double) SELECTIONS).isCloseTo(0.75, within(0.02));
+    }
+
+    @Test
+    void shouldSelectOtherInstances_WhenOnlyExcludedInstanceHasWeight() {
+        var selector = new WeightedRandomSelector(weightedSnapshot(instance("a", 0), instance("b", 2), instance("c", 0)));
+
+        for (var i = 0; i < 100; i++) {
+            assertThat(selector.selectIndexExcluding(1)).isIn(0, 2);
+        }
+        assertThat(new WeightedRandomSelector(snapshot("a")).selectIndexExcluding(0)).isEqualTo(-1);
+    }
+}
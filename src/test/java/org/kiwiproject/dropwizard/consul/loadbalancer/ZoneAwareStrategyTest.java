@@ -0,0 +1,68 @@
+package org.kiwiproject.dropwizard.consul.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.dropwizard.consul.LocalityFactory;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceInstance;
+import org.kiwiproject.dropwizard.consul.discovery.ServiceSnapshot;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("LoadBalancingStrategy.zoneAware")
+class ZoneAwareStrategyTest {
+
+    private final LoadBalancingStrategy strategy =
+        LoadBalancingStrategy.zoneAware("zone-a", 2, LoadBalancingStrategy.roundRobin());
+
+    @Test
+    void shouldSelectOnlyLocalInstances_WhenEnoughAreHealthy() {
+        var selector = strategy.selectorFor(snapshot(
+            instance("a1", "zone-a"), instance("b1", "zone-b"), instance("a2", "zone-a"), instance("x1", null)));
+
+        assertThat(selector.size()).isEqualTo(2);
+        assertThat(selectedIds(selector)).containsExactlyInAnyOrder("a1", "a2");
+    }
+
+    @Test
+    void shouldSpillToAllInstances_WhenTooFewLocalInstancesAreHealthy() {
+        var selector = strategy.selectorFor(snapshot(
+            instance("a1", "zone-a"), instance("b1", "zone-b"), instance("b2", "zone-b")));
+
+        assertThat(selector.size()).isEqualTo(3);
+        assertThat(selectedIds(selector)).containsExactlyInAnyOrder("a1", "b1", "b2");
+    }
+
+    @Test
+    void shouldReturnMinusOne_WhenThereAreNoInstances() {
+        assertThat(strategy.selectorFor(snapshot()).selectIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldRequirePositiveMinLocalInstances() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+            LoadBalancingStrategy.zoneAware("zone-a", 0, LoadBalancingStrategy.roundRobin()));
+    }
+
+    private static HashSet<String> selectedIds(InstanceSelector selector) {
+        var ids = new HashSet<String>();
+        for (var i = 0; i < selector.size(); i++) {
+            ids.add(selector.select().id());
+        }
+        return ids;
+    }
+
+    private static ServiceSnapshot snapshot(ServiceInstance... instances) {
+        return new ServiceSnapshot("orders", List.of(instances), 1, 0);
+    }
+
+    private static ServiceInstance instance(String id, String zone) {
+        var meta = zone == null ? Map.<String, String>of() : Map.of(LocalityFactory.ZONE_META_KEY, zone);
+        return new ServiceInstance(id, "orders", "node-" + id, "10.0.0.1", 8080, List.of(), meta,
+            ServiceInstance.DEFAULT_WEIGHT);
+    }
+}
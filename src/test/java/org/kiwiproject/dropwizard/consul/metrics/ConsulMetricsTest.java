@@ -0,0 +1,141 @@
+package org.kiwiproject.dropwizard.consul.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.ConsulException;
+import org.kiwiproject.consul.ConsulResponse;
+
+import java.math.BigInteger;
+import java.util.Optional;
+
+@DisplayName("ConsulMetrics")
+class ConsulMetricsTest {
+
+    private MetricRegistry registry;
+    private ConsulMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MetricRegistry();
+        metrics = new ConsulMetrics(registry);
+    }
+
+    @Test
+    void shouldTimeSuccessfulCalls() {
+        var result = metrics.time("kv.get", () -> {
+            assertThat(gaugeValue("consul.kv.get.inFlight")).isEqualTo(1L);
+            return "value";
+        });
+
+        assertThat(result).isEqualTo("value");
+        assertThat(registry.timer("consul.kv.get.requests").getCount()).isOne();
+        assertThat(registry.meter("consul.kv.get.errors").getCount()).isZero();
+        assertThat(gaugeValue("consul.kv.get.inFlight")).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldMarkErrors_AndRethrow() {
+        assertThatThrownBy(() -> metrics.time("agent.ping", () -> {
+            throw new ConsulException("agent unavailable");
+        })).isExactlyInstanceOf(ConsulException.class);
+
+        assertThat(registry.timer("consul.agent.ping.requests").getCount()).isOne();
+        assertThat(registry.meter("consul.agent.ping.errors").getCount()).isOne();
+        assertThat(gaugeValue("consul.agent.ping.inFlight")).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldRecordResponseHeaders() {
+        ConsulResponse<?> response = mock(ConsulResponse.class);
+        when(response.getIndex()).thenReturn(BigInteger.valueOf(42));
+        when(response.getLastContact()).thenReturn(15L);
+        when(response.isKnownLeader()).thenReturn(true);
+
+        metrics.recordResponse(response);
+
+        assertThat(gaugeValue("consul.index")).isEqualTo(42L);
+        assertThat(gaugeValue("consul.lastContactMillis")).isEqualTo(15L);
+        assertThat(gaugeValue("consul.knownLeader")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldShareState_WithOtherInstancesOnSameRegistry() {
+        var other = new ConsulMetrics(registry);
+        ConsulResponse<?> response = mock(ConsulResponse.class);
+        when(response.getIndex()).thenReturn(BigInteger.valueOf(7));
+
+        other.recordResponse(response);
+        other.time("kv.get", () -> "value");
+
+        assertThat(gaugeValue("consul.index")).isEqualTo(7L);
+        assertThat(registry.timer("consul.kv.get.requests").getCount()).isOne();
+    }
+
+    @Test
+    void shouldRecordCacheHits() {
+        var response = cachedResponse(true, 7L);
+
+        metrics.recordResponse("health.service", response);
+        metrics.recordResponse("health.service", response);
+
+        assertThat(registry.meter("consul.health.service.cache.hits").getCount()).isEqualTo(2);
+        assertThat(registry.meter("consul.health.service.cache.misses").getCount()).isZero();
+        assertThat(registry.histogram("consul.health.service.cache.ageSeconds").getSnapshot().getMax()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldRecordCacheMisses() {
+        metrics.recordResponse("health.service", cachedResponse(false, null));
+
+        assertThat(registry.meter("consul.health.service.cache.misses").getCount()).isOne();
+        assertThat(registry.histogram("consul.health.service.cache.ageSeconds").getCount()).isZero();
+    }
+
+    @Test
+    void shouldNotRecordCacheMetrics_ForUncachedResponses() {
+        ConsulResponse<?> response = mock(ConsulResponse.class);
+        when(response.getCacheResponseInfo()).thenReturn(Optional.empty());
+
+        metrics.recordResponse("kv.get", response);
+
+        assertThat(registry.getMeters()).doesNotContainKeys("consul.kv.get.cache.hits", "consul.kv.get.cache.misses");
+        assertThat(gaugeValue("consul.knownLeader")).isEqualTo(0L);
+    }
+
+    private static ConsulResponse<?> cachedResponse(boolean hit, Long ageSeconds) {
+        var cacheInfo = mock(ConsulResponse.CachedResponseInfo.class);
+        when(cacheInfo.isCacheHit()).thenReturn(hit);
+        when(cacheInfo.getAgeInSeconds()).thenReturn(ageSeconds);
+
+        ConsulResponse<?> response = mock(ConsulResponse.class);
+        when(response.getCacheResponseInfo()).thenReturn(Optional.of(cacheInfo));
+        return response;
+    }
+
+    @Test
+    void shouldMeterClientEvents() {
+        metrics.onHttpRequestSuccess("agent", "ping", "");
+        metrics.onHttpRequestSuccess("agent", "ping", "");
+        metrics.onHttpRequestFailure("keyvalue", "getValue", "", new RuntimeException("oops"));
+
+        assertThat(registry.meter("consul.client.agent.ping.success").getCount()).isEqualTo(2);
+        assertThat(registry.meter("consul.client.keyvalue.getValue.failure").getCount()).isOne();
+    }
+
+    @Test
+    void shouldProvideNoopInstance() {
+        assertThat(ConsulMetrics.noop().time("agent.ping", () -> "pong")).isEqualTo("pong");
+    }
+
+    private Object gaugeValue(String name) {
+        return ((Gauge<?>) registry.getGauges().get(name)).getValue();
+    }
+}
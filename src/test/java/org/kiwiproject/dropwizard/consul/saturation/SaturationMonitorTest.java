@@ -0,0 +1,133 @@
+package org.kiwiproject.dropwizard.consul.saturation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.AgentClient;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.NotRegisteredException;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("SaturationMonitor")
+class SaturationMonitorTest {
+
+    private static final String SERVICE_ID = "test-service-id";
+    private static final String CHECK_ID = "saturation:" + SERVICE_ID;
+
+    private AgentClient agentClient;
+    private AtomicLong now;
+    private SaturationMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        agentClient = mock(AgentClient.class);
+        var consul = mock(Consul.class);
+        when(consul.agentClient()).thenReturn(agentClient);
+
+        var config = new SaturationMonitorFactory();
+        config.setUtilizationHighWatermark(0.9);
+        config.setUtilizationLowWatermark(0.5);
+        config.setQueueSizeHighWatermark(100);
+        config.setQueueSizeLowWatermark(10);
+        config.setOverloadSamples(2);
+        config.setRecoverySamples(3);
+        config.setCheckTtl(Duration.seconds(30));
+
+        now = new AtomicLong(1_000_000L);
+        monitor = new SaturationMonitor(consul, SERVICE_ID, config, mock(ScheduledExecutorService.class), now::get);
+    }
+
+    @Test
+    void shouldUseCheckIdDerivedFromServiceId() {
+        assertThat(monitor.getCheckId()).isEqualTo(CHECK_ID);
+        assertThat(SaturationMonitor.checkId("other")).isEqualTo("saturation:other");
+    }
+
+    @Test
+    void shouldReportPassing_OnFirstSample() throws NotRegisteredException {
+        monitor.sample(0.1, 0, 0);
+
+        assertThat(monitor.isOverloaded()).isFalse();
+        verify(agentClient).passCheck(CHECK_ID, SaturationMonitor.OK_NOTE);
+    }
+
+    @Test
+    void shouldNotReport_WhenNothingChanged_AndHeartbeatNotDue() throws NotRegisteredException {
+        monitor.sample(0.1, 0, 0);
+        monitor.sample(0.2, 1, 0);
+        monitor.sample(0.3, 2, 0);
+
+        verify(agentClient, times(1)).passCheck(anyString(), anyString());
+    }
+
+    @Test
+    void shouldHeartbeat_WhenOneThirdOfTtlHasElapsed() throws NotRegisteredException {
+        monitor.sample(0.1, 0, 0);
+        now.addAndGet(10_000L);
+        monitor.sample(0.1, 0, 0);
+
+        verify(agentClient, times(2)).passCheck(CHECK_ID, SaturationMonitor.OK_NOTE);
+    }
+
+    @Test
+    void shouldRequireConsecutiveSamples_BeforeMarkingOverloaded() throws NotRegisteredException {
+        monitor.sample(0.95, 0, 0);
+        assertThat(monitor.isOverloaded()).isFalse();
+
+        monitor.sample(0.1, 0, 0);
+        monitor.sample(0.1, 500, 0);
+        assertThat(monitor.isOverloaded()).isFalse();
+
+        monitor.sample(0.1, 500, 0);
+        assertThat(monitor.isOverloaded()).isTrue();
+        verify(agentClient).warnCheck(CHECK_ID, SaturationMonitor.OVERLOADED_NOTE);
+    }
+
+    @Test
+    void shouldRecover_OnlyAfterConsecutiveSamplesBelowLowWatermarks() throws NotRegisteredException {
+        monitor.sample(0.95, 0, 0);
+        monitor.sample(0.95, 0, 0);
+        assertThat(monitor.isOverloaded()).isTrue();
+
+        // between the watermarks, so still overloaded (hysteresis)
+        monitor.sample(0.7, 0, 0);
+        monitor.sample(0.7, 0, 0);
+        monitor.sample(0.7, 0, 0);
+        assertThat(monitor.isOverloaded()).isTrue();
+
+        monitor.sample(0.4, 5, 0);
+        monitor.sample(0.4, 5, 0);
+        monitor.sample(0.4, 50, 0);
+        assertThat(monitor.isOverloaded()).isTrue();
+
+        monitor.sample(0.4, 5, 0);
+        monitor.sample(0.4, 5, 0);
+        monitor.sample(0.4, 5, 0);
+        assertThat(monitor.isOverloaded()).isFalse();
+
+        verify(agentClient, times(2)).passCheck(CHECK_ID, SaturationMonitor.OK_NOTE);
+    }
+
+    @Test
+    void shouldKeepReportPending_WhenCheckIsNotRegisteredYet() throws NotRegisteredException {
+        doThrow(new NotRegisteredException("not registered"))
+            .when(agentClient).passCheck(CHECK_ID, SaturationMonitor.OK_NOTE);
+
+        monitor.sample(0.1, 0, 0);
+
+        assertThat(monitor.isReportPending()).isTrue();
+        verify(agentClient, never()).warnCheck(anyString(), anyString());
+    }
+}
@@ -0,0 +1,67 @@
+package org.kiwiproject.dropwizard.consul.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.option.PutOptions;
+import org.kiwiproject.dropwizard.consul.kv.KeyValueCompression;
+import org.kiwiproject.dropwizard.consul.metrics.ConsulMetrics;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("CompressedKeyValueTask")
+class CompressedKeyValueTaskTest {
+
+    private Consul consul;
+    private CompressedKeyValueTask task;
+    private StringWriter stringWriter;
+    private PrintWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        consul = mock(Consul.class, RETURNS_DEEP_STUBS);
+        when(consul.keyValueClient().putValue(any(), any(byte[].class), anyLong(), any(PutOptions.class)))
+            .thenReturn(true);
+
+        stringWriter = new StringWriter();
+        writer = new PrintWriter(stringWriter);
+
+        task = new CompressedKeyValueTask(consul, ConsulMetrics.noop());
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentException_WhenKeyIsMissing() {
+        var parameters = Map.<String, List<String>>of();
+
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> task.execute(parameters, "{}", writer))
+            .withMessage("Parameter \"key\" not found");
+
+        assertThat(stringWriter).asString().isEmpty();
+    }
+
+    @Test
+    void shouldWriteCompressedValue() {
+        var body = "{\"enabled\": true}".repeat(100);
+
+        task.execute(Map.of("key", List.of("config/orders")), body, writer);
+
+        verify(consul.keyValueClient()).putValue(eq("config/orders"), any(byte[].class),
+            eq(KeyValueCompression.GZIP_FLAG), any(PutOptions.class));
+        assertThat(stringWriter).asString().startsWith("OK: 1700 bytes compressed to ");
+    }
+}
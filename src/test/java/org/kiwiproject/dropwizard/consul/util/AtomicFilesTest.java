@@ -0,0 +1,59 @@
+package org.kiwiproject.dropwizard.consul.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@DisplayName("AtomicFiles")
+class AtomicFilesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteFile_CreatingItsDirectory() throws IOException {
+        var file = tempDir.resolve("nested/value.txt");
+
+        AtomicFiles.write(file, channel -> channel.write(ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(file).hasContent("hello");
+    }
+
+    @Test
+    void shouldReplaceExistingFile() throws IOException {
+        var file = tempDir.resolve("value.txt");
+        Files.writeString(file, "previous, longer content");
+
+        AtomicFiles.write(file, channel -> channel.write(ByteBuffer.wrap("new".getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(file).hasContent("new");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void shouldKeepExistingFile_AndDeleteTemporaryFile_WhenWriterFails() throws IOException {
+        var file = tempDir.resolve("value.txt");
+        Files.writeString(file, "previous");
+
+        assertThatThrownBy(() -> AtomicFiles.write(file, channel -> {
+            channel.write(ByteBuffer.wrap("partial".getBytes(StandardCharsets.UTF_8)));
+            throw new IOException("disk full");
+        })).isInstanceOf(IOException.class).hasMessage("disk full");
+
+        assertThat(file).hasContent("previous");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.kiwiproject.dropwizard.consul.watch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.ConsulException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("WatchEngine")
+class WatchEngineTest {
+
+    private WatchEngineFactory config;
+    private WatchEngine engine;
+    private List<BigInteger> queriedIndexes;
+    private List<Integer> queriedWaits;
+    private List<QueryResult<String>> results;
+
+    @BeforeEach
+    void setUp() {
+        config = new WatchEngineFactory();
+        config.setMinQueryInterval(Duration.milliseconds(100));
+        config.setRetryInterval(Duration.milliseconds(100));
+        config.setMaxRetryInterval(Duration.seconds(1));
+        engine = new WatchEngine(config, () -> 0.5);
+
+        queriedIndexes = new ArrayList<>();
+        queriedWaits = new ArrayList<>();
+        results = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    private QueryResult<String> query(BigInteger index, int waitSeconds) {
+        queriedIndexes.add(index);
+        queriedWaits.add(waitSeconds);
+        return results.remove(0);
+    }
+
+    private void respondWith(String value, long index) {
+        results.add(new QueryResult<>(value, BigInteger.valueOf(index)));
+    }
+
+    private long poll(String key) {
+        return engine.poll(engine.getWatch(key));
+    }
+
+    @Test
+    void shouldNotifyListeners_WhenIndexChanges() {
+        var values = new ArrayList<String>();
+        engine.watch("key", this::query, values::add);
+
+        respondWith("a", 10);
+        poll("key");
+        respondWith("a", 10);
+        poll("key");
+        respondWith("b", 11);
+        poll("key");
+
+        assertThat(values).containsExactly("a", "b");
+        assertThat(queriedIndexes).containsExactly(null, BigInteger.valueOf(10), BigInteger.valueOf(10));
+    }
+
+    @Test
+    void shouldShareOneWatch_ForIdenticalKeys() {
+        var first = new ArrayList<String>();
+        var second = new ArrayList<String>();
+        engine.watch("key", this::query, first::add);
+        respondWith("a", 10);
+        poll("key");
+
+        engine.<String>watch("key", (index, waitSeconds) -> {
+            throw new IllegalStateException("must not run a second query");
+        }, second::add);
+        respondWith("b", 11);
+        poll("key");
+
+        assertThat(engine.watchCount()).isOne();
+        assertThat(first).containsExactly("a", "b");
+        assertThat(second).describedAs("should receive the current value right away").containsExactly("a", "b");
+        assertThat(queriedIndexes).hasSize(2);
+    }
+
+    @Test
+    void shouldUseWatchWait_WhileThereAreNoMoreWatchesThanConcurrentQueries() {
+        config.setMaxConcurrentQueries(2);
+        engine.watch("first", this::query, value -> { });
+        engine.watch("second", this::query, Duration.seconds(8), config.getRetryPolicy(), value -> { });
+
+        respondWith("a", 10);
+        poll("first");
+        respondWith("b", 10);
+        poll("second");
+
+        assertThat(queriedWaits).containsExactly(5, 8);
+    }
+
+    @Test
+    void shouldShortenWaits_WhenThereAreMoreWatchesThanConcurrentQueries() {
+        config.setMaxConcurrentQueries(2);
+        engine.watch("first", this::query, value -> { });
+        engine.watch("second", this::query, value -> { });
+        engine.watch("third", this::query, value -> { });
+
+        respondWith("a", 10);
+        poll("third");
+
+        assertThat(engine.watchCount()).isEqualTo(3);
+        assertThat(queriedWaits).containsExactly(3);
+    }
+
+    @Test
+    void shouldShareWaitInProportion_ButWaitAtLeastOneSecond() {
+        config.setMaxConcurrentQueries(64);
+
+        assertThat(engine.waitSeconds(5, 1)).isEqualTo(5);
+        assertThat(engine.waitSeconds(5, 64)).isEqualTo(5);
+        assertThat(engine.waitSeconds(5, 128)).isEqualTo(2);
+        assertThat(engine.waitSeconds(30, 240)).isEqualTo(8);
+        assertThat(engine.waitSeconds(5, 1_000)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunAllWatches_WhenThereAreMoreThanConcurrentQueries() throws InterruptedException {
+        config.setMaxConcurrentQueries(2);
+        var latch = new CountDownLatch(6);
+        var indexes = new ConcurrentHashMap<String, AtomicInteger>();
+        for (var i = 0; i < 6; i++) {
+            var key = "key-" + i;
+            engine.<String>watch(key, (index, waitSeconds) -> {
+                var count = indexes.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                return new QueryResult<>(key, BigInteger.valueOf(count));
+            }, value -> latch.countDown());
+        }
+
+        engine.start();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(indexes).hasSize(6);
+    }
+
+    @Test
+    void shouldCancelWatch_WhenLastSubscriptionIsClosed() {
+        var firstSubscription = engine.watch("key", this::query, value -> { });
+        var secondSubscription = engine.watch("key", this::query, value -> { });
+
+        firstSubscription.close();
+        assertThat(engine.isWatched("key")).isTrue();
+
+        secondSubscription.close();
+        secondSubscription.close();
+        assertThat(engine.isWatched("key")).isFalse();
+        assertThat(engine.watchCount()).isZero();
+    }
+
+    @Test
+    void shouldResetIndex_WhenItGoesBackwards() {
+        engine.watch("key", this::query, value -> { });
+
+        respondWith("a", 10);
+        poll("key");
+        respondWith("b", 5);
+        poll("key");
+        respondWith("b", 5);
+        poll("key");
+
+        assertThat(queriedIndexes).containsExactly(null, BigInteger.valueOf(10), null);
+    }
+
+    @Test
+    void shouldKeepNotifyingOtherListeners_WhenListenerFails() {
+        var values = new ArrayList<String>();
+        engine.watch("key", this::query, value -> {
+            throw new IllegalStateException("oops");
+        });
+        engine.watch("key", this::query, values::add);
+
+        respondWith("a", 10);
+        poll("key");
+
+        assertThat(values).containsExactly("a");
+    }
+
+    @Test
+    void shouldBackOff_WhenQueryFails() {
+        engine.<String>watch("key", (index, waitSeconds) -> {
+            throw new ConsulException("unavailable");
+        }, value -> { });
+
+        // the retry policy's delay, reduced by the jitter (a quarter of 0.5)
+        assertThat(poll("key")).isEqualTo(88);
+        assertThat(poll("key")).isEqualTo(175);
+        assertThat(poll("key")).isEqualTo(350);
+    }
+
+    @Test
+    void shouldUseGivenRetryPolicy() {
+        engine.<String>watch("key", (index, waitSeconds) -> {
+            throw new ConsulException("unavailable");
+        }, Duration.seconds(5), new RetryPolicy(1_000, 2_000), value -> { });
+
+        assertThat(poll("key")).isEqualTo(875);
+    }
+
+    @Test
+    void shouldRateLimitQueries_ThatReturnTooSoon() {
+        assertThat(engine.delayAfterSuccessMillis(100)).isZero();
+        assertThat(engine.delayAfterSuccessMillis(5_000)).isZero();
+
+        // the remainder plus jitter of up to half of the minimum interval
+        assertThat(engine.delayAfterSuccessMillis(0)).isEqualTo(125);
+        assertThat(engine.delayAfterSuccessMillis(60)).isEqualTo(65);
+    }
+
+    @Test
+    void shouldRunWatches_OnceStarted() throws InterruptedException {
+        var queries = new AtomicInteger();
+        var values = new CopyOnWriteArrayList<String>();
+        var latch = new CountDownLatch(2);
+        engine.watch("key", (index, waitSeconds) -> {
+            var count = queries.incrementAndGet();
+            return new QueryResult<>("value-" + count, BigInteger.valueOf(count));
+        }, value -> {
+            values.add(value);
+            latch.countDown();
+        });
+        assertThat(queries).hasValue(0);
+
+        engine.start();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(values).startsWith("value-1", "value-2");
+    }
+
+    @Nested
+    class NextIndex {
+
+        @Test
+        void shouldUseNewIndex_WhenItMovesForward() {
+            assertThat(WatchEngine.nextIndex(BigInteger.ONE, BigInteger.TWO)).isEqualTo(BigInteger.TWO);
+            assertThat(WatchEngine.nextIndex(null, BigInteger.TWO)).isEqualTo(BigInteger.TWO);
+        }
+
+        @Test
+        void shouldReset_WhenIndexGoesBackwards() {
+            assertThat(WatchEngine.nextIndex(BigInteger.TEN, BigInteger.TWO)).isNull();
+        }
+
+        @Test
+        void shouldReset_WhenIndexIsNotPositive() {
+            assertThat(WatchEngine.nextIndex(BigInteger.TEN, BigInteger.ZERO)).isNull();
+            assertThat(WatchEngine.nextIndex(BigInteger.TEN, null)).isNull();
+        }
+    }
+
+    @Nested
+    class RetryPolicyDelays {
+
+        @Test
+        void shouldBackOffExponentially_UpToMaxRetryInterval() {
+            var retryPolicy = new RetryPolicy(100, 1_000);
+
+            assertThat(retryPolicy.delayMillis(1)).isEqualTo(100);
+            assertThat(retryPolicy.delayMillis(2)).isEqualTo(200);
+            assertThat(retryPolicy.delayMillis(4)).isEqualTo(800);
+            assertThat(retryPolicy.delayMillis(5)).isEqualTo(1_000);
+            assertThat(retryPolicy.delayMillis(100)).isEqualTo(1_000);
+        }
+
+        @Test
+        void shouldRejectMaxRetryInterval_LessThanRetryInterval() {
+            assertThatThrownBy(() -> new RetryPolicy(1_000, 100)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}